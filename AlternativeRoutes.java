@@ -0,0 +1,332 @@
+package homework1;
+
+import java.util.*;
+import java.util.stream.IntStream;
+
+/**
+ * AlternativeRoutes finds the shortest Route between two points of a road
+ * network, and a few alternatives to it, e.g. to let a driver choose among
+ * two or three ways. AlternativeRoutes are immutable and can be used by many
+ * threads at once.
+ * <p>
+ * Loopless routes are listed in order of length with Yen's algorithm: each
+ * next path deviates from a shorter one at some node, its spur node, after
+ * which it avoids the edges that the shorter paths with the same root take
+ * next. The spur searches of each path are independent and run in parallel.
+ * <p>
+ * On real networks the next few shortest paths differ from the shortest one
+ * only by a block or two, so alternatives are found with penalties: once a
+ * route is chosen, its edges weigh more, and the paths under the new
+ * weights are listed with Yen's algorithm until one shares at most
+ * maxOverlap of its length with every route chosen before it.
+ * <p>
+ * Searches run over a RoadGraph of the network; each thread keeps its own
+ * GraphSearch.
+ */
+public class AlternativeRoutes {
+
+    /**
+     * The default share of the length of an alternative, in [0, 1], that it
+     * may have in common with any route chosen before it.
+     */
+    public static final double DEFAULT_MAX_OVERLAP = 0.5;
+
+    /**
+     * The number of paths examined for each alternative before the search
+     * gives up.
+     */
+    public static final int PATHS_PER_ROUTE = 16;
+
+    /**
+     * The factor by which the edges of a chosen route weigh more in the
+     * search for the next alternative.
+     */
+    public static final double PENALTY = 2;
+
+    private final RoadGraph graph;
+    private final double[] lengths;
+    private final double maxOverlap;
+    private final ThreadLocal<GraphSearch> searches;
+
+    // Abs. Function:
+    //   represents the road network of the segments of graph, in which the
+    //   alternatives to a route share at most maxOverlap of their length
+    //   with it
+
+    // Rep. Invariant:
+    //   graph != null && 0 <= maxOverlap <= 1
+    //   lengths[e] = graph.length(e) for every edge e
+
+    private void checkRep() {
+        assert graph != null : "Graph must not be null";
+        assert lengths.length == graph.edgeCount() : "Every edge must have a length";
+        assert maxOverlap >= 0 && maxOverlap <= 1 : "Invalid overlap";
+    }
+
+    /**
+     * Constructs a new AlternativeRoutes with the default overlap.
+     *
+     * @requires network != null && network contains no null elements
+     * @effects Constructs an AlternativeRoutes over the segments of network,
+     * whose alternatives share at most DEFAULT_MAX_OVERLAP of their length
+     * with each other.
+     */
+    public AlternativeRoutes(GeoSegment[] network) {
+        this(network, DEFAULT_MAX_OVERLAP);
+    }
+
+    /**
+     * Constructs a new AlternativeRoutes.
+     *
+     * @requires network != null && network contains no null elements &&
+     * 0 <= maxOverlap <= 1
+     * @effects Constructs an AlternativeRoutes over the segments of network,
+     * whose alternatives share at most maxOverlap of their length with each
+     * other.
+     */
+    public AlternativeRoutes(GeoSegment[] network, double maxOverlap) {
+        this.graph = new RoadGraph(network);
+        this.lengths = new double[graph.edgeCount()];
+        for (int e = 0; e < lengths.length; e++) {
+            lengths[e] = graph.length(e);
+        }
+        this.maxOverlap = maxOverlap;
+        this.searches = ThreadLocal.withInitial(() -> new GraphSearch(graph));
+        checkRep();
+    }
+
+
+    /**
+     * Finds the shortest route between two points.
+     *
+     * @requires from != null && to != null
+     * @return the shortest Route from from to to along the network, or null
+     * if there is none, e.g. if from = to.
+     */
+    public Route shortest(GeoPoint from, GeoPoint to) {
+        List<Route> routes = shortestPaths(from, to, 1);
+        return routes.isEmpty() ? null : routes.getFirst();
+    }
+
+
+    /**
+     * Finds the k shortest loopless routes between two points.
+     *
+     * @requires from != null && to != null && k >= 1
+     * @return the min(k, m) shortest of the m Routes from from to to along
+     * the network that pass through no point twice, shortest first; routes
+     * of equal length are in a fixed but unspecified order.
+     */
+    public List<Route> shortestPaths(GeoPoint from, GeoPoint to, int k) {
+        checkRep();
+        List<Route> routes = new ArrayList<>();
+        Yen yen = yen(from, to, lengths);
+        for (Path path; routes.size() < k && yen != null && (path = yen.next()) != null; ) {
+            routes.add(graph.toRoute(path.edges));
+        }
+        return routes;
+    }
+
+
+    /**
+     * Finds the shortest route between two points and its alternatives.
+     *
+     * @requires from != null && to != null && k >= 1
+     * @return at most k loopless Routes from from to to along the network,
+     * shortest first, of which the first is the shortest route and no two
+     * are equal or share more than maxOverlap of the length of the shorter
+     * one. The list
+     * is empty if there is no route, e.g. if from = to.
+     */
+    public List<Route> find(GeoPoint from, GeoPoint to, int k) {
+        checkRep();
+        List<Route> routes = new ArrayList<>();
+        double[] weights = lengths.clone();
+        List<Chosen> chosen = new ArrayList<>();    // the routes found
+        while (routes.size() < k) {
+            Yen yen = yen(from, to, weights);
+            Path found = null;
+            for (int n = 0; n < PATHS_PER_ROUTE && yen != null && found == null; n++) {
+                Path path = yen.next();
+                if (path == null) {
+                    break;
+                }
+                if (diverse(path, chosen)) {
+                    found = path;
+                }
+            }
+            if (found == null) {
+                break;
+            }
+            BitSet edges = new BitSet(graph.edgeCount());
+            for (int e : found.edges) {
+                edges.set(e);
+            }
+            for (int e = edges.nextSetBit(0); e >= 0; e = edges.nextSetBit(e + 1)) {
+                weights[e] *= PENALTY;
+            }
+            chosen.add(new Chosen(edges, found.edges.length, found.length));
+            routes.add(graph.toRoute(found.edges));
+        }
+        routes.sort(Comparator.comparingDouble(Route::getLength));
+        return routes;
+    }
+
+    // Lists the loopless paths from from to to under weights; null if there
+    // is no such path.
+    private Yen yen(GeoPoint from, GeoPoint to, double[] weights) {
+        int source = graph.nodeOf(from);
+        int target = graph.nodeOf(to);
+        if (source < 0 || target < 0 || source == target) {
+            return null;
+        }
+        return new Yen(weights, source, target);
+    }
+
+    // Tells whether path shares at most maxOverlap of its length, and of the
+    // length of each chosen route, with each of the chosen routes, and is
+    // none of them, even if maxOverlap = 1.
+    private boolean diverse(Path path, List<Chosen> chosen) {
+        for (Chosen route : chosen) {
+            double shared = 0;
+            int sharedEdges = 0;
+            for (int e : path.edges) {
+                if (route.edges.get(e)) {
+                    shared += lengths[e];
+                    sharedEdges++;
+                }
+            }
+            if (sharedEdges == path.edges.length && sharedEdges == route.size) {
+                return false;
+            }
+            if (shared > maxOverlap * Math.min(path.length, route.length)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    // A route chosen by find: its edges, as a set since it has no loops,
+    // their number and its length.
+    private static final class Chosen {
+        final BitSet edges;
+        final int size;
+        final double length;
+
+        Chosen(BitSet edges, int size, double length) {
+            this.edges = edges;
+            this.size = size;
+            this.length = length;
+        }
+    }
+
+
+    /**
+     * Yen's algorithm: the loopless paths from source to target under
+     * weights, in order of weight, one per call to next.
+     */
+    private final class Yen {
+        private final double[] weights;
+        private final int source;
+        private final int target;
+        private final List<Path> paths = new ArrayList<>();   // the paths returned, in order
+        private final PriorityQueue<Path> candidates = new PriorityQueue<>();
+        private final Set<Path> seen = new HashSet<>();
+
+        Yen(double[] weights, int source, int target) {
+            this.weights = weights;
+            this.source = source;
+            this.target = target;
+        }
+
+        // The next path, or null if there are no more.
+        Path next() {
+            if (paths.isEmpty()) {
+                int[] edges = searches.get().path(weights, source, target, new int[0], new int[0]);
+                Path first = edges == null ? null : new Path(graph, weights, source, edges);
+                if (first != null) {
+                    seen.add(first);
+                    paths.add(first);
+                }
+                return first;
+            }
+            // deviate from the last path at each of its nodes but the
+            // target; paths is not modified until all the searches are done
+            Path last = paths.getLast();
+            List<Path> spurs = IntStream.range(0, last.edges.length).parallel()
+                    .mapToObj(i -> spur(last, i))
+                    .filter(Objects::nonNull)
+                    .toList();
+            for (Path spur : spurs) {
+                if (seen.add(spur)) {
+                    candidates.add(spur);
+                }
+            }
+            Path next = candidates.poll();
+            if (next != null) {
+                paths.add(next);
+            }
+            return next;
+        }
+
+        // The shortest path that follows the first i edges of last and then
+        // avoids both the nodes before them and the edges that the paths
+        // with the same root take next; null if there is none.
+        private Path spur(Path last, int i) {
+            int[] banned = paths.stream()
+                    .filter(p -> p.edges.length > i && Arrays.equals(p.edges, 0, i, last.edges, 0, i))
+                    .mapToInt(p -> p.edges[i])
+                    .toArray();
+            int[] tail = searches.get().path(weights, last.nodes[i], target, Arrays.copyOf(last.nodes, i), banned);
+            if (tail == null) {
+                return null;
+            }
+            int[] edges = new int[i + tail.length];
+            System.arraycopy(last.edges, 0, edges, 0, i);
+            System.arraycopy(tail, 0, edges, i, tail.length);
+            return new Path(graph, weights, source, edges);
+        }
+    }
+
+
+    /**
+     * A path of the graph: its edges, the nodes they pass through (from the
+     * source to the target), its length and its weight. Paths are ordered by
+     * weight, then by their edges, so that the order of paths of equal
+     * weight does not depend on the order in which they were found.
+     */
+    private static final class Path implements Comparable<Path> {
+        final int[] edges;
+        final int[] nodes;
+        final double length;
+        final double weight;
+
+        Path(RoadGraph graph, double[] weights, int source, int[] edges) {
+            this.edges = edges;
+            this.nodes = new int[edges.length + 1];
+            nodes[0] = source;
+            double sum = 0;
+            double weightSum = 0;
+            for (int i = 0; i < edges.length; i++) {
+                nodes[i + 1] = graph.target(edges[i]);
+                sum += graph.length(edges[i]);
+                weightSum += weights[edges[i]];
+            }
+            this.length = sum;
+            this.weight = weightSum;
+        }
+
+        public int compareTo(Path other) {
+            int c = Double.compare(weight, other.weight);
+            return c != 0 ? c : Arrays.compare(edges, other.edges);
+        }
+
+        public boolean equals(Object o) {
+            return o instanceof Path other && Arrays.equals(edges, other.edges);
+        }
+
+        public int hashCode() {
+            return Arrays.hashCode(edges);
+        }
+    }
+}
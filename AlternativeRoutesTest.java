@@ -0,0 +1,187 @@
+package homework1;
+
+import java.util.*;
+
+public class AlternativeRoutesTest {
+
+	private static final double tolerance = 0.0001;
+
+	private GeoSegment[] mGrid;
+	private GeoSegment[] mOrganic;
+
+
+	public AlternativeRoutesTest() {
+		mGrid = new RoadNetworkGenerator(21).grid(25, 25, 1000);
+		mOrganic = new RoadNetworkGenerator(22).organic(40, 40, 1000);
+	}
+
+
+	boolean same(double x, double y) {
+		return ((y >= x-tolerance) && (y <= x+tolerance));
+	}
+
+
+	public void show(String str) {
+		System.out.println();
+		System.out.println("***** " + str + " *****");
+	}
+
+
+	public void show(String str, boolean ok) {
+		if (ok)
+			System.out.print("v ");
+		else
+			System.out.print("x ");
+		System.out.println(str);
+	}
+
+
+	// The length of the shortest route between two points, by a plain
+	// Dijkstra over a SegmentIndex; infinite if there is none.
+	static double shortestLength(GeoSegment[] network, GeoPoint from, GeoPoint to) {
+		SegmentIndex index = new SegmentIndex(network);
+		Map<GeoPoint, Double> distances = new HashMap<>();
+		PriorityQueue<Map.Entry<GeoPoint, Double>> queue = new PriorityQueue<>(Map.Entry.comparingByValue());
+		distances.put(from, 0.0);
+		queue.add(Map.entry(from, 0.0));
+		while (!queue.isEmpty()) {
+			Map.Entry<GeoPoint, Double> head = queue.poll();
+			if (head.getValue() > distances.get(head.getKey()))
+				continue;
+			if (head.getKey().equals(to))
+				return head.getValue();
+			for (GeoSegment gs : index.startingAt(head.getKey())) {
+				double d = head.getValue() + gs.getLength();
+				Double old = distances.get(gs.getP2());
+				if (old == null || d < old) {
+					distances.put(gs.getP2(), d);
+					queue.add(Map.entry(gs.getP2(), d));
+				}
+			}
+		}
+		return Double.POSITIVE_INFINITY;
+	}
+
+
+	// The lengths of all loopless routes between two points, shortest first.
+	static List<Double> allLengths(GeoSegment[] network, GeoPoint from, GeoPoint to) {
+		List<Double> lengths = new ArrayList<>();
+		Set<GeoPoint> visited = new HashSet<>();
+		visited.add(from);
+		walk(new SegmentIndex(network), from, to, 0, visited, lengths);
+		Collections.sort(lengths);
+		return lengths;
+	}
+
+
+	private static void walk(SegmentIndex index, GeoPoint at, GeoPoint to, double length,
+			Set<GeoPoint> visited, List<Double> lengths) {
+		if (at.equals(to)) {
+			lengths.add(length);
+			return;
+		}
+		for (GeoSegment gs : index.startingAt(at)) {
+			if (visited.add(gs.getP2())) {
+				walk(index, gs.getP2(), to, length + gs.getLength(), visited, lengths);
+				visited.remove(gs.getP2());
+			}
+		}
+	}
+
+
+	static boolean loopless(Route route) {
+		Set<GeoPoint> points = new HashSet<>();
+		points.add(route.getStart());
+		for (Iterator<GeoSegment> it = route.getGeoSegments(); it.hasNext(); )
+			if (!points.add(it.next().getP2()))
+				return false;
+		return true;
+	}
+
+
+	// The share of the length of a that lies on segments of b.
+	static double overlap(Route a, Route b) {
+		Set<GeoSegment> segments = new HashSet<>(RouteTest.toList(b.getGeoSegments()));
+		double shared = 0;
+		for (GeoSegment gs : RouteTest.toList(a.getGeoSegments()))
+			if (segments.contains(gs))
+				shared += gs.getLength();
+		return shared / a.getLength();
+	}
+
+
+	public void test() {
+		show("shortest()");
+		AlternativeRoutes grid = new AlternativeRoutes(mGrid);
+		GeoPoint from = mGrid[0].getP1();
+		GeoPoint to = mGrid[mGrid.length - 1].getP1();
+		Route best = grid.shortest(from, to);
+		show("Shortest route joins the points", best.getStart().equals(from) && best.getEnd().equals(to));
+		show("Shortest route is shortest", same(best.getLength(), shortestLength(mGrid, from, to)));
+		show("No route from a point to itself", grid.shortest(from, from) == null);
+		show("No route from outside the network", grid.shortest(new GeoPoint(0, 0), to) == null);
+
+		show("find()");
+		List<Route> routes = grid.find(from, to, 3);
+		show("Three alternatives on a grid", routes.size() == 3);
+		show("First alternative is the shortest route", routes.get(0).equals(best));
+		boolean ordered = true;
+		boolean valid = true;
+		boolean diverse = true;
+		for (int i = 0; i < routes.size(); i++) {
+			Route r = routes.get(i);
+			valid &= r.getStart().equals(from) && r.getEnd().equals(to) && loopless(r);
+			if (i > 0)
+				ordered &= routes.get(i - 1).getLength() <= r.getLength();
+			for (int j = 0; j < i; j++)
+				diverse &= overlap(r, routes.get(j)) <= AlternativeRoutes.DEFAULT_MAX_OVERLAP + tolerance;
+		}
+		show("Alternatives join the points without loops", valid);
+		show("Alternatives are shortest first", ordered);
+		show("Alternatives overlap little", diverse);
+		show("Alternatives are deterministic", routes.equals(grid.find(from, to, 3)));
+		String directions = new DrivingRouteFormatter().computeDirections(routes.get(1), 0);
+		show("Alternatives can be formatted", !directions.isEmpty());
+		show("No alternatives from a point to itself", grid.find(from, from, 3).isEmpty());
+		GeoPoint start = new GeoPoint(32100000, 35100000);
+		GeoPoint middle = new GeoPoint(32100000, 35101000);
+		GeoPoint end = new GeoPoint(32100000, 35102000);
+		GeoSegment[] single = {new GeoSegment("Only", start, middle), new GeoSegment("Only", middle, end)};
+		List<Route> once = new AlternativeRoutes(single, 1.0).find(start, end, 3);
+		show("Full overlap allowed does not repeat a route", once.size() == 1);
+
+		show("shortestPaths()");
+		GeoSegment[] small = new RoadNetworkGenerator(23).grid(3, 4, 1000);
+		GeoPoint a = small[0].getP1();
+		GeoPoint b = small[small.length - 1].getP1();
+		List<Double> expected = allLengths(small, a, b);
+		List<Route> all = new AlternativeRoutes(small).shortestPaths(a, b, 1000);
+		show("Every loopless route is found", all.size() == expected.size());
+		boolean lengths = true;
+		for (int i = 0; i < all.size() && i < expected.size(); i++)
+			lengths &= same(all.get(i).getLength(), expected.get(i)) && loopless(all.get(i));
+		show("Loopless routes are found in order of length", lengths);
+		show("Loopless routes are distinct", new HashSet<>(all).size() == all.size());
+
+		show("throughput");
+		AlternativeRoutes organic = new AlternativeRoutes(mOrganic);
+		Random random = new Random(24);
+		long begin = System.nanoTime();
+		int queries = 50;
+		int found = 0;
+		for (int q = 0; q < queries; q++) {
+			GeoPoint p = mOrganic[random.nextInt(mOrganic.length)].getP1();
+			GeoPoint r = mOrganic[random.nextInt(mOrganic.length)].getP1();
+			found += organic.find(p, r, 3).size();
+		}
+		double seconds = (System.nanoTime() - begin) / 1e9;
+		System.out.printf("  %d queries, %d routes in %.3f s (%.1f ms per query)%n",
+			queries, found, seconds, seconds * 1000 / queries);
+	}
+
+
+	public static void main(String[] args) {
+		AlternativeRoutesTest alternativeTest = new AlternativeRoutesTest();
+		alternativeTest.test();
+	}
+}
@@ -51,11 +51,22 @@ public class DrivingRouteFormatter extends RouteFormatter {
      * @requires 0 <= origHeading < 360
      **/
     public String computeLine(GeoFeature geoFeature, double origHeading) {
-        String turn = getTurnString(origHeading, geoFeature.getStartHeading());
-        String name = geoFeature.getName();
+        StringBuilder line = new StringBuilder();
+        appendLine(line, TurnType.classify(origHeading, geoFeature.getStartHeading()),
+                geoFeature.getName(), geoFeature.getLength());
+        return line.toString();
+    }
+
+    @Override
+    protected boolean appendsLines() {
+        return true;
+    }
+
+    @Override
+    protected void appendLine(StringBuilder out, TurnType turn, String name, double length) {
         DecimalFormat df = new DecimalFormat("0.0");
-        String distance = df.format(geoFeature.getLength());
-        return String.format("%s onto %s and go %s kilometers.\n", turn, name, distance);
+        out.append(turn.getText()).append(" onto ").append(name)
+                .append(" and go ").append(df.format(length)).append(" kilometers.\n");
     }
 
 }
@@ -0,0 +1,243 @@
+package homework1;
+
+/**
+ * A GeoBox is a rectangular region on the earth, bounded by two latitudes
+ * and two longitudes. GeoBoxes are immutable. Both bounds are inclusive,
+ * so a box may consist of a single point.
+ * <p>
+ * GeoBoxes are used as bounding boxes of GeoFeatures and Routes, and as
+ * regions (e.g. city zones or a map viewport) against which those are
+ * tested.
+ * <p>
+ * <b>The following fields are used in the specification:</b>
+ * <pre>
+ *   minLatitude : integer    // southern bound, in millionths of degrees
+ *   minLongitude : integer   // western bound, in millionths of degrees
+ *   maxLatitude : integer    // northern bound, in millionths of degrees
+ *   maxLongitude : integer   // eastern bound, in millionths of degrees
+ * </pre>
+ **/
+public class GeoBox {
+    private final int minLatitude;
+    private final int minLongitude;
+    private final int maxLatitude;
+    private final int maxLongitude;
+
+    // Abs. Function:
+    //   represents the set of points (lat, lon) such that
+    //   minLatitude <= lat <= maxLatitude && minLongitude <= lon <= maxLongitude
+
+    // Rep. Invariant:
+    //   minLatitude <= maxLatitude && minLongitude <= maxLongitude
+
+    private void checkRep() {
+        assert minLatitude <= maxLatitude : "Latitude bounds out of order";
+        assert minLongitude <= maxLongitude : "Longitude bounds out of order";
+    }
+
+    /**
+     * Constructs a new GeoBox.
+     *
+     * @requires minLatitude <= maxLatitude && minLongitude <= maxLongitude
+     * @effects Constructs a GeoBox with the given bounds, in millionths of
+     * degrees.
+     **/
+    public GeoBox(int minLatitude, int minLongitude, int maxLatitude, int maxLongitude) {
+        this.minLatitude = minLatitude;
+        this.minLongitude = minLongitude;
+        this.maxLatitude = maxLatitude;
+        this.maxLongitude = maxLongitude;
+        checkRep();
+    }
+
+    /**
+     * Constructs the bounding box of a segment.
+     *
+     * @requires gs != null
+     * @return the smallest GeoBox that contains gs.p1 and gs.p2.
+     **/
+    public static GeoBox of(GeoSegment gs) {
+        GeoPoint a = gs.getP1();
+        GeoPoint b = gs.getP2();
+        return new GeoBox(Math.min(a.getLatitude(), b.getLatitude()), Math.min(a.getLongitude(), b.getLongitude()),
+                Math.max(a.getLatitude(), b.getLatitude()), Math.max(a.getLongitude(), b.getLongitude()));
+    }
+
+    /**
+     * Returns the southern bound of this.
+     *
+     * @return the minimal latitude of this, in millionths of degrees.
+     */
+    public int getMinLatitude() {
+        checkRep();
+        return minLatitude;
+    }
+
+    /**
+     * Returns the western bound of this.
+     *
+     * @return the minimal longitude of this, in millionths of degrees.
+     */
+    public int getMinLongitude() {
+        checkRep();
+        return minLongitude;
+    }
+
+    /**
+     * Returns the northern bound of this.
+     *
+     * @return the maximal latitude of this, in millionths of degrees.
+     */
+    public int getMaxLatitude() {
+        checkRep();
+        return maxLatitude;
+    }
+
+    /**
+     * Returns the eastern bound of this.
+     *
+     * @return the maximal longitude of this, in millionths of degrees.
+     */
+    public int getMaxLongitude() {
+        checkRep();
+        return maxLongitude;
+    }
+
+    /**
+     * Computes the smallest box containing this and another box.
+     *
+     * @requires other != null
+     * @return the smallest GeoBox that contains both this and other.
+     */
+    public GeoBox union(GeoBox other) {
+        checkRep();
+        if (this.contains(other)) {
+            return this;
+        }
+        GeoBox union = new GeoBox(Math.min(minLatitude, other.minLatitude), Math.min(minLongitude, other.minLongitude),
+                Math.max(maxLatitude, other.maxLatitude), Math.max(maxLongitude, other.maxLongitude));
+        checkRep();
+        return union;
+    }
+
+    /**
+     * Tells whether a point lies in this.
+     *
+     * @requires p != null
+     * @return true iff p lies in this or on its border.
+     */
+    public boolean contains(GeoPoint p) {
+        checkRep();
+        boolean inside = p.getLatitude() >= minLatitude && p.getLatitude() <= maxLatitude
+                && p.getLongitude() >= minLongitude && p.getLongitude() <= maxLongitude;
+        checkRep();
+        return inside;
+    }
+
+    /**
+     * Tells whether a box lies in this.
+     *
+     * @requires other != null
+     * @return true iff every point of other lies in this.
+     */
+    public boolean contains(GeoBox other) {
+        checkRep();
+        boolean inside = other.minLatitude >= minLatitude && other.maxLatitude <= maxLatitude
+                && other.minLongitude >= minLongitude && other.maxLongitude <= maxLongitude;
+        checkRep();
+        return inside;
+    }
+
+    /**
+     * Tells whether this and another box have a common point.
+     *
+     * @requires other != null
+     * @return true iff some point lies in both this and other.
+     */
+    public boolean intersects(GeoBox other) {
+        checkRep();
+        boolean common = other.minLatitude <= maxLatitude && other.maxLatitude >= minLatitude
+                && other.minLongitude <= maxLongitude && other.maxLongitude >= minLongitude;
+        checkRep();
+        return common;
+    }
+
+    /**
+     * Clips a segment to this box (Liang-Barsky).
+     *
+     * @requires gs != null && t != null && t.length >= 2
+     * @modifies t
+     * @effects if some point of gs lies in this, sets t[0] <= t[1] to the
+     * fractions of the way from gs.p1 to gs.p2 at which gs enters and leaves
+     * this.
+     * @return true iff some point of gs lies in this.
+     */
+    boolean clip(GeoSegment gs, double[] t) {
+        checkRep();
+        double x0 = gs.getP1().getLongitude();
+        double y0 = gs.getP1().getLatitude();
+        double dx = gs.getP2().getLongitude() - x0;
+        double dy = gs.getP2().getLatitude() - y0;
+        double[] p = { -dx, dx, -dy, dy };
+        double[] q = { x0 - minLongitude, maxLongitude - x0, y0 - minLatitude, maxLatitude - y0 };
+        double enter = 0;
+        double leave = 1;
+        for (int i = 0; i < 4; i++) {
+            if (p[i] == 0) {
+                if (q[i] < 0) {
+                    return false;   // parallel to this side and outside of it
+                }
+            } else {
+                double r = q[i] / p[i];
+                if (p[i] < 0) {
+                    enter = Math.max(enter, r);
+                } else {
+                    leave = Math.min(leave, r);
+                }
+            }
+        }
+        if (enter > leave) {
+            return false;
+        }
+        t[0] = enter;
+        t[1] = leave;
+        checkRep();
+        return true;
+    }
+
+    /**
+     * Compares the specified Object with this GeoBox for equality.
+     *
+     * @return o != null && (o instanceof GeoBox) && o and this have the
+     * same bounds
+     **/
+    public boolean equals(Object o) {
+        checkRep();
+        if (this == o) return true;
+        if (!(o instanceof GeoBox other)) return false;
+        checkRep();
+        return minLatitude == other.minLatitude && minLongitude == other.minLongitude
+                && maxLatitude == other.maxLatitude && maxLongitude == other.maxLongitude;
+    }
+
+    /**
+     * Returns a hash code value for this GeoBox.
+     *
+     * @return a hash code value for this GeoBox.
+     **/
+    public int hashCode() {
+        checkRep();
+        return 31 * (31 * (31 * minLatitude + minLongitude) + maxLatitude) + maxLongitude;
+    }
+
+    /**
+     * Returns a string representation of this GeoBox.
+     *
+     * @return a string representation of this GeoBox.
+     **/
+    public String toString() {
+        checkRep();
+        return "GeoBox[" + new GeoPoint(minLatitude, minLongitude) + ", "
+                + new GeoPoint(maxLatitude, maxLongitude) + "]";
+    }
+}
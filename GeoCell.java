@@ -0,0 +1,366 @@
+package homework1;
+
+import java.util.Arrays;
+
+/**
+ * GeoCell encodes GeoPoints into cell keys that preserve locality: points
+ * that are close to each other on the earth mostly have keys that are close
+ * to each other as numbers or strings.
+ * <p>
+ * Two encodings are provided:
+ * <ul>
+ * <li>Morton (Z-order) keys interleave the bits of the latitude and the
+ * longitude of a point, both offset to be non-negative, into a single
+ * <tt>long</tt>. The encoding is exact and reversible. A bounding box can
+ * be decomposed into a few ranges of keys, which allows range scans over
+ * data sorted by key.</li>
+ * <li>Geohashes are the standard base-32 strings, in which each character
+ * refines the cell of the previous ones.</li>
+ * </ul>
+ * In addition, arrays of GeoPoints and GeoSegments can be reordered by
+ * Morton key, so that spatially close data is close in memory, which makes
+ * scans over spatial cells cheaper.
+ */
+public final class GeoCell {
+
+    private static final String BASE32 = "0123456789bcdefghjkmnpqrstuvwxyz";
+
+    /**
+     * Maximal number of characters in a geohash. 12 characters identify a
+     * cell of a few centimeters, finer than a millionth of a degree.
+     */
+    public static final int MAX_GEOHASH_LENGTH = 12;
+
+    private GeoCell() {
+    }
+
+
+    /**
+     * Computes the Morton key of a point.
+     *
+     * @requires p != null
+     * @return the Morton key of (p.latitude, p.longitude).
+     */
+    public static long mortonKey(GeoPoint p) {
+        return mortonKey(p.getLatitude(), p.getLongitude());
+    }
+
+
+    /**
+     * Computes the Morton key of a location.
+     *
+     * @requires MIN_LATITUDE <= latitude <= MAX_LATITUDE &&
+     * MIN_LONGITUDE <= longitude <= MAX_LONGITUDE
+     * @return a non-negative key whose even bits are those of
+     * latitude - MIN_LATITUDE and whose odd bits are those of
+     * longitude - MIN_LONGITUDE.
+     */
+    public static long mortonKey(int latitude, int longitude) {
+        return spread(latitude - GeoPoint.MIN_LATITUDE) | (spread(longitude - GeoPoint.MIN_LONGITUDE) << 1);
+    }
+
+
+    /**
+     * Decodes a Morton key.
+     *
+     * @requires key = mortonKey(p) for some GeoPoint p
+     * @return a GeoPoint equal to p.
+     */
+    public static GeoPoint fromMortonKey(long key) {
+        return new GeoPoint(compact(key) + GeoPoint.MIN_LATITUDE, compact(key >>> 1) + GeoPoint.MIN_LONGITUDE);
+    }
+
+    // Spreads the 32 bits of x to the even bits of a long.
+    private static long spread(int x) {
+        long v = x & 0xffffffffL;
+        v = (v | (v << 16)) & 0x0000ffff0000ffffL;
+        v = (v | (v << 8)) & 0x00ff00ff00ff00ffL;
+        v = (v | (v << 4)) & 0x0f0f0f0f0f0f0f0fL;
+        v = (v | (v << 2)) & 0x3333333333333333L;
+        v = (v | (v << 1)) & 0x5555555555555555L;
+        return v;
+    }
+
+    // Gathers the even bits of a long into an int; the inverse of spread.
+    private static int compact(long v) {
+        v &= 0x5555555555555555L;
+        v = (v | (v >>> 1)) & 0x3333333333333333L;
+        v = (v | (v >>> 2)) & 0x0f0f0f0f0f0f0f0fL;
+        v = (v | (v >>> 4)) & 0x00ff00ff00ff00ffL;
+        v = (v | (v >>> 8)) & 0x0000ffff0000ffffL;
+        v = (v | (v >>> 16)) & 0x00000000ffffffffL;
+        return (int) v;
+    }
+
+
+    /**
+     * Decomposes a bounding box into ranges of Morton keys. Every point in
+     * the box has a key in one of the ranges. If the box cannot be covered
+     * exactly by maxRanges ranges, the ranges also cover some points outside
+     * the box, which callers should filter out.
+     *
+     * @requires minLat <= maxLat && minLon <= maxLon && maxRanges >= 1, and
+     * all four coordinates are valid GeoPoint coordinates
+     * @return an array r of 2k elements, k <= maxRanges, such that the
+     * ranges [r[2i], r[2i+1]] are sorted, disjoint and non-adjacent, and
+     * every point in [minLat, maxLat] x [minLon, maxLon] has its Morton key
+     * in one of them.
+     */
+    public static long[] ranges(int minLat, int minLon, int maxLat, int maxLon, int maxRanges) {
+        long u0 = minLat - (long) GeoPoint.MIN_LATITUDE;
+        long u1 = maxLat - (long) GeoPoint.MIN_LATITUDE;
+        long v0 = minLon - (long) GeoPoint.MIN_LONGITUDE;
+        long v1 = maxLon - (long) GeoPoint.MIN_LONGITUDE;
+
+        // Refine the quadtree one level at a time. Cells inside the box are
+        // final; cells that cross its border are split while the number of
+        // cells stays within budget, and emitted whole otherwise.
+        long[] out = new long[16];
+        int outSize = 0;
+        long[] level = { 0 };       // Morton prefixes of the crossing cells
+        int levelSize = 1;
+        for (int bits = 32; levelSize > 0; bits--) {
+            // cells of this level have sides of 2^bits in (u, v)
+            boolean split = bits > 0 && outSize / 2 + levelSize * 4 <= maxRanges;
+            long[] next = split ? new long[levelSize * 4] : null;
+            int nextSize = 0;
+            for (int k = 0; k < levelSize; k++) {
+                long prefix = level[k];
+                long cu = (long) compact(prefix) << bits;
+                long cv = (long) compact(prefix >>> 1) << bits;
+                long side = 1L << bits;
+                if (cu > u1 || cu + side - 1 < u0 || cv > v1 || cv + side - 1 < v0) {
+                    continue;   // disjoint
+                }
+                boolean inside = cu >= u0 && cu + side - 1 <= u1 && cv >= v0 && cv + side - 1 <= v1;
+                if (inside || !split) {
+                    if (outSize + 2 > out.length) {
+                        out = Arrays.copyOf(out, out.length * 2);
+                    }
+                    // the root cell (bits == 32) covers all keys
+                    long lo = bits == 32 ? 0 : prefix << (2 * bits);
+                    out[outSize++] = lo;
+                    out[outSize++] = bits == 32 ? Long.MAX_VALUE : lo | ((1L << (2 * bits)) - 1);
+                } else {
+                    for (long child = 0; child < 4; child++) {
+                        next[nextSize++] = (prefix << 2) | child;
+                    }
+                }
+            }
+            level = next;
+            levelSize = nextSize;
+        }
+        return merge(out, outSize);
+    }
+
+    // Sorts ranges and merges the adjacent ones.
+    private static long[] merge(long[] ranges, int size) {
+        int n = size / 2;
+        long[] los = new long[n];
+        for (int i = 0; i < n; i++) {
+            los[i] = ranges[2 * i];
+        }
+        int[] order = order(los);
+        long[] result = new long[size];
+        int m = 0;
+        for (int k = 0; k < n; k++) {
+            long lo = ranges[2 * order[k]];
+            long hi = ranges[2 * order[k] + 1];
+            if (m > 0 && lo == result[m - 1] + 1) {
+                result[m - 1] = hi;
+            } else {
+                result[m++] = lo;
+                result[m++] = hi;
+            }
+        }
+        return Arrays.copyOf(result, m);
+    }
+
+
+    /**
+     * Computes the geohash of a point.
+     *
+     * @requires p != null && 1 <= length <= MAX_GEOHASH_LENGTH
+     * @return the geohash of p with the given number of characters.
+     */
+    public static String geohash(GeoPoint p, int length) {
+        double lat = p.getLatitude() / 1_000_000.0;
+        double lon = p.getLongitude() / 1_000_000.0;
+        double latLo = -90, latHi = 90, lonLo = -180, lonHi = 180;
+        char[] hash = new char[length];
+        boolean even = true;    // geohash bits start with longitude
+        for (int i = 0; i < length; i++) {
+            int ch = 0;
+            for (int b = 0; b < 5; b++) {
+                if (even) {
+                    double mid = (lonLo + lonHi) / 2;
+                    if (lon >= mid) {
+                        ch = (ch << 1) | 1;
+                        lonLo = mid;
+                    } else {
+                        ch <<= 1;
+                        lonHi = mid;
+                    }
+                } else {
+                    double mid = (latLo + latHi) / 2;
+                    if (lat >= mid) {
+                        ch = (ch << 1) | 1;
+                        latLo = mid;
+                    } else {
+                        ch <<= 1;
+                        latHi = mid;
+                    }
+                }
+                even = !even;
+            }
+            hash[i] = BASE32.charAt(ch);
+        }
+        return new String(hash);
+    }
+
+
+    /**
+     * Decodes a geohash.
+     *
+     * @requires hash is a valid geohash of 1 to MAX_GEOHASH_LENGTH characters
+     * @return the GeoPoint nearest to the center of the cell of hash.
+     * @throws IllegalArgumentException if hash contains a character that is
+     * not a geohash digit.
+     */
+    public static GeoPoint decodeGeohash(String hash) {
+        double latLo = -90, latHi = 90, lonLo = -180, lonHi = 180;
+        boolean even = true;
+        for (int i = 0; i < hash.length(); i++) {
+            int ch = BASE32.indexOf(Character.toLowerCase(hash.charAt(i)));
+            if (ch < 0) {
+                throw new IllegalArgumentException("Invalid geohash character: " + hash.charAt(i));
+            }
+            for (int b = 4; b >= 0; b--) {
+                boolean bit = ((ch >> b) & 1) != 0;
+                if (even) {
+                    double mid = (lonLo + lonHi) / 2;
+                    if (bit) lonLo = mid; else lonHi = mid;
+                } else {
+                    double mid = (latLo + latHi) / 2;
+                    if (bit) latLo = mid; else latHi = mid;
+                }
+                even = !even;
+            }
+        }
+        return new GeoPoint((int) Math.round((latLo + latHi) / 2 * 1_000_000),
+                (int) Math.round((lonLo + lonHi) / 2 * 1_000_000));
+    }
+
+
+    /**
+     * Computes the order of an array of keys.
+     *
+     * @requires keys != null && all keys are non-negative
+     * @return a permutation r of [0, keys.length) such that
+     * keys[r[0]] <= keys[r[1]] <= ..., in which equal keys keep their
+     * relative order.
+     */
+    public static int[] order(long[] keys) {
+        int n = keys.length;
+        int[] order = new int[n];
+        for (int i = 0; i < n; i++) {
+            order[i] = i;
+        }
+        long[] k = keys.clone();
+        long[] kTmp = new long[n];
+        int[] oTmp = new int[n];
+        long all = 0;
+        for (long key : k) {
+            all |= key;
+        }
+        // LSD radix sort, one byte per pass, skipping bytes that are all zero
+        for (int shift = 0; shift < 64 && (all >>> shift) != 0; shift += 8) {
+            int[] count = new int[257];
+            for (int i = 0; i < n; i++) {
+                count[(int) ((k[i] >>> shift) & 0xff) + 1]++;
+            }
+            for (int b = 0; b < 256; b++) {
+                count[b + 1] += count[b];
+            }
+            for (int i = 0; i < n; i++) {
+                int pos = count[(int) ((k[i] >>> shift) & 0xff)]++;
+                kTmp[pos] = k[i];
+                oTmp[pos] = order[i];
+            }
+            long[] swapK = k; k = kTmp; kTmp = swapK;
+            int[] swapO = order; order = oTmp; oTmp = swapO;
+        }
+        return order;
+    }
+
+
+    /**
+     * Computes the order of points by Morton key.
+     *
+     * @requires points != null && points contains no null elements
+     * @return a permutation r of [0, points.length) such that points[r[0]],
+     * points[r[1]], ... are sorted by Morton key.
+     */
+    public static int[] cellOrder(GeoPoint[] points) {
+        long[] keys = new long[points.length];
+        for (int i = 0; i < points.length; i++) {
+            keys[i] = mortonKey(points[i]);
+        }
+        return order(keys);
+    }
+
+
+    /**
+     * Computes the order of segments by the Morton key of their midpoints.
+     *
+     * @requires segments != null && segments contains no null elements
+     * @return a permutation r of [0, segments.length) such that
+     * segments[r[0]], segments[r[1]], ... are sorted by the Morton keys of
+     * their midpoints.
+     */
+    public static int[] cellOrder(GeoSegment[] segments) {
+        long[] keys = new long[segments.length];
+        for (int i = 0; i < segments.length; i++) {
+            GeoPoint p1 = segments[i].getP1();
+            GeoPoint p2 = segments[i].getP2();
+            int lat = (int) (((long) p1.getLatitude() + p2.getLatitude()) >> 1);
+            int lon = (int) (((long) p1.getLongitude() + p2.getLongitude()) >> 1);
+            keys[i] = mortonKey(lat, lon);
+        }
+        return order(keys);
+    }
+
+
+    /**
+     * Reorders points so that spatially close points are close in the array.
+     *
+     * @requires points != null && points contains no null elements
+     * @modifies points
+     * @effects sorts points by Morton key; points with equal keys keep
+     * their relative order.
+     */
+    public static void sortByCell(GeoPoint[] points) {
+        permute(points, cellOrder(points));
+    }
+
+
+    /**
+     * Reorders segments so that spatially close segments are close in the
+     * array.
+     *
+     * @requires segments != null && segments contains no null elements
+     * @modifies segments
+     * @effects sorts segments by the Morton keys of their midpoints;
+     * segments with equal keys keep their relative order.
+     */
+    public static void sortByCell(GeoSegment[] segments) {
+        permute(segments, cellOrder(segments));
+    }
+
+    private static <T> void permute(T[] a, int[] order) {
+        T[] copy = a.clone();
+        for (int i = 0; i < a.length; i++) {
+            a[i] = copy[order[i]];
+        }
+    }
+}
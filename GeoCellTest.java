@@ -0,0 +1,144 @@
+package homework1;
+
+import java.util.*;
+
+public class GeoCellTest {
+
+	private Random mRandom = new Random(7);
+
+
+	public void show(String str) {
+		System.out.println();
+		System.out.println("***** " + str + " *****");
+	}
+
+
+	public void show(String str, boolean ok) {
+		if (ok)
+			System.out.print("v ");
+		else
+			System.out.print("x ");
+		System.out.println(str);
+	}
+
+
+	GeoPoint randomPoint(int lat, int lon, int spread) {
+		return new GeoPoint(lat + mRandom.nextInt(spread), lon + mRandom.nextInt(spread));
+	}
+
+
+	static boolean inRanges(long key, long[] ranges) {
+		for (int i = 0; i < ranges.length; i += 2)
+			if (key >= ranges[i] && key <= ranges[i + 1])
+				return true;
+		return false;
+	}
+
+
+	public void test() {
+		GeoPoint ziv = new GeoPoint(32783098,35014528);
+
+		show("mortonKey()");
+		boolean roundTrip = GeoCell.fromMortonKey(GeoCell.mortonKey(ziv)).equals(ziv);
+		for (int i = 0; i < 1000; i++) {
+			GeoPoint p = new GeoPoint(GeoPoint.MIN_LATITUDE + mRandom.nextInt(GeoPoint.MAX_LATITUDE * 2),
+				GeoPoint.MIN_LONGITUDE + mRandom.nextInt(GeoPoint.MAX_LONGITUDE * 2));
+			roundTrip &= GeoCell.fromMortonKey(GeoCell.mortonKey(p)).equals(p);
+		}
+		show("Keys decode to the same point", roundTrip);
+		show("Corners have non-negative keys",
+			GeoCell.mortonKey(GeoPoint.MIN_LATITUDE, GeoPoint.MIN_LONGITUDE) == 0
+			&& GeoCell.mortonKey(GeoPoint.MAX_LATITUDE, GeoPoint.MAX_LONGITUDE) > 0);
+		show("Keys of a 2x2 block are consecutive",
+			GeoCell.mortonKey(1, 0) - GeoCell.mortonKey(0, 0) == 1
+			&& GeoCell.mortonKey(0, 1) - GeoCell.mortonKey(0, 0) == 2
+			&& GeoCell.mortonKey(1, 1) - GeoCell.mortonKey(0, 0) == 3);
+
+		show("geohash()");
+		show("Geohash of Ziv square", GeoCell.geohash(ziv, 9).equals("svbfkzbz3"));
+		show("Geohash in the southern and eastern hemispheres",
+			GeoCell.geohash(new GeoPoint(-33868800, 151209300), 7).equals("r3gx2f7"));
+		show("Shorter geohash is a prefix", GeoCell.geohash(ziv, 5).equals("svbfk"));
+		show("Full geohash decodes to the same point",
+			GeoCell.decodeGeohash(GeoCell.geohash(ziv, GeoCell.MAX_GEOHASH_LENGTH)).equals(ziv));
+		show("Short geohash decodes nearby",
+			GeoCell.decodeGeohash("svbfk").distanceTo(ziv) < 3);
+
+		show("ranges()");
+		boolean covered = true, bounded = true;
+		for (int box = 0; box < 50; box++) {
+			int lat = 32700000 + mRandom.nextInt(100000), lon = 35000000 + mRandom.nextInt(100000);
+			int h = 1 + mRandom.nextInt(20000), w = 1 + mRandom.nextInt(20000);
+			int max = 1 + mRandom.nextInt(32);
+			long[] ranges = GeoCell.ranges(lat, lon, lat + h, lon + w, max);
+			bounded &= ranges.length / 2 <= max;
+			for (int k = 1; k < ranges.length; k++)
+				bounded &= ranges[k - 1] <= ranges[k];
+			for (int i = 0; i < 200; i++)
+				covered &= inRanges(GeoCell.mortonKey(lat + mRandom.nextInt(h + 1), lon + mRandom.nextInt(w + 1)), ranges);
+			covered &= inRanges(GeoCell.mortonKey(lat, lon), ranges)
+				&& inRanges(GeoCell.mortonKey(lat + h, lon + w), ranges);
+		}
+		show("Every point of a box is in its ranges", covered);
+		show("Ranges are sorted and within budget", bounded);
+		long[] exact = GeoCell.ranges(GeoPoint.MIN_LATITUDE, GeoPoint.MIN_LONGITUDE,
+			GeoPoint.MIN_LATITUDE + 1, GeoPoint.MIN_LONGITUDE + 1, 64);
+		show("Aligned box is a single exact range",
+			exact.length == 2 && exact[0] == 0 && exact[1] == 3);
+		long[] all = GeoCell.ranges(GeoPoint.MIN_LATITUDE, GeoPoint.MIN_LONGITUDE,
+			GeoPoint.MAX_LATITUDE, GeoPoint.MAX_LONGITUDE, 1);
+		show("Single range covers the whole earth",
+			all.length == 2 && inRanges(GeoCell.mortonKey(GeoPoint.MAX_LATITUDE, GeoPoint.MAX_LONGITUDE), all));
+
+		show("sortByCell()");
+		GeoPoint[] points = new GeoPoint[10000];
+		for (int i = 0; i < points.length; i++)
+			points[i] = randomPoint(32700000, 35000000, 100000);
+		GeoPoint[] sorted = points.clone();
+		GeoCell.sortByCell(sorted);
+		boolean ordered = true;
+		for (int i = 1; i < sorted.length; i++)
+			ordered &= GeoCell.mortonKey(sorted[i - 1]) <= GeoCell.mortonKey(sorted[i]);
+		show("Points are sorted by key", ordered);
+		show("Sorting keeps all the points",
+			new HashSet<>(Arrays.asList(sorted)).equals(new HashSet<>(Arrays.asList(points))));
+		GeoSegment[] segments = Arrays.copyOf(ExampleGeoSegments.segments, ExampleGeoSegments.segments.length);
+		GeoCell.sortByCell(segments);
+		show("Sorting segments keeps all the segments",
+			new HashSet<>(Arrays.asList(segments)).equals(new HashSet<>(Arrays.asList(ExampleGeoSegments.segments))));
+		long[] keys = { 5, 3, 5, 1, 3 };
+		show("order() is stable", Arrays.equals(GeoCell.order(keys), new int[] { 3, 1, 4, 0, 2 }));
+
+		show("locality");
+		List<GeoSegment> network = new ArrayList<>();
+		for (int i = 0; i < 400; i++)
+			for (int j = 0; j < 400; j++) {
+				GeoPoint p = new GeoPoint(32600000 + i * 100, 34900000 + j * 100);
+				network.add(new GeoSegment("Street " + i, p, new GeoPoint(p.getLatitude(), p.getLongitude() + 100)));
+				network.add(new GeoSegment("Avenue " + j, p, new GeoPoint(p.getLatitude() + 100, p.getLongitude())));
+			}
+		Collections.shuffle(network, mRandom);
+		ReverseGeocoder geocoder = new ReverseGeocoder(network.toArray(new GeoSegment[0]));
+		GeoPoint[] queries = new GeoPoint[1_000_000];
+		for (int i = 0; i < queries.length; i++)
+			queries[i] = randomPoint(32600000, 34900000, 40000);
+		GeoPoint[] sortedQueries = queries.clone();
+		GeoCell.sortByCell(sortedQueries);
+		for (int round = 0; round < 2; round++) {
+			long begin = System.nanoTime();
+			geocoder.nearest(queries);
+			long middle = System.nanoTime();
+			geocoder.nearest(sortedQueries);
+			long end = System.nanoTime();
+			if (round == 1)
+				System.out.printf("  %d lookups: %.3f s in random order, %.3f s in cell order%n",
+					queries.length, (middle - begin) / 1e9, (end - middle) / 1e9);
+		}
+	}
+
+
+	public static void main(String[] args) {
+		GeoCellTest cellTest = new GeoCellTest();
+		cellTest.test();
+	}
+}
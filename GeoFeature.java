@@ -39,39 +39,46 @@ import java.util.ArrayList;
  **/
 public class GeoFeature {
     private final List<GeoSegment> geoSegments;
-    private final String name;
+    private final int nameId;
     private final GeoPoint start;
     private final GeoPoint end;
     private final double startHeading;
     private final double endHeading;
     private final double length;
+    private final GeoBox box;
+    private final GeoFeature reverseOf;
 
 
     // Abs. Function:
     //   represents a geographic feature that starts at this.start and ends at this.end
-    //   with a name of this.name.
-    //   The feature is made up of a sequence of GeoSegments, all with the same name (this.name).
+    //   with a name of NameDictionary.nameOf(this.nameId).
+    //   The feature is made up of a sequence of GeoSegments, all with the same name id (this.nameId).
     //   The length of the feature is the sum of the lengths of the segments.
     //   this.geoSegments is the list of segments that make up this feature.
     //   The order of the segments in this.geoSegments is the order in which they
     //   are traversed from start to end.
     //   The start and end headings are the headings at the start and end of the
     //   feature, respectively.
+    //   this.box is the bounding box of the feature.
+    //   If this.reverseOf != null, this is a reversed view of this.reverseOf and
+    //   this.geoSegments reads the segments of reverseOf backwards, reversing
+    //   each segment on access.
 
     // Rep. Invariant:
     //   geoSegments is non-empty
-    //   All GeoSegments in geoSegments have the same name as this.name
+    //   All GeoSegments in geoSegments have the same name id as this.nameId
     //   Each segment (except the first) in geoSegments has its p1 equal to the p2 of the previous segment
     //   this.start equals the p1 of the first segment in geoSegments
     //   this.end equals the p2 of the last segment in geoSegments
     //   this.startHeading equals the heading of the first segment in geoSegments
     //   this.endHeading equals the heading of the last segment in geoSegments
     //   this.length equals the sum of the lengths of all segments in geoSegments
+    //   this.box is the smallest GeoBox containing all segments in geoSegments
 
     private void checkRep() {
         assert geoSegments != null && !geoSegments.isEmpty() : "GeoSegments must be non-empty";
         for (int i = 0; i < geoSegments.size() - 1; i++) {
-            assert geoSegments.get(i).getName().equals(name) : "Segment names must match";
+            assert geoSegments.get(i).getNameId() == nameId : "Segment names must match";
             assert geoSegments.get(i).getP2().equals(geoSegments.get(i + 1).getP1()) : "Segments must be connected";
         }
         assert start.equals(geoSegments.getFirst().getP1()) : "Start point mismatch";
@@ -80,6 +87,7 @@ public class GeoFeature {
         assert endHeading == geoSegments.getLast().getHeading() : "End heading mismatch";
         double sum = geoSegments.stream().mapToDouble(GeoSegment::getLength).sum();
         assert Math.abs(sum - length) < 1e-6 : "Length mismatch";
+        assert box.equals(geoSegments.stream().map(GeoBox::of).reduce(GeoBox::union).get()) : "Bounding box mismatch";
     }
 
 
@@ -97,23 +105,48 @@ public class GeoFeature {
     public GeoFeature(GeoSegment gs) {
         this.geoSegments = new ArrayList<>();
         this.geoSegments.add(gs);
-        this.name = gs.getName();
+        this.nameId = gs.getNameId();
         this.start = gs.getP1();
         this.end = gs.getP2();
         this.startHeading = gs.getHeading();
         this.endHeading = gs.getHeading();
         this.length = gs.getLength();
+        this.box = GeoBox.of(gs);
+        this.reverseOf = null;
         checkRep();
     }
 
-    private GeoFeature(List<GeoSegment> segments) {
-        this.geoSegments = Collections.unmodifiableList(segments);
-        this.name = segments.getFirst().getName();
+    /**
+     * Constructs a GeoFeature over a run of segments whose total length and
+     * bounding box are already known, without copying the segments.
+     *
+     * @requires segments is a non-empty, connected, unmodifiable list of
+     * segments that all have the same name && length is the sum of their
+     * lengths && box is the smallest GeoBox containing them
+     **/
+    GeoFeature(List<GeoSegment> segments, double length, GeoBox box) {
+        this.geoSegments = segments;
+        this.nameId = segments.getFirst().getNameId();
         this.start = segments.getFirst().getP1();
         this.end = segments.getLast().getP2();
         this.startHeading = segments.getFirst().getHeading();
         this.endHeading = segments.getLast().getHeading();
-        this.length = segments.stream().mapToDouble(GeoSegment::getLength).sum();
+        this.length = length;
+        this.box = box;
+        this.reverseOf = null;
+        checkRep();
+    }
+
+    private GeoFeature(GeoFeature original) {
+        this.geoSegments = new ReversedList<>(original.geoSegments, GeoSegment::reverse);
+        this.nameId = original.nameId;
+        this.start = original.end;
+        this.end = original.start;
+        this.startHeading = this.geoSegments.getFirst().getHeading();
+        this.endHeading = this.geoSegments.getLast().getHeading();
+        this.length = original.length;
+        this.box = original.box;
+        this.reverseOf = original;
         checkRep();
     }
 
@@ -124,7 +157,18 @@ public class GeoFeature {
      */
     public String getName() {
         checkRep();
-        return name;
+        return NameDictionary.nameOf(nameId);
+    }
+
+
+    /**
+     * Returns the NameDictionary id of the name of geographic feature.
+     *
+     * @return NameDictionary.idOf(this.name)
+     */
+    public int getNameId() {
+        checkRep();
+        return nameId;
     }
 
 
@@ -202,7 +246,7 @@ public class GeoFeature {
      **/
     public GeoFeature addSegment(GeoSegment gs) {
         checkRep();
-        if (!gs.getName().equals(this.name)) {
+        if (gs.getNameId() != this.nameId) {
             throw new IllegalArgumentException("Segment name must match the feature name.");
         }
         if (!gs.getP1().equals(this.end)) {
@@ -212,9 +256,79 @@ public class GeoFeature {
         List<GeoSegment> newSegments = new ArrayList<>(this.geoSegments);
         newSegments.add(gs);
         checkRep();
-        return new GeoFeature(newSegments);
+        return new GeoFeature(Collections.unmodifiableList(newSegments),
+                this.length + gs.getLength(), this.box.union(GeoBox.of(gs)));
+    }
+
+
+    /**
+     * Returns the bounding box of the geographic feature.
+     *
+     * @return the smallest GeoBox that contains all the segments of this.
+     */
+    public GeoBox getBoundingBox() {
+        checkRep();
+        return box;
     }
 
+
+    /**
+     * Tells whether the geographic feature passes through a region.
+     *
+     * @requires region != null
+     * @return true iff some point of some segment of this lies in region.
+     */
+    public boolean intersects(GeoBox region) {
+        checkRep();
+        if (!region.intersects(box)) {
+            return false;
+        }
+        if (region.contains(box)) {
+            return true;
+        }
+        double[] t = new double[2];
+        for (GeoSegment gs : geoSegments) {
+            if (region.clip(gs, t)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+
+    /**
+     * Tells whether the geographic feature lies in a region.
+     *
+     * @requires region != null
+     * @return true iff every point of every segment of this lies in region.
+     */
+    public boolean within(GeoBox region) {
+        checkRep();
+        return region.contains(box);
+    }
+
+    /**
+     * Returns a GeoFeature that traverses this GeoFeature backwards.
+     * The returned GeoFeature is a view over the segments of this one; it is
+     * created in O(1) time and reverses each segment only when it is read.
+     *
+     * @return a GeoFeature r such that
+     * r.name = this.name &&
+     * r.start = this.end &&
+     * r.end = this.start &&
+     * r.length = this.length &&
+     * r.geoSegments = [a[n-1].reverse(), ..., a[0].reverse()]
+     * where a = this.geoSegments and n = a.length.
+     **/
+    public GeoFeature reversed() {
+        checkRep();
+        if (reverseOf != null) {
+            return reverseOf;
+        }
+        return new GeoFeature(this);
+    }
+
+
     /**
      * Returns an Iterator of GeoSegment objects. The concatenation of the
      * GeoSegments, in order, is equivalent to this GeoFeature. All the
@@ -264,9 +378,10 @@ public class GeoFeature {
      **/
     public int hashCode() {
         checkRep();
+        // length is left out: equal features may sum their segments in a
+        // different order and differ in the last bits of their lengths
         return 31 * geoSegments.hashCode() +
-                17 * name.hashCode() +
-                13 * Double.hashCode(length) +
+                17 * nameId +
                 11 * start.hashCode() +
                 7 * end.hashCode() +
                 5 * Double.hashCode(startHeading) +
@@ -281,6 +396,6 @@ public class GeoFeature {
      **/
     public String toString() {
         checkRep();
-        return "GeoFeature{name='" + name + "', length=" + length + ", segments=" + geoSegments.size() + "}";
+        return "GeoFeature{name='" + NameDictionary.nameOf(nameId) + "', length=" + length + ", segments=" + geoSegments.size() + "}";
     }
 }
@@ -30,6 +30,12 @@ package homework1;
  * GeoPoint objects.
  * </p>
  *
+ * <p>
+ * Names are stored as ids of the global NameDictionary, so comparing the
+ * names of two segments is an int comparison and each distinct name string
+ * is held in memory once.
+ * </p>
+ *
  * <b>The following fields are used in the specification:</b>
  * <pre>
  *   name : String       // aname of the geographic feature identified
@@ -40,21 +46,21 @@ package homework1;
  * </pre>
  **/
 public class GeoSegment {
-    private final String name;
+    private final int nameId;
     private final GeoPoint p1;
     private final GeoPoint p2;
 
     // Abs. Function:
     //   represents a straight geographic line that starts at this.p1 and ends at this.p2
-    //   with a name of this.name
+    //   with a name of NameDictionary.nameOf(this.nameId)
 
     // Rep. Invariant:
-    //   this.name != null
+    //   this.nameId is a valid NameDictionary id
     //   this.p1 != null
     //   this.p2 != null
 
     private void checkRep() {
-        assert this.name != null : "Name cannot be null";
+        assert this.nameId >= 0 && this.nameId < NameDictionary.size() : "Name must be in the dictionary";
         assert this.p1 != null : "First endpoint cannot be null";
         assert this.p2 != null : "Second endpoint cannot be null";
     }
@@ -66,7 +72,19 @@ public class GeoSegment {
      * @effects constructs a new GeoSegment with the specified name and endpoints.
      **/
     public GeoSegment(String name, GeoPoint p1, GeoPoint p2) {
-        this.name = name;
+        this(NameDictionary.idOf(name), p1, p2);
+    }
+
+    /**
+     * Constructs a new GeoSegment whose name is already in the dictionary,
+     * without looking it up again.
+     *
+     * @requires nameId is an id of NameDictionary && p1 != null && p2 != null
+     * @effects constructs a new GeoSegment with the name whose id is nameId
+     * and the specified endpoints.
+     **/
+    GeoSegment(int nameId, GeoPoint p1, GeoPoint p2) {
+        this.nameId = nameId;
         this.p1 = p1;
         this.p2 = p2;
         checkRep();
@@ -81,7 +99,7 @@ public class GeoSegment {
      **/
     public GeoSegment reverse() {
         checkRep();
-        return new GeoSegment(this.name, this.p2, this.p1);
+        return new GeoSegment(this.nameId, this.p2, this.p1);
     }
 
 
@@ -92,7 +110,18 @@ public class GeoSegment {
      */
     public String getName() {
         checkRep();
-        return this.name;
+        return NameDictionary.nameOf(this.nameId);
+    }
+
+
+    /**
+     * Returns the NameDictionary id of the name of this GeoSegment.
+     *
+     * @return NameDictionary.idOf(this.name)
+     */
+    public int getNameId() {
+        checkRep();
+        return this.nameId;
     }
 
 
@@ -157,7 +186,7 @@ public class GeoSegment {
         if (this == gs) return true;
         if (!(gs instanceof GeoSegment other)) return false;
 
-        boolean sameName = this.name.equals(other.name);
+        boolean sameName = this.nameId == other.nameId;
         boolean sameP1 = this.p1.equals(other.p1);
         boolean sameP2 = this.p2.equals(other.p2);
         checkRep();
@@ -173,7 +202,7 @@ public class GeoSegment {
     public int hashCode() {
         checkRep();
         int result = 17;
-        result = 31 * result + name.hashCode();
+        result = 31 * result + nameId;
         result = 31 * result + p1.hashCode();
         result = 31 * result + p2.hashCode();
         result = 31 * result + Double.hashCode(getLength());
@@ -190,7 +219,7 @@ public class GeoSegment {
         checkRep();
         StringBuilder sb = new StringBuilder();
         sb.append("GeoSegment: ");
-        sb.append(this.name);
+        sb.append(NameDictionary.nameOf(this.nameId));
         sb.append(" [");
         sb.append(this.p1.toString());
         sb.append(", ");
@@ -97,6 +97,14 @@ public class GeoSegmentTest {
 			
 		show("getName()");
 		show("getName() works.", gsEast.getName().equals("East"));
+		show("getNameId() is shared by equal names.",
+			gsEast.getNameId() == gsEast2.getNameId());
+		show("getNameId() differs for different names.",
+			gsEast.getNameId() != gsWest.getNameId());
+		show("getNameId() maps back to the name.",
+			NameDictionary.nameOf(gsEast.getNameId()).equals("East"));
+		show("Copied name strings are stored once.",
+			new GeoSegment(new String("East"), gpWest, gpEast).getName() == gsEast.getName());
 				
 		show("getP1() & getP2()");
 		show("getP1() works.", gsEast.getP1().equals(gpZivSquare));
@@ -1,112 +1,234 @@
-package homework1;
-
-import javax.swing.*;
-import java.awt.*;
-import java.awt.event.ActionEvent;
-import java.awt.event.ActionListener;
-
-/**
- * A JDailog GUI for choosing a GeoSegemnt and adding it to the route shown
- * by RoutDirectionGUI.
- * <p>
- * A figure showing this GUI can be found in homework assignment #1.
- */
-public class GeoSegmentsDialog extends JDialog {
-
-	private static final long serialVersionUID = 1L;
-
-	// the RouteDirectionsGUI that this JDialog was opened from
-	private RouteFormatterGUI parent;
-	
-	// a control contained in this 
-	private JList<GeoSegment> lstSegments;
-	
-	/**
-	 * Creates a new GeoSegmentsDialog JDialog.
-	 * @effects Creates a new GeoSegmentsDialog JDialog with owner-frame
-	 * 			owner and parent pnlParent
-	 */
-	public GeoSegmentsDialog(Frame owner, RouteFormatterGUI pnlParent) {
-		// create a modal JDialog with an owner Frame (a modal window
-		// in one that doesn't allow other windows to be active at the
-		// same time).
-		super(owner, "Please choose a GeoSegment", true);
-		
-		this.parent = pnlParent;
-
-		// Layout manager
-		this.setLayout(new GridBagLayout());
-		GridBagConstraints c = new GridBagConstraints();
-
-		// Label
-		JLabel lblSelect = new JLabel("Select a GeoSegment:");
-		c.gridx = 0;
-		c.gridy = 0;
-		c.gridwidth = 2;
-		c.anchor = GridBagConstraints.WEST;
-		c.insets = new Insets(10, 10, 5, 10);
-		this.add(lblSelect, c);
-
-		// Segment list
-		lstSegments = new JList<>(ExampleGeoSegments.segments);
-		lstSegments.setSelectionMode(ListSelectionModel.SINGLE_SELECTION);
-
-		// Scroll pane for list
-		JScrollPane scrollPane = new JScrollPane(lstSegments);
-		scrollPane.setPreferredSize(new Dimension(300, 150));
-		c.gridx = 0;
-		c.gridy = 1;
-		c.gridwidth = 2;
-		c.insets = new Insets(0, 10, 10, 10);
-		this.add(scrollPane, c);
-
-		// Add Button
-		JButton btnAdd = getJButton();
-		c.gridx = 0;
-		c.gridy = 2;
-		c.gridwidth = 1;
-		c.insets = new Insets(0, 10, 10, 5);
-		c.anchor = GridBagConstraints.EAST;
-		this.add(btnAdd, c);
-
-		// Cancel Button
-		JButton btnCancel = new JButton("Cancel");
-		btnCancel.addActionListener(e -> setVisible(false));
-		c.gridx = 1;
-		c.gridy = 2;
-		c.insets = new Insets(0, 5, 10, 10);
-		c.anchor = GridBagConstraints.WEST;
-		this.add(btnCancel, c);
-	}
-
-	private JButton getJButton() {
-		JButton btnAdd = new JButton("Add");
-		btnAdd.addActionListener(new ActionListener() {
-			public void actionPerformed(ActionEvent e) {
-				GeoSegment selected = lstSegments.getSelectedValue();
-				if (selected == null) {
-					JOptionPane.showMessageDialog(
-							GeoSegmentsDialog.this,
-							"Please select a segment first.",
-							"No segment selected",
-							JOptionPane.WARNING_MESSAGE
-					);
-					return;
-				}
-
-				try {
-					parent.addSegment(selected);
-					setVisible(false); // hide if success
-				} catch (IllegalArgumentException ex) {
-					JOptionPane.showMessageDialog(
-							GeoSegmentsDialog.this,
-							"Selected segment must start at the current route end.",
-							"Invalid segment",
-							JOptionPane.ERROR_MESSAGE
-					);
-				}
-			}
-		});
-		return btnAdd;
-	}
-}
+package homework1;
+
+import javax.swing.*;
+import javax.swing.event.DocumentEvent;
+import javax.swing.event.DocumentListener;
+import java.awt.*;
+import java.awt.event.ActionEvent;
+import java.awt.event.ActionListener;
+import java.util.*;
+import java.util.List;
+
+/**
+ * A JDailog GUI for choosing a GeoSegemnt and adding it to the route shown
+ * by RoutDirectionGUI.
+ * <p>
+ * The segments are looked up in a SegmentIndex, so that filtering by name
+ * and completing names stay responsive on catalogs of hundreds of thousands
+ * of segments. The list can also be restricted to the segments that start
+ * at the end of the current route.
+ * <p>
+ * A figure showing this GUI can be found in homework assignment #1.
+ */
+public class GeoSegmentsDialog extends JDialog {
+
+	private static final long serialVersionUID = 1L;
+
+	// the RouteDirectionsGUI that this JDialog was opened from
+	private RouteFormatterGUI parent;
+	
+	// maximal number of search results shown in the list
+	private static final int MAX_RESULTS = 1000;
+
+	// the catalog of segments that can be chosen
+	private final transient SegmentIndex index;
+
+	// controls contained in this
+	private JList<GeoSegment> lstSegments;
+	private JTextField txtSearch;
+	private JCheckBox chkFromRouteEnd;
+	private final ResultsModel results = new ResultsModel();
+	
+	/**
+	 * Creates a new GeoSegmentsDialog JDialog.
+	 * @effects Creates a new GeoSegmentsDialog JDialog with owner-frame
+	 * 			owner and parent pnlParent, for choosing one of
+	 * 			ExampleGeoSegments.segments
+	 */
+	public GeoSegmentsDialog(Frame owner, RouteFormatterGUI pnlParent) {
+		this(owner, pnlParent, ExampleGeoSegments.segments);
+	}
+
+
+	/**
+	 * Creates a new GeoSegmentsDialog JDialog.
+	 * @requires catalog != null
+	 * @effects Creates a new GeoSegmentsDialog JDialog with owner-frame
+	 * 			owner and parent pnlParent, for choosing one of the segments
+	 * 			in catalog
+	 */
+	public GeoSegmentsDialog(Frame owner, RouteFormatterGUI pnlParent, GeoSegment[] catalog) {
+		// create a modal JDialog with an owner Frame (a modal window
+		// in one that doesn't allow other windows to be active at the
+		// same time).
+		super(owner, "Please choose a GeoSegment", true);
+		
+		this.parent = pnlParent;
+		this.index = new SegmentIndex(catalog);
+
+		// Layout manager
+		this.setLayout(new GridBagLayout());
+		GridBagConstraints c = new GridBagConstraints();
+
+		// Label
+		JLabel lblSelect = new JLabel("Select a GeoSegment:");
+		c.gridx = 0;
+		c.gridy = 0;
+		c.gridwidth = 2;
+		c.anchor = GridBagConstraints.WEST;
+		c.insets = new Insets(10, 10, 5, 10);
+		this.add(lblSelect, c);
+
+		// Search field: filters on every change, completes names on Enter
+		txtSearch = new JTextField();
+		txtSearch.getDocument().addDocumentListener(new DocumentListener() {
+			public void insertUpdate(DocumentEvent e) { updateResults(); }
+			public void removeUpdate(DocumentEvent e) { updateResults(); }
+			public void changedUpdate(DocumentEvent e) { updateResults(); }
+		});
+		txtSearch.addActionListener(e -> {
+			String completed = index.complete(txtSearch.getText());
+			if (completed.length() > txtSearch.getText().length())
+				txtSearch.setText(completed);
+		});
+		c.gridx = 0;
+		c.gridy = 1;
+		c.gridwidth = 2;
+		c.fill = GridBagConstraints.HORIZONTAL;
+		c.insets = new Insets(0, 10, 5, 10);
+		this.add(txtSearch, c);
+
+		chkFromRouteEnd = new JCheckBox("Only segments starting at the route's end");
+		chkFromRouteEnd.addActionListener(e -> updateResults());
+		c.gridy = 2;
+		c.fill = GridBagConstraints.NONE;
+		this.add(chkFromRouteEnd, c);
+
+		// Segment list
+		lstSegments = new JList<>(results);
+		lstSegments.setSelectionMode(ListSelectionModel.SINGLE_SELECTION);
+		lstSegments.setPrototypeCellValue(ExampleGeoSegments.segments[0]);
+		results.setAll(index.getSegments());
+
+		// Scroll pane for list
+		JScrollPane scrollPane = new JScrollPane(lstSegments);
+		scrollPane.setPreferredSize(new Dimension(300, 150));
+		c.gridx = 0;
+		c.gridy = 3;
+		c.gridwidth = 2;
+		c.insets = new Insets(0, 10, 10, 10);
+		this.add(scrollPane, c);
+
+		// Add Button
+		JButton btnAdd = getJButton();
+		c.gridx = 0;
+		c.gridy = 4;
+		c.gridwidth = 1;
+		c.insets = new Insets(0, 10, 10, 5);
+		c.anchor = GridBagConstraints.EAST;
+		this.add(btnAdd, c);
+
+		// Cancel Button
+		JButton btnCancel = new JButton("Cancel");
+		btnCancel.addActionListener(e -> setVisible(false));
+		c.gridx = 1;
+		c.gridy = 4;
+		c.insets = new Insets(0, 5, 10, 10);
+		c.anchor = GridBagConstraints.WEST;
+		this.add(btnCancel, c);
+	}
+
+
+	/**
+	 * Shows or hides this. The list is refreshed when this is shown, since
+	 * the end of the parent's route may have changed.
+	 */
+	public void setVisible(boolean b) {
+		if (b)
+			updateResults();
+		super.setVisible(b);
+	}
+
+
+	/**
+	 * Recomputes the segments shown in the list from the search text and
+	 * the route's end.
+	 */
+	private void updateResults() {
+		String query = txtSearch.getText().trim();
+		GeoPoint routeEnd = parent.getRouteEnd();
+		List<GeoSegment> shown;
+		if (chkFromRouteEnd.isSelected() && routeEnd != null) {
+			String q = query.toLowerCase(Locale.ROOT);
+			shown = new ArrayList<>();
+			for (GeoSegment gs : index.startingAt(routeEnd))
+				if (gs.getName().toLowerCase(Locale.ROOT).contains(q))
+					shown.add(gs);
+		} else if (query.isEmpty()) {
+			shown = index.getSegments();
+		} else {
+			shown = index.search(query, MAX_RESULTS);
+		}
+		results.setAll(shown);
+		if (!shown.isEmpty())
+			lstSegments.setSelectedIndex(0);
+	}
+
+
+	/**
+	 * A list model over the current search results.
+	 */
+	private static final class ResultsModel extends AbstractListModel<GeoSegment> {
+		private static final long serialVersionUID = 1L;
+
+		private transient List<GeoSegment> items = Collections.emptyList();
+
+		public int getSize() {
+			return items.size();
+		}
+
+		public GeoSegment getElementAt(int index) {
+			return items.get(index);
+		}
+
+		void setAll(List<GeoSegment> newItems) {
+			int oldSize = items.size();
+			items = newItems;
+			if (oldSize > 0)
+				fireIntervalRemoved(this, 0, oldSize - 1);
+			if (!newItems.isEmpty())
+				fireIntervalAdded(this, 0, newItems.size() - 1);
+		}
+	}
+
+	private JButton getJButton() {
+		JButton btnAdd = new JButton("Add");
+		btnAdd.addActionListener(new ActionListener() {
+			public void actionPerformed(ActionEvent e) {
+				GeoSegment selected = lstSegments.getSelectedValue();
+				if (selected == null) {
+					JOptionPane.showMessageDialog(
+							GeoSegmentsDialog.this,
+							"Please select a segment first.",
+							"No segment selected",
+							JOptionPane.WARNING_MESSAGE
+					);
+					return;
+				}
+
+				try {
+					parent.addSegment(selected);
+					setVisible(false); // hide if success
+				} catch (IllegalArgumentException ex) {
+					JOptionPane.showMessageDialog(
+							GeoSegmentsDialog.this,
+							"Selected segment must start at the current route end.",
+							"Invalid segment",
+							JOptionPane.ERROR_MESSAGE
+					);
+				}
+			}
+		});
+		return btnAdd;
+	}
+}
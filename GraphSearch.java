@@ -0,0 +1,205 @@
+package homework1;
+
+import java.util.*;
+
+/**
+ * A GraphSearch holds the arrays of Dijkstra's algorithm over one
+ * RoadGraph, so that they can be reused from search to search, e.g. one
+ * GraphSearch per thread. GraphSearches are mutable and not thread-safe.
+ * <p>
+ * An entry of the arrays is valid for the current search only if it has the
+ * stamp of the search, so starting a search takes constant time rather than
+ * time proportional to the size of the graph. The queue is a PrimitiveHeap
+ * of (distance, node) pairs.
+ */
+final class GraphSearch {
+    private final RoadGraph graph;
+    private final double[] distances;
+    private final int[] previous;       // the node before each reached node
+    private final int[] via;            // the edge into each reached node
+    private final int[] reached;        // stamp of the search that reached each node
+    private final int[] blocked;        // stamp of the search that avoids each node
+    private final int[] banned;         // stamp of the search that avoids each edge
+    private int stamp;
+    private double limit;               // distance beyond which the current search stops
+    private boolean bothWays;           // whether the current search follows edges backwards too
+
+    private final PrimitiveHeap heap = new PrimitiveHeap();
+
+    // the nodes settled by the current search, in order of distance
+    private int[] settled = new int[64];
+    private int settledCount;
+
+    // Abs. Function:
+    //   after a search, the nodes v with reached[v] == stamp are those
+    //   reached, at distance distances[v], last along edge via[v] from node
+    //   previous[v] (for nodes other than the sources); settled[0 ..
+    //   settledCount) are those whose distance is final
+
+    // Rep. Invariant:
+    //   distances, previous, via, reached and blocked have graph.nodeCount()
+    //   elements, and banned has graph.edgeCount() elements
+    //   0 <= settledCount <= settled.length
+
+    /**
+     * Constructs a new GraphSearch.
+     *
+     * @requires graph != null
+     * @effects Constructs a GraphSearch over graph, with no search done.
+     */
+    GraphSearch(RoadGraph graph) {
+        this.graph = graph;
+        int n = graph.nodeCount();
+        distances = new double[n];
+        previous = new int[n];
+        via = new int[n];
+        reached = new int[n];
+        blocked = new int[n];
+        banned = new int[graph.edgeCount()];
+    }
+
+    // Starts a new search, which has no nodes reached, blocked or banned.
+    private void begin() {
+        if (stamp == Integer.MAX_VALUE) {
+            Arrays.fill(reached, 0);
+            Arrays.fill(blocked, 0);
+            Arrays.fill(banned, 0);
+            stamp = 0;
+        }
+        stamp++;
+        heap.clear();
+        settledCount = 0;
+    }
+
+    /**
+     * Finds the lightest path between two nodes.
+     *
+     * @requires weights has a non-negative weight per edge of the graph &&
+     * source and target are nodes of the graph && blockedNodes and
+     * bannedEdges are nodes and edges of the graph
+     * @modifies this
+     * @return the edges, in order, of the lightest path from source to target
+     * under weights that passes through no node of blockedNodes and along no
+     * edge of bannedEdges, or null if there is none.
+     */
+    int[] path(double[] weights, int source, int target, int[] blockedNodes, int[] bannedEdges) {
+        begin();
+        for (int v : blockedNodes) {
+            blocked[v] = stamp;
+        }
+        for (int e : bannedEdges) {
+            banned[e] = stamp;
+        }
+        reach(source, 0);
+        bothWays = false;
+        run(weights, target, Double.POSITIVE_INFINITY);
+        if (reached[target] != stamp) {
+            return null;
+        }
+        int count = 0;
+        for (int v = target; v != source; v = previous[v]) {
+            count++;
+        }
+        int[] edges = new int[count];
+        for (int v = target; v != source; v = previous[v]) {
+            edges[--count] = via[v];
+        }
+        return edges;
+    }
+
+    /**
+     * Finds the nodes within a distance of any of several sources.
+     *
+     * @requires weights has a non-negative weight per edge of the graph &&
+     * sources are nodes of the graph && limit >= 0
+     * @modifies this
+     * @effects settles every node whose distance under weights from the
+     * nearest of sources is at most limit, where edges may be followed
+     * backwards as well iff bothWays.
+     * @return the number of nodes settled; they are settledNode(0) to
+     * settledNode(count - 1), nearest first.
+     */
+    int within(double[] weights, int[] sources, double limit, boolean bothWays) {
+        begin();
+        for (int source : sources) {
+            reach(source, 0);
+        }
+        this.bothWays = bothWays;
+        run(weights, -1, limit);
+        return settledCount;
+    }
+
+    /**
+     * Returns a node settled by the last search.
+     *
+     * @requires 0 <= i < the number of nodes settled by the last search
+     * @return the i'th node settled by the last search, nearest first.
+     */
+    int settledNode(int i) {
+        return settled[i];
+    }
+
+    /**
+     * Returns the distance of a node found by the last search.
+     *
+     * @requires v is a node of the graph
+     * @return the distance of v from the sources of the last search, if the
+     * search settled v, or infinity otherwise.
+     */
+    double distance(int v) {
+        return reached[v] == stamp && distances[v] <= limit ? distances[v] : Double.POSITIVE_INFINITY;
+    }
+
+    private void reach(int v, double d) {
+        reached[v] = stamp;
+        distances[v] = d;
+        heap.push(v, d);
+    }
+
+    // Settles nodes in order of distance until target is settled or the next
+    // node is farther than limit.
+    private void run(double[] weights, int target, double limit) {
+        this.limit = limit;
+        while (!heap.isEmpty()) {
+            double d = heap.peekKey();
+            int v = heap.pop();
+            if (d > distances[v]) {
+                continue;       // stale pair
+            }
+            if (d > limit) {
+                break;
+            }
+            if (settledCount == settled.length) {
+                settled = Arrays.copyOf(settled, 2 * settledCount);
+            }
+            settled[settledCount++] = v;
+            if (v == target) {
+                break;
+            }
+            for (int e = graph.firstEdge(v); e < graph.firstEdge(v + 1); e++) {
+                relax(v, d, e, graph.target(e), weights);
+            }
+            if (bothWays) {
+                for (int i = graph.firstInEdge(v); i < graph.firstInEdge(v + 1); i++) {
+                    int e = graph.inEdge(i);
+                    relax(v, d, e, graph.source(e), weights);
+                }
+            }
+        }
+    }
+
+    // Reaches w from v, at distance d, along edge e.
+    private void relax(int v, double d, int e, int w, double[] weights) {
+        if (banned[e] == stamp || blocked[w] == stamp) {
+            return;
+        }
+        double nd = d + weights[e];
+        if (reached[w] != stamp || nd < distances[w]) {
+            reached[w] = stamp;
+            distances[w] = nd;
+            previous[w] = v;
+            via[w] = e;
+            heap.push(w, nd);
+        }
+    }
+}
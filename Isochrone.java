@@ -0,0 +1,132 @@
+package homework1;
+
+import java.util.*;
+
+/**
+ * An Isochrone is the part of a road network that can be walked to within a
+ * time budget from one or more origins, as computed by WalkingIsochrones.
+ * Isochrones are immutable.
+ * <p>
+ * A segment of the network is reachable if every point of it can be walked
+ * to within the budget, and partly reachable if only some of its points can.
+ * The cut points are where the reach ends inside partly reachable segments.
+ * The hull is the convex polygon around the reachable points of the network,
+ * which is what a map would shade.
+ * <p>
+ * <b>The following fields are used in the specification:</b>
+ * <pre>
+ *   minutes : real          // the time budget
+ *   segments : set          // indices of the reachable segments
+ *   partial : set           // indices of the partly reachable segments
+ *   cutPoints : set         // of GeoPoint, where the reach ends
+ *   hull : sequence         // of GeoPoint, counter-clockwise
+ * </pre>
+ **/
+public final class Isochrone {
+    private final double minutes;
+    private final int[] segments;
+    private final int[] partial;
+    private final List<GeoPoint> cutPoints;
+    private final List<GeoPoint> hull;
+
+    // Abs. Function:
+    //   minutes = this.minutes, segments = elements of this.segments,
+    //   partial = elements of this.partial, cutPoints = elements of
+    //   this.cutPoints, hull = this.hull
+
+    // Rep. Invariant:
+    //   minutes >= 0
+    //   segments and partial are sorted, without duplicates, and disjoint
+    //   cutPoints and hull are unmodifiable and have no null elements
+
+    private void checkRep() {
+        assert minutes >= 0 : "Negative budget";
+        assert cutPoints != null && hull != null : "Points must not be null";
+        for (int i = 1; i < segments.length; i++) {
+            assert segments[i - 1] < segments[i] : "Segments must be sorted";
+        }
+        for (int i = 1; i < partial.length; i++) {
+            assert partial[i - 1] < partial[i] : "Partial segments must be sorted";
+        }
+    }
+
+    // Takes ownership of the given arrays and lists.
+    Isochrone(double minutes, int[] segments, int[] partial, List<GeoPoint> cutPoints, List<GeoPoint> hull) {
+        this.minutes = minutes;
+        this.segments = segments;
+        this.partial = partial;
+        this.cutPoints = Collections.unmodifiableList(cutPoints);
+        this.hull = Collections.unmodifiableList(hull);
+        checkRep();
+    }
+
+    /**
+     * Returns the time budget.
+     *
+     * @return this.minutes
+     */
+    public double getMinutes() {
+        return minutes;
+    }
+
+    /**
+     * Returns the reachable segments.
+     *
+     * @return the indices, in the network given to WalkingIsochrones, of
+     * the segments in this.segments, in increasing order.
+     */
+    public int[] getSegments() {
+        return segments.clone();
+    }
+
+    /**
+     * Returns the partly reachable segments.
+     *
+     * @return the indices, in the network given to WalkingIsochrones, of
+     * the segments in this.partial, in increasing order.
+     */
+    public int[] getPartialSegments() {
+        return partial.clone();
+    }
+
+    /**
+     * Tells whether a segment is reachable.
+     *
+     * @requires i >= 0
+     * @return true iff i is in this.segments
+     */
+    public boolean reaches(int i) {
+        return Arrays.binarySearch(segments, i) >= 0;
+    }
+
+    /**
+     * Returns the cut points.
+     *
+     * @return an unmodifiable list of this.cutPoints, in no particular order.
+     */
+    public List<GeoPoint> getCutPoints() {
+        return cutPoints;
+    }
+
+    /**
+     * Returns the hull.
+     *
+     * @return an unmodifiable list of the corners of this.hull, in
+     * counter-clockwise order starting from the westernmost corner (the
+     * southernmost of those, if several); fewer than three points if the
+     * reachable points are all on one line.
+     */
+    public List<GeoPoint> getHull() {
+        return hull;
+    }
+
+    /**
+     * Returns a string representation of this Isochrone.
+     *
+     * @return a string representation of this Isochrone.
+     **/
+    public String toString() {
+        return "Isochrone{minutes=" + minutes + ", segments=" + segments.length
+                + ", partial=" + partial.length + ", hull=" + hull.size() + "}";
+    }
+}
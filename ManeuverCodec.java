@@ -0,0 +1,183 @@
+package homework1;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+
+/**
+ * ManeuverCodec writes ManeuverLists to a compact binary form, and reads
+ * them back, e.g. to send directions to another service.
+ * <p>
+ * The form is column by column, like ManeuverList itself:
+ * <pre>
+ *   'M' 'L' version         3 bytes
+ *   n                       varint, the number of maneuvers
+ *   k                       varint, the number of distinct names
+ *   names                   k times: varint byte length, UTF-8 bytes
+ *   turns                   n bytes, TurnType ordinals
+ *   names of maneuvers      n varints, indices into names
+ *   lengths                 n big-endian doubles
+ *   start headings          n big-endian doubles
+ * </pre>
+ * Names are written once each, in order of first use, so that the form
+ * does not depend on the ids of NameDictionary, which differ between
+ * processes. Lengths and headings are written exactly.
+ * <p>
+ * Bytes to decode may come from outside the process, so decoding checks
+ * every value against the rep invariant of ManeuverList, and names that
+ * NameDictionary does not know are kept by the decoded list instead of
+ * being added to the dictionary, which never forgets a name.
+ */
+public final class ManeuverCodec {
+    private static final byte VERSION = 1;
+
+    private ManeuverCodec() {
+    }
+
+    /**
+     * Writes a ManeuverList.
+     *
+     * @requires maneuvers != null
+     * @return the binary form of maneuvers.
+     */
+    public static byte[] encode(ManeuverList maneuvers) {
+        int n = maneuvers.size();
+        Map<String, Integer> localIds = new HashMap<>();
+        List<String> names = new ArrayList<>();
+        int[] local = new int[n];
+        for (int i = 0; i < n; i++) {
+            String name = maneuvers.getName(i);
+            Integer l = localIds.get(name);
+            if (l == null) {
+                l = names.size();
+                localIds.put(name, l);
+                names.add(name);
+            }
+            local[i] = l;
+        }
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream(16 + 18 * n);
+        out.write('M');
+        out.write('L');
+        out.write(VERSION);
+        writeVarint(out, n);
+        writeVarint(out, names.size());
+        for (String name : names) {
+            byte[] bytes = name.getBytes(StandardCharsets.UTF_8);
+            writeVarint(out, bytes.length);
+            out.write(bytes, 0, bytes.length);
+        }
+        for (int i = 0; i < n; i++) {
+            out.write(maneuvers.getTurn(i).ordinal());
+        }
+        for (int i = 0; i < n; i++) {
+            writeVarint(out, local[i]);
+        }
+        ByteBuffer doubles = ByteBuffer.allocate(16 * n);
+        for (int i = 0; i < n; i++) {
+            doubles.putDouble(maneuvers.getLength(i));
+        }
+        for (int i = 0; i < n; i++) {
+            doubles.putDouble(maneuvers.getStartHeading(i));
+        }
+        out.write(doubles.array(), 0, doubles.capacity());
+        return out.toByteArray();
+    }
+
+    /**
+     * Reads a ManeuverList.
+     *
+     * @requires bytes != null
+     * @return the ManeuverList whose binary form is bytes.
+     * @throws IllegalArgumentException if bytes is not the binary form of a
+     * ManeuverList.
+     */
+    public static ManeuverList decode(byte[] bytes) {
+        ByteBuffer in = ByteBuffer.wrap(bytes);
+        try {
+            if (in.get() != 'M' || in.get() != 'L' || in.get() != VERSION) {
+                throw new IllegalArgumentException("Not a maneuver list.");
+            }
+            int n = readVarint(in);
+            int k = readVarint(in);
+            if (n > in.remaining() || k > in.remaining()) {
+                throw new IllegalArgumentException("Truncated maneuver list.");
+            }
+            // known names map to their ids, the others to -l - 1 for the
+            // l'th of the unknown names
+            int[] ids = new int[k];
+            List<String> unknown = new ArrayList<>();
+            for (int j = 0; j < k; j++) {
+                int length = readVarint(in);
+                if (length > in.remaining()) {
+                    throw new IllegalArgumentException("Truncated maneuver list.");
+                }
+                String name = new String(bytes, in.position(), length, StandardCharsets.UTF_8);
+                ids[j] = NameDictionary.lookup(name);
+                if (ids[j] < 0) {
+                    ids[j] = -unknown.size() - 1;
+                    unknown.add(name);
+                }
+                in.position(in.position() + length);
+            }
+            byte[] turns = new byte[n];
+            in.get(turns);
+            for (byte turn : turns) {
+                if (turn < 0 || turn >= TurnType.values().length) {
+                    throw new IllegalArgumentException("Unknown turn " + turn + ".");
+                }
+            }
+            int[] nameIds = new int[n];
+            for (int i = 0; i < n; i++) {
+                int l = readVarint(in);
+                if (l >= k) {
+                    throw new IllegalArgumentException("Unknown name " + l + ".");
+                }
+                nameIds[i] = ids[l];
+            }
+            double[] lengths = new double[n];
+            double[] startHeadings = new double[n];
+            in.asDoubleBuffer().get(lengths).get(startHeadings);
+            in.position(in.position() + 16 * n);
+            if (in.hasRemaining()) {
+                throw new IllegalArgumentException("Trailing bytes after maneuver list.");
+            }
+            for (int i = 0; i < n; i++) {
+                if (!(lengths[i] >= 0) || Double.isInfinite(lengths[i])) {
+                    throw new IllegalArgumentException("Invalid length " + lengths[i] + ".");
+                }
+                if (!(startHeadings[i] >= 0 && startHeadings[i] < 360)) {
+                    throw new IllegalArgumentException("Invalid heading " + startHeadings[i] + ".");
+                }
+            }
+            return new ManeuverList(turns, nameIds, unknown.toArray(new String[0]), lengths, startHeadings);
+        } catch (BufferUnderflowException e) {
+            throw new IllegalArgumentException("Truncated maneuver list.", e);
+        }
+    }
+
+    private static void writeVarint(ByteArrayOutputStream out, int value) {
+        while ((value & ~0x7F) != 0) {
+            out.write((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        out.write(value);
+    }
+
+    private static int readVarint(ByteBuffer in) {
+        int value = 0;
+        for (int shift = 0; shift < 32; shift += 7) {
+            byte b = in.get();
+            value |= (b & 0x7F) << shift;
+            if (b >= 0) {
+                if (value < 0) {
+                    throw new IllegalArgumentException("Negative count in maneuver list.");
+                }
+                return value;
+            }
+        }
+        throw new IllegalArgumentException("Malformed varint in maneuver list.");
+    }
+}
@@ -0,0 +1,225 @@
+package homework1;
+
+import java.util.*;
+
+/**
+ * A ManeuverList is the structured form of the directions for a Route: one
+ * maneuver per geographic feature, telling the turn onto the feature, its
+ * name, its length and the heading at its start. ManeuverLists are
+ * immutable.
+ * <p>
+ * Downstream code can read turns and lengths from a ManeuverList instead of
+ * parsing them back out of the text of RouteFormatter.computeDirections,
+ * and any RouteFormatter can render text from it. The maneuvers are stored
+ * column by column in primitive arrays, and can be written to a compact
+ * binary form with ManeuverCodec. Names read by ManeuverCodec that are not
+ * yet in NameDictionary are kept by the list itself, and only added to the
+ * dictionary if their id is asked for.
+ * <p>
+ * <b>The following fields are used in the specification:</b>
+ * <pre>
+ *   maneuvers : sequence    // of (turn : TurnType, name : String,
+ *                           //     length : real, startHeading : angle)
+ * </pre>
+ **/
+public final class ManeuverList {
+    private final byte[] turns;
+    private final int[] nameIds;
+    private final String[] names;       // names not in NameDictionary
+    private final double[] lengths;
+    private final double[] startHeadings;
+
+    // Abs. Function:
+    //   maneuvers[i] = (TurnType.ofOrdinal(turns[i]), name(nameIds[i]),
+    //                   lengths[i], startHeadings[i])
+    //   for 0 <= i < turns.length, where name(id) = NameDictionary.nameOf(id)
+    //   if id >= 0, and names[-id - 1] otherwise
+
+    // Rep. Invariant:
+    //   turns, nameIds, lengths and startHeadings have the same length
+    //   every turns[i] is the ordinal of a TurnType
+    //   every nameIds[i] is an id of NameDictionary, or -l - 1 for some
+    //   0 <= l < names.length
+    //   every lengths[i] >= 0 && 0 <= startHeadings[i] < 360
+
+    private void checkRep() {
+        assert turns.length == nameIds.length && turns.length == lengths.length
+                && turns.length == startHeadings.length : "Columns differ in length";
+    }
+
+    // Takes ownership of the given columns.
+    ManeuverList(byte[] turns, int[] nameIds, double[] lengths, double[] startHeadings) {
+        this(turns, nameIds, new String[0], lengths, startHeadings);
+    }
+
+    // Takes ownership of the given columns; a negative id -l - 1 in nameIds
+    // stands for names[l].
+    ManeuverList(byte[] turns, int[] nameIds, String[] names, double[] lengths, double[] startHeadings) {
+        this.turns = turns;
+        this.nameIds = nameIds;
+        this.names = names;
+        this.lengths = lengths;
+        this.startHeadings = startHeadings;
+        checkRep();
+    }
+
+    /**
+     * Computes the maneuvers for following a Route, in one pass over its
+     * features.
+     *
+     * @requires route != null && 0 <= heading < 360
+     * @return a ManeuverList m with one maneuver per feature f of route, in
+     * order, such that m.turn is the turn from the end heading of the
+     * previous feature (or from heading, for the first feature) to
+     * f.startHeading, and m.name = f.name, m.length = f.length and
+     * m.startHeading = f.startHeading.
+     */
+    public static ManeuverList of(Route route, double heading) {
+        int capacity = 8;
+        byte[] turns = new byte[capacity];
+        int[] nameIds = new int[capacity];
+        double[] lengths = new double[capacity];
+        double[] startHeadings = new double[capacity];
+        int count = 0;
+        for (Iterator<GeoFeature> it = route.getGeoFeatures(); it.hasNext(); ) {
+            GeoFeature feature = it.next();
+            if (count == capacity) {
+                capacity *= 2;
+                turns = Arrays.copyOf(turns, capacity);
+                nameIds = Arrays.copyOf(nameIds, capacity);
+                lengths = Arrays.copyOf(lengths, capacity);
+                startHeadings = Arrays.copyOf(startHeadings, capacity);
+            }
+            double start = feature.getStartHeading();
+            turns[count] = (byte) TurnType.classify(heading, start).ordinal();
+            nameIds[count] = feature.getNameId();
+            lengths[count] = feature.getLength();
+            startHeadings[count] = start;
+            count++;
+            heading = feature.getEndHeading();
+        }
+        return new ManeuverList(Arrays.copyOf(turns, count), Arrays.copyOf(nameIds, count),
+                Arrays.copyOf(lengths, count), Arrays.copyOf(startHeadings, count));
+    }
+
+    /**
+     * Returns the number of maneuvers.
+     *
+     * @return the length of this.maneuvers.
+     */
+    public int size() {
+        return turns.length;
+    }
+
+    /**
+     * Returns the turn of a maneuver.
+     *
+     * @requires 0 <= i < size()
+     * @return maneuvers[i].turn
+     */
+    public TurnType getTurn(int i) {
+        return TurnType.ofOrdinal(turns[i]);
+    }
+
+    /**
+     * Returns the name id of a maneuver.
+     *
+     * @requires 0 <= i < size()
+     * @return the NameDictionary id of maneuvers[i].name, which is added to
+     * the dictionary if it is not there yet.
+     */
+    public int getNameId(int i) {
+        int id = nameIds[i];
+        return id >= 0 ? id : NameDictionary.idOf(names[-id - 1]);
+    }
+
+    /**
+     * Returns the name of a maneuver.
+     *
+     * @requires 0 <= i < size()
+     * @return maneuvers[i].name
+     */
+    public String getName(int i) {
+        int id = nameIds[i];
+        return id >= 0 ? NameDictionary.nameOf(id) : names[-id - 1];
+    }
+
+    /**
+     * Returns the length of a maneuver.
+     *
+     * @requires 0 <= i < size()
+     * @return maneuvers[i].length, in kilometers.
+     */
+    public double getLength(int i) {
+        return lengths[i];
+    }
+
+    /**
+     * Returns the start heading of a maneuver.
+     *
+     * @requires 0 <= i < size()
+     * @return maneuvers[i].startHeading, in degrees.
+     */
+    public double getStartHeading(int i) {
+        return startHeadings[i];
+    }
+
+    /**
+     * Returns the total length of the maneuvers.
+     *
+     * @return the sum of the lengths of this.maneuvers, in kilometers.
+     */
+    public double getLength() {
+        double sum = 0;
+        for (double length : lengths) {
+            sum += length;
+        }
+        return sum;
+    }
+
+    /**
+     * Compares the specified Object with this ManeuverList for equality.
+     *
+     * @return o != null && (o instanceof ManeuverList) &&
+     * o.maneuvers = this.maneuvers
+     **/
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (!(o instanceof ManeuverList other)) return false;
+        if (!Arrays.equals(turns, other.turns) || !Arrays.equals(lengths, other.lengths)
+                || !Arrays.equals(startHeadings, other.startHeadings)) {
+            return false;
+        }
+        for (int i = 0; i < nameIds.length; i++) {
+            boolean same = nameIds[i] >= 0 && other.nameIds[i] >= 0
+                    ? nameIds[i] == other.nameIds[i]
+                    : getName(i).equals(other.getName(i));
+            if (!same) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Returns a hash code value for this ManeuverList.
+     *
+     * @return a hash code value for this ManeuverList.
+     **/
+    public int hashCode() {
+        int nameHash = 1;
+        for (int i = 0; i < nameIds.length; i++) {
+            nameHash = 31 * nameHash + getName(i).hashCode();
+        }
+        return 31 * (31 * Arrays.hashCode(turns) + nameHash) + Arrays.hashCode(lengths);
+    }
+
+    /**
+     * Returns a string representation of this ManeuverList.
+     *
+     * @return a string representation of this ManeuverList.
+     **/
+    public String toString() {
+        return "ManeuverList{maneuvers=" + turns.length + ", length=" + getLength() + "}";
+    }
+}
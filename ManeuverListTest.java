@@ -0,0 +1,158 @@
+package homework1;
+
+import java.util.*;
+
+public class ManeuverListTest {
+
+	private Route mRoute;
+
+
+	public ManeuverListTest() {
+		GeoSegment[] s = ExampleGeoSegments.segments;
+		mRoute = Route.of(new GeoSegment[] { s[0], s[1], s[2], s[3], s[4], s[5] });
+	}
+
+
+	public void show(String str) {
+		System.out.println();
+		System.out.println("***** " + str + " *****");
+	}
+
+
+	public void show(String str, boolean ok) {
+		if (ok)
+			System.out.print("v ");
+		else
+			System.out.print("x ");
+		System.out.println(str);
+	}
+
+
+	public void test() {
+		show("TurnType lookup");
+		Random random = new Random(1);
+		RouteFormatter driving = new DrivingRouteFormatter();
+		boolean lookup = true;
+		for (int k = 0; k < 1000000; k++) {
+			double from = random.nextDouble() * 360;
+			double to = random.nextInt(4) == 0 ? (from + random.nextInt(360)) % 360 : random.nextDouble() * 360;
+			lookup &= TurnType.classify(from, to).getText().equals(driving.getTurnString(from, to));
+		}
+		show("Lookup agrees with getTurnString", lookup);
+		show("Boundaries within a degree are exact",
+			TurnType.classify(0, 350) == TurnType.SLIGHT_LEFT
+			&& TurnType.classify(0, 350.5) == TurnType.CONTINUE
+			&& TurnType.classify(0, 181) == TurnType.U_TURN
+			&& TurnType.classify(0, 181.5) == TurnType.SHARP_LEFT);
+
+		show("of()");
+		ManeuverList maneuvers = ManeuverList.of(mRoute, 0);
+		show("One maneuver per feature", maneuvers.size() == 4);
+		show("Turns are classified", maneuvers.getTurn(0) == TurnType.SLIGHT_RIGHT
+			&& maneuvers.getTurn(2) == TurnType.LEFT && maneuvers.getTurn(3) == TurnType.SHARP_LEFT);
+		show("Names are kept", maneuvers.getName(1).equals("Trumpeldor Avenue")
+			&& maneuvers.getNameId(1) == NameDictionary.idOf("Trumpeldor Avenue"));
+		show("Lengths add up to the route", Math.abs(maneuvers.getLength() - mRoute.getLength()) < 1e-9);
+		show("Start headings are kept",
+			maneuvers.getStartHeading(0) == ExampleGeoSegments.segments[0].getHeading());
+
+		show("Rendering");
+		boolean rendered = true;
+		RouteFormatter[] formatters = { driving, new WalkingRouteFormatter(), TemplateRouteFormatter.driving(Locale.GERMAN) };
+		for (int k = 0; k < 200; k++) {
+			Route route = TemplateRouteFormatterTest.randomRoute(random, 1 + random.nextInt(20));
+			double heading = random.nextInt(360);
+			ManeuverList m = ManeuverList.of(route, heading);
+			for (RouteFormatter formatter : formatters)
+				rendered &= formatter.computeDirections(m).equals(formatter.computeDirections(route, heading));
+		}
+		show("Formatters render the same directions from maneuvers", rendered);
+
+		show("ManeuverCodec");
+		byte[] bytes = ManeuverCodec.encode(maneuvers);
+		show("Maneuvers survive encoding", ManeuverCodec.decode(bytes).equals(maneuvers));
+		boolean roundTrips = true;
+		for (int k = 0; k < 200; k++) {
+			ManeuverList m = ManeuverList.of(TemplateRouteFormatterTest.randomRoute(random, 1 + random.nextInt(40)), 0);
+			roundTrips &= ManeuverCodec.decode(ManeuverCodec.encode(m)).equals(m);
+		}
+		show("Random maneuvers survive encoding", roundTrips);
+		ManeuverList walk = ManeuverList.of(TemplateRouteFormatterTest.randomRoute(new Random(2), 60), 0);
+		String text = new String(ManeuverCodec.encode(walk), java.nio.charset.StandardCharsets.ISO_8859_1);
+		boolean once = true;
+		for (int i = 0; i < walk.size(); i++)
+			once &= text.indexOf(walk.getName(i)) == text.lastIndexOf(walk.getName(i));
+		show("Names are written once", once);
+		boolean thrown = false;
+		try {
+			ManeuverCodec.decode(Arrays.copyOf(bytes, bytes.length - 1));
+		} catch (IllegalArgumentException e) {
+			thrown = true;
+		}
+		show("Truncated input is rejected", thrown);
+		thrown = false;
+		try {
+			ManeuverCodec.decode(new byte[] { 'X', 'Y', 1, 0, 0 });
+		} catch (IllegalArgumentException e) {
+			thrown = true;
+		}
+		show("Foreign input is rejected", thrown);
+		show("Empty input is rejected", rejects(new byte[0]));
+		show("Negative lengths are rejected", rejects(single("Hanita", 0, -0.5, 90)));
+		show("Lengths that are not numbers are rejected", rejects(single("Hanita", 0, Double.NaN, 90)));
+		show("Headings out of range are rejected",
+			rejects(single("Hanita", 0, 0.5, 360)) && rejects(single("Hanita", 0, 0.5, -1)));
+		show("Unknown turns are rejected", rejects(single("Hanita", TurnType.values().length, 0.5, 90)));
+		int known = NameDictionary.size();
+		byte[] foreign = single("Street From Elsewhere", 2, 0.5, 90);
+		ManeuverList decoded = ManeuverCodec.decode(foreign);
+		show("Unknown names are decoded without entering the dictionary",
+			decoded.getName(0).equals("Street From Elsewhere") && decoded.getTurn(0) == TurnType.RIGHT
+			&& NameDictionary.size() == known && NameDictionary.lookup("Street From Elsewhere") < 0);
+		show("Unknown names survive encoding",
+			Arrays.equals(ManeuverCodec.encode(decoded), foreign) && ManeuverCodec.decode(foreign).equals(decoded)
+			&& NameDictionary.size() == known);
+		show("Unknown names get an id when asked for",
+			NameDictionary.nameOf(decoded.getNameId(0)).equals("Street From Elsewhere")
+			&& ManeuverCodec.decode(foreign).equals(decoded));
+
+		show("throughput");
+		List<Route> routes = new ArrayList<>();
+		for (int k = 0; k < 2000; k++)
+			routes.add(TemplateRouteFormatterTest.randomRoute(random, 30));
+		long begin = System.nanoTime();
+		long size = 0;
+		for (int pass = 0; pass < 20; pass++)
+			for (Route route : routes)
+				size += ManeuverCodec.encode(ManeuverList.of(route, 0)).length;
+		double seconds = (System.nanoTime() - begin) / 1e9;
+		System.out.printf("  %d routes to maneuvers and bytes in %.3f s (%.0f bytes each)%n",
+			20 * routes.size(), seconds, size / (20.0 * routes.size()));
+	}
+
+
+	// The binary form of a single maneuver, written by hand.
+	private static byte[] single(String name, int turn, double length, double heading) {
+		byte[] utf = name.getBytes(java.nio.charset.StandardCharsets.UTF_8);
+		java.nio.ByteBuffer out = java.nio.ByteBuffer.allocate(8 + utf.length + 16);
+		out.put((byte) 'M').put((byte) 'L').put((byte) 1).put((byte) 1).put((byte) 1).put((byte) utf.length).put(utf);
+		out.put((byte) turn).put((byte) 0).putDouble(length).putDouble(heading);
+		return out.array();
+	}
+
+
+	private static boolean rejects(byte[] bytes) {
+		try {
+			ManeuverCodec.decode(bytes);
+			return false;
+		} catch (IllegalArgumentException e) {
+			return true;
+		}
+	}
+
+
+	public static void main(String[] args) {
+		ManeuverListTest maneuverTest = new ManeuverListTest();
+		maneuverTest.test();
+	}
+}
@@ -0,0 +1,465 @@
+package homework1;
+
+import java.util.*;
+
+/**
+ * A MapMatcher turns traces of raw GPS fixes into Routes over a network of
+ * GeoSegments, e.g. for feeding a vehicle's trip to DrivingRouteFormatter.
+ * <p>
+ * Matching uses a hidden Markov model. The hidden states of a fix are the
+ * network segments within a search radius of it, each at the point closest
+ * to the fix. A state is more likely the closer it is to the fix (Gaussian
+ * GPS noise with deviation sigma). A transition between the states of two
+ * consecutive fixes is more likely the closer the distance traveled along
+ * the network is to the straight-line distance between the fixes
+ * (exponential distribution with scale beta). A transition is only possible
+ * along the same segment or into a segment that starts, directly or one
+ * segment later, where the previous one ends. The most likely sequence of
+ * states is found with the Viterbi algorithm.
+ * <p>
+ * Segments are directed: a segment is only traveled from p1 to p2. Two-way
+ * streets should be given to the matcher in both directions.
+ * <p>
+ * A MapMatcher is immutable and can be shared by many threads. Each trace is
+ * matched by its own Session, which processes fixes one at a time and keeps
+ * only a bounded window of the most recent fixes.
+ */
+public class MapMatcher {
+    /**
+     * Default standard deviation of GPS measurement noise, in kilometers.
+     */
+    public static final double DEFAULT_SIGMA = 0.01;
+
+    /**
+     * Default scale of the difference between the network distance and the
+     * straight-line distance between consecutive fixes, in kilometers.
+     */
+    public static final double DEFAULT_BETA = 0.05;
+
+    /**
+     * Default distance from a fix within which segments are candidates,
+     * in kilometers.
+     */
+    public static final double DEFAULT_RADIUS = 0.05;
+
+    /**
+     * Default number of fixes after which the match of a fix is final.
+     */
+    public static final int DEFAULT_LAG = 8;
+
+    private final GeoSegment[] network;
+    private final SegmentGrid grid;
+    private final int[] successorStart;     // successors of segment i are
+    private final int[] successors;         //   successors[successorStart[i] .. successorStart[i+1])
+    private final double[] lengths;
+    private final double sigma;
+    private final double beta;
+    private final double radius;
+    private final int lag;
+
+    // Abs. Function:
+    //   represents the HMM over the directed segment network this.network with
+    //   parameters (sigma, beta, radius, lag); segment j is a successor of
+    //   segment i iff network[j].p1 = network[i].p2
+
+    // Rep. Invariant:
+    //   sigma > 0 && beta > 0 && radius > 0 && lag >= 1
+    //   successorStart.length == network.length + 1
+    //   lengths[i] == network[i].length
+
+    private void checkRep() {
+        assert sigma > 0 && beta > 0 && radius > 0 && lag >= 1 : "Parameters must be positive";
+        assert successorStart.length == network.length + 1 : "Successor table size mismatch";
+        assert lengths.length == network.length : "Length table size mismatch";
+    }
+
+    /**
+     * Constructs a new MapMatcher with the default parameters.
+     *
+     * @requires network != null && network contains no null elements
+     * @effects Constructs a matcher over network.
+     */
+    public MapMatcher(GeoSegment[] network) {
+        this(network, DEFAULT_SIGMA, DEFAULT_BETA, DEFAULT_RADIUS, DEFAULT_LAG);
+    }
+
+    /**
+     * Constructs a new MapMatcher.
+     *
+     * @requires network != null && network contains no null elements &&
+     * sigma > 0 && beta > 0 && radius > 0 && lag >= 1
+     * @effects Constructs a matcher over network with GPS noise deviation
+     * sigma, transition scale beta and candidate search radius radius (all
+     * in kilometers), which finalizes the match of a fix after lag more
+     * fixes.
+     */
+    public MapMatcher(GeoSegment[] network, double sigma, double beta, double radius, int lag) {
+        this.network = network.clone();
+        this.sigma = sigma;
+        this.beta = beta;
+        this.radius = radius;
+        this.lag = lag;
+        this.grid = new SegmentGrid(this.network,
+                Math.max(1, SegmentProjection.microLatitude(2 * radius)));
+
+        int n = this.network.length;
+        this.lengths = new double[n];
+        Map<GeoPoint, List<Integer>> byStart = new HashMap<>();
+        for (int i = 0; i < n; i++) {
+            lengths[i] = this.network[i].getLength();
+            byStart.computeIfAbsent(this.network[i].getP1(), p -> new ArrayList<>()).add(i);
+        }
+        this.successorStart = new int[n + 1];
+        List<Integer> none = Collections.emptyList();
+        for (int i = 0; i < n; i++) {
+            successorStart[i + 1] = successorStart[i]
+                    + byStart.getOrDefault(this.network[i].getP2(), none).size();
+        }
+        this.successors = new int[successorStart[n]];
+        for (int i = 0; i < n; i++) {
+            int k = successorStart[i];
+            for (int j : byStart.getOrDefault(this.network[i].getP2(), none)) {
+                successors[k++] = j;
+            }
+        }
+        checkRep();
+    }
+
+    /**
+     * Starts matching a new trace.
+     *
+     * @return a new Session that matches a trace over the network of this.
+     */
+    public Session newSession() {
+        checkRep();
+        return new Session();
+    }
+
+
+    /**
+     * Computes the distance traveled along the network from fraction ti of
+     * segment i to fraction tj of segment j, or NaN if that is not a
+     * possible transition. Moving backward along a segment gives a negative
+     * distance. If via is not null, via[0] is set to the segment
+     * traveled in between, or -1 if there is none.
+     */
+    private double travel(int i, double ti, int j, double tj, int[] via) {
+        if (via != null) {
+            via[0] = -1;
+        }
+        if (i == j) {
+            // a backward move is negative, so it is penalized by twice its
+            // length; small ones are just measurement noise
+            return (tj - ti) * lengths[i];
+        }
+        double rest = (1 - ti) * lengths[i] + tj * lengths[j];
+        for (int k = successorStart[i]; k < successorStart[i + 1]; k++) {
+            if (successors[k] == j) {
+                return rest;
+            }
+        }
+        for (int k = successorStart[i]; k < successorStart[i + 1]; k++) {
+            int m = successors[k];
+            for (int l = successorStart[m]; l < successorStart[m + 1]; l++) {
+                if (successors[l] == j) {
+                    if (via != null) {
+                        via[0] = m;
+                    }
+                    return rest + lengths[m];
+                }
+            }
+        }
+        return Double.NaN;
+    }
+
+
+    /**
+     * The candidate states of one fix, with their Viterbi scores and back
+     * pointers into the states of the previous fix.
+     */
+    private static final class Column {
+        final GeoPoint fix;
+        int size = 0;
+        int[] segment = new int[8];
+        double[] fraction = new double[8];
+        double[] emission = new double[8];
+        double[] score = new double[8];
+        int[] back = new int[8];
+
+        Column(GeoPoint fix) {
+            this.fix = fix;
+        }
+
+        void add(int s, double t, double emission) {
+            if (size == segment.length) {
+                segment = Arrays.copyOf(segment, size * 2);
+                fraction = Arrays.copyOf(fraction, size * 2);
+                this.emission = Arrays.copyOf(this.emission, size * 2);
+                score = Arrays.copyOf(score, size * 2);
+                back = Arrays.copyOf(back, size * 2);
+            }
+            segment[size] = s;
+            fraction[size] = t;
+            this.emission[size] = emission;
+            score[size] = emission;
+            back[size] = -1;
+            size++;
+        }
+
+        int best() {
+            int best = -1;
+            for (int k = 0; k < size; k++) {
+                if (score[k] != Double.NEGATIVE_INFINITY && (best < 0 || score[k] > score[best])) {
+                    best = k;
+                }
+            }
+            return best;
+        }
+    }
+
+
+    /**
+     * A Session matches a single trace, one fix at a time. The match of a
+     * fix becomes final once lag more fixes have been pushed, at which point
+     * its segments are appended to the current Route. If the trace cannot be
+     * continued along the network (e.g. after a gap in the fixes), the
+     * current Route is completed and a new one is started.
+     * <p>
+     * Sessions are not thread-safe.
+     */
+    public final class Session {
+        private final ArrayDeque<Column> window = new ArrayDeque<>();
+        private final List<GeoSegment> matched = new ArrayList<>();
+        private final List<Route> completed = new ArrayList<>();
+        private final int[] via = new int[1];
+        private int lastCommitted = -1;         // segment of the last final state
+        private double lastFraction = 0;
+        private Route route = null;             // Route of the first routed segments of matched
+        private int routed = 0;
+
+        private Session() {
+        }
+
+        /**
+         * Adds the next fix of the trace. Fixes with no segment within the
+         * search radius are ignored.
+         *
+         * @requires fix != null
+         * @modifies this
+         * @effects extends the match of the trace with fix.
+         */
+        public void push(GeoPoint fix) {
+            Column column = candidates(fix);
+            if (column.size == 0) {
+                return;
+            }
+            Column previous = window.peekLast();
+            if (previous != null && !connect(previous, column)) {
+                // no way along the network from the previous fix: end the route
+                commitAll();
+                endRoute();
+            }
+            window.addLast(column);
+            normalize(column);
+            while (window.size() > lag) {
+                commitOldest();
+            }
+        }
+
+        /**
+         * Returns the Route matched so far.
+         *
+         * @return the Route of the segments whose match is final, since the
+         * trace was last interrupted; or null if there are none.
+         */
+        public Route getRoute() {
+            // extend the Route of the last call, rather than build it again
+            if (routed < matched.size()) {
+                if (route == null) {
+                    route = new Route(matched.get(routed++));
+                }
+                for (; routed < matched.size(); routed++) {
+                    route = route.addSegment(matched.get(routed));
+                }
+            }
+            return route;
+        }
+
+        /**
+         * Finalizes the match of all the fixes pushed so far.
+         *
+         * @modifies this
+         * @effects makes the match of all pushed fixes final and resets this
+         * for matching a new trace.
+         * @return the Routes matched since this was created or last finished,
+         * in trace order. Consecutive Routes are separated by interruptions
+         * of the trace.
+         */
+        public List<Route> finish() {
+            commitAll();
+            endRoute();
+            List<Route> routes = new ArrayList<>(completed);
+            completed.clear();
+            return routes;
+        }
+
+        private Column candidates(GeoPoint fix) {
+            Column column = new Column(fix);
+            int lat = fix.getLatitude();
+            int lon = fix.getLongitude();
+            grid.forEachNear(lat, lon, radius, s -> {
+                double t = SegmentProjection.fraction(lat, lon, network[s]);
+                double d = SegmentProjection.distance(lat, lon, network[s], t);
+                if (d <= radius) {
+                    double z = d / sigma;
+                    column.add(s, t, -0.5 * z * z);
+                }
+            });
+            return column;
+        }
+
+        // Sets the Viterbi scores and back pointers of column from previous.
+        // Returns false if no state of column can follow a state of previous.
+        private boolean connect(Column previous, Column column) {
+            double straight = previous.fix.distanceTo(column.fix);
+            boolean reachable = false;
+            for (int k = 0; k < column.size; k++) {
+                reachable |= score(previous, column, k, straight);
+            }
+            if (!reachable) {
+                // restore the emission scores for starting over at this fix
+                for (int k = 0; k < column.size; k++) {
+                    column.score[k] = column.emission[k];
+                    column.back[k] = -1;
+                }
+            }
+            return reachable;
+        }
+
+        // Sets the Viterbi score and back pointer of state k of column from
+        // previous, whose fix is straight away. Returns false if no state of
+        // previous leads to it.
+        private boolean score(Column previous, Column column, int k, double straight) {
+            double bestScore = Double.NEGATIVE_INFINITY;
+            int bestBack = -1;
+            for (int p = 0; p < previous.size; p++) {
+                if (previous.score[p] == Double.NEGATIVE_INFINITY) {
+                    continue;
+                }
+                double d = travel(previous.segment[p], previous.fraction[p],
+                        column.segment[k], column.fraction[k], null);
+                if (Double.isNaN(d)) {
+                    continue;
+                }
+                double s = previous.score[p] - Math.abs(d - straight) / beta;
+                if (s > bestScore) {
+                    bestScore = s;
+                    bestBack = p;
+                }
+            }
+            if (bestBack < 0) {
+                column.score[k] = Double.NEGATIVE_INFINITY;
+                return false;
+            }
+            column.score[k] = column.emission[k] + bestScore;
+            column.back[k] = bestBack;
+            return true;
+        }
+
+        // Keeps scores near 0 so that long traces do not lose precision.
+        private void normalize(Column column) {
+            int best = column.best();
+            double max = column.score[best];
+            for (int k = 0; k < column.size; k++) {
+                column.score[k] -= max;
+            }
+        }
+
+        // Makes the state of the oldest fix on the currently best path final.
+        private void commitOldest() {
+            Iterator<Column> it = window.descendingIterator();
+            Column column = it.next();
+            int k = column.best();
+            while (it.hasNext()) {
+                k = column.back[k];
+                column = it.next();
+            }
+            window.removeFirst();
+            commit(column.segment[k], column.fraction[k]);
+            // states of the next fix that do not follow the final state are
+            // dead, and so is the best path to any later state that went
+            // through one: score just those states again. Other states keep
+            // their scores, since removing paths never improves another one,
+            // and the window is not normalized again, so that the scores
+            // kept and the scores recomputed stay comparable.
+            Column previous = window.peekFirst();
+            if (previous == null) {
+                return;
+            }
+            boolean[] stale = new boolean[previous.size];
+            boolean any = false;
+            for (int j = 0; j < previous.size; j++) {
+                if (previous.back[j] != k) {
+                    previous.score[j] = Double.NEGATIVE_INFINITY;
+                    stale[j] = true;
+                    any = true;
+                }
+                previous.back[j] = -1;
+            }
+            Iterator<Column> later = window.iterator();
+            later.next();
+            while (any && later.hasNext()) {
+                Column next = later.next();
+                double straight = previous.fix.distanceTo(next.fix);
+                boolean[] nextStale = new boolean[next.size];
+                any = false;
+                for (int j = 0; j < next.size; j++) {
+                    if (next.back[j] >= 0 && stale[next.back[j]]) {
+                        score(previous, next, j, straight);
+                        nextStale[j] = true;
+                        any = true;
+                    }
+                }
+                previous = next;
+                stale = nextStale;
+            }
+        }
+
+        private void commitAll() {
+            while (!window.isEmpty()) {
+                commitOldest();
+            }
+        }
+
+        private void commit(int s, double t) {
+            if (lastCommitted >= 0 && s != lastCommitted) {
+                if (Double.isNaN(travel(lastCommitted, lastFraction, s, t, via))) {
+                    // the window started over after the final state: so does the route
+                    endRoute();
+                } else if (via[0] >= 0) {
+                    append(via[0]);
+                }
+            }
+            if (s != lastCommitted) {
+                append(s);
+            }
+            lastCommitted = s;
+            lastFraction = t;
+        }
+
+        private void append(int s) {
+            matched.add(network[s]);
+        }
+
+        private void endRoute() {
+            Route r = getRoute();
+            if (r != null) {
+                completed.add(r);
+            }
+            matched.clear();
+            route = null;
+            routed = 0;
+            lastCommitted = -1;
+        }
+    }
+}
@@ -0,0 +1,146 @@
+package homework1;
+
+import java.util.*;
+
+public class MapMatcherTest {
+
+	private MapMatcher mMatcher;
+	private GeoSegment[] mTrip;
+
+
+	public MapMatcherTest() {
+		GeoSegment[] s = ExampleGeoSegments.segments;
+		GeoSegment[] network = new GeoSegment[2 * s.length];
+		for (int i = 0; i < s.length; i++) {
+			network[2 * i] = s[i];
+			network[2 * i + 1] = s[i].reverse();
+		}
+		mMatcher = new MapMatcher(network);
+		mTrip = new GeoSegment[] { s[0], s[1], s[2], s[3], s[4] };
+	}
+
+
+	public void show(String str) {
+		System.out.println();
+		System.out.println("***** " + str + " *****");
+	}
+
+
+	public void show(String str, boolean ok) {
+		if (ok)
+			System.out.print("v ");
+		else
+			System.out.print("x ");
+		System.out.println(str);
+	}
+
+
+	// Samples fixes every stepKm along segments, with up to noise
+	// millionths of degrees of deterministic jitter.
+	static List<GeoPoint> trace(GeoSegment[] segments, double stepKm, int noise, long seed) {
+		Random random = new Random(seed);
+		List<GeoPoint> fixes = new ArrayList<>();
+		for (GeoSegment gs : segments) {
+			int steps = Math.max(1, (int) (gs.getLength() / stepKm));
+			for (int k = 0; k < steps; k++) {
+				double t = (k + 0.5) / steps;
+				int lat = (int) (gs.getP1().getLatitude()
+					+ t * (gs.getP2().getLatitude() - gs.getP1().getLatitude()));
+				int lon = (int) (gs.getP1().getLongitude()
+					+ t * (gs.getP2().getLongitude() - gs.getP1().getLongitude()));
+				fixes.add(new GeoPoint(lat + random.nextInt(2 * noise + 1) - noise,
+					lon + random.nextInt(2 * noise + 1) - noise));
+			}
+		}
+		return fixes;
+	}
+
+
+	public void test() {
+		show("push() & finish()");
+		MapMatcher.Session session = mMatcher.newSession();
+		for (GeoPoint fix : trace(mTrip, 0.02, 30, 1))
+			session.push(fix);
+		show("Route grows while fixes are pushed", session.getRoute() != null);
+		List<Route> routes = session.finish();
+		show("Trace is matched to a single route", routes.size() == 1);
+		show("Trace is matched to the traveled segments",
+			routes.get(0).equals(Route.of(mTrip)));
+
+		session = mMatcher.newSession();
+		for (GeoPoint fix : trace(mTrip, 0.05, 10, 2))
+			session.push(fix);
+		show("Sparse fixes skip short segments",
+			session.finish().get(0).equals(Route.of(mTrip)));
+
+		session = mMatcher.newSession();
+		GeoSegment[] back = { mTrip[4].reverse(), mTrip[3].reverse() };
+		for (GeoPoint fix : trace(back, 0.02, 10, 3))
+			session.push(fix);
+		show("Direction of travel is matched",
+			session.finish().get(0).equals(Route.of(back)));
+
+		session = mMatcher.newSession();
+		for (GeoPoint fix : trace(mTrip, 0.02, 10, 4))
+			session.push(fix);
+		session.push(new GeoPoint(32700000, 35000000));
+		for (GeoPoint fix : trace(new GeoSegment[] { ExampleGeoSegments.segments[13] }, 0.02, 10, 5))
+			session.push(fix);
+		routes = session.finish();
+		show("Fixes far from the network are ignored and gaps split the trace",
+			routes.size() == 2 && routes.get(0).equals(Route.of(mTrip)));
+
+		// a fork into two roads, with fixes that follow one and then jump
+		// to the other once the first is out of the window
+		int lat0 = 32100000;
+		int lon0 = 35100000;
+		List<GeoSegment> fork = new ArrayList<>();
+		GeoPoint stem = new GeoPoint(lat0, lon0);
+		GeoPoint a = stem;
+		GeoPoint b = stem;
+		for (int i = 1; i <= 12; i++) {
+			GeoPoint nextA = new GeoPoint(lat0 + 180, lon0 + 320 * i);
+			GeoPoint nextB = new GeoPoint(lat0 - 180, lon0 + 320 * i);
+			fork.add(new GeoSegment("A", a, nextA));
+			fork.add(new GeoSegment("B", b, nextB));
+			a = nextA;
+			b = nextB;
+		}
+		MapMatcher forkMatcher = new MapMatcher(fork.toArray(new GeoSegment[0]), 0.01, 0.05, 0.05, 3);
+		session = forkMatcher.newSession();
+		boolean matched = true;
+		try {
+			for (int i = 0; i < 12; i++) {
+				session.push(new GeoPoint(lat0 + (i < 6 ? 30 : -90), lon0 + 320 * i + 160));
+				session.getRoute();
+			}
+			routes = session.finish();
+			for (Route r : routes)
+				for (GeoSegment gs : RouteTest.toList(r.getGeoSegments()))
+					matched &= gs.getName().equals(RouteTest.toList(r.getGeoSegments()).get(0).getName());
+		} catch (IllegalArgumentException e) {
+			matched = false;
+		}
+		show("Jumping between roads of a fork splits the trace", matched);
+
+		show("throughput");
+		List<GeoPoint> fixes = trace(mTrip, 0.01, 20, 6);
+		long begin = System.nanoTime();
+		int traces = 2000;
+		for (int i = 0; i < traces; i++) {
+			MapMatcher.Session s = mMatcher.newSession();
+			for (GeoPoint fix : fixes)
+				s.push(fix);
+			s.finish();
+		}
+		double seconds = (System.nanoTime() - begin) / 1e9;
+		System.out.printf("  %d traces of %d fixes in %.3f s (%.0f traces/s)%n",
+			traces, fixes.size(), seconds, traces / seconds);
+	}
+
+
+	public static void main(String[] args) {
+		MapMatcherTest matcherTest = new MapMatcherTest();
+		matcherTest.test();
+	}
+}
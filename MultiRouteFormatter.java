@@ -0,0 +1,165 @@
+package homework1;
+
+import java.util.*;
+
+/**
+ * A MultiRouteFormatter gives directions for a Route with several
+ * RouteFormatters at once, e.g. walking and driving directions side by
+ * side. MultiRouteFormatters are immutable.
+ * <p>
+ * The features of the route are traversed once: the turn onto each feature,
+ * its name and its length are computed once and handed to every formatter
+ * that can append a line from them (see RouteFormatter.appendsLines); the
+ * other formatters get the feature itself, through computeLine. The
+ * results are the same as those of calling each formatter on its own.
+ */
+public class MultiRouteFormatter {
+    private final RouteFormatter[] formatters;
+
+    // Abs. Function:
+    //   represents the sequence of formatters formatters[0..n-1]
+
+    // Rep. Invariant:
+    //   formatters != null && no element of formatters is null
+
+    private void checkRep() {
+        assert formatters != null : "Formatters must not be null";
+        for (RouteFormatter formatter : formatters) {
+            assert formatter != null : "Formatters must not be null";
+        }
+    }
+
+    /**
+     * Constructs a new MultiRouteFormatter.
+     *
+     * @requires formatters != null && formatters contains no null elements
+     * @effects Constructs a MultiRouteFormatter over the given formatters, in
+     * the given order.
+     */
+    public MultiRouteFormatter(RouteFormatter... formatters) {
+        this.formatters = formatters.clone();
+        checkRep();
+    }
+
+    /**
+     * Returns the number of formatters of this.
+     *
+     * @return the number of formatters given to the constructor.
+     */
+    public int size() {
+        return formatters.length;
+    }
+
+
+    /**
+     * Gives directions for following a Route with every formatter of this.
+     *
+     * @requires route != null && 0 <= heading < 360
+     * @return an array d such that d[k] equals
+     * formatters[k].computeDirections(route, heading) for every k.
+     */
+    public String[] computeDirections(Route route, double heading) {
+        checkRep();
+        StringBuilder[] directions = new StringBuilder[formatters.length];
+        for (int k = 0; k < formatters.length; k++) {
+            directions[k] = new StringBuilder();
+        }
+        for (Iterator<GeoFeature> it = route.getGeoFeatures(); it.hasNext(); ) {
+            GeoFeature feature = it.next();
+            TurnType turn = TurnType.classify(heading, feature.getStartHeading());
+            String name = feature.getName();
+            double length = feature.getLength();
+            for (int k = 0; k < formatters.length; k++) {
+                appendLine(formatters[k], directions[k], feature, heading, turn, name, length);
+            }
+            heading = feature.getEndHeading();
+        }
+        String[] result = new String[formatters.length];
+        for (int k = 0; k < formatters.length; k++) {
+            result[k] = directions[k].toString();
+        }
+        return result;
+    }
+
+
+    /**
+     * Gives directions for a sequence of maneuvers with every formatter of
+     * this.
+     *
+     * @requires maneuvers != null
+     * @return an array d such that d[k] equals
+     * formatters[k].computeDirections(maneuvers) for every k.
+     * @throws UnsupportedOperationException if some formatter of this does
+     * not format lines from maneuvers.
+     */
+    public String[] computeDirections(ManeuverList maneuvers) {
+        checkRep();
+        for (RouteFormatter formatter : formatters) {
+            if (!formatter.appendsLines()) {
+                throw new UnsupportedOperationException("A formatter of this needs whole features.");
+            }
+        }
+        StringBuilder[] directions = new StringBuilder[formatters.length];
+        for (int k = 0; k < formatters.length; k++) {
+            directions[k] = new StringBuilder();
+        }
+        for (int i = 0; i < maneuvers.size(); i++) {
+            TurnType turn = maneuvers.getTurn(i);
+            String name = maneuvers.getName(i);
+            double length = maneuvers.getLength(i);
+            for (int k = 0; k < formatters.length; k++) {
+                formatters[k].appendLine(directions[k], turn, name, length);
+            }
+        }
+        String[] result = new String[formatters.length];
+        for (int k = 0; k < formatters.length; k++) {
+            result[k] = directions[k].toString();
+        }
+        return result;
+    }
+
+
+    /**
+     * Gives directions for following a Route with every formatter of this,
+     * one line per feature, e.g. to show them in a list.
+     *
+     * @requires route != null && 0 <= heading < 360
+     * @return a list l such that l.get(k).get(i) is the i'th line of
+     * formatters[k].computeDirections(route, heading), without its newline,
+     * for every k and i.
+     */
+    public List<List<String>> computeLines(Route route, double heading) {
+        checkRep();
+        List<List<String>> lines = new ArrayList<>(formatters.length);
+        for (int k = 0; k < formatters.length; k++) {
+            lines.add(new ArrayList<>());
+        }
+        StringBuilder line = new StringBuilder();
+        for (Iterator<GeoFeature> it = route.getGeoFeatures(); it.hasNext(); ) {
+            GeoFeature feature = it.next();
+            TurnType turn = TurnType.classify(heading, feature.getStartHeading());
+            String name = feature.getName();
+            double length = feature.getLength();
+            for (int k = 0; k < formatters.length; k++) {
+                line.setLength(0);
+                appendLine(formatters[k], line, feature, heading, turn, name, length);
+                int end = line.length() > 0 && line.charAt(line.length() - 1) == '\n'
+                        ? line.length() - 1 : line.length();
+                lines.get(k).add(line.substring(0, end));
+            }
+            heading = feature.getEndHeading();
+        }
+        return lines;
+    }
+
+    // Appends the line of formatter for turning onto feature from heading,
+    // from the turn, name and length of feature if it can.
+    private static void appendLine(RouteFormatter formatter, StringBuilder out, GeoFeature feature,
+            double heading, TurnType turn, String name, double length) {
+        if (formatter.appendsLines()) {
+            formatter.appendLine(out, turn, name, length);
+        } else {
+            out.append(formatter.computeLine(feature, heading));
+        }
+    }
+}
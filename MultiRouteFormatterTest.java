@@ -0,0 +1,114 @@
+package homework1;
+
+import java.util.*;
+
+public class MultiRouteFormatterTest {
+
+	private RouteFormatter[] mFormatters;
+	private MultiRouteFormatter mMulti;
+
+
+	public MultiRouteFormatterTest() {
+		mFormatters = new RouteFormatter[] {
+			new WalkingRouteFormatter(),
+			new DrivingRouteFormatter(),
+			TemplateRouteFormatter.driving(Locale.FRENCH),
+			TemplateRouteFormatter.walking(Locale.GERMAN) };
+		mMulti = new MultiRouteFormatter(mFormatters);
+	}
+
+
+	public void show(String str) {
+		System.out.println();
+		System.out.println("***** " + str + " *****");
+	}
+
+
+	public void show(String str, boolean ok) {
+		if (ok)
+			System.out.print("v ");
+		else
+			System.out.print("x ");
+		System.out.println(str);
+	}
+
+
+	public void test() {
+		show("computeDirections() & computeLines()");
+		Random random = new Random(1);
+		boolean directions = true;
+		boolean lines = true;
+		for (int k = 0; k < 300; k++) {
+			Route route = TemplateRouteFormatterTest.randomRoute(random, 1 + random.nextInt(20));
+			double heading = random.nextInt(360);
+			String[] all = mMulti.computeDirections(route, heading);
+			List<List<String>> allLines = mMulti.computeLines(route, heading);
+			for (int f = 0; f < mFormatters.length; f++) {
+				String expected = mFormatters[f].computeDirections(route, heading);
+				directions &= all[f].equals(expected);
+				lines &= allLines.get(f).equals(Arrays.asList(expected.split("\n")));
+			}
+		}
+		show("Directions equal those of each formatter", directions);
+		show("Lines equal the lines of each formatter", lines);
+		show("Every formatter has an output", mMulti.size() == 4
+			&& mMulti.computeDirections(TemplateRouteFormatterTest.randomRoute(random, 3), 0).length == 4);
+		show("No formatters give no directions",
+			new MultiRouteFormatter().computeDirections(TemplateRouteFormatterTest.randomRoute(random, 3), 0).length == 0);
+		RouteFormatter plain = new RouteFormatter() {
+			public String computeLine(GeoFeature geoFeature, double origHeading) {
+				return getTurnString(origHeading, geoFeature.getStartHeading()) + " / " + geoFeature.getName()
+					+ " from " + geoFeature.getStart() + " to " + geoFeature.getEnd() + " / " + geoFeature.getLength() + "\n";
+			}
+		};
+		Route walk = TemplateRouteFormatterTest.randomRoute(random, 20);
+		StringBuilder expected = new StringBuilder();
+		double heading = 90;
+		for (Iterator<GeoFeature> it = walk.getGeoFeatures(); it.hasNext(); ) {
+			GeoFeature feature = it.next();
+			expected.append(plain.computeLine(feature, heading));
+			heading = feature.getEndHeading();
+		}
+		show("Overriding computeLine alone formats directions",
+			plain.computeDirections(walk, 90).equals(expected.toString())
+			&& new MultiRouteFormatter(plain).computeDirections(walk, 90)[0].equals(expected.toString()));
+		String[] mixed = new MultiRouteFormatter(plain, mFormatters[1]).computeDirections(walk, 90);
+		show("Formatters of whole features mix with fused ones", mixed[0].equals(expected.toString())
+			&& mixed[1].equals(mFormatters[1].computeDirections(walk, 90))
+			&& String.join("\n", new MultiRouteFormatter(plain).computeLines(walk, 90).get(0)).concat("\n")
+				.equals(expected.toString()));
+		boolean unsupported = false;
+		try {
+			plain.computeDirections(ManeuverList.of(walk, 90));
+		} catch (UnsupportedOperationException e) {
+			unsupported = true;
+		}
+		show("Formatters of whole features do not format maneuvers", unsupported);
+
+		show("throughput");
+		List<Route> routes = new ArrayList<>();
+		for (int k = 0; k < 2000; k++)
+			routes.add(TemplateRouteFormatterTest.randomRoute(random, 30));
+		long chars = 0;
+		long begin = System.nanoTime();
+		for (int pass = 0; pass < 10; pass++)
+			for (Route route : routes)
+				for (RouteFormatter formatter : mFormatters)
+					chars += formatter.computeDirections(route, 0).length();
+		double separate = (System.nanoTime() - begin) / 1e9;
+		begin = System.nanoTime();
+		for (int pass = 0; pass < 10; pass++)
+			for (Route route : routes)
+				for (String d : mMulti.computeDirections(route, 0))
+					chars -= d.length();
+		double fused = (System.nanoTime() - begin) / 1e9;
+		System.out.printf("  %d routes x %d formatters: %.3f s separately, %.3f s fused (%d)%n",
+			10 * routes.size(), mFormatters.length, separate, fused, chars);
+	}
+
+
+	public static void main(String[] args) {
+		MultiRouteFormatterTest multiTest = new MultiRouteFormatterTest();
+		multiTest.test();
+	}
+}
@@ -0,0 +1,105 @@
+package homework1;
+
+import java.util.Arrays;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * A NameDictionary maps names of geographic features to compact int ids.
+ * There is a single, global dictionary which is shared by all GeoSegments,
+ * GeoFeatures and Routes, so that each distinct name is stored once and
+ * names can be compared by comparing their ids.
+ * <p>
+ * Ids are assigned densely, starting at 0, in the order in which names are
+ * first seen. Once assigned, the id of a name never changes. All methods are
+ * thread-safe; looking up a name that is already known does not lock.
+ */
+public final class NameDictionary {
+    private static final ConcurrentHashMap<String, Integer> ids = new ConcurrentHashMap<>();
+    private static final Object lock = new Object();
+    private static volatile String[] names = new String[256];
+    private static int size = 0;        // guarded by lock
+
+    // Abs. Function:
+    //   represents the mapping names[i] <-> i for all 0 <= i < size
+
+    // Rep. Invariant:
+    //   0 <= size <= names.length
+    //   for all 0 <= i < size: names[i] != null && ids.get(names[i]) == i
+    //   ids.size() == size
+
+    private NameDictionary() {
+    }
+
+    /**
+     * Returns the id of a name, assigning a new id if the name is not yet
+     * in the dictionary.
+     *
+     * @requires name != null
+     * @return the id i such that nameOf(i).equals(name).
+     **/
+    public static int idOf(String name) {
+        Integer id = ids.get(name);
+        if (id != null) {
+            return id;
+        }
+        synchronized (lock) {
+            id = ids.get(name);
+            if (id != null) {
+                return id;
+            }
+            String[] current = names;
+            if (size == current.length) {
+                current = Arrays.copyOf(current, size * 2);
+            }
+            current[size] = name;
+            names = current;    // volatile write publishes the new slot
+            ids.put(name, size);
+            return size++;
+        }
+    }
+
+    /**
+     * Looks up the id of a name, without adding the name to the dictionary.
+     * Queries by names from outside the program should use this rather than
+     * idOf, which keeps every name it is given.
+     *
+     * @requires name != null
+     * @return the id i such that nameOf(i).equals(name), or -1 if name has
+     * no id.
+     **/
+    public static int lookup(String name) {
+        Integer id = ids.get(name);
+        return id == null ? -1 : id;
+    }
+
+    /**
+     * Returns the name with the given id.
+     *
+     * @return the name n such that idOf(n) == id.
+     * @throws IllegalArgumentException if no name has the given id.
+     **/
+    public static String nameOf(int id) {
+        String[] current = names;
+        String name = id >= 0 && id < current.length ? current[id] : null;
+        if (name == null && id >= 0) {
+            // the id may have been assigned by another thread after our read
+            synchronized (lock) {
+                name = id < size ? names[id] : null;
+            }
+        }
+        if (name == null) {
+            throw new IllegalArgumentException("Unknown name id: " + id);
+        }
+        return name;
+    }
+
+    /**
+     * Returns the number of names in the dictionary.
+     *
+     * @return the number of distinct names that have been assigned an id.
+     * Every id is in the range [0, size()).
+     **/
+    public static int size() {
+        return ids.size();
+    }
+}
@@ -0,0 +1,576 @@
+package homework1;
+
+import java.util.*;
+
+/**
+ * A NavigationSession follows a traveler along a planned Route during
+ * turn-by-turn navigation. NavigationSessions are mutable: each position
+ * fix moves the session along the route.
+ * <p>
+ * A fix is projected onto the segments of the route in a window around the
+ * segment of the previous fix, so an update takes time proportional to the
+ * window rather than to the length of the route. The length of the route up
+ * to each segment is precomputed, so progress along the route is known as
+ * soon as the fix is projected, and the current geographic feature is found
+ * by binary search. Directions for the rest of the route are formatted from
+ * the current feature on only.
+ * <p>
+ * The traveler is off route when a fix is too far from the route, or when
+ * the direction of travel between fixes deviates too much from the heading
+ * of the current segment. The deviation is the angle between the headings,
+ * as in RouteFormatter.getTurnString, folded to [0, 180]. An off-route
+ * traveler can be rerouted: a bounded search over the road network finds the
+ * shortest way from the traveler back to the rest of the route, which is
+ * spliced in front of it. Only the maneuvers up to the point where the
+ * detour rejoins the route change, so clients need only re-format those.
+ * <p>
+ * Distances use the flat-surface, near the Technion approximation of
+ * GeoPoint.
+ * <p>
+ * <b>The following fields are used in the specification:</b>
+ * <pre>
+ *   route : Route           // the planned route
+ *   segment : integer       // index of the segment the traveler is on
+ *   fraction : real         // fraction of that segment already traveled
+ *   progress : real         // distance traveled along route, in kilometers
+ *   offset : real           // distance from the last fix to route, in kilometers
+ *   deviation : angle       // angle between the direction of travel and the
+ *                           // heading of the current segment, in degrees
+ *   changed : integer       // number of leading remaining maneuvers changed
+ *                           // by the last reroute
+ * </pre>
+ */
+public class NavigationSession {
+
+    /**
+     * The default number of segments ahead of the current one that a fix is
+     * matched against.
+     */
+    public static final int DEFAULT_WINDOW = 8;
+
+    /**
+     * The default distance from the route, in kilometers, beyond which a fix
+     * is off route.
+     */
+    public static final double DEFAULT_MAX_OFFSET = 0.03;
+
+    /**
+     * The default deviation, in degrees, beyond which the direction of travel
+     * is off route; that is, anything sharper than a slight turn.
+     */
+    public static final double DEFAULT_MAX_DEVIATION = 60;
+
+    /**
+     * The maximal number of intersections that a reroute visits.
+     */
+    public static final int SEARCH_LIMIT = 20000;
+
+    // fixes closer than this to the previous one, in kilometers, do not
+    // tell the direction of travel
+    private static final double MIN_MOVE = 0.005;
+
+    private final int window;
+    private final double maxOffset;
+    private final double maxDeviation;
+
+    // the route and its indices, replaced by reroute
+    private Route route;
+    private GeoSegment[] segments;
+    private double[] prefix;                // prefix[i] = length of segments[0 .. i)
+    private GeoFeature[] features;
+    private int[] featureStart;             // features[f] covers segments [featureStart[f], featureStart[f+1])
+    private ManeuverList maneuvers;
+
+    private int segment;
+    private double fraction;
+    private double offset;
+    private double deviation;
+    private GeoPoint lastFix;
+    private double travelHeading = Double.NaN;
+    private int changed;
+
+    // Abs. Function:
+    //   represents a traveler who has followed this.route up to fraction
+    //   this.fraction of segments[this.segment], and whose last fix was
+    //   this.offset kilometers from that point;
+    //   progress = prefix[segment] + fraction * segments[segment].length
+
+    // Rep. Invariant:
+    //   segments are the segments of route, in order, and features are its
+    //   features, in order
+    //   prefix.length == segments.length + 1 && prefix[0] == 0 &&
+    //   prefix[i + 1] == prefix[i] + segments[i].length
+    //   featureStart.length == features.length + 1 && featureStart[0] == 0 &&
+    //   featureStart[features.length] == segments.length
+    //   maneuvers == ManeuverList.of(route, route.startHeading)
+    //   0 <= segment < segments.length && 0 <= fraction <= 1 && offset >= 0
+    //   0 <= deviation <= 180 && 0 <= changed <= features.length
+    //   window >= 1 && maxOffset > 0 && maxDeviation > 0
+    //   travelHeading is the heading from the fix before lastFix to lastFix,
+    //   or NaN if it is not known
+
+    private void checkRep() {
+        assert prefix.length == segments.length + 1 : "Prefix length mismatch";
+        assert featureStart.length == features.length + 1
+                && featureStart[features.length] == segments.length : "Feature index mismatch";
+        assert segment >= 0 && segment < segments.length : "Segment out of range";
+        assert fraction >= 0 && fraction <= 1 && offset >= 0 : "Invalid position";
+        assert deviation >= 0 && deviation <= 180 : "Invalid deviation";
+        assert window >= 1 && maxOffset > 0 && maxDeviation > 0 : "Invalid parameters";
+    }
+
+    /**
+     * Constructs a new NavigationSession with the default window.
+     *
+     * @requires route != null
+     * @effects Constructs a session at the start of route.
+     */
+    public NavigationSession(Route route) {
+        this(route, DEFAULT_WINDOW);
+    }
+
+    /**
+     * Constructs a new NavigationSession.
+     *
+     * @requires route != null && window >= 1
+     * @effects Constructs a session at the start of route, which matches each
+     * fix against the current segment, the one before it and the window
+     * segments after it.
+     */
+    public NavigationSession(Route route, int window) {
+        this(route, window, DEFAULT_MAX_OFFSET, DEFAULT_MAX_DEVIATION);
+    }
+
+    /**
+     * Constructs a new NavigationSession.
+     *
+     * @requires route != null && window >= 1 && maxOffset > 0 &&
+     * 0 < maxDeviation <= 180
+     * @effects Constructs a session at the start of route, which matches each
+     * fix against the current segment, the one before it and the window
+     * segments after it, and which is off route when a fix is more than
+     * maxOffset kilometers from the route or the direction of travel deviates
+     * by more than maxDeviation degrees from the route.
+     */
+    public NavigationSession(Route route, int window, double maxOffset, double maxDeviation) {
+        this.window = window;
+        this.maxOffset = maxOffset;
+        this.maxDeviation = maxDeviation;
+        load(route);
+        checkRep();
+    }
+
+    // Indexes route and puts the traveler at its start.
+    private void load(Route route) {
+        this.route = route;
+        List<GeoSegment> segmentList = new ArrayList<>();
+        route.getGeoSegments().forEachRemaining(segmentList::add);
+        this.segments = segmentList.toArray(new GeoSegment[0]);
+        this.prefix = new double[segments.length + 1];
+        for (int i = 0; i < segments.length; i++) {
+            prefix[i + 1] = prefix[i] + segments[i].getLength();
+        }
+        List<GeoFeature> featureList = new ArrayList<>();
+        route.getGeoFeatures().forEachRemaining(featureList::add);
+        this.features = featureList.toArray(new GeoFeature[0]);
+        this.featureStart = new int[features.length + 1];
+        for (int f = 0; f < features.length; f++) {
+            int count = 0;
+            for (Iterator<GeoSegment> it = features[f].getGeoSegments(); it.hasNext(); it.next()) {
+                count++;
+            }
+            featureStart[f + 1] = featureStart[f] + count;
+        }
+        this.maneuvers = ManeuverList.of(route, route.getStartHeading());
+        this.segment = 0;
+        this.fraction = 0;
+    }
+
+
+    /**
+     * Moves the session to a position fix.
+     *
+     * @requires fix != null
+     * @modifies this
+     * @effects moves the traveler to the point closest to fix on the current
+     * segment, the one before it or the window segments after it (the
+     * earliest such point, if several are equally close), and sets
+     * this.offset to the distance from fix to that point. If fix is far
+     * enough from the previous fix, sets this.deviation to the angle between
+     * the heading from the previous fix to fix and the heading of the new
+     * segment.
+     * @return the new value of this.offset.
+     */
+    public double update(GeoPoint fix) {
+        checkRep();
+        int lat = fix.getLatitude();
+        int lon = fix.getLongitude();
+        int from = Math.max(0, segment - 1);
+        int to = Math.min(segments.length - 1, segment + window);
+        double best = Double.POSITIVE_INFINITY;
+        for (int i = from; i <= to; i++) {
+            double t = SegmentProjection.fraction(lat, lon, segments[i]);
+            double d = SegmentProjection.distance(lat, lon, segments[i], t);
+            if (d < best) {
+                best = d;
+                segment = i;
+                fraction = t;
+            }
+        }
+        offset = best;
+        if (lastFix == null || lastFix.distanceTo(fix) >= MIN_MOVE) {
+            if (lastFix != null) {
+                travelHeading = lastFix.headingTo(fix);
+                deviation = deviation(travelHeading, segments[segment].getHeading());
+            }
+            lastFix = fix;
+        }
+        checkRep();
+        return offset;
+    }
+
+    // The angle between two headings, in [0, 180], computed as the angle of
+    // RouteFormatter.getTurnString.
+    private static double deviation(double origHeading, double newHeading) {
+        double angle = (newHeading - origHeading + 360) % 360;
+        return Math.min(angle, 360 - angle);
+    }
+
+
+    /**
+     * Tells whether the traveler has left the route.
+     *
+     * @return true iff this.offset > maxOffset || this.deviation > maxDeviation
+     */
+    public boolean isOffRoute() {
+        return offset > maxOffset || deviation > maxDeviation;
+    }
+
+
+    /**
+     * Returns the deviation of the direction of travel from the route.
+     *
+     * @return this.deviation, in degrees, or 0 while the direction of travel
+     * is not known.
+     */
+    public double getDeviation() {
+        return deviation;
+    }
+
+
+    /**
+     * Leads the traveler back to the route. Finds the shortest way from the
+     * segment nearest to fix, in the direction of travel, to a point of the
+     * rest of the route, such that the way and the rest of the route from
+     * that point are shortest together; the search gives up after
+     * SEARCH_LIMIT intersections.
+     *
+     * @requires fix != null && network != null && locator != null &&
+     * locator is a ReverseGeocoder over the segments of network
+     * @modifies this
+     * @effects if a way is found, replaces route by the way followed by the
+     * rest of route from where the way meets it, puts the traveler at the
+     * point nearest to fix on the new route, and sets this.changed to the
+     * number of leading remaining maneuvers that differ from those of the
+     * old route. Otherwise, leaves this unchanged.
+     * @return true iff a way back to the route is found.
+     */
+    public boolean reroute(GeoPoint fix, SegmentIndex network, ReverseGeocoder locator) {
+        checkRep();
+        GeoSegment nearest = locator.nearest(fix);
+        if (nearest == null) {
+            return false;
+        }
+        GeoSegment entry = orient(nearest, network);
+        int lat = fix.getLatitude();
+        int lon = fix.getLongitude();
+        double t = SegmentProjection.fraction(lat, lon, entry);
+
+        // the first index at or after the current segment at which the rest
+        // of the route passes through each of its points
+        Map<GeoPoint, Integer> joins = new HashMap<>();
+        joins.put(segments[segments.length - 1].getP2(), segments.length);
+        for (int j = segments.length - 1; j >= segment; j--) {
+            joins.put(segments[j].getP1(), j);
+        }
+
+        // Dijkstra from entry.p2, where each point p of the route costs the
+        // length of the route after it on top of the way to it
+        Map<GeoPoint, Double> distances = new HashMap<>();
+        Map<GeoPoint, GeoSegment> via = new HashMap<>();
+        PriorityQueue<Map.Entry<GeoPoint, Double>> queue = new PriorityQueue<>(Map.Entry.comparingByValue());
+        distances.put(entry.getP2(), 0.0);
+        queue.add(Map.entry(entry.getP2(), 0.0));
+        double total = prefix[segments.length];
+        double bestCost = Double.POSITIVE_INFINITY;
+        GeoPoint bestJoin = null;
+        int settled = 0;
+        while (!queue.isEmpty() && settled < SEARCH_LIMIT) {
+            Map.Entry<GeoPoint, Double> head = queue.poll();
+            GeoPoint p = head.getKey();
+            double d = head.getValue();
+            if (d > distances.get(p)) {
+                continue;       // stale entry
+            }
+            if (d >= bestCost) {
+                break;          // no way through p can be cheaper
+            }
+            settled++;
+            Integer j = joins.get(p);
+            if (j != null && d + total - prefix[j] < bestCost) {
+                bestCost = d + total - prefix[j];
+                bestJoin = p;
+            }
+            for (GeoSegment next : network.startingAt(p)) {
+                double nd = d + next.getLength();
+                Double old = distances.get(next.getP2());
+                if (old == null || nd < old) {
+                    distances.put(next.getP2(), nd);
+                    via.put(next.getP2(), next);
+                    queue.add(Map.entry(next.getP2(), nd));
+                }
+            }
+        }
+        if (bestJoin == null) {
+            return false;
+        }
+
+        // splice: the rest of entry, the way, and the route from the join on
+        List<GeoSegment> detour = new ArrayList<>();
+        for (GeoPoint p = bestJoin; !p.equals(entry.getP2()); p = via.get(p).getP1()) {
+            detour.add(via.get(p));
+        }
+        Collections.reverse(detour);
+        GeoPoint position = pointAt(entry, t);
+        if (!position.equals(entry.getP2())) {
+            detour.add(0, new GeoSegment(entry.getNameId(), position, entry.getP2()));
+        }
+        int join = joins.get(bestJoin);
+        if (detour.isEmpty() && join == segments.length) {
+            return false;       // already at the end
+        }
+        List<GeoSegment> spliced = new ArrayList<>(detour.size() + segments.length - join);
+        spliced.addAll(detour);
+        spliced.addAll(Arrays.asList(segments).subList(join, segments.length));
+        load(Route.of(spliced));
+
+        // the maneuvers up to and including the feature that holds the first
+        // segment of the old route changed; the turns after it did not
+        segment = 0;
+        int rejoined = detour.size() < segments.length ? featureOf(detour.size()) : features.length - 1;
+        changed = rejoined + 1;
+        update(fix);
+        deviation = Double.isNaN(travelHeading) ? 0 : deviation(travelHeading, segments[segment].getHeading());
+        checkRep();
+        return true;
+    }
+
+    // The direction of gs, or of its reverse in network, that deviates least
+    // from the direction of travel.
+    private GeoSegment orient(GeoSegment gs, SegmentIndex network) {
+        if (Double.isNaN(travelHeading)) {
+            return gs;
+        }
+        GeoSegment best = gs;
+        for (GeoSegment back : network.startingAt(gs.getP2())) {
+            if (back.getP2().equals(gs.getP1())
+                    && deviation(travelHeading, back.getHeading()) < deviation(travelHeading, best.getHeading())) {
+                best = back;
+            }
+        }
+        return best;
+    }
+
+    private static GeoPoint pointAt(GeoSegment gs, double t) {
+        GeoPoint a = gs.getP1();
+        GeoPoint b = gs.getP2();
+        return new GeoPoint(
+                (int) Math.round(a.getLatitude() + t * (b.getLatitude() - a.getLatitude())),
+                (int) Math.round(a.getLongitude() + t * (b.getLongitude() - a.getLongitude())));
+    }
+
+
+    /**
+     * Returns the number of remaining maneuvers changed by the last reroute.
+     *
+     * @return this.changed, the number of leading lines of
+     * getRemainingDirections right after the last reroute that differ from
+     * the directions before it; 0 if there was no reroute. The lines after
+     * those are the same as before the reroute.
+     */
+    public int getChangedManeuvers() {
+        return changed;
+    }
+
+
+    /**
+     * Returns the route followed by this session.
+     *
+     * @return this.route
+     */
+    public Route getRoute() {
+        return route;
+    }
+
+
+    /**
+     * Returns the index of the current segment.
+     *
+     * @return this.segment, the position in route.geoSegments of the segment
+     * the traveler is on.
+     */
+    public int getSegmentIndex() {
+        return segment;
+    }
+
+
+    /**
+     * Returns the point of the route where the traveler is.
+     *
+     * @return the point at this.fraction of the way along segments[segment],
+     * rounded to millionths of degrees.
+     */
+    public GeoPoint getPosition() {
+        return pointAt(segments[segment], fraction);
+    }
+
+
+    /**
+     * Returns the distance traveled.
+     *
+     * @return this.progress, in kilometers.
+     */
+    public double getProgress() {
+        return prefix[segment] + fraction * segments[segment].getLength();
+    }
+
+
+    /**
+     * Returns the distance left to travel.
+     *
+     * @return route.length - this.progress, in kilometers.
+     */
+    public double getRemainingLength() {
+        return Math.max(0, prefix[segments.length] - getProgress());
+    }
+
+
+    /**
+     * Returns the distance from the last fix to the route.
+     *
+     * @return this.offset, in kilometers, or 0 before the first fix.
+     */
+    public double getOffset() {
+        return offset;
+    }
+
+
+    /**
+     * Returns the index of the current geographic feature.
+     *
+     * @return the position in route.geoFeatures of the feature that contains
+     * segments[this.segment].
+     */
+    public int getFeatureIndex() {
+        return featureOf(segment);
+    }
+
+    // The last feature that starts at or before segments[s].
+    private int featureOf(int s) {
+        int lo = 0;
+        int hi = features.length - 1;
+        while (lo < hi) {
+            int mid = (lo + hi + 1) >>> 1;
+            if (featureStart[mid] <= s) {
+                lo = mid;
+            } else {
+                hi = mid - 1;
+            }
+        }
+        return lo;
+    }
+
+
+    /**
+     * Returns the current geographic feature.
+     *
+     * @return the feature of route that the traveler is on.
+     */
+    public GeoFeature getCurrentFeature() {
+        return features[getFeatureIndex()];
+    }
+
+
+    /**
+     * Returns the next maneuver.
+     *
+     * @return the turn onto the feature after the current one, or null if
+     * the traveler is on the last feature of route.
+     */
+    public TurnType getNextTurn() {
+        int f = getFeatureIndex() + 1;
+        return f < features.length ? maneuvers.getTurn(f) : null;
+    }
+
+
+    /**
+     * Returns the distance to the next maneuver.
+     *
+     * @return the distance, in kilometers, from the traveler to the end of the
+     * current feature.
+     */
+    public double getDistanceToNextManeuver() {
+        return Math.max(0, prefix[featureStart[getFeatureIndex() + 1]] - getProgress());
+    }
+
+
+    /**
+     * Gives directions for the rest of the route.
+     *
+     * @requires formatter != null
+     * @return A newline-terminated directions <tt>String</tt> whose first
+     * line tells the traveler to continue along the current feature for
+     * getDistanceToNextManeuver() kilometers, followed by the lines of
+     * formatter.computeDirections(route, route.startHeading) for the
+     * features after the current one.
+     * @throws UnsupportedOperationException if formatter does not format
+     * lines from maneuvers (see RouteFormatter.appendsLines).
+     */
+    public String getRemainingDirections(RouteFormatter formatter) {
+        return getRemainingDirections(formatter, features.length);
+    }
+
+
+    /**
+     * Gives directions for the next part of the route, e.g. for the
+     * maneuvers changed by a reroute.
+     *
+     * @requires formatter != null && lines >= 0
+     * @return the first lines lines of getRemainingDirections(formatter), or
+     * all of them if there are fewer.
+     * @throws UnsupportedOperationException if lines > 0 and formatter does
+     * not format lines from maneuvers (see RouteFormatter.appendsLines).
+     */
+    public String getRemainingDirections(RouteFormatter formatter, int lines) {
+        StringBuilder directions = new StringBuilder();
+        int current = getFeatureIndex();
+        if (lines == 0) {
+            return "";
+        }
+        formatter.appendLine(directions, TurnType.CONTINUE, maneuvers.getName(current), getDistanceToNextManeuver());
+        for (int f = current + 1; f < features.length && f - current < lines; f++) {
+            formatter.appendLine(directions, maneuvers.getTurn(f), maneuvers.getName(f), maneuvers.getLength(f));
+        }
+        return directions.toString();
+    }
+
+
+    /**
+     * Tells whether the traveler has arrived.
+     *
+     * @return true iff the traveler is at the end of route.
+     */
+    public boolean isFinished() {
+        return segment == segments.length - 1 && fraction == 1;
+    }
+}
@@ -0,0 +1,175 @@
+package homework1;
+
+import java.util.*;
+
+public class NavigationSessionTest {
+
+	private static final double tolerance = 0.0001;
+
+	private Route mRoute;
+
+
+	public NavigationSessionTest() {
+		GeoSegment[] network = new RoadNetworkGenerator(11).grid(60, 60, 1000);
+		mRoute = new RoadNetworkGenerator(12).randomRoute(new SegmentIndex(network), 400);
+	}
+
+
+	boolean same(double x, double y) {
+		return ((y >= x-tolerance) && (y <= x+tolerance));
+	}
+
+
+	public void show(String str) {
+		System.out.println();
+		System.out.println("***** " + str + " *****");
+	}
+
+
+	public void show(String str, boolean ok) {
+		if (ok)
+			System.out.print("v ");
+		else
+			System.out.print("x ");
+		System.out.println(str);
+	}
+
+
+	public void test() {
+		show("update()");
+		List<GeoSegment> segments = RouteTest.toList(mRoute.getGeoSegments());
+		List<GeoFeature> features = RouteTest.toList(mRoute.getGeoFeatures());
+		List<GeoPoint> fixes = MapMatcherTest.trace(segments.toArray(new GeoSegment[0]), 0.02, 20, 1);
+		NavigationSession session = new NavigationSession(mRoute);
+		show("Session starts at the start", session.getProgress() == 0
+			&& session.getPosition().equals(mRoute.getStart()));
+		boolean monotone = true;
+		boolean near = true;
+		boolean feature = true;
+		double last = 0;
+		for (GeoPoint fix : fixes) {
+			double offset = session.update(fix);
+			monotone &= session.getProgress() >= last - 0.005;
+			last = session.getProgress();
+			near &= offset < 0.01;
+			// the feature found by binary search is the one holding the segment
+			int seen = 0;
+			int expected = -1;
+			for (int f = 0; f < features.size() && expected < 0; f++) {
+				seen += RouteTest.toList(features.get(f).getGeoSegments()).size();
+				if (session.getSegmentIndex() < seen)
+					expected = f;
+			}
+			feature &= session.getFeatureIndex() == expected
+				&& session.getCurrentFeature() == features.get(expected);
+		}
+		show("Progress never goes back", monotone);
+		show("Fixes are matched close to the route", near);
+		show("Current feature is found", feature);
+		session.update(mRoute.getEnd());
+		show("Session reaches the end", session.isFinished() && same(session.getRemainingLength(), 0)
+			&& same(session.getProgress(), mRoute.getLength()));
+		show("No turn after the last feature", session.getNextTurn() == null);
+
+		show("getRemainingDirections()");
+		RouteFormatter driving = new DrivingRouteFormatter();
+		ManeuverList maneuvers = ManeuverList.of(mRoute, mRoute.getStartHeading());
+		String[] all = driving.computeDirections(mRoute, mRoute.getStartHeading()).split("\n");
+		session = new NavigationSession(mRoute);
+		int f = features.size() / 2;
+		// walk to the start of feature f
+		int first = 0;
+		for (int g = 0; g < f; g++)
+			first += RouteTest.toList(features.get(g).getGeoSegments()).size();
+		for (GeoSegment gs : segments.subList(0, first))
+			session.update(gs.getP2());
+		session.update(features.get(f).getGeoSegments().next().getP2());
+		String[] remaining = session.getRemainingDirections(driving).split("\n");
+		show("One line per remaining feature", remaining.length == features.size() - f);
+		show("First line continues on the current feature",
+			remaining[0].startsWith("Continue onto " + features.get(f).getName()));
+		show("Other lines are those of the whole route",
+			Arrays.equals(Arrays.copyOfRange(remaining, 1, remaining.length),
+				Arrays.copyOfRange(all, f + 1, all.length)));
+		show("Next turn is the turn onto the next feature", session.getNextTurn() == maneuvers.getTurn(f + 1));
+		show("Distance to the next maneuver is the rest of the feature",
+			session.getDistanceToNextManeuver() < features.get(f).getLength()
+			&& same(session.getDistanceToNextManeuver() + session.getProgress(),
+				session.getProgress() + session.getRemainingLength()
+				- features.subList(f + 1, features.size()).stream().mapToDouble(GeoFeature::getLength).sum()));
+
+		show("reroute()");
+		GeoSegment[] network = new RoadNetworkGenerator(11).grid(60, 60, 1000);
+		SegmentIndex index = new SegmentIndex(network);
+		ReverseGeocoder locator = new ReverseGeocoder(network);
+		session = new NavigationSession(mRoute);
+		// follow the route to segment k, then turn off it onto a street the
+		// route does not take next
+		int turn = segments.size() / 3;
+		for (GeoSegment gs : segments.subList(0, turn + 1))
+			session.update(gs.getP2());
+		show("On the route while following it", !session.isOffRoute());
+		GeoSegment off = null;
+		for (GeoSegment gs : index.startingAt(segments.get(turn).getP2()))
+			if (!gs.getP2().equals(segments.get(turn + 1).getP2()) && !gs.getP2().equals(segments.get(turn).getP1()))
+				off = gs;
+		GeoPoint p1 = off.getP1();
+		GeoPoint p2 = off.getP2();
+		GeoPoint away = new GeoPoint((3 * p1.getLatitude() + 5 * p2.getLatitude()) / 8,
+			(3 * p1.getLongitude() + 5 * p2.getLongitude()) / 8);
+		GeoPoint back = new GeoPoint((segments.get(turn).getP1().getLatitude() + p1.getLatitude()) / 2,
+			(segments.get(turn).getP1().getLongitude() + p1.getLongitude()) / 2);
+		NavigationSession reversing = new NavigationSession(mRoute);
+		for (GeoSegment gs : segments.subList(0, turn + 1))
+			reversing.update(gs.getP2());
+		reversing.update(back);
+		show("Off the route when turning back on it", reversing.isOffRoute()
+			&& reversing.getOffset() < 0.001 && reversing.getDeviation() > 170);
+		session.update(away);
+		show("Off the route after turning off it", session.isOffRoute() && session.getOffset() > 0.03);
+		String[] before = session.getRemainingDirections(driving).split("\n");
+		double remainingBefore = session.getRemainingLength();
+		show("Reroute finds a way back", session.reroute(away, index, locator));
+		show("Back on the route", !session.isOffRoute() && session.getOffset() < 0.001);
+		Route rerouted = session.getRoute();
+		show("New route ends where the old one does", rerouted.getEnd().equals(mRoute.getEnd()));
+		show("New route starts on the street turned onto",
+			rerouted.getGeoSegments().next().getName().equals(off.getName())
+			&& Math.abs(rerouted.getStartHeading() - off.getHeading()) < 1);
+		show("New route is no longer than turning back",
+			rerouted.getLength() <= remainingBefore + 2 * off.getLength() + tolerance);
+		String[] after = session.getRemainingDirections(driving).split("\n");
+		int changed = session.getChangedManeuvers();
+		show("Some maneuvers changed", changed >= 1 && changed <= after.length);
+		show("Maneuvers after the changed ones are those of the old route",
+			Arrays.equals(Arrays.copyOfRange(after, changed, after.length),
+				Arrays.copyOfRange(before, before.length - (after.length - changed), before.length)));
+		show("Changed maneuvers can be formatted alone",
+			session.getRemainingDirections(driving, changed).split("\n").length == changed
+			&& Arrays.asList(after).subList(0, changed).equals(
+				Arrays.asList(session.getRemainingDirections(driving, changed).split("\n"))));
+		for (GeoSegment gs : RouteTest.toList(rerouted.getGeoSegments()))
+			session.update(gs.getP2());
+		show("Rerouted session reaches the end", session.isFinished());
+
+		show("throughput");
+		long begin = System.nanoTime();
+		int updates = 0;
+		for (int k = 0; k < 200; k++) {
+			NavigationSession s = new NavigationSession(mRoute);
+			for (GeoPoint fix : fixes) {
+				s.update(fix);
+				s.getDistanceToNextManeuver();
+				updates++;
+			}
+		}
+		double seconds = (System.nanoTime() - begin) / 1e9;
+		System.out.printf("  %d updates in %.3f s (%.1f million/s)%n", updates, seconds, updates / seconds / 1e6);
+	}
+
+
+	public static void main(String[] args) {
+		NavigationSessionTest sessionTest = new NavigationSessionTest();
+		sessionTest.test();
+	}
+}
@@ -0,0 +1,194 @@
+package homework1;
+
+import java.util.*;
+
+/**
+ * PointSnapper merges points that are almost equal. In imported data, the
+ * ends of roads that meet at an intersection often differ by a few
+ * millionths of a degree; since GeoPoint.equals is exact, Routes cannot
+ * turn from one such road onto another. Snapping moves all the points of a
+ * cluster of nearby points to one canonical point of the cluster, so that
+ * the roads meet.
+ * <p>
+ * Two points are in the same cluster if they are within the tolerance of
+ * each other, measured as the straight-line distance between their
+ * (latitude, longitude) pairs in millionths of degrees, or if they are
+ * joined by a chain of such points. The canonical point of a cluster is the
+ * one with the least Morton key, so it does not depend on the order of the
+ * input.
+ * <p>
+ * Distinct points are found by sorting their Morton keys, and then hashed
+ * into square cells twice as large as the tolerance, so that the points
+ * within the tolerance of a point are in its cell or in the three cells
+ * next to the quarter of the cell it lies in; each point is compared only
+ * with the points of those four cells, and clusters are merged with a
+ * union-find forest. Snapping thus takes time
+ * near-linear in the number of points, as long as the tolerance is small
+ * compared to the distance between distinct intersections.
+ */
+public final class PointSnapper {
+
+    private PointSnapper() {
+    }
+
+    /**
+     * Snaps the endpoints of segments, and drops the segments that vanish.
+     *
+     * @requires segments != null && segments contains no null elements &&
+     * tolerance >= 0
+     * @return the segments of segments, in order, with each endpoint
+     * replaced by the canonical point of its cluster among all the
+     * endpoints, without the segments whose endpoints then coincide.
+     * Segments with no endpoint moved are returned as they are.
+     * @throws IllegalArgumentException if tolerance is negative.
+     */
+    public static GeoSegment[] snap(GeoSegment[] segments, int tolerance) {
+        GeoPoint[] ends = new GeoPoint[2 * segments.length];
+        for (int i = 0; i < segments.length; i++) {
+            ends[2 * i] = segments[i].getP1();
+            ends[2 * i + 1] = segments[i].getP2();
+        }
+        GeoPoint[] snapped = canonical(ends, tolerance);
+        List<GeoSegment> result = new ArrayList<>(segments.length);
+        for (int i = 0; i < segments.length; i++) {
+            GeoPoint p1 = snapped[2 * i];
+            GeoPoint p2 = snapped[2 * i + 1];
+            if (p1.equals(p2)) {
+                continue;
+            }
+            GeoSegment gs = segments[i];
+            result.add(p1.equals(gs.getP1()) && p2.equals(gs.getP2()) ? gs : new GeoSegment(gs.getNameId(), p1, p2));
+        }
+        return result.toArray(new GeoSegment[0]);
+    }
+
+
+    /**
+     * Finds the canonical point of each point.
+     *
+     * @requires points != null && points contains no null elements &&
+     * tolerance >= 0
+     * @return an array c such that c[i] is the canonical point of the
+     * cluster of points[i] among points. Equal canonical points are the same
+     * object, one of the elements of points.
+     * @throws IllegalArgumentException if tolerance is negative.
+     */
+    public static GeoPoint[] canonical(GeoPoint[] points, int tolerance) {
+        if (tolerance < 0) {
+            throw new IllegalArgumentException("Tolerance must not be negative.");
+        }
+        int n = points.length;
+        long[] keys = new long[n];
+        for (int i = 0; i < n; i++) {
+            keys[i] = GeoCell.mortonKey(points[i]);
+        }
+        int[] order = GeoCell.order(keys);
+
+        // the distinct points, in Morton order, and the distinct point of each
+        // input point
+        int[] distinct = new int[n];     // the index in points of each distinct point
+        int[] idOf = new int[n];
+        int count = 0;
+        for (int k = 0; k < n; k++) {
+            int i = order[k];
+            if (count == 0 || keys[i] != keys[distinct[count - 1]]) {
+                distinct[count++] = i;
+            }
+            idOf[i] = count - 1;
+        }
+
+        int[] parent = tolerance == 0 ? null : clusters(points, distinct, count, tolerance);
+        GeoPoint[] canonical = new GeoPoint[n];
+        for (int i = 0; i < n; i++) {
+            canonical[i] = points[distinct[parent == null ? idOf[i] : find(parent, idOf[i])]];
+        }
+        return canonical;
+    }
+
+    // The union-find forest of the clusters of the first count distinct
+    // points, in which every root is the least id of its tree.
+    private static int[] clusters(GeoPoint[] points, int[] distinct, int count, int tolerance) {
+        int[] parent = new int[count];
+        for (int id = 0; id < count; id++) {
+            parent[id] = id;
+        }
+        // spatial hash of the cells: head[slot] is the last point added to
+        // the cell cellKeys[slot], next[id] the point added to its cell
+        // before id, -1 ending both
+        int capacity = Integer.highestOneBit(Math.max(1, count) * 2) * 2;
+        int mask = capacity - 1;
+        long[] cellKeys = new long[capacity];
+        int[] head = new int[capacity];
+        Arrays.fill(head, -1);
+        int[] next = new int[count];
+        // the coordinates of the distinct points, in Morton order, read
+        // without chasing a GeoPoint per comparison
+        int[] lats = new int[count];
+        int[] lons = new int[count];
+        for (int id = 0; id < count; id++) {
+            lats[id] = points[distinct[id]].getLatitude();
+            lons[id] = points[distinct[id]].getLongitude();
+        }
+        long limit = (long) tolerance * tolerance;
+        int size = (int) Math.min(Integer.MAX_VALUE, 2L * tolerance);
+        for (int id = 0; id < count; id++) {
+            int lat = lats[id];
+            int lon = lons[id];
+            int row = Math.floorDiv(lat, size);
+            int col = Math.floorDiv(lon, size);
+            // cells are twice the tolerance, so near points are in this cell,
+            // or in the next one on the side of the nearer half of it
+            int nextRow = lat - (long) row * size < tolerance ? row - 1 : row + 1;
+            int nextCol = lon - (long) col * size < tolerance ? col - 1 : col + 1;
+            for (int r : new int[] {row, nextRow}) {
+                for (int c : new int[] {col, nextCol}) {
+                    int slot = slot(cellKeys, head, mask, key(r, c));
+                    for (int other = head[slot]; other >= 0; other = next[other]) {
+                        long dLat = (long) lats[other] - lat;
+                        long dLon = (long) lons[other] - lon;
+                        if (dLat * dLat + dLon * dLon <= limit) {
+                            union(parent, id, other);
+                        }
+                    }
+                }
+            }
+            int slot = slot(cellKeys, head, mask, key(row, col));
+            cellKeys[slot] = key(row, col);
+            next[id] = head[slot];
+            head[slot] = id;
+        }
+        return parent;
+    }
+
+    private static long key(int row, int col) {
+        return ((long) row << 32) | (col & 0xffffffffL);
+    }
+
+    // The slot of the cell with the given key, or the empty slot where it
+    // belongs.
+    private static int slot(long[] cellKeys, int[] head, int mask, long key) {
+        int slot = (int) ((key * 0x9E3779B97F4A7C15L) >>> 32) & mask;
+        while (head[slot] >= 0 && cellKeys[slot] != key) {
+            slot = (slot + 1) & mask;
+        }
+        return slot;
+    }
+
+    private static int find(int[] parent, int id) {
+        while (parent[id] != id) {
+            parent[id] = parent[parent[id]];     // path halving
+            id = parent[id];
+        }
+        return id;
+    }
+
+    private static void union(int[] parent, int a, int b) {
+        int ra = find(parent, a);
+        int rb = find(parent, b);
+        if (ra < rb) {
+            parent[rb] = ra;
+        } else if (rb < ra) {
+            parent[ra] = rb;
+        }
+    }
+}
@@ -0,0 +1,121 @@
+package homework1;
+
+import java.util.*;
+
+public class PointSnapperTest {
+
+	public void show(String str) {
+		System.out.println();
+		System.out.println("***** " + str + " *****");
+	}
+
+
+	public void show(String str, boolean ok) {
+		if (ok)
+			System.out.print("v ");
+		else
+			System.out.print("x ");
+		System.out.println(str);
+	}
+
+
+	// The clusters of points, by comparing every pair: c[i] == c[j] iff
+	// points[i] and points[j] are in the same cluster.
+	static int[] bruteForce(GeoPoint[] points, int tolerance) {
+		int[] cluster = new int[points.length];
+		for (int i = 0; i < points.length; i++)
+			cluster[i] = i;
+		boolean changed = true;
+		while (changed) {
+			changed = false;
+			for (int i = 0; i < points.length; i++) {
+				for (int j = 0; j < points.length; j++) {
+					long dLat = (long) points[i].getLatitude() - points[j].getLatitude();
+					long dLon = (long) points[i].getLongitude() - points[j].getLongitude();
+					if (dLat * dLat + dLon * dLon <= (long) tolerance * tolerance && cluster[j] < cluster[i]) {
+						cluster[i] = cluster[j];
+						changed = true;
+					}
+				}
+			}
+		}
+		return cluster;
+	}
+
+
+	public void test() {
+		show("snap()");
+		GeoPoint center = new GeoPoint(32100000, 35200000);
+		GeoSegment north = new GeoSegment("North", new GeoPoint(32101000, 35200000), new GeoPoint(32100002, 35200001));
+		GeoSegment east = new GeoSegment("East", new GeoPoint(32099999, 35199998), new GeoPoint(32100000, 35201000));
+		GeoSegment south = new GeoSegment("South", new GeoPoint(32099000, 35200000), center);
+		GeoSegment west = new GeoSegment("West", new GeoPoint(32100001, 35200003), new GeoPoint(32100000, 35199000));
+		GeoSegment stub = new GeoSegment("Stub", new GeoPoint(32100003, 35200000), new GeoPoint(32100000, 35200002));
+		GeoSegment[] raw = {north, east, south, west, stub};
+		GeoSegment[] snapped = PointSnapper.snap(raw, 5);
+		show("Zero-length segments are dropped", snapped.length == 4);
+		GeoPoint meeting = snapped[0].getP2();
+		show("Roads meet at one point", snapped[1].getP1().equals(meeting)
+			&& snapped[2].getP2().equals(meeting) && snapped[3].getP1().equals(meeting));
+		show("Canonical point is one of the cluster", meeting.equals(center)
+			|| meeting.equals(north.getP2()) || meeting.equals(east.getP1()) || meeting.equals(west.getP1()));
+		show("Far endpoints do not move", snapped[0].getP1() == north.getP1() && snapped[3].getP2() == west.getP2());
+		show("Names are kept", snapped[1].getName().equals("East"));
+		show("Raw roads do not connect", new AlternativeRoutes(raw).shortest(north.getP1(), east.getP2()) == null);
+		show("Snapped roads connect", new AlternativeRoutes(snapped).shortest(snapped[0].getP1(), snapped[1].getP2()) != null);
+		GeoSegment[] exact = PointSnapper.snap(raw, 0);
+		show("Zero tolerance changes nothing", Arrays.equals(exact, raw) && exact[0] == north);
+		show("Tight tolerance does not merge", PointSnapper.snap(raw, 1).length == 5);
+		try {
+			PointSnapper.snap(raw, -1);
+			show("Negative tolerance is rejected", false);
+		} catch (IllegalArgumentException e) {
+			show("Negative tolerance is rejected", true);
+		}
+
+		show("canonical()");
+		GeoPoint[] chain = {new GeoPoint(0, 0), new GeoPoint(0, 4), new GeoPoint(0, 8), new GeoPoint(0, 13)};
+		GeoPoint[] joined = PointSnapper.canonical(chain, 4);
+		show("Chains of near points form one cluster", joined[0] == joined[1] && joined[1] == joined[2]);
+		show("Points beyond the chain stay apart", joined[3] == chain[3]);
+		Random random = new Random(50);
+		GeoPoint[] cloud = new GeoPoint[1500];
+		for (int i = 0; i < cloud.length; i++)
+			cloud[i] = new GeoPoint(32000000 + random.nextInt(3000), 35000000 + random.nextInt(3000));
+		GeoPoint[] fast = PointSnapper.canonical(cloud, 40);
+		int[] slow = bruteForce(cloud, 40);
+		boolean agree = true;
+		for (int i = 0; i < cloud.length; i++)
+			for (int j = 0; j < cloud.length; j++)
+				agree &= (fast[i] == fast[j]) == (slow[i] == slow[j]);
+		show("Clusters agree with comparing every pair", agree);
+		List<GeoPoint> shuffled = new ArrayList<>(Arrays.asList(cloud));
+		Collections.shuffle(shuffled, random);
+		GeoPoint[] again = PointSnapper.canonical(shuffled.toArray(new GeoPoint[0]), 40);
+		Map<GeoPoint, GeoPoint> first = new HashMap<>();
+		for (int i = 0; i < cloud.length; i++)
+			first.put(cloud[i], fast[i]);
+		boolean stable = true;
+		for (int i = 0; i < again.length; i++)
+			stable &= again[i].equals(first.get(shuffled.get(i)));
+		show("Canonical points do not depend on the order", stable);
+
+		show("throughput");
+		GeoPoint[] many = new GeoPoint[4000000];
+		for (int i = 0; i < many.length; i += 2) {
+			many[i] = new GeoPoint(31000000 + random.nextInt(2000000), 34000000 + random.nextInt(2000000));
+			many[i + 1] = new GeoPoint(many[i].getLatitude() + random.nextInt(7) - 3, many[i].getLongitude() + random.nextInt(7) - 3);
+		}
+		long begin = System.nanoTime();
+		GeoPoint[] result = PointSnapper.canonical(many, 5);
+		double seconds = (System.nanoTime() - begin) / 1e9;
+		System.out.printf("  %d points snapped to %d in %.3f s%n", many.length,
+			new HashSet<>(Arrays.asList(result)).size(), seconds);
+	}
+
+
+	public static void main(String[] args) {
+		PointSnapperTest snapperTest = new PointSnapperTest();
+		snapperTest.test();
+	}
+}
@@ -0,0 +1,112 @@
+package homework1;
+
+import java.util.Arrays;
+
+/**
+ * A PrimitiveHeap is a binary min-heap of (key, item) pairs, with double
+ * keys and int items, stored in parallel primitive arrays so that searches
+ * over large graphs neither box nor allocate per pair. PrimitiveHeaps are
+ * mutable and not thread-safe.
+ * <p>
+ * There is no decrease-key: a search pushes an item again when its key
+ * improves, and skips the stale pairs when they are popped.
+ */
+final class PrimitiveHeap {
+    private double[] keys = new double[64];
+    private int[] items = new int[64];
+    private int size;
+
+    // Abs. Function:
+    //   represents the multiset of pairs (keys[i], items[i]) for 0 <= i < size
+
+    // Rep. Invariant:
+    //   0 <= size <= keys.length == items.length
+    //   keys[(i - 1) / 2] <= keys[i] for 0 < i < size
+
+    /**
+     * Tells whether this heap is empty.
+     *
+     * @return true iff this has no pairs.
+     */
+    boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * Removes all pairs.
+     *
+     * @modifies this
+     * @effects removes all pairs of this, keeping its capacity.
+     */
+    void clear() {
+        size = 0;
+    }
+
+    /**
+     * Adds a pair.
+     *
+     * @modifies this
+     * @effects adds (key, item) to this.
+     */
+    void push(int item, double key) {
+        if (size == items.length) {
+            items = Arrays.copyOf(items, 2 * size);
+            keys = Arrays.copyOf(keys, 2 * size);
+        }
+        int i = size++;
+        while (i > 0) {
+            int parent = (i - 1) >>> 1;
+            if (keys[parent] <= key) {
+                break;
+            }
+            items[i] = items[parent];
+            keys[i] = keys[parent];
+            i = parent;
+        }
+        items[i] = item;
+        keys[i] = key;
+    }
+
+    /**
+     * Returns the least key.
+     *
+     * @requires !isEmpty()
+     * @return the least key of the pairs of this.
+     */
+    double peekKey() {
+        return keys[0];
+    }
+
+    /**
+     * Removes a pair with the least key.
+     *
+     * @requires !isEmpty()
+     * @modifies this
+     * @effects removes a pair with the least key from this.
+     * @return the item of the pair removed.
+     */
+    int pop() {
+        int top = items[0];
+        int item = items[--size];
+        double key = keys[size];
+        int i = 0;
+        while (true) {
+            int child = 2 * i + 1;
+            if (child >= size) {
+                break;
+            }
+            if (child + 1 < size && keys[child + 1] < keys[child]) {
+                child++;
+            }
+            if (keys[child] >= key) {
+                break;
+            }
+            items[i] = items[child];
+            keys[i] = keys[child];
+            i = child;
+        }
+        items[i] = item;
+        keys[i] = key;
+        return top;
+    }
+}
@@ -0,0 +1,164 @@
+package homework1;
+
+/**
+ * A ProjectedPoint is a GeoPoint together with its planar coordinates under
+ * a Projection. ProjectedPoints are immutable.
+ * <p>
+ * ProjectedPoints cache the kilometer offsets that GeoPoint derives from
+ * millionths of degrees on every call, so code that measures the same
+ * points many times should project them once and keep the ProjectedPoints.
+ * Distances and headings are only defined between points of the same
+ * Projection.
+ * <p>
+ * <b>The following fields are used in the specification:</b>
+ * <pre>
+ *   point : GeoPoint            // the projected point
+ *   projection : Projection     // the projection of point
+ *   x : real                    // distance east of projection.origin, in kilometers
+ *   y : real                    // distance north of projection.origin, in kilometers
+ * </pre>
+ **/
+public final class ProjectedPoint {
+    private final Projection projection;
+    private final GeoPoint point;
+    private final double x;
+    private final double y;
+
+    // Abs. Function:
+    //   represents point, placed at (x, y) by projection
+
+    // Rep. Invariant:
+    //   projection != null && point != null
+    //   x = projection.x(point.longitude) && y = projection.y(point.latitude)
+
+    private void checkRep() {
+        assert projection != null && point != null : "Projected point must have a point and a projection";
+    }
+
+    // Only Projection creates ProjectedPoints, so that x and y always agree
+    // with point.
+    ProjectedPoint(Projection projection, GeoPoint point, double x, double y) {
+        this.projection = projection;
+        this.point = point;
+        this.x = x;
+        this.y = y;
+        checkRep();
+    }
+
+    /**
+     * Returns the projected point.
+     *
+     * @return the GeoPoint that this is a projection of.
+     */
+    public GeoPoint getPoint() {
+        return point;
+    }
+
+    /**
+     * Returns the projection of this.
+     *
+     * @return the Projection that placed this.
+     */
+    public Projection getProjection() {
+        return projection;
+    }
+
+    /**
+     * Returns the x coordinate of this.
+     *
+     * @return the distance east of the origin of the projection, in
+     * kilometers.
+     */
+    public double getX() {
+        return x;
+    }
+
+    /**
+     * Returns the y coordinate of this.
+     *
+     * @return the distance north of the origin of the projection, in
+     * kilometers.
+     */
+    public double getY() {
+        return y;
+    }
+
+    /**
+     * Computes the distance between ProjectedPoints.
+     *
+     * @requires other != null
+     * @return the planar distance from this to other, in kilometers. Under
+     * Projection.DEFAULT this equals point.distanceTo(other.point) up to
+     * rounding.
+     * @throws IllegalArgumentException if other has a different projection.
+     **/
+    public double distanceTo(ProjectedPoint other) {
+        return Math.sqrt(distanceSquaredTo(other));
+    }
+
+    /**
+     * Computes the square of the distance between ProjectedPoints, which is
+     * cheaper than distanceTo and orders points the same way.
+     *
+     * @requires other != null
+     * @return the square of distanceTo(other), in square kilometers.
+     * @throws IllegalArgumentException if other has a different projection.
+     **/
+    public double distanceSquaredTo(ProjectedPoint other) {
+        sameProjection(other);
+        double dx = other.x - x;
+        double dy = other.y - y;
+        return dx * dx + dy * dy;
+    }
+
+    /**
+     * Computes the compass heading between ProjectedPoints.
+     *
+     * @requires other != null && !this.point.equals(other.point)
+     * @return the compass heading h from this to other, in degrees, such
+     * that 0 <= h < 360. Under Projection.DEFAULT this equals
+     * point.headingTo(other.point) up to rounding.
+     * @throws IllegalArgumentException if other has a different projection.
+     **/
+    public double headingTo(ProjectedPoint other) {
+        sameProjection(other);
+        double h = Math.toDegrees(Math.atan2(other.x - x, other.y - y));
+        return h < 0 ? h + 360 : h;
+    }
+
+    private void sameProjection(ProjectedPoint other) {
+        if (other.projection != projection) {
+            throw new IllegalArgumentException("Points have different projections.");
+        }
+    }
+
+    /**
+     * Compares the specified Object with this ProjectedPoint for equality.
+     *
+     * @return o != null && (o instanceof ProjectedPoint) &&
+     * o.point = this.point && o.projection = this.projection
+     **/
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (!(o instanceof ProjectedPoint other)) return false;
+        return projection == other.projection && point.equals(other.point);
+    }
+
+    /**
+     * Returns a hash code value for this ProjectedPoint.
+     *
+     * @return a hash code value for this ProjectedPoint.
+     **/
+    public int hashCode() {
+        return point.hashCode();
+    }
+
+    /**
+     * Returns a string representation of this ProjectedPoint.
+     *
+     * @return a string representation of this ProjectedPoint.
+     **/
+    public String toString() {
+        return String.format("%s -> (%.6f km, %.6f km)", point, x, y);
+    }
+}
@@ -0,0 +1,174 @@
+package homework1;
+
+import java.util.stream.IntStream;
+
+/**
+ * A Projection maps GeoPoints to planar coordinates in kilometers, so that
+ * distances and headings between points that are used many times can be
+ * computed with a few multiply-adds instead of being derived again from
+ * millionths of degrees. Projections are immutable.
+ * <p>
+ * A Projection scales latitude and longitude by a fixed number of
+ * kilometers per degree, measured from an origin. DEFAULT uses the
+ * flat-surface, near the Technion approximation of GeoPoint, so distances
+ * and headings between its ProjectedPoints agree with those of GeoPoint. A
+ * regional Projection computes the scales at its origin instead, which is
+ * more precise for points far from the Technion.
+ * <p>
+ * <b>The following fields are used in the specification:</b>
+ * <pre>
+ *   origin : GeoPoint           // the point projected to (0, 0)
+ *   kmPerDegreeLatitude : real  // kilometers per degree of latitude
+ *   kmPerDegreeLongitude : real // kilometers per degree of longitude
+ * </pre>
+ **/
+public final class Projection {
+
+    /**
+     * The flat-surface, near the Technion approximation used by GeoPoint,
+     * with origin (0, 0).
+     */
+    public static final Projection DEFAULT = new Projection(new GeoPoint(0, 0),
+            GeoPoint.KM_PER_DEGREE_LATITUDE, GeoPoint.KM_PER_DEGREE_LONGITUDE);
+
+    private final GeoPoint origin;
+    private final double kmPerDegreeLatitude;
+    private final double kmPerDegreeLongitude;
+
+    // the scales per millionth of a degree, used by project and unproject
+    private final double kmPerMicroLatitude;
+    private final double kmPerMicroLongitude;
+
+    // Abs. Function:
+    //   represents the map (lat, lon) -> (x, y) where
+    //   x = (lon - origin.longitude) * kmPerDegreeLongitude / 1000000 and
+    //   y = (lat - origin.latitude) * kmPerDegreeLatitude / 1000000
+
+    // Rep. Invariant:
+    //   origin != null && kmPerDegreeLatitude > 0 && kmPerDegreeLongitude > 0
+    //   kmPerMicroLatitude = kmPerDegreeLatitude / 1000000 &&
+    //   kmPerMicroLongitude = kmPerDegreeLongitude / 1000000
+
+    private void checkRep() {
+        assert origin != null : "Projection must have an origin";
+        assert kmPerDegreeLatitude > 0 && kmPerDegreeLongitude > 0 : "Invalid scale";
+    }
+
+    private Projection(GeoPoint origin, double kmPerDegreeLatitude, double kmPerDegreeLongitude) {
+        this.origin = origin;
+        this.kmPerDegreeLatitude = kmPerDegreeLatitude;
+        this.kmPerDegreeLongitude = kmPerDegreeLongitude;
+        this.kmPerMicroLatitude = kmPerDegreeLatitude / 1_000_000.0;
+        this.kmPerMicroLongitude = kmPerDegreeLongitude / 1_000_000.0;
+        checkRep();
+    }
+
+    /**
+     * Creates a Projection for a region.
+     *
+     * @requires origin != null && origin is not within a kilometer of a pole
+     * @return a Projection p such that p.origin = origin and
+     * p.kmPerDegreeLatitude and p.kmPerDegreeLongitude are the lengths of a
+     * degree of latitude and of longitude at origin on the WGS-84 ellipsoid.
+     */
+    public static Projection around(GeoPoint origin) {
+        double phi = Math.toRadians(origin.getLatitude() / 1_000_000.0);
+        double latitude = 111.13209 - 0.56605 * Math.cos(2 * phi) + 0.00120 * Math.cos(4 * phi);
+        double longitude = 111.41513 * Math.cos(phi) - 0.09455 * Math.cos(3 * phi) + 0.00012 * Math.cos(5 * phi);
+        return new Projection(origin, latitude, longitude);
+    }
+
+    /**
+     * Returns the origin of this.
+     *
+     * @return the point that this projects to (0, 0).
+     */
+    public GeoPoint getOrigin() {
+        return origin;
+    }
+
+    /**
+     * Returns the scale of this along the y axis.
+     *
+     * @return kilometers per degree of latitude.
+     */
+    public double getKmPerDegreeLatitude() {
+        return kmPerDegreeLatitude;
+    }
+
+    /**
+     * Returns the scale of this along the x axis.
+     *
+     * @return kilometers per degree of longitude.
+     */
+    public double getKmPerDegreeLongitude() {
+        return kmPerDegreeLongitude;
+    }
+
+    /**
+     * Projects a point.
+     *
+     * @requires p != null
+     * @return the ProjectedPoint of p under this.
+     */
+    public ProjectedPoint project(GeoPoint p) {
+        checkRep();
+        return new ProjectedPoint(this, p, x(p.getLongitude()), y(p.getLatitude()));
+    }
+
+    /**
+     * Projects many points, in parallel.
+     *
+     * @requires points != null && points contains no null elements
+     * @return an array r such that r[i] = project(points[i]) for all i.
+     */
+    public ProjectedPoint[] project(GeoPoint[] points) {
+        checkRep();
+        ProjectedPoint[] result = new ProjectedPoint[points.length];
+        IntStream.range(0, points.length).parallel().forEach(i -> result[i] = project(points[i]));
+        return result;
+    }
+
+    /**
+     * Finds the point nearest to planar coordinates.
+     *
+     * @requires (x, y) projects from a valid GeoPoint, up to rounding
+     * @return the GeoPoint whose coordinates, rounded to millionths of
+     * degrees, are projected by this to (x, y).
+     */
+    public GeoPoint unproject(double x, double y) {
+        checkRep();
+        return new GeoPoint((int) Math.round(origin.getLatitude() + y / kmPerMicroLatitude),
+                (int) Math.round(origin.getLongitude() + x / kmPerMicroLongitude));
+    }
+
+    /**
+     * Projects a longitude.
+     *
+     * @return the x coordinate, in kilometers, of points at longitude
+     * (in millionths of degrees).
+     */
+    public double x(int longitude) {
+        return (longitude - origin.getLongitude()) * kmPerMicroLongitude;
+    }
+
+    /**
+     * Projects a latitude.
+     *
+     * @return the y coordinate, in kilometers, of points at latitude
+     * (in millionths of degrees).
+     */
+    public double y(int latitude) {
+        return (latitude - origin.getLatitude()) * kmPerMicroLatitude;
+    }
+
+    /**
+     * Returns a string representation of this Projection.
+     *
+     * @return a string representation of this Projection.
+     **/
+    public String toString() {
+        return "Projection[origin=" + origin + ", km/deg lat=" + kmPerDegreeLatitude
+                + ", km/deg lon=" + kmPerDegreeLongitude + "]";
+    }
+}
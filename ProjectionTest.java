@@ -0,0 +1,101 @@
+package homework1;
+
+import java.util.*;
+
+public class ProjectionTest {
+
+	private static final double tolerance = 0.0001;
+
+
+	boolean same(double x, double y) {
+		return ((y >= x-tolerance) && (y <= x+tolerance));
+	}
+
+
+	public void show(String str) {
+		System.out.println();
+		System.out.println("***** " + str + " *****");
+	}
+
+
+	public void show(String str, boolean ok) {
+		if (ok)
+			System.out.print("v ");
+		else
+			System.out.print("x ");
+		System.out.println(str);
+	}
+
+
+	public void test() {
+		GeoPoint[] points = ExampleGeoSegments.points;
+		ProjectedPoint[] projected = Projection.DEFAULT.project(points);
+
+		show("Projection.DEFAULT");
+		boolean distances = true;
+		boolean headings = true;
+		for (int i = 0; i < points.length; i++) {
+			for (int j = 0; j < points.length; j++) {
+				distances &= same(points[i].distanceTo(points[j]), projected[i].distanceTo(projected[j]));
+				if (i != j)
+					headings &= same(points[i].headingTo(points[j]), projected[i].headingTo(projected[j]));
+			}
+		}
+		show("Distances agree with GeoPoint", distances);
+		show("Headings agree with GeoPoint", headings);
+		show("Squared distance is the square of the distance",
+			same(projected[0].distanceSquaredTo(projected[5]),
+				Math.pow(projected[0].distanceTo(projected[5]), 2)));
+		show("Projected point keeps its GeoPoint", projected[3].getPoint() == points[3]);
+		show("Unprojecting gives back the point",
+			Projection.DEFAULT.unproject(projected[7].getX(), projected[7].getY()).equals(points[7]));
+
+		show("Projection.around()");
+		Projection ziv = Projection.around(points[1]);
+		show("Origin projects to (0, 0)",
+			ziv.project(points[1]).getX() == 0 && ziv.project(points[1]).getY() == 0);
+		show("Scales near the Technion match GeoPoint",
+			Math.abs(ziv.getKmPerDegreeLatitude() - GeoPoint.KM_PER_DEGREE_LATITUDE) < 0.01
+			&& Math.abs(ziv.getKmPerDegreeLongitude() - GeoPoint.KM_PER_DEGREE_LONGITUDE) < 0.01);
+		Projection equator = Projection.around(new GeoPoint(0, 0));
+		show("A degree of longitude is longest at the equator",
+			equator.getKmPerDegreeLongitude() > ziv.getKmPerDegreeLongitude());
+		show("Unprojecting gives back the point",
+			ziv.unproject(ziv.project(points[9]).getX(), ziv.project(points[9]).getY()).equals(points[9]));
+		boolean thrown = false;
+		try {
+			projected[0].distanceTo(ziv.project(points[1]));
+		} catch (IllegalArgumentException e) {
+			thrown = true;
+		}
+		show("Points of different projections are not compared", thrown);
+		show("Points of different projections are not equal",
+			!projected[1].equals(ziv.project(points[1])));
+
+		show("throughput");
+		Random random = new Random(1);
+		GeoPoint[] cloud = new GeoPoint[2000];
+		for (int i = 0; i < cloud.length; i++)
+			cloud[i] = new GeoPoint(32780000 + random.nextInt(20000), 35000000 + random.nextInt(20000));
+		ProjectedPoint[] projectedCloud = Projection.DEFAULT.project(cloud);
+		double sum = 0;
+		long begin = System.nanoTime();
+		for (GeoPoint a : cloud)
+			for (GeoPoint b : cloud)
+				sum += a.distanceTo(b);
+		double geo = (System.nanoTime() - begin) / 1e9;
+		begin = System.nanoTime();
+		for (ProjectedPoint a : projectedCloud)
+			for (ProjectedPoint b : projectedCloud)
+				sum -= a.distanceTo(b);
+		double planar = (System.nanoTime() - begin) / 1e9;
+		System.out.printf("  %d distances: %.3f s with GeoPoint, %.3f s with ProjectedPoint (drift %.1e)%n",
+			cloud.length * cloud.length, geo, planar, sum);
+	}
+
+
+	public static void main(String[] args) {
+		ProjectionTest projectionTest = new ProjectionTest();
+		projectionTest.test();
+	}
+}
@@ -0,0 +1,260 @@
+package homework1;
+
+import java.util.Arrays;
+
+/**
+ * A QuantileSketch summarizes a large collection of non-negative numbers,
+ * e.g. route lengths, in little memory, and estimates their quantiles with
+ * a bounded relative error: the estimate of any quantile is within a
+ * factor 1 &plusmn; accuracy of the true value. Sketches of parts of a
+ * collection can be merged into a sketch of the whole that gives the same
+ * estimates as adding every number to a single sketch, so collections can
+ * be summarized in parallel.
+ * <p>
+ * QuantileSketches are mutable, and are not safe for use by many threads
+ * at once: each thread should fill its own sketch, and merge it into the
+ * others when done.
+ * <p>
+ * Positive numbers are counted in logarithmic buckets (as in DDSketch):
+ * bucket i holds the numbers in (gamma^(i-1), gamma^i], where
+ * gamma = (1 + accuracy) / (1 - accuracy), and is estimated by the number
+ * at the same relative distance from both of its ends. Numbers too small
+ * to tell from zero are counted on their own.
+ * <p>
+ * <b>The following fields are used in the specification:</b>
+ * <pre>
+ *   accuracy : real     // the relative accuracy of the quantile estimates
+ *   values : multiset   // of the numbers added, of reals
+ * </pre>
+ **/
+public final class QuantileSketch {
+    /**
+     * Numbers up to this size are counted as zero.
+     */
+    public static final double MIN_POSITIVE = 1e-9;
+
+    private final double accuracy;
+    private final double logGamma;
+    private long[] counts;      // counts[i] is the count of bucket offset + i
+    private int offset;
+    private long zeros;
+    private long count;
+    private double sum;
+    private double min = Double.POSITIVE_INFINITY;
+    private double max = Double.NEGATIVE_INFINITY;
+
+    // Abs. Function:
+    //   accuracy = this.accuracy
+    //   values contains zeros numbers of at most MIN_POSITIVE, and counts[i]
+    //   numbers in (gamma^(offset+i-1), gamma^(offset+i)] for every i,
+    //   where gamma = e^logGamma, whose sum is sum, least min and greatest
+    //   max
+
+    // Rep. Invariant:
+    //   0 < accuracy < 1 && logGamma = ln((1 + accuracy) / (1 - accuracy))
+    //   counts != null && every counts[i] >= 0
+    //   count = zeros + the sum of counts
+    //   count = 0 || min <= max
+
+    private void checkRep() {
+        assert accuracy > 0 && accuracy < 1 : "Accuracy out of range";
+        assert counts != null : "Counts must not be null";
+        long total = zeros;
+        for (long c : counts) {
+            assert c >= 0 : "Negative count";
+            total += c;
+        }
+        assert total == count : "Count mismatch";
+        assert count == 0 || min <= max : "Min above max";
+    }
+
+    /**
+     * Constructs a new QuantileSketch.
+     *
+     * @requires 0 < accuracy < 1
+     * @effects Constructs an empty QuantileSketch with relative accuracy
+     * accuracy.
+     * @throws IllegalArgumentException if accuracy is not in (0, 1).
+     */
+    public QuantileSketch(double accuracy) {
+        if (!(accuracy > 0 && accuracy < 1)) {
+            throw new IllegalArgumentException("Accuracy must be in (0, 1).");
+        }
+        this.accuracy = accuracy;
+        this.logGamma = Math.log((1 + accuracy) / (1 - accuracy));
+        this.counts = new long[0];
+        checkRep();
+    }
+
+
+    /**
+     * Adds a number to this sketch.
+     *
+     * @requires value >= 0
+     * @modifies this
+     * @effects adds value to this.values.
+     * @throws IllegalArgumentException if value is negative or not a
+     * finite number.
+     */
+    public void add(double value) {
+        if (!(value >= 0) || value == Double.POSITIVE_INFINITY) {
+            throw new IllegalArgumentException("Value must be finite and non-negative.");
+        }
+        if (value <= MIN_POSITIVE) {
+            zeros++;
+        } else {
+            int bucket = (int) Math.ceil(Math.log(value) / logGamma);
+            grow(bucket, bucket);
+            counts[bucket - offset]++;
+        }
+        count++;
+        sum += value;
+        min = Math.min(min, value);
+        max = Math.max(max, value);
+    }
+
+
+    /**
+     * Merges another sketch into this one.
+     *
+     * @requires other != null
+     * @modifies this
+     * @effects adds the values of other to this.values.
+     * @throws IllegalArgumentException if other.accuracy != this.accuracy.
+     */
+    public void merge(QuantileSketch other) {
+        if (other.accuracy != accuracy) {
+            throw new IllegalArgumentException("Sketches of different accuracy cannot be merged.");
+        }
+        if (other.counts.length > 0) {
+            grow(other.offset, other.offset + other.counts.length - 1);
+            for (int i = 0; i < other.counts.length; i++) {
+                counts[other.offset + i - offset] += other.counts[i];
+            }
+        }
+        zeros += other.zeros;
+        count += other.count;
+        sum += other.sum;
+        min = Math.min(min, other.min);
+        max = Math.max(max, other.max);
+        checkRep();
+    }
+
+    // Makes room for the buckets from low to high.
+    private void grow(int low, int high) {
+        if (counts.length == 0) {
+            counts = new long[high - low + 1];
+            offset = low;
+        } else if (low < offset || high >= offset + counts.length) {
+            int from = Math.min(low, offset);
+            int to = Math.max(high, offset + counts.length - 1);
+            long[] grown = new long[to - from + 1];
+            System.arraycopy(counts, 0, grown, offset - from, counts.length);
+            counts = grown;
+            offset = from;
+        }
+    }
+
+
+    /**
+     * Returns the relative accuracy of this sketch.
+     *
+     * @return this.accuracy
+     */
+    public double getAccuracy() {
+        return accuracy;
+    }
+
+
+    /**
+     * Returns the number of numbers added.
+     *
+     * @return the size of this.values.
+     */
+    public long getCount() {
+        return count;
+    }
+
+
+    /**
+     * Returns the sum of the numbers added.
+     *
+     * @return the sum of this.values.
+     */
+    public double getSum() {
+        return sum;
+    }
+
+
+    /**
+     * Returns the mean of the numbers added.
+     *
+     * @return the mean of this.values, or NaN if it is empty.
+     */
+    public double getMean() {
+        return count == 0 ? Double.NaN : sum / count;
+    }
+
+
+    /**
+     * Returns the least number added.
+     *
+     * @return the least element of this.values, or NaN if it is empty.
+     */
+    public double getMin() {
+        return count == 0 ? Double.NaN : min;
+    }
+
+
+    /**
+     * Returns the greatest number added.
+     *
+     * @return the greatest element of this.values, or NaN if it is empty.
+     */
+    public double getMax() {
+        return count == 0 ? Double.NaN : max;
+    }
+
+
+    /**
+     * Estimates a quantile of the numbers added.
+     *
+     * @requires 0 <= q <= 1
+     * @return an estimate x of the value v of rank floor(q * (n - 1)) of
+     * this.values in ascending order, where n is its size, such that
+     * |x - v| <= accuracy * v, or NaN if this.values is empty.
+     * @throws IllegalArgumentException if q is not in [0, 1].
+     */
+    public double quantile(double q) {
+        if (!(q >= 0 && q <= 1)) {
+            throw new IllegalArgumentException("Quantile must be in [0, 1].");
+        }
+        if (count == 0) {
+            return Double.NaN;
+        }
+        long rank = (long) (q * (count - 1));
+        if (rank < zeros) {
+            return 0;
+        }
+        long seen = zeros;
+        for (int i = 0; i < counts.length; i++) {
+            seen += counts[i];
+            if (seen > rank) {
+                double estimate = 2 * Math.exp((offset + i) * logGamma) / (1 + Math.exp(logGamma));
+                return Math.max(min, Math.min(max, estimate));
+            }
+        }
+        return max;
+    }
+
+
+    /**
+     * Returns a string representation of this QuantileSketch.
+     *
+     * @return a string representation of this QuantileSketch.
+     **/
+    public String toString() {
+        return "QuantileSketch{count=" + count + ", buckets=" + Arrays.stream(counts).filter(c -> c > 0).count()
+                + ", accuracy=" + accuracy + "}";
+    }
+}
@@ -0,0 +1,217 @@
+package homework1;
+
+import java.util.stream.IntStream;
+
+/**
+ * A ReverseGeocoder answers "which street is this GeoPoint on?" by finding
+ * the named GeoSegment nearest to a point. ReverseGeocoders are immutable
+ * and can be queried by many threads at once.
+ * <p>
+ * The segments are preprocessed into a grid of cells keyed on their
+ * micro-degree coordinates. A query visits rings of cells of growing size
+ * around the point, from the first ring that reaches the cells of the data,
+ * and stops as soon as no unvisited cell can contain a segment closer than
+ * the nearest one found. Distances are measured from
+ * the point to its projection on each segment, using the flat-surface, near
+ * the Technion approximation of GeoPoint.
+ * <p>
+ * The segments are stored in the Morton order of GeoCell, so that the
+ * segments of neighbouring cells are mostly close in memory. Segments with
+ * an empty name are not considered.
+ */
+public class ReverseGeocoder {
+    private static final double KM_PER_MICRO_LATITUDE = GeoPoint.KM_PER_DEGREE_LATITUDE / 1_000_000.0;
+    private static final double KM_PER_MICRO_LONGITUDE = GeoPoint.KM_PER_DEGREE_LONGITUDE / 1_000_000.0;
+
+    private final SegmentGrid grid;
+    private final double maxDistance;
+
+    // endpoint coordinates of grid.segments()[i], in kilometers, kept in
+    // primitive arrays so that scanning a cell does not chase pointers
+    private final double[] x1, y1, x2, y2;
+
+    // rank[i] is the position of grid.segments()[i] in the constructor's array
+    private final int[] rank;
+
+    // Abs. Function:
+    //   represents the set of named segments grid.segments(), queried up to
+    //   this.maxDistance kilometers away
+
+    // Rep. Invariant:
+    //   grid != null && maxDistance > 0
+    //   all segments of grid have non-empty names
+    //   (x1[i], y1[i]) and (x2[i], y2[i]) are the endpoints of grid.segments()[i]
+    //   scaled by KM_PER_MICRO_LONGITUDE and KM_PER_MICRO_LATITUDE
+
+    private void checkRep() {
+        assert grid != null && maxDistance > 0 : "Invalid reverse geocoder";
+    }
+
+    /**
+     * Constructs a new ReverseGeocoder that finds segments at any distance.
+     *
+     * @requires segments != null && segments contains no null elements
+     * @effects Constructs a reverse geocoder over the named segments of segments.
+     */
+    public ReverseGeocoder(GeoSegment[] segments) {
+        this(segments, Double.POSITIVE_INFINITY);
+    }
+
+    /**
+     * Constructs a new ReverseGeocoder.
+     *
+     * @requires segments != null && segments contains no null elements &&
+     * maxDistance > 0
+     * @effects Constructs a reverse geocoder over the named segments of
+     * segments, which ignores segments more than maxDistance kilometers
+     * away from the queried point.
+     */
+    public ReverseGeocoder(GeoSegment[] segments, double maxDistance) {
+        int[] namedIndices = IntStream.range(0, segments.length)
+                .filter(i -> !segments[i].getName().isEmpty())
+                .toArray();
+        GeoSegment[] named = new GeoSegment[namedIndices.length];
+        for (int i = 0; i < named.length; i++) {
+            named[i] = segments[namedIndices[i]];
+        }
+        // store the segments in Morton order, so that the segments of a
+        // cell and of its neighbours are close in memory
+        int[] order = GeoCell.cellOrder(named);
+        GeoSegment[] sorted = new GeoSegment[named.length];
+        this.rank = new int[named.length];
+        for (int i = 0; i < named.length; i++) {
+            sorted[i] = named[order[i]];
+            rank[i] = namedIndices[order[i]];
+        }
+        named = sorted;
+        this.grid = new SegmentGrid(named, SegmentGrid.cellSizeFor(named));
+        this.maxDistance = maxDistance;
+        int n = named.length;
+        this.x1 = new double[n];
+        this.y1 = new double[n];
+        this.x2 = new double[n];
+        this.y2 = new double[n];
+        for (int i = 0; i < n; i++) {
+            x1[i] = named[i].getP1().getLongitude() * KM_PER_MICRO_LONGITUDE;
+            y1[i] = named[i].getP1().getLatitude() * KM_PER_MICRO_LATITUDE;
+            x2[i] = named[i].getP2().getLongitude() * KM_PER_MICRO_LONGITUDE;
+            y2[i] = named[i].getP2().getLatitude() * KM_PER_MICRO_LATITUDE;
+        }
+        checkRep();
+    }
+
+
+    /**
+     * Finds the named segment nearest to a point.
+     *
+     * @requires p != null
+     * @return a segment gs whose distance from p is minimal among the
+     * segments of this (the first such segment given to the constructor, if
+     * there are several), or null if no segment is within the maximal
+     * distance of this.
+     */
+    public GeoSegment nearest(GeoPoint p) {
+        checkRep();
+        int index = nearestIndex(p.getLatitude(), p.getLongitude());
+        return index < 0 ? null : grid.segments()[index];
+    }
+
+
+    /**
+     * Finds the name of the road nearest to a point.
+     *
+     * @requires p != null
+     * @return the name of nearest(p), or null if nearest(p) is null.
+     */
+    public String nearestName(GeoPoint p) {
+        GeoSegment gs = nearest(p);
+        return gs == null ? null : gs.getName();
+    }
+
+
+    /**
+     * Finds the named segments nearest to many points, in parallel.
+     *
+     * @requires points != null && points contains no null elements
+     * @return an array r such that r[i] = nearest(points[i]) for all i.
+     */
+    public GeoSegment[] nearest(GeoPoint[] points) {
+        checkRep();
+        GeoSegment[] result = new GeoSegment[points.length];
+        IntStream.range(0, points.length).parallel().forEach(i -> {
+            int index = nearestIndex(points[i].getLatitude(), points[i].getLongitude());
+            result[i] = index < 0 ? null : grid.segments()[index];
+        });
+        return result;
+    }
+
+
+    private int nearestIndex(int lat, int lon) {
+        int cellSize = grid.cellSize();
+        int row = grid.cellOf(lat);
+        int col = grid.cellOf(lon);
+        double px = lon * KM_PER_MICRO_LONGITUDE;
+        double py = lat * KM_PER_MICRO_LATITUDE;
+
+        // distance from the point to the nearest side of its own cell, and
+        // the width of a ring of cells
+        long latInCell = lat - (long) row * cellSize;
+        long lonInCell = lon - (long) col * cellSize;
+        double edge = Math.min(
+                Math.min(latInCell, cellSize - latInCell) * KM_PER_MICRO_LATITUDE,
+                Math.min(lonInCell, cellSize - lonInCell) * KM_PER_MICRO_LONGITUDE);
+        double ringWidth = cellSize * Math.min(KM_PER_MICRO_LATITUDE, KM_PER_MICRO_LONGITUDE);
+
+        int bestIndex = -1;
+        double best2 = maxDistance * maxDistance;   // squared distances avoid sqrt
+        if (grid.segments().length == 0) {
+            return bestIndex;
+        }
+        // rings that lie wholly outside the box of the data are skipped, and
+        // the others are clipped to it, so that a point far from the data
+        // does not probe the empty cells between them
+        for (int r = grid.firstRing(row, col); !grid.beyondData(row, col, r); r++) {
+            // every cell at ring r or beyond is farther than this bound
+            double bound = r == 0 ? 0 : edge + (r - 1) * ringWidth;
+            if (bound * bound > best2) {
+                break;
+            }
+            int lastRow = grid.clampRow(row + r);
+            for (int rr = grid.clampRow(row - r); rr <= lastRow; rr++) {
+                // the whole first and last rows of the ring, the sides of the others
+                boolean whole = rr == row - r || rr == row + r;
+                int step = whole ? 1 : Math.max(1, 2 * r);
+                int first = whole ? grid.clampCol(col - r) : col - r;
+                int last = whole ? grid.clampCol(col + r) : col + r;
+                for (int cc = first; cc <= last; cc += step) {
+                    int[] cell = grid.clampCol(cc) == cc ? grid.cell(rr, cc) : null;
+                    if (cell == null) {
+                        continue;
+                    }
+                    for (int i : cell) {
+                        double d2 = distance2(px, py, i);
+                        if (d2 < best2 || (d2 == best2 && (bestIndex < 0 || rank[i] < rank[bestIndex]))) {
+                            best2 = d2;
+                            bestIndex = i;
+                        }
+                    }
+                }
+            }
+        }
+        return bestIndex;
+    }
+
+    // Squared distance, in square kilometers, from (px, py) to segment i.
+    private double distance2(double px, double py, int i) {
+        double sx = x2[i] - x1[i];
+        double sy = y2[i] - y1[i];
+        double dx = px - x1[i];
+        double dy = py - y1[i];
+        double len2 = sx * sx + sy * sy;
+        double t = len2 == 0 ? 0 : (dx * sx + dy * sy) / len2;
+        t = t < 0 ? 0 : (t > 1 ? 1 : t);
+        dx -= t * sx;
+        dy -= t * sy;
+        return dx * dx + dy * dy;
+    }
+}
@@ -0,0 +1,102 @@
+package homework1;
+
+import java.util.*;
+
+public class ReverseGeocoderTest {
+
+	private GeoSegment[] mSegments;
+	private ReverseGeocoder mGeocoder;
+
+
+	public ReverseGeocoderTest() {
+		// a 100 x 100 grid of streets, 100 millionths of a degree apart
+		List<GeoSegment> segments = new ArrayList<>();
+		int size = 100, step = 100;
+		for (int i = 0; i < size; i++) {
+			for (int j = 0; j + 1 < size; j++) {
+				segments.add(new GeoSegment("Street " + i,
+					new GeoPoint(32700000 + i * step, 35000000 + j * step),
+					new GeoPoint(32700000 + i * step, 35000000 + (j + 1) * step)));
+				segments.add(new GeoSegment("Avenue " + i,
+					new GeoPoint(32700000 + j * step, 35000000 + i * step),
+					new GeoPoint(32700000 + (j + 1) * step, 35000000 + i * step)));
+			}
+		}
+		mSegments = segments.toArray(new GeoSegment[0]);
+		mGeocoder = new ReverseGeocoder(mSegments);
+	}
+
+
+	public void show(String str) {
+		System.out.println();
+		System.out.println("***** " + str + " *****");
+	}
+
+
+	public void show(String str, boolean ok) {
+		if (ok)
+			System.out.print("v ");
+		else
+			System.out.print("x ");
+		System.out.println(str);
+	}
+
+
+	double bruteForceDistance(GeoPoint p) {
+		double best = Double.POSITIVE_INFINITY;
+		for (GeoSegment gs : mSegments)
+			best = Math.min(best, SegmentProjection.distance(p, gs));
+		return best;
+	}
+
+
+	public void test() {
+		show("nearest()");
+		show("Point on a street",
+			mGeocoder.nearestName(new GeoPoint(32700500, 35000230)).equals("Street 5"));
+		show("Point on an avenue",
+			mGeocoder.nearestName(new GeoPoint(32700230, 35000700)).equals("Avenue 7"));
+		show("Point far outside the network",
+			mGeocoder.nearestName(new GeoPoint(32600000, 35000250)).equals("Street 0"));
+		GeoPoint far = new GeoPoint(1000000, 2000000);
+		GeoSegment farthest = mGeocoder.nearest(far);
+		show("Point very far from the network",
+			farthest != null && Math.abs(SegmentProjection.distance(far, farthest) - bruteForceDistance(far)) < 1e-9);
+		show("Nothing within the maximal distance of a very far point",
+			new ReverseGeocoder(mSegments, 1.0).nearest(far) == null);
+		show("Example segments",
+			new ReverseGeocoder(ExampleGeoSegments.segments)
+				.nearestName(new GeoPoint(32786000, 35019000)).equals("Trumpeldor Avenue"));
+		show("Nothing within the maximal distance",
+			new ReverseGeocoder(mSegments, 1.0).nearest(new GeoPoint(32600000, 35000250)) == null);
+		show("Empty geocoder",
+			new ReverseGeocoder(new GeoSegment[0]).nearest(new GeoPoint(32600000, 35000250)) == null);
+
+		Random random = new Random(1);
+		GeoPoint[] queries = new GeoPoint[2000];
+		for (int i = 0; i < queries.length; i++)
+			queries[i] = new GeoPoint(32699000 + random.nextInt(12000), 34999000 + random.nextInt(12000));
+		GeoSegment[] found = mGeocoder.nearest(queries);
+		boolean same = true;
+		for (int i = 0; i < queries.length; i++)
+			same &= Math.abs(SegmentProjection.distance(queries[i], found[i])
+				- bruteForceDistance(queries[i])) < 1e-12;
+		show("Batch results match a brute-force scan", same);
+
+		show("throughput");
+		int n = 2_000_000;
+		GeoPoint[] many = new GeoPoint[n];
+		for (int i = 0; i < n; i++)
+			many[i] = new GeoPoint(32700000 + random.nextInt(10000), 35000000 + random.nextInt(10000));
+		long begin = System.nanoTime();
+		mGeocoder.nearest(many);
+		double seconds = (System.nanoTime() - begin) / 1e9;
+		System.out.printf("  %d lookups in %.3f s (%.1f million/s)%n", n, seconds, n / seconds / 1e6);
+	}
+
+
+	public static void main(String[] args) {
+		ReverseGeocoderTest geocoderTest = new ReverseGeocoderTest();
+		geocoderTest.test();
+	}
+}
@@ -0,0 +1,46 @@
+package homework1;
+
+import java.util.*;
+import java.util.function.UnaryOperator;
+
+/**
+ * A ReversedList is a read-only view of a list in reverse order. Elements
+ * are passed through a mapping function when they are read, so that the
+ * reversal of the elements themselves (e.g. flipping a GeoSegment) is done
+ * lazily and only for the elements that are actually accessed.
+ * <p>
+ * Creating a ReversedList is O(1) and does not copy the source list.
+ */
+final class ReversedList<E> extends AbstractList<E> implements RandomAccess {
+    private final List<E> source;
+    private final UnaryOperator<E> mapper;
+
+    // Abs. Function:
+    //   represents the sequence [mapper(source[n-1]), ..., mapper(source[0])]
+    //   where n = source.size()
+
+    // Rep. Invariant:
+    //   source != null && mapper != null
+
+    /**
+     * Constructs a new reversed view.
+     *
+     * @requires source != null && mapper != null && source is RandomAccess
+     * @effects Constructs a view of source in reverse order whose elements
+     * are mapped by mapper on access.
+     **/
+    ReversedList(List<E> source, UnaryOperator<E> mapper) {
+        this.source = source;
+        this.mapper = mapper;
+    }
+
+    @Override
+    public E get(int index) {
+        return mapper.apply(source.get(source.size() - 1 - index));
+    }
+
+    @Override
+    public int size() {
+        return source.size();
+    }
+}
@@ -0,0 +1,374 @@
+package homework1;
+
+import java.util.*;
+import java.util.stream.Stream;
+
+/**
+ * A RoadGraph is an immutable directed graph over a catalog of GeoSegments,
+ * for graph algorithms such as shortest-path searches. Its nodes are the
+ * distinct endpoints of the segments and its edges are the segments
+ * themselves. RoadGraphs can be used by many threads at once.
+ * <p>
+ * Nodes and edges have dense int ids, and the graph is stored in compressed
+ * sparse rows: the edges leaving each node are contiguous, and their
+ * targets, lengths, headings and name ids are kept in parallel primitive
+ * arrays, so that algorithms need no GeoPoint hashing, no boxing and no
+ * pointer chasing once they have started. The edges entering each node are
+ * listed contiguously as well (reverse adjacency), for searches that walk
+ * segments backwards.
+ * <p>
+ * Node ids follow the Z-order (Morton) curve of the points: the bits of the
+ * latitude and longitude of each point are interleaved into a single long
+ * key, GeoCell.mortonKey, and nodes are numbered in order of their keys.
+ * Points that are close on the map thus get close ids, and so do their
+ * edges, which keeps searches that spread over an area within few cache
+ * lines. Building a graph of n segments takes linear time: the keys are
+ * radix sorted by GeoCell.order, and each endpoint gets its node id in the
+ * same ordered pass that removes duplicate keys. A point is found by binary
+ * search over the keys.
+ * <p>
+ * Edge ids map back to the segments of the catalog, so that paths found in
+ * the graph can be turned into Routes.
+ */
+public final class RoadGraph {
+    private final GeoSegment[] catalog;
+
+    // nodes, in order of their Morton keys
+    private final long[] keys;
+    private final int[] latitudes;
+    private final int[] longitudes;
+
+    // edges, grouped by source: the edges of v are [firstEdge[v], firstEdge[v+1])
+    private final int[] firstEdge;
+    private final int[] sources;
+    private final int[] targets;
+    private final double[] lengths;
+    private final double[] headings;
+    private final int[] nameIds;
+    private final int[] indices;        // edge e stands for catalog[indices[e]]
+
+    // reverse adjacency: the edges into v are inEdges[firstInEdge[v] .. firstInEdge[v+1])
+    private final int[] firstInEdge;
+    private final int[] inEdges;
+
+    // Abs. Function:
+    //   represents the graph with nodes 0 .. keys.length-1, node v being the
+    //   point (latitudes[v], longitudes[v]), and, for every node v and
+    //   firstEdge[v] <= e < firstEdge[v+1], an edge e from v to targets[e]
+    //   standing for catalog[indices[e]], with its length, heading and name
+    //   id in lengths[e], headings[e] and nameIds[e]
+
+    // Rep. Invariant:
+    //   keys is strictly increasing and keys[v] is the Morton key of node v
+    //   firstEdge.length == firstInEdge.length == keys.length + 1, both are
+    //   non-decreasing from 0 to catalog.length
+    //   sources[e] == v for firstEdge[v] <= e < firstEdge[v+1]
+    //   targets[inEdges[i]] == v for firstInEdge[v] <= i < firstInEdge[v+1]
+    //   indices is a permutation of 0 .. catalog.length-1, and
+    //   catalog[indices[e]] runs from node sources[e] to node targets[e]
+
+    private void checkRep() {
+        int n = keys.length;
+        int m = catalog.length;
+        assert latitudes.length == n && longitudes.length == n : "Node columns differ in length";
+        assert firstEdge.length == n + 1 && firstEdge[n] == m : "Row table size mismatch";
+        assert firstInEdge.length == n + 1 && firstInEdge[n] == m : "Reverse row table size mismatch";
+        assert sources.length == m && targets.length == m && lengths.length == m && headings.length == m
+                && nameIds.length == m && indices.length == m && inEdges.length == m : "Edge columns differ in length";
+    }
+
+    /**
+     * Constructs a new RoadGraph.
+     *
+     * @requires segments != null && segments contains no null elements
+     * @effects Constructs the graph of a copy of segments. Nodes are
+     * numbered along the Morton curve of their points, and the edges leaving
+     * each node keep the order of segments.
+     */
+    public RoadGraph(GeoSegment[] segments) {
+        this.catalog = segments.clone();
+        int m = catalog.length;
+
+        // number the distinct endpoints by their Morton keys
+        long[] ends = new long[2 * m];
+        for (int e = 0; e < m; e++) {
+            ends[2 * e] = GeoCell.mortonKey(catalog[e].getP1());
+            ends[2 * e + 1] = GeoCell.mortonKey(catalog[e].getP2());
+        }
+        long[] sorted = new long[ends.length];
+        int[] node = new int[ends.length];     // node[i] is the node of ends[i]
+        int n = 0;
+        for (int i : GeoCell.order(ends)) {
+            if (n == 0 || ends[i] != sorted[n - 1]) {
+                sorted[n++] = ends[i];
+            }
+            node[i] = n - 1;
+        }
+        keys = Arrays.copyOf(sorted, n);
+        latitudes = new int[n];
+        longitudes = new int[n];
+        int[] from = new int[m];
+        int[] to = new int[m];
+        for (int e = 0; e < m; e++) {
+            from[e] = node[2 * e];
+            to[e] = node[2 * e + 1];
+            GeoSegment gs = catalog[e];
+            latitudes[from[e]] = gs.getP1().getLatitude();
+            longitudes[from[e]] = gs.getP1().getLongitude();
+            latitudes[to[e]] = gs.getP2().getLatitude();
+            longitudes[to[e]] = gs.getP2().getLongitude();
+        }
+
+        // counting sort of the segments by source, keeping their order
+        firstEdge = rows(from, n);
+        int[] next = Arrays.copyOf(firstEdge, n);
+        sources = new int[m];
+        targets = new int[m];
+        lengths = new double[m];
+        headings = new double[m];
+        nameIds = new int[m];
+        indices = new int[m];
+        for (int i = 0; i < m; i++) {
+            int e = next[from[i]]++;
+            GeoSegment gs = catalog[i];
+            sources[e] = from[i];
+            targets[e] = to[i];
+            lengths[e] = gs.getLength();
+            headings[e] = gs.getHeading();
+            nameIds[e] = gs.getNameId();
+            indices[e] = i;
+        }
+        firstInEdge = rows(targets, n);
+        next = Arrays.copyOf(firstInEdge, n);
+        inEdges = new int[m];
+        for (int e = 0; e < m; e++) {
+            inEdges[next[targets[e]]++] = e;
+        }
+        checkRep();
+    }
+
+    /**
+     * Constructs a new RoadGraph from a stream of segments, e.g. one read
+     * from a file or filtered from a larger catalog.
+     *
+     * @requires segments != null && segments contains no null elements
+     * @return the graph of the segments of the stream, in encounter order.
+     */
+    public static RoadGraph of(Stream<GeoSegment> segments) {
+        return new RoadGraph(segments.toArray(GeoSegment[]::new));
+    }
+
+    // The row table of a counting sort of nodes[0 .. ) into n rows.
+    private static int[] rows(int[] nodes, int n) {
+        int[] first = new int[n + 1];
+        for (int v : nodes) {
+            first[v + 1]++;
+        }
+        for (int v = 0; v < n; v++) {
+            first[v + 1] += first[v];
+        }
+        return first;
+    }
+
+    /**
+     * Returns the number of nodes.
+     *
+     * @return the number of distinct endpoints of the segments.
+     */
+    public int nodeCount() {
+        return keys.length;
+    }
+
+    /**
+     * Returns the number of edges.
+     *
+     * @return the number of segments.
+     */
+    public int edgeCount() {
+        return catalog.length;
+    }
+
+    /**
+     * Returns the node at a point.
+     *
+     * @requires p != null
+     * @return the id of the node at p, or -1 if no segment starts or ends
+     * at p.
+     */
+    public int nodeOf(GeoPoint p) {
+        int v = Arrays.binarySearch(keys, GeoCell.mortonKey(p));
+        return v >= 0 ? v : -1;
+    }
+
+    /**
+     * Returns the point of a node.
+     *
+     * @requires 0 <= v < nodeCount()
+     * @return the point of node v.
+     */
+    public GeoPoint pointOf(int v) {
+        return new GeoPoint(latitudes[v], longitudes[v]);
+    }
+
+    /**
+     * Returns the latitude of a node.
+     *
+     * @requires 0 <= v < nodeCount()
+     * @return the latitude of the point of node v.
+     */
+    public int latitude(int v) {
+        return latitudes[v];
+    }
+
+    /**
+     * Returns the longitude of a node.
+     *
+     * @requires 0 <= v < nodeCount()
+     * @return the longitude of the point of node v.
+     */
+    public int longitude(int v) {
+        return longitudes[v];
+    }
+
+    /**
+     * Returns the first edge of a node.
+     *
+     * @requires 0 <= v <= nodeCount()
+     * @return the id of the first edge leaving v; the edges leaving v are
+     * those from firstEdge(v) to firstEdge(v + 1), exclusive.
+     */
+    public int firstEdge(int v) {
+        return firstEdge[v];
+    }
+
+    /**
+     * Returns the first entering edge of a node.
+     *
+     * @requires 0 <= v <= nodeCount()
+     * @return the position of the first edge entering v; the edges entering
+     * v are inEdge(i) for firstInEdge(v) <= i < firstInEdge(v + 1).
+     */
+    public int firstInEdge(int v) {
+        return firstInEdge[v];
+    }
+
+    /**
+     * Returns an entering edge.
+     *
+     * @requires 0 <= i < edgeCount()
+     * @return the id of the i'th edge in the list of entering edges.
+     * @see #firstInEdge(int)
+     */
+    public int inEdge(int i) {
+        return inEdges[i];
+    }
+
+    /**
+     * Returns the source of an edge.
+     *
+     * @requires 0 <= e < edgeCount()
+     * @return the node at which edge e starts.
+     */
+    public int source(int e) {
+        return sources[e];
+    }
+
+    /**
+     * Returns the target of an edge.
+     *
+     * @requires 0 <= e < edgeCount()
+     * @return the node at which edge e ends.
+     */
+    public int target(int e) {
+        return targets[e];
+    }
+
+    /**
+     * Returns the length of an edge.
+     *
+     * @requires 0 <= e < edgeCount()
+     * @return the length of the segment of edge e, in kilometers.
+     */
+    public double length(int e) {
+        return lengths[e];
+    }
+
+    /**
+     * Returns the heading of an edge.
+     *
+     * @requires 0 <= e < edgeCount()
+     * @return the heading of the segment of edge e, in degrees, or 0 if the
+     * segment has length 0.
+     */
+    public double heading(int e) {
+        return headings[e];
+    }
+
+    /**
+     * Returns the name id of an edge.
+     *
+     * @requires 0 <= e < edgeCount()
+     * @return the NameDictionary id of the name of the segment of edge e.
+     */
+    public int nameId(int e) {
+        return nameIds[e];
+    }
+
+    /**
+     * Returns the segment of an edge.
+     *
+     * @requires 0 <= e < edgeCount()
+     * @return the segment that edge e stands for.
+     */
+    public GeoSegment segmentOf(int e) {
+        return catalog[indices[e]];
+    }
+
+    /**
+     * Returns the edge of a segment.
+     *
+     * @requires gs != null
+     * @return the id of an edge that stands for a segment equal to gs, or
+     * -1 if there is none.
+     */
+    public int edgeOf(GeoSegment gs) {
+        int v = nodeOf(gs.getP1());
+        if (v < 0) {
+            return -1;
+        }
+        int w = nodeOf(gs.getP2());
+        for (int e = firstEdge[v]; e < firstEdge[v + 1]; e++) {
+            if (targets[e] == w && nameIds[e] == gs.getNameId()) {
+                return e;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Returns the catalog index of an edge.
+     *
+     * @requires 0 <= e < edgeCount()
+     * @return the index i such that edge e stands for segments[i] of the
+     * catalog the graph was built from.
+     */
+    public int indexOf(int e) {
+        return indices[e];
+    }
+
+    /**
+     * Builds the Route along a path.
+     *
+     * @requires edges != null && every element of edges is an edge id
+     * @return the Route along the segments of edges, in order.
+     * @throws IllegalArgumentException if edges is empty or if some edge
+     * does not start where the previous one ends.
+     */
+    public Route toRoute(int[] edges) {
+        GeoSegment[] path = new GeoSegment[edges.length];
+        for (int i = 0; i < edges.length; i++) {
+            path[i] = segmentOf(edges[i]);
+        }
+        return Route.of(path);
+    }
+}
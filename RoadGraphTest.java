@@ -0,0 +1,121 @@
+package homework1;
+
+import java.util.*;
+
+public class RoadGraphTest {
+
+	private GeoSegment[] mNetwork;
+	private RoadGraph mGraph;
+
+
+	public RoadGraphTest() {
+		mNetwork = new RoadNetworkGenerator(51).organic(60, 60, 1000);
+		mGraph = new RoadGraph(mNetwork);
+	}
+
+
+	public void show(String str) {
+		System.out.println();
+		System.out.println("***** " + str + " *****");
+	}
+
+
+	public void show(String str, boolean ok) {
+		if (ok)
+			System.out.print("v ");
+		else
+			System.out.print("x ");
+		System.out.println(str);
+	}
+
+
+	public void test() {
+		show("Nodes");
+		Set<GeoPoint> points = new HashSet<>();
+		for (GeoSegment gs : mNetwork) {
+			points.add(gs.getP1());
+			points.add(gs.getP2());
+		}
+		show("A node per distinct point", mGraph.nodeCount() == points.size());
+		boolean roundTrip = true;
+		for (GeoPoint p : points)
+			roundTrip &= mGraph.pointOf(mGraph.nodeOf(p)).equals(p);
+		show("Points map to nodes and back", roundTrip);
+		boolean coordinates = true;
+		for (int v = 0; v < mGraph.nodeCount(); v++)
+			coordinates &= mGraph.latitude(v) == mGraph.pointOf(v).getLatitude()
+				&& mGraph.longitude(v) == mGraph.pointOf(v).getLongitude();
+		show("Coordinates are those of the points", coordinates);
+		show("Unknown points have no node", mGraph.nodeOf(new GeoPoint(0, 0)) == -1);
+
+		show("Edges");
+		SegmentIndex index = new SegmentIndex(mNetwork);
+		boolean rows = mGraph.edgeCount() == mNetwork.length;
+		boolean columns = true;
+		for (int v = 0; v < mGraph.nodeCount(); v++) {
+			List<GeoSegment> leaving = new ArrayList<>();
+			for (int e = mGraph.firstEdge(v); e < mGraph.firstEdge(v + 1); e++) {
+				GeoSegment gs = mGraph.segmentOf(e);
+				leaving.add(gs);
+				columns &= mGraph.source(e) == v && mGraph.pointOf(mGraph.target(e)).equals(gs.getP2())
+					&& mGraph.length(e) == gs.getLength() && mGraph.heading(e) == gs.getHeading()
+					&& mGraph.nameId(e) == gs.getNameId() && mNetwork[mGraph.indexOf(e)] == gs;
+			}
+			rows &= leaving.equals(index.startingAt(mGraph.pointOf(v)));
+		}
+		show("Edges leaving a node are the segments starting at it, in order", rows);
+		show("Edge columns describe their segments", columns);
+		boolean reverse = true;
+		int entering = 0;
+		for (int v = 0; v < mGraph.nodeCount(); v++) {
+			for (int i = mGraph.firstInEdge(v); i < mGraph.firstInEdge(v + 1); i++) {
+				reverse &= mGraph.target(mGraph.inEdge(i)) == v;
+				entering++;
+			}
+		}
+		show("Edges entering a node end at it", reverse && entering == mGraph.edgeCount());
+		BitSet indices = new BitSet();
+		for (int e = 0; e < mGraph.edgeCount(); e++)
+			indices.set(mGraph.indexOf(e));
+		show("Every segment is an edge once", indices.cardinality() == mNetwork.length);
+
+		show("Layout");
+		long gap = 0;
+		for (int e = 0; e < mGraph.edgeCount(); e++)
+			gap += Math.abs(mGraph.target(e) - mGraph.source(e));
+		double meanGap = (double) gap / mGraph.edgeCount();
+		System.out.printf("  mean id distance along an edge: %.1f of %d nodes%n", meanGap, mGraph.nodeCount());
+		show("Neighbors have close ids", meanGap < mGraph.nodeCount() / 20.0);
+		RoadGraph streamed = RoadGraph.of(Arrays.stream(mNetwork).parallel());
+		boolean same = streamed.nodeCount() == mGraph.nodeCount();
+		for (int e = 0; e < mGraph.edgeCount() && same; e++)
+			same = streamed.segmentOf(e) == mGraph.segmentOf(e) && streamed.target(e) == mGraph.target(e);
+		show("Graph from a stream is the same", same);
+
+		show("toRoute()");
+		int first = mGraph.firstEdge(mGraph.nodeOf(mNetwork[0].getP1()));
+		int second = mGraph.firstEdge(mGraph.target(first));
+		Route route = mGraph.toRoute(new int[] {first, second});
+		show("Route follows the edges", route.getStart().equals(mGraph.pointOf(mGraph.source(first)))
+			&& route.getEnd().equals(mGraph.pointOf(mGraph.target(second))));
+		try {
+			mGraph.toRoute(new int[] {first, first});
+			show("Edges that are not a path are rejected", false);
+		} catch (IllegalArgumentException e) {
+			show("Edges that are not a path are rejected", true);
+		}
+
+		show("throughput");
+		GeoSegment[] large = new RoadNetworkGenerator(52).organic(500, 500, 1000);
+		long begin = System.nanoTime();
+		RoadGraph graph = new RoadGraph(large);
+		double seconds = (System.nanoTime() - begin) / 1e9;
+		System.out.printf("  %d segments, %d nodes built in %.3f s%n", graph.edgeCount(), graph.nodeCount(), seconds);
+	}
+
+
+	public static void main(String[] args) {
+		RoadGraphTest graphTest = new RoadGraphTest();
+		graphTest.test();
+	}
+}
@@ -0,0 +1,331 @@
+package homework1;
+
+import java.util.*;
+import java.util.stream.IntStream;
+
+/**
+ * A RoadNetworkGenerator creates synthetic road networks and routes over
+ * them, for load tests and benchmarks that need far more segments than
+ * ExampleGeoSegments.
+ * <p>
+ * Networks are arrays of GeoSegments in which every road is present in both
+ * directions, as a segment followed by its reverse. Streets keep their name
+ * for runs of several segments, drawn from a fixed set of names such as
+ * "Oak Street". Three layouts are available:
+ * <ul>
+ * <li>grid: straight streets crossing at right angles, like a city center;
+ * <li>radial: ring roads around a center, crossed by spokes;
+ * <li>organic: a bent and jittered grid with missing blocks, like an old
+ * neighbourhood.
+ * </ul>
+ * A network depends only on the seed of the generator and on the arguments
+ * of the call that creates it, even though large networks are created in
+ * parallel. Endpoints are shared GeoPoint objects and names are stored as
+ * NameDictionary ids, so a network of ten million segments takes a few
+ * hundred megabytes.
+ * <p>
+ * Random routes are drawn from a single random stream, so a generator
+ * produces the same routes for the same seed and sequence of calls; a
+ * generator should not be used by several threads at once.
+ */
+public class RoadNetworkGenerator {
+
+    /**
+     * The default south-west corner (or center, for radial networks) of
+     * generated networks, near the Technion.
+     */
+    public static final GeoPoint DEFAULT_ORIGIN = new GeoPoint(32700000, 34900000);
+
+    private static final String[] WORDS = {
+            "Oak", "Pine", "Cedar", "Olive", "Palm", "Carmel", "Hagalil", "Hanita", "Herzl",
+            "Weizmann", "Ben Gurion", "Jabotinsky", "Bialik", "Rothschild", "Allenby", "Dizengoff",
+            "Hankin", "Trumpeldor", "Ruppin", "Hatzionut", "Hashalom", "Haatzmaut", "Moriah", "Horev",
+            "Tabor", "Arbel", "Gilboa", "Yarden", "Kinneret", "Hermon", "Harel", "Hanasi", "Einstein",
+            "Sokolov", "Ahad Haam", "Nordau", "Arlozorov", "Balfour", "Masada", "Yavne" };
+
+    private static final String[] KINDS = { "Street", "Road", "Avenue", "Boulevard", "Lane", "Way" };
+
+    // the ids of all combinations of WORDS and KINDS
+    private static final int[] NAME_IDS = new int[WORDS.length * KINDS.length];
+
+    static {
+        for (int w = 0; w < WORDS.length; w++) {
+            for (int k = 0; k < KINDS.length; k++) {
+                NAME_IDS[w * KINDS.length + k] = NameDictionary.idOf(WORDS[w] + " " + KINDS[k]);
+            }
+        }
+    }
+
+    // average number of segments before a street changes its name
+    private static final int NAME_RUN = 12;
+
+    // streams of random numbers used by the layouts
+    private static final long GRID = 1, RADIAL = 2, ORGANIC = 3;
+
+    private final long seed;
+    private final GeoPoint origin;
+    private final SplittableRandom random;
+
+    // Abs. Function:
+    //   represents a generator of networks determined by this.seed and placed
+    //   at this.origin, and of routes drawn from this.random
+
+    // Rep. Invariant:
+    //   origin != null && random != null
+
+    private void checkRep() {
+        assert origin != null && random != null : "Invalid generator";
+    }
+
+    /**
+     * Constructs a new RoadNetworkGenerator at DEFAULT_ORIGIN.
+     *
+     * @effects Constructs a generator whose networks and routes are
+     * determined by seed.
+     */
+    public RoadNetworkGenerator(long seed) {
+        this(seed, DEFAULT_ORIGIN);
+    }
+
+    /**
+     * Constructs a new RoadNetworkGenerator.
+     *
+     * @requires origin != null
+     * @effects Constructs a generator whose networks start at origin and
+     * whose networks and routes are determined by seed.
+     */
+    public RoadNetworkGenerator(long seed, GeoPoint origin) {
+        this.seed = seed;
+        this.origin = origin;
+        this.random = new SplittableRandom(seed);
+        checkRep();
+    }
+
+    // An independent random stream for one row, column or ring of a layout.
+    private SplittableRandom stream(long layout, long index) {
+        return new SplittableRandom(seed * 0x9E3779B97F4A7C15L + layout * 0xBF58476D1CE4E5B9L + index);
+    }
+
+    private static int randomName(SplittableRandom r) {
+        return NAME_IDS[r.nextInt(NAME_IDS.length)];
+    }
+
+
+    /**
+     * Creates a grid network.
+     *
+     * @requires rows >= 1 && cols >= 1 && spacing >= 3
+     * @return the segments of a grid of rows x cols intersections, spacing
+     * millionths of degrees apart and jittered by up to spacing / 10, whose
+     * south-west corner is the origin of this. Every street between adjacent
+     * intersections is present in both directions, so there are
+     * 4 * rows * cols - 2 * rows - 2 * cols segments.
+     * @throws IllegalArgumentException if the grid does not fit on the
+     * earth.
+     */
+    public GeoSegment[] grid(int rows, int cols, int spacing) {
+        checkRep();
+        return lattice(GRID, rows, cols, spacing, spacing / 10, 0, 1.0);
+    }
+
+
+    /**
+     * Creates an organic network.
+     *
+     * @requires rows >= 1 && cols >= 1 && spacing >= 10
+     * @return the segments of a bent grid of rows x cols intersections,
+     * about spacing millionths of degrees apart, whose south-west corner is
+     * near the origin of this. Streets between adjacent intersections are
+     * missing with probability 0.15; the others are present in both
+     * directions.
+     * @throws IllegalArgumentException if the network does not fit on the
+     * earth.
+     */
+    public GeoSegment[] organic(int rows, int cols, int spacing) {
+        checkRep();
+        return lattice(ORGANIC, rows, cols, spacing, spacing / 4, spacing, 0.85);
+    }
+
+    // The segments of a lattice of rows x cols points spacing apart, each
+    // moved by up to jitter at random and by up to bend along slow waves,
+    // whose streets are kept with probability keep.
+    private GeoSegment[] lattice(long layout, int rows, int cols, int spacing, int jitter, int bend, double keep) {
+        checkFits(origin.getLatitude() - bend - jitter, origin.getLongitude() - bend - jitter,
+                origin.getLatitude() + (long) (rows - 1) * spacing + bend + jitter,
+                origin.getLongitude() + (long) (cols - 1) * spacing + bend + jitter);
+        SplittableRandom waves = stream(layout, -1);
+        double latPhase = waves.nextDouble() * 2 * Math.PI;
+        double lonPhase = waves.nextDouble() * 2 * Math.PI;
+
+        GeoPoint[] points = new GeoPoint[rows * cols];
+        IntStream.range(0, rows).parallel().forEach(r -> {
+            SplittableRandom rr = stream(layout, r);
+            for (int c = 0; c < cols; c++) {
+                long lat = origin.getLatitude() + (long) r * spacing
+                        + Math.round(bend * 0.5 * Math.sin(c * 0.21 + latPhase));
+                long lon = origin.getLongitude() + (long) c * spacing
+                        + Math.round(bend * 0.5 * Math.sin(r * 0.17 + lonPhase));
+                if (jitter > 0) {
+                    lat += rr.nextInt(2 * jitter + 1) - jitter;
+                    lon += rr.nextInt(2 * jitter + 1) - jitter;
+                }
+                points[r * cols + c] = new GeoPoint((int) lat, (int) lon);
+            }
+        });
+
+        // streets along rows, then along columns, each built by one task
+        // with its own random stream
+        GeoSegment[][] lines = new GeoSegment[rows + cols][];
+        IntStream.range(0, rows + cols).parallel().forEach(line -> {
+            boolean isRow = line < rows;
+            int fixed = isRow ? line : line - rows;
+            int steps = (isRow ? cols : rows) - 1;
+            SplittableRandom lr = stream(layout, 1L << 32 | line);
+            List<GeoSegment> segments = new ArrayList<>(2 * Math.max(steps, 0));
+            int nameId = randomName(lr);
+            for (int i = 0; i < steps; i++) {
+                if (lr.nextInt(NAME_RUN) == 0) {
+                    nameId = randomName(lr);
+                }
+                if (keep < 1 && lr.nextDouble() >= keep) {
+                    continue;
+                }
+                GeoPoint a = isRow ? points[fixed * cols + i] : points[i * cols + fixed];
+                GeoPoint b = isRow ? points[fixed * cols + i + 1] : points[(i + 1) * cols + fixed];
+                segments.add(new GeoSegment(nameId, a, b));
+                segments.add(new GeoSegment(nameId, b, a));
+            }
+            lines[line] = segments.toArray(new GeoSegment[0]);
+        });
+        return concat(lines);
+    }
+
+
+    /**
+     * Creates a radial network.
+     *
+     * @requires rings >= 1 && spokes >= 3 && spacing >= spokes
+     * @return the segments of a network centered at the origin of this, with
+     * rings ring roads spacing millionths of degrees of latitude apart, and
+     * spokes roads from the center to the outer ring, all present in both
+     * directions. Each ring and each spoke keeps one name.
+     * @throws IllegalArgumentException if the network does not fit on the
+     * earth.
+     */
+    public GeoSegment[] radial(int rings, int spokes, int spacing) {
+        checkRep();
+        // longitude is scaled so that rings are round on the ground
+        double stretch = GeoPoint.KM_PER_DEGREE_LATITUDE / GeoPoint.KM_PER_DEGREE_LONGITUDE;
+        long radius = (long) rings * spacing;
+        checkFits(origin.getLatitude() - radius, origin.getLongitude() - Math.round(radius * stretch) - 1,
+                origin.getLatitude() + radius, origin.getLongitude() + Math.round(radius * stretch) + 1);
+
+        // points[k * spokes + s] is on ring k + 1 and spoke s
+        GeoPoint[] points = new GeoPoint[rings * spokes];
+        IntStream.range(0, rings).parallel().forEach(k -> {
+            for (int s = 0; s < spokes; s++) {
+                double angle = 2 * Math.PI * s / spokes;
+                double r = (double) (k + 1) * spacing;
+                points[k * spokes + s] = new GeoPoint(
+                        (int) Math.round(origin.getLatitude() + r * Math.cos(angle)),
+                        (int) Math.round(origin.getLongitude() + r * stretch * Math.sin(angle)));
+            }
+        });
+        SplittableRandom names = stream(RADIAL, 0);
+        int[] ringNames = new int[rings];
+        int[] spokeNames = new int[spokes];
+        for (int k = 0; k < rings; k++) {
+            ringNames[k] = randomName(names);
+        }
+        for (int s = 0; s < spokes; s++) {
+            spokeNames[s] = randomName(names);
+        }
+
+        GeoSegment[][] lines = new GeoSegment[rings + spokes][];
+        IntStream.range(0, rings + spokes).parallel().forEach(line -> {
+            List<GeoSegment> segments = new ArrayList<>();
+            if (line < rings) {
+                for (int s = 0; s < spokes; s++) {
+                    GeoPoint a = points[line * spokes + s];
+                    GeoPoint b = points[line * spokes + (s + 1) % spokes];
+                    segments.add(new GeoSegment(ringNames[line], a, b));
+                    segments.add(new GeoSegment(ringNames[line], b, a));
+                }
+            } else {
+                int s = line - rings;
+                GeoPoint a = origin;
+                for (int k = 0; k < rings; k++) {
+                    GeoPoint b = points[k * spokes + s];
+                    segments.add(new GeoSegment(spokeNames[s], a, b));
+                    segments.add(new GeoSegment(spokeNames[s], b, a));
+                    a = b;
+                }
+            }
+            lines[line] = segments.toArray(new GeoSegment[0]);
+        });
+        return concat(lines);
+    }
+
+
+    /**
+     * Draws a random route over a network. The route starts on a random
+     * segment and follows the network, preferring to stay on the same
+     * street and never turning back, until it has maxSegments segments or
+     * reaches a dead end.
+     *
+     * @requires index != null && index.size() > 0 && maxSegments >= 1
+     * @modifies this
+     * @return a Route of between 1 and maxSegments segments of index.
+     */
+    public Route randomRoute(SegmentIndex index, int maxSegments) {
+        checkRep();
+        List<GeoSegment> network = index.getSegments();
+        GeoSegment current = network.get(random.nextInt(network.size()));
+        List<GeoSegment> segments = new ArrayList<>();
+        segments.add(current);
+        List<GeoSegment> onward = new ArrayList<>();
+        List<GeoSegment> straight = new ArrayList<>();
+        while (segments.size() < maxSegments) {
+            onward.clear();
+            straight.clear();
+            for (GeoSegment next : index.startingAt(current.getP2())) {
+                if (next.getP2().equals(current.getP1())) {
+                    continue;
+                }
+                onward.add(next);
+                if (next.getNameId() == current.getNameId()) {
+                    straight.add(next);
+                }
+            }
+            if (onward.isEmpty()) {
+                break;
+            }
+            List<GeoSegment> choices = !straight.isEmpty() && random.nextInt(4) != 0 ? straight : onward;
+            current = choices.get(random.nextInt(choices.size()));
+            segments.add(current);
+        }
+        return Route.of(segments);
+    }
+
+
+    private static void checkFits(long minLat, long minLon, long maxLat, long maxLon) {
+        if (minLat < GeoPoint.MIN_LATITUDE || maxLat > GeoPoint.MAX_LATITUDE
+                || minLon < GeoPoint.MIN_LONGITUDE || maxLon > GeoPoint.MAX_LONGITUDE) {
+            throw new IllegalArgumentException("Network does not fit on the earth.");
+        }
+    }
+
+    private static GeoSegment[] concat(GeoSegment[][] parts) {
+        int n = 0;
+        for (GeoSegment[] part : parts) {
+            n += part.length;
+        }
+        GeoSegment[] result = new GeoSegment[n];
+        int at = 0;
+        for (GeoSegment[] part : parts) {
+            System.arraycopy(part, 0, result, at, part.length);
+            at += part.length;
+        }
+        return result;
+    }
+}
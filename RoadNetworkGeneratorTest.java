@@ -0,0 +1,118 @@
+package homework1;
+
+import java.util.*;
+
+public class RoadNetworkGeneratorTest {
+
+	public void show(String str) {
+		System.out.println();
+		System.out.println("***** " + str + " *****");
+	}
+
+
+	public void show(String str, boolean ok) {
+		if (ok)
+			System.out.print("v ");
+		else
+			System.out.print("x ");
+		System.out.println(str);
+	}
+
+
+	// Every segment has a positive length and is followed by its reverse.
+	static boolean twoWay(GeoSegment[] network) {
+		if (network.length % 2 != 0)
+			return false;
+		for (int i = 0; i < network.length; i += 2) {
+			if (network[i].getP1().equals(network[i].getP2())
+					|| !network[i + 1].equals(network[i].reverse()))
+				return false;
+		}
+		return true;
+	}
+
+
+	// The average number of consecutive segments of a street with one name.
+	static double averageRun(GeoSegment[] network) {
+		int runs = 0;
+		for (int i = 0; i < network.length; i += 2)
+			if (i == 0 || network[i].getNameId() != network[i - 2].getNameId()
+					|| !network[i].getP1().equals(network[i - 2].getP2()))
+				runs++;
+		return network.length / 2.0 / runs;
+	}
+
+
+	public void test() {
+		show("grid()");
+		GeoSegment[] grid = new RoadNetworkGenerator(1).grid(30, 40, 1000);
+		show("Grid has a segment per direction of every block", grid.length == 4 * 30 * 40 - 2 * 30 - 2 * 40);
+		show("Grid streets go both ways", twoWay(grid));
+		show("Grid is deterministic", Arrays.equals(grid, new RoadNetworkGenerator(1).grid(30, 40, 1000)));
+		show("Grid depends on the seed", !Arrays.equals(grid, new RoadNetworkGenerator(2).grid(30, 40, 1000)));
+		show("Grid streets keep their names for runs", averageRun(grid) > 4);
+		show("Grid starts near the origin", Math.abs(grid[0].getP1().getLatitude()
+			- RoadNetworkGenerator.DEFAULT_ORIGIN.getLatitude()) <= 100);
+
+		show("organic()");
+		GeoSegment[] organic = new RoadNetworkGenerator(1).organic(30, 40, 1000);
+		show("Organic network misses some streets", organic.length < grid.length && organic.length > grid.length / 2);
+		show("Organic streets go both ways", twoWay(organic));
+		show("Organic network is deterministic",
+			Arrays.equals(organic, new RoadNetworkGenerator(1).organic(30, 40, 1000)));
+
+		show("radial()");
+		GeoSegment[] radial = new RoadNetworkGenerator(1).radial(10, 16, 500);
+		show("Radial network has rings and spokes", radial.length == 2 * (10 * 16 + 10 * 16));
+		show("Radial streets go both ways", twoWay(radial));
+		SegmentIndex radialIndex = new SegmentIndex(radial);
+		show("Spokes meet at the center",
+			radialIndex.startingAt(RoadNetworkGenerator.DEFAULT_ORIGIN).size() == 16);
+
+		boolean thrown = false;
+		try {
+			new RoadNetworkGenerator(1, new GeoPoint(89000000, 0)).grid(1000, 10, 10000);
+		} catch (IllegalArgumentException e) {
+			thrown = true;
+		}
+		show("Networks that do not fit are rejected", thrown);
+
+		show("randomRoute()");
+		SegmentIndex index = new SegmentIndex(organic);
+		RoadNetworkGenerator routes = new RoadNetworkGenerator(7);
+		boolean valid = true;
+		int total = 0;
+		for (int k = 0; k < 200; k++) {
+			Route route = routes.randomRoute(index, 50);
+			List<GeoSegment> segments = RouteTest.toList(route.getGeoSegments());
+			valid &= segments.size() <= 50;
+			for (int i = 1; i < segments.size(); i++)
+				valid &= !segments.get(i).equals(segments.get(i - 1).reverse());
+			total += segments.size();
+		}
+		show("Routes are connected, bounded and never turn back", valid);
+		show("Routes are long", total > 200 * 25);
+		RoadNetworkGenerator again = new RoadNetworkGenerator(7);
+		routes = new RoadNetworkGenerator(7);
+		boolean same = true;
+		for (int k = 0; k < 20; k++)
+			same &= routes.randomRoute(index, 30).equals(again.randomRoute(index, 30));
+		show("Routes are deterministic", same);
+
+		show("throughput");
+		long begin = System.nanoTime();
+		GeoSegment[] large = new RoadNetworkGenerator(3).grid(1000, 1000, 100);
+		double seconds = (System.nanoTime() - begin) / 1e9;
+		System.out.printf("  %d grid segments in %.3f s%n", large.length, seconds);
+		begin = System.nanoTime();
+		large = new RoadNetworkGenerator(3).organic(1000, 1000, 100);
+		seconds = (System.nanoTime() - begin) / 1e9;
+		System.out.printf("  %d organic segments in %.3f s%n", large.length, seconds);
+	}
+
+
+	public static void main(String[] args) {
+		RoadNetworkGeneratorTest generatorTest = new RoadNetworkGeneratorTest();
+		generatorTest.test();
+	}
+}
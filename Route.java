@@ -1,6 +1,8 @@
 package homework1;
 
 import java.util.*;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
 
 /**
  * A Route is a path that traverses arbitrary GeoSegments, regardless
@@ -32,6 +34,12 @@ import java.util.*;
  * </pre>
  **/
 public class Route {
+    // inputs of at least this many segments are grouped by Route.of in parallel
+    private static final int PARALLEL_THRESHOLD = 1 << 15;
+
+    // chunk size below which a fork-join task scans its segments sequentially
+    private static final int LEAF_SIZE = 1 << 13;
+
     private final List<GeoSegment> segments;
     private final List<GeoFeature> features;
     private final GeoPoint start;
@@ -39,6 +47,8 @@ public class Route {
     private final double startHeading;
     private final double endHeading;
     private final double length;
+    private final GeoBox box;
+    private final Route reverseOf;
 
     // Abs. Function:
     //   represents a path that traverses arbitrary GeoSegments, regardless
@@ -47,6 +57,10 @@ public class Route {
     //   GeoFeatures, with start and end points, and their respective headings.
     //   The length of the path is the total distance traveled by following
     //   the path from start to end.
+    //   this.box is the bounding box of the path.
+    //   If this.reverseOf != null, this is a reversed view of this.reverseOf:
+    //   segments and features read those of reverseOf backwards, reversing each
+    //   element on access.
 
     // Rep. Invariant:
     //   segments and features are non-empty
@@ -55,10 +69,11 @@ public class Route {
     //   segments[0].heading == startHeading
     //   segments[segments.length - 1].heading == endHeading
     //   length is the sum of the lengths of all segments
+    //   box is the smallest GeoBox containing the boxes of all features
     //   For all i in [0, segments.length - 1]: segments[i].p2 == segments[i+1].p1
     //   For all i in [0, features.length - 1]:
     //      features[i].getEnd().equals(features[i+1].getStart())
-    //      && !features[i].getName().equals(features[i+1].getName())
+    //      && features[i].getNameId() != features[i+1].getNameId()
     //   Features cover the same segments in the same order as `segments`
 
     private void checkRep() {
@@ -72,6 +87,8 @@ public class Route {
 
         double segmentSum = segments.stream().mapToDouble(GeoSegment::getLength).sum();
         assert Math.abs(length - segmentSum) < 1e-6 : "Length mismatch";
+        assert box.equals(features.stream().map(GeoFeature::getBoundingBox).reduce(GeoBox::union).get())
+                : "Bounding box mismatch";
 
         for (int i = 0; i < segments.size() - 1; i++) {
             assert segments.get(i).getP2().equals(segments.get(i + 1).getP1()) : "Segments not connected";
@@ -79,7 +96,7 @@ public class Route {
 
         for (int i = 0; i < features.size() - 1; i++) {
             assert features.get(i).getEnd().equals(features.get(i + 1).getStart()) : "Features not connected";
-            assert !features.get(i).getName().equals(features.get(i + 1).getName()) : "Features must differ in name";
+            assert features.get(i).getNameId() != features.get(i + 1).getNameId() : "Features must differ in name";
         }
     }
 
@@ -103,20 +120,205 @@ public class Route {
         this.startHeading = gs.getHeading();
         this.endHeading = gs.getHeading();
         this.length = gs.getLength();
+        this.box = GeoBox.of(gs);
+        this.reverseOf = null;
         checkRep();
     }
 
-    private Route(List<GeoSegment> segments, List<GeoFeature> features) {
-        this.segments = Collections.unmodifiableList(segments);
-        this.features = Collections.unmodifiableList(features);
+    private Route(List<GeoSegment> segments, List<GeoFeature> features, double length, GeoBox box) {
+        this.segments = segments;
+        this.features = features;
         this.start = segments.getFirst().getP1();
         this.end = segments.getLast().getP2();
         this.startHeading = segments.getFirst().getHeading();
         this.endHeading = segments.getLast().getHeading();
-        this.length = segments.stream().mapToDouble(GeoSegment::getLength).sum();
+        this.length = length;
+        this.box = box;
+        this.reverseOf = null;
+        checkRep();
+    }
+
+    private Route(Route original) {
+        this.segments = new ReversedList<>(original.segments, GeoSegment::reverse);
+        this.features = new ReversedList<>(original.features, GeoFeature::reversed);
+        this.start = original.end;
+        this.end = original.start;
+        this.startHeading = this.segments.getFirst().getHeading();
+        this.endHeading = this.segments.getLast().getHeading();
+        this.length = original.length;
+        this.box = original.box;
+        this.reverseOf = original;
         checkRep();
     }
 
+    /**
+     * Constructs a new Route from a sequence of segments in a single pass.
+     * This is equivalent to, but much cheaper than, constructing a Route from
+     * the first segment and calling addSegment for each of the others.
+     * Large inputs are validated and grouped into GeoFeatures in parallel.
+     *
+     * @requires segments != null && segments contains no null elements
+     * @return a new Route r such that
+     * r.geoSegments = segments &&
+     * r.start = segments[0].p1 &&
+     * r.end = segments[segments.length - 1].p2
+     * @throws IllegalArgumentException if segments is empty or if some segment
+     * does not start where the previous one ends.
+     **/
+    public static Route of(List<GeoSegment> segments) {
+        return build(segments.toArray(new GeoSegment[0]));
+    }
+
+
+    /**
+     * Constructs a new Route from an array of segments in a single pass.
+     *
+     * @requires segments != null && segments contains no null elements
+     * @return a new Route r such that
+     * r.geoSegments = segments &&
+     * r.start = segments[0].p1 &&
+     * r.end = segments[segments.length - 1].p2
+     * @throws IllegalArgumentException if segments is empty or if some segment
+     * does not start where the previous one ends.
+     * @see #of(List)
+     **/
+    public static Route of(GeoSegment[] segments) {
+        return build(segments.clone());
+    }
+
+    // Builds a Route over a, which must not be shared with the caller.
+    private static Route build(GeoSegment[] a) {
+        if (a.length == 0) throw new IllegalArgumentException("Route must have at least one segment.");
+
+        Runs runs = a.length < PARALLEL_THRESHOLD
+                ? Runs.scan(a, 0, a.length)
+                : ForkJoinPool.commonPool().invoke(new GroupTask(a, 0, a.length));
+
+        List<GeoSegment> segments = Collections.unmodifiableList(Arrays.asList(a));
+        List<GeoFeature> features = new ArrayList<>(runs.count);
+        double length = 0;
+        GeoBox box = null;
+        for (int i = 0; i < runs.count; i++) {
+            int to = i + 1 < runs.count ? runs.starts[i + 1] : a.length;
+            GeoBox runBox = new GeoBox(runs.minLatitudes[i], runs.minLongitudes[i],
+                    runs.maxLatitudes[i], runs.maxLongitudes[i]);
+            features.add(new GeoFeature(segments.subList(runs.starts[i], to), runs.lengths[i], runBox));
+            length += runs.lengths[i];
+            box = box == null ? runBox : box.union(runBox);
+        }
+        return new Route(segments, Collections.unmodifiableList(features), length, box);
+    }
+
+    /**
+     * The maximal same-named runs of a range of segments: run i starts at
+     * index starts[i], has total length lengths[i], and is bounded by
+     * minLatitudes[i], minLongitudes[i], maxLatitudes[i] and maxLongitudes[i].
+     */
+    private static final class Runs {
+        private int[] starts = new int[4];
+        private double[] lengths = new double[4];
+        private int[] minLatitudes = new int[4];
+        private int[] minLongitudes = new int[4];
+        private int[] maxLatitudes = new int[4];
+        private int[] maxLongitudes = new int[4];
+        private int count = 0;
+
+        // Validates connectivity of a[from, to) (and of a[from - 1] -> a[from])
+        // and splits it into runs in one sequential pass.
+        static Runs scan(GeoSegment[] a, int from, int to) {
+            Runs runs = new Runs();
+            for (int i = from; i < to; i++) {
+                if (i > 0 && !a[i - 1].getP2().equals(a[i].getP1())) {
+                    throw new IllegalArgumentException("Segment " + i + " is not connected to the previous segment.");
+                }
+                if (i == from || a[i].getNameId() != a[i - 1].getNameId()) {
+                    runs.add(i, a[i].getLength(), Integer.MAX_VALUE, Integer.MAX_VALUE,
+                            Integer.MIN_VALUE, Integer.MIN_VALUE);
+                } else {
+                    runs.lengths[runs.count - 1] += a[i].getLength();
+                }
+                runs.include(runs.count - 1, a[i].getP1());
+                runs.include(runs.count - 1, a[i].getP2());
+            }
+            return runs;
+        }
+
+        private void add(int start, double length, int minLatitude, int minLongitude,
+                         int maxLatitude, int maxLongitude) {
+            if (count == starts.length) {
+                starts = Arrays.copyOf(starts, count * 2);
+                lengths = Arrays.copyOf(lengths, count * 2);
+                minLatitudes = Arrays.copyOf(minLatitudes, count * 2);
+                minLongitudes = Arrays.copyOf(minLongitudes, count * 2);
+                maxLatitudes = Arrays.copyOf(maxLatitudes, count * 2);
+                maxLongitudes = Arrays.copyOf(maxLongitudes, count * 2);
+            }
+            starts[count] = start;
+            lengths[count] = length;
+            minLatitudes[count] = minLatitude;
+            minLongitudes[count] = minLongitude;
+            maxLatitudes[count] = maxLatitude;
+            maxLongitudes[count] = maxLongitude;
+            count++;
+        }
+
+        // Grows the bounds of run i to include p.
+        private void include(int i, GeoPoint p) {
+            minLatitudes[i] = Math.min(minLatitudes[i], p.getLatitude());
+            minLongitudes[i] = Math.min(minLongitudes[i], p.getLongitude());
+            maxLatitudes[i] = Math.max(maxLatitudes[i], p.getLatitude());
+            maxLongitudes[i] = Math.max(maxLongitudes[i], p.getLongitude());
+        }
+
+        // Appends the runs of the range that directly follows this one,
+        // merging the two runs that meet at the boundary if they share a name.
+        Runs append(Runs next, GeoSegment[] a) {
+            int first = 0;
+            int boundary = next.starts[0];
+            if (a[boundary].getNameId() == a[boundary - 1].getNameId()) {
+                int last = count - 1;
+                lengths[last] += next.lengths[0];
+                minLatitudes[last] = Math.min(minLatitudes[last], next.minLatitudes[0]);
+                minLongitudes[last] = Math.min(minLongitudes[last], next.minLongitudes[0]);
+                maxLatitudes[last] = Math.max(maxLatitudes[last], next.maxLatitudes[0]);
+                maxLongitudes[last] = Math.max(maxLongitudes[last], next.maxLongitudes[0]);
+                first = 1;
+            }
+            for (int i = first; i < next.count; i++) {
+                add(next.starts[i], next.lengths[i], next.minLatitudes[i], next.minLongitudes[i],
+                        next.maxLatitudes[i], next.maxLongitudes[i]);
+            }
+            return this;
+        }
+    }
+
+    private static final class GroupTask extends RecursiveTask<Runs> {
+        private static final long serialVersionUID = 1L;
+
+        private final transient GeoSegment[] a;
+        private final int from;
+        private final int to;
+
+        GroupTask(GeoSegment[] a, int from, int to) {
+            this.a = a;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected Runs compute() {
+            if (to - from <= LEAF_SIZE) {
+                return Runs.scan(a, from, to);
+            }
+            int mid = (from + to) >>> 1;
+            GroupTask right = new GroupTask(a, mid, to);
+            right.fork();
+            Runs left = new GroupTask(a, from, mid).compute();
+            return left.append(right.join(), a);
+        }
+    }
+
+
     /**
      * Returns location of the start of the route.
      *
@@ -198,14 +400,164 @@ public class Route {
         List<GeoFeature> newFeatures = new ArrayList<>(this.features);
         GeoFeature lastFeature = newFeatures.getLast();
 
-        if (gs.getName().equals(lastFeature.getName())) {
+        if (gs.getNameId() == lastFeature.getNameId()) {
             newFeatures.set(newFeatures.size() - 1, lastFeature.addSegment(gs));
         } else {
             newFeatures.add(new GeoFeature(gs));
         }
 
         checkRep();
-        return new Route(newSegments, newFeatures);
+        return new Route(Collections.unmodifiableList(newSegments), Collections.unmodifiableList(newFeatures),
+                this.length + gs.getLength(), this.box.union(GeoBox.of(gs)));
+    }
+
+
+    /**
+     * Returns the bounding box of the route.
+     *
+     * @return the smallest GeoBox that contains all the segments of this.
+     **/
+    public GeoBox getBoundingBox() {
+        checkRep();
+        return box;
+    }
+
+
+    /**
+     * Tells whether the route lies in a region.
+     *
+     * @requires region != null
+     * @return true iff every point of every segment of this lies in region.
+     **/
+    public boolean within(GeoBox region) {
+        checkRep();
+        return region.contains(box);
+    }
+
+
+    /**
+     * Tells whether the route passes through a region. Features whose
+     * bounding boxes lie in or outside region are decided without looking at
+     * their segments.
+     *
+     * @requires region != null
+     * @return true iff some point of some segment of this lies in region.
+     **/
+    public boolean intersects(GeoBox region) {
+        checkRep();
+        if (!region.intersects(box)) {
+            return false;
+        }
+        if (region.contains(box)) {
+            return true;
+        }
+        for (GeoFeature feature : features) {
+            if (feature.intersects(region)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+
+    /**
+     * Cuts the route to a region, e.g. to draw it in a map viewport or to
+     * find the parts of it in a city zone. Segments that cross the border of
+     * region are cut where they cross it; the cut points are rounded to the
+     * nearest millionth of a degree in region.
+     *
+     * @requires region != null
+     * @return the maximal connected parts of this that lie in region, in the
+     * order in which this traverses them. Parts of zero length are left out,
+     * so the result is empty if this does not pass through region.
+     **/
+    public List<Route> clip(GeoBox region) {
+        checkRep();
+        List<Route> pieces = new ArrayList<>();
+        if (!region.intersects(box)) {
+            return pieces;
+        }
+        if (region.contains(box)) {
+            pieces.add(this);
+            return pieces;
+        }
+        List<GeoSegment> piece = new ArrayList<>();
+        double[] t = new double[2];
+        for (GeoFeature feature : features) {
+            GeoBox featureBox = feature.getBoundingBox();
+            if (!region.intersects(featureBox)) {
+                closePiece(piece, pieces);
+                continue;
+            }
+            boolean inside = region.contains(featureBox);
+            for (Iterator<GeoSegment> it = feature.getGeoSegments(); it.hasNext(); ) {
+                GeoSegment gs = it.next();
+                if (inside) {
+                    piece.add(gs);
+                    continue;
+                }
+                if (!region.clip(gs, t)) {
+                    closePiece(piece, pieces);
+                    continue;
+                }
+                GeoPoint from = t[0] == 0 ? gs.getP1() : pointAt(gs, t[0], region);
+                GeoPoint to = t[1] == 1 ? gs.getP2() : pointAt(gs, t[1], region);
+                if (!piece.isEmpty() && !piece.getLast().getP2().equals(from)) {
+                    closePiece(piece, pieces);
+                }
+                if (!from.equals(to)) {
+                    piece.add(from == gs.getP1() && to == gs.getP2() ? gs : new GeoSegment(gs.getNameId(), from, to));
+                }
+                if (t[1] < 1) {
+                    closePiece(piece, pieces);   // the route leaves region here
+                }
+            }
+        }
+        closePiece(piece, pieces);
+        return pieces;
+    }
+
+    // Moves the segments of piece, if any, into a new Route at the end of pieces.
+    private static void closePiece(List<GeoSegment> piece, List<Route> pieces) {
+        if (!piece.isEmpty()) {
+            pieces.add(Route.of(piece));
+            piece.clear();
+        }
+    }
+
+    // The point a fraction t of the way along gs, rounded into region.
+    private static GeoPoint pointAt(GeoSegment gs, double t, GeoBox region) {
+        GeoPoint p1 = gs.getP1();
+        GeoPoint p2 = gs.getP2();
+        long lat = Math.round(p1.getLatitude() + t * (p2.getLatitude() - p1.getLatitude()));
+        long lon = Math.round(p1.getLongitude() + t * (p2.getLongitude() - p1.getLongitude()));
+        lat = Math.max(region.getMinLatitude(), Math.min(region.getMaxLatitude(), lat));
+        lon = Math.max(region.getMinLongitude(), Math.min(region.getMaxLongitude(), lon));
+        return new GeoPoint((int) lat, (int) lon);
+    }
+
+
+    /**
+     * Returns a Route that traverses this Route backwards, e.g. for the
+     * return trip. The returned Route is a view over the segments and
+     * features of this one; it is created in O(1) time and reverses each
+     * segment or feature only when it is read.
+     *
+     * @return a Route r such that
+     * r.start = this.end &&
+     * r.end = this.start &&
+     * r.length = this.length &&
+     * r.geoSegments = [s[n-1].reverse(), ..., s[0].reverse()] &&
+     * r.geoFeatures = [f[m-1].reversed(), ..., f[0].reversed()]
+     * where s = this.geoSegments, n = s.length, f = this.geoFeatures and
+     * m = f.length.
+     **/
+    public Route reversed() {
+        checkRep();
+        if (reverseOf != null) {
+            return reverseOf;
+        }
+        return new Route(this);
     }
 
 
@@ -278,7 +630,9 @@ public class Route {
      **/
     public int hashCode() {
         checkRep();
-        return 31 * features.hashCode() + 17 * start.hashCode() + 13 * Double.hashCode(length) + 7 * end.hashCode();
+        // length is left out: equal routes may sum their segments in a
+        // different order and differ in the last bits of their lengths
+        return 31 * features.hashCode() + 17 * start.hashCode() + 7 * end.hashCode();
     }
 
 
@@ -0,0 +1,367 @@
+package homework1;
+
+import java.util.*;
+import java.util.stream.Collector;
+import java.util.stream.IntStream;
+
+/**
+ * A RouteAnalytics accumulates the figures of a report over a collection
+ * of Routes: how many there are and how long they are in all, the
+ * distribution of their lengths and walking times, how many geographic
+ * features they have, and the total length and number of features of each
+ * street name.
+ * <p>
+ * RouteAnalytics are mergeable: the analytics of two collections, merged,
+ * are those of their union. This makes them cheap to compute in parallel,
+ * each thread filling its own RouteAnalytics and merging them at the end,
+ * which is what collector() and of(RouteArchive) do. Routes packed in a
+ * RouteArchive are analyzed edge by edge, without building Routes at all.
+ * <p>
+ * RouteAnalytics are mutable, and are not safe for use by many threads at
+ * once. Lengths are summarized by a QuantileSketch, so their quantiles are
+ * estimates within its relative accuracy; every other figure is exact, up
+ * to the rounding of sums of lengths.
+ * <p>
+ * <b>The following fields are used in the specification:</b>
+ * <pre>
+ *   routes : multiset      // of the Routes added
+ * </pre>
+ **/
+public final class RouteAnalytics {
+    /**
+     * The relative accuracy of length quantiles, unless given.
+     */
+    public static final double DEFAULT_ACCURACY = 0.01;
+
+    private long routeCount;
+    private final QuantileSketch lengths;
+    private long[] featureCounts = new long[16];    // featureCounts[k] routes have k features
+    private double[] streetLengths = new double[16];  // by name id
+    private long[] streetFeatures = new long[16];     // by name id
+
+    // Abs. Function:
+    //   routes is a multiset of routeCount routes, whose lengths are the
+    //   values of lengths, of which featureCounts[k] have k features, and
+    //   whose features named NameDictionary.nameOf(id) number
+    //   streetFeatures[id] and have a total length of streetLengths[id]
+
+    // Rep. Invariant:
+    //   lengths != null && lengths.getCount() == routeCount
+    //   the sum of featureCounts == routeCount
+    //   streetLengths.length == streetFeatures.length
+
+    private void checkRep() {
+        assert lengths.getCount() == routeCount : "Every route must have a length";
+        assert Arrays.stream(featureCounts).sum() == routeCount : "Every route must have a feature count";
+        assert streetLengths.length == streetFeatures.length : "Street columns differ in length";
+    }
+
+    /**
+     * Constructs a new RouteAnalytics with the default accuracy.
+     *
+     * @effects Constructs an empty RouteAnalytics whose length quantiles
+     * have relative accuracy DEFAULT_ACCURACY.
+     */
+    public RouteAnalytics() {
+        this(DEFAULT_ACCURACY);
+    }
+
+    /**
+     * Constructs a new RouteAnalytics.
+     *
+     * @requires 0 < accuracy < 1
+     * @effects Constructs an empty RouteAnalytics whose length quantiles
+     * have relative accuracy accuracy.
+     * @throws IllegalArgumentException if accuracy is not in (0, 1).
+     */
+    public RouteAnalytics(double accuracy) {
+        this.lengths = new QuantileSketch(accuracy);
+        checkRep();
+    }
+
+    /**
+     * Returns a collector of routes into a RouteAnalytics, which analyzes a
+     * parallel stream in parallel.
+     *
+     * @requires 0 < accuracy < 1
+     * @return a collector that adds every route of a stream to a new
+     * RouteAnalytics of relative accuracy accuracy.
+     */
+    public static Collector<Route, RouteAnalytics, RouteAnalytics> collector(double accuracy) {
+        return Collector.of(() -> new RouteAnalytics(accuracy), RouteAnalytics::add,
+                (a, b) -> {
+                    a.merge(b);
+                    return a;
+                },
+                Collector.Characteristics.UNORDERED, Collector.Characteristics.IDENTITY_FINISH);
+    }
+
+    /**
+     * Returns a collector of routes into a RouteAnalytics with the default
+     * accuracy.
+     *
+     * @return collector(DEFAULT_ACCURACY)
+     */
+    public static Collector<Route, RouteAnalytics, RouteAnalytics> collector() {
+        return collector(DEFAULT_ACCURACY);
+    }
+
+    /**
+     * Analyzes the routes of an archive, in parallel.
+     *
+     * @requires archive != null && 0 < accuracy < 1
+     * @return a RouteAnalytics of relative accuracy accuracy whose routes
+     * are archive.routes.
+     */
+    public static RouteAnalytics of(RouteArchive archive, double accuracy) {
+        return IntStream.range(0, archive.size()).parallel().collect(() -> new RouteAnalytics(accuracy),
+                (analytics, i) -> analytics.add(archive, i), RouteAnalytics::merge);
+    }
+
+    /**
+     * Analyzes the routes of an archive, in parallel, with the default
+     * accuracy.
+     *
+     * @requires archive != null
+     * @return of(archive, DEFAULT_ACCURACY)
+     */
+    public static RouteAnalytics of(RouteArchive archive) {
+        return of(archive, DEFAULT_ACCURACY);
+    }
+
+
+    /**
+     * Adds a route.
+     *
+     * @requires route != null
+     * @modifies this
+     * @effects adds route to this.routes.
+     */
+    public void add(Route route) {
+        int features = 0;
+        for (Iterator<GeoFeature> it = route.getGeoFeatures(); it.hasNext(); ) {
+            GeoFeature feature = it.next();
+            addFeature(feature.getNameId(), feature.getLength());
+            features++;
+        }
+        addRoute(route.getLength(), features);
+    }
+
+
+    /**
+     * Adds a route of an archive, reading its edges rather than building it.
+     *
+     * @requires archive != null && 0 <= i < archive.size()
+     * @modifies this
+     * @effects adds archive.routes[i] to this.routes.
+     */
+    public void add(RouteArchive archive, int i) {
+        RoadGraph graph = archive.getGraph();
+        double length = 0;
+        int features = 0;
+        int name = -1;
+        double featureLength = 0;
+        for (int k = 0; k < archive.edgeCount(i); k++) {
+            int e = archive.edge(i, k);
+            // a feature is a maximal run of segments of one name
+            if (graph.nameId(e) != name) {
+                if (name >= 0) {
+                    addFeature(name, featureLength);
+                }
+                name = graph.nameId(e);
+                featureLength = 0;
+                features++;
+            }
+            featureLength += graph.length(e);
+            length += graph.length(e);
+        }
+        addFeature(name, featureLength);
+        addRoute(length, features);
+    }
+
+    private void addFeature(int nameId, double length) {
+        if (nameId >= streetLengths.length) {
+            int size = Math.max(nameId + 1, 2 * streetLengths.length);
+            streetLengths = Arrays.copyOf(streetLengths, size);
+            streetFeatures = Arrays.copyOf(streetFeatures, size);
+        }
+        streetLengths[nameId] += length;
+        streetFeatures[nameId]++;
+    }
+
+    private void addRoute(double length, int features) {
+        if (features >= featureCounts.length) {
+            featureCounts = Arrays.copyOf(featureCounts, Math.max(features + 1, 2 * featureCounts.length));
+        }
+        featureCounts[features]++;
+        lengths.add(length);
+        routeCount++;
+    }
+
+
+    /**
+     * Merges other analytics into these.
+     *
+     * @requires other != null && other != this
+     * @modifies this
+     * @effects adds other.routes to this.routes.
+     * @throws IllegalArgumentException if the length quantiles of other have
+     * a different accuracy.
+     */
+    public void merge(RouteAnalytics other) {
+        lengths.merge(other.lengths);
+        if (other.featureCounts.length > featureCounts.length) {
+            featureCounts = Arrays.copyOf(featureCounts, other.featureCounts.length);
+        }
+        for (int k = 0; k < other.featureCounts.length; k++) {
+            featureCounts[k] += other.featureCounts[k];
+        }
+        if (other.streetLengths.length > streetLengths.length) {
+            streetLengths = Arrays.copyOf(streetLengths, other.streetLengths.length);
+            streetFeatures = Arrays.copyOf(streetFeatures, other.streetFeatures.length);
+        }
+        for (int id = 0; id < other.streetLengths.length; id++) {
+            streetLengths[id] += other.streetLengths[id];
+            streetFeatures[id] += other.streetFeatures[id];
+        }
+        routeCount += other.routeCount;
+        checkRep();
+    }
+
+
+    /**
+     * Returns the number of routes.
+     *
+     * @return the size of this.routes.
+     */
+    public long getRouteCount() {
+        return routeCount;
+    }
+
+
+    /**
+     * Returns the total length of the routes.
+     *
+     * @return the sum of the lengths of this.routes, in kilometers.
+     */
+    public double getTotalLength() {
+        return lengths.getSum();
+    }
+
+
+    /**
+     * Returns the mean length of the routes.
+     *
+     * @return the mean length of this.routes, in kilometers, or NaN if
+     * there are none.
+     */
+    public double getMeanLength() {
+        return lengths.getMean();
+    }
+
+
+    /**
+     * Estimates a quantile of the lengths of the routes.
+     *
+     * @requires 0 <= q <= 1
+     * @return an estimate, within the accuracy of this, of the q-quantile of
+     * the lengths of this.routes, in kilometers, or NaN if there are none.
+     * @throws IllegalArgumentException if q is not in [0, 1].
+     */
+    public double getLength(double q) {
+        return lengths.quantile(q);
+    }
+
+
+    /**
+     * Returns the mean time it takes to walk the routes.
+     *
+     * @return the mean length of this.routes times
+     * WalkingRouteFormatter.MINUTES_PER_KILOMETER, in minutes, or NaN if
+     * there are none.
+     */
+    public double getMeanWalkingMinutes() {
+        return getMeanLength() * WalkingRouteFormatter.MINUTES_PER_KILOMETER;
+    }
+
+
+    /**
+     * Estimates a quantile of the times it takes to walk the routes.
+     *
+     * @requires 0 <= q <= 1
+     * @return getLength(q) * WalkingRouteFormatter.MINUTES_PER_KILOMETER, in
+     * minutes.
+     * @throws IllegalArgumentException if q is not in [0, 1].
+     */
+    public double getWalkingMinutes(double q) {
+        return getLength(q) * WalkingRouteFormatter.MINUTES_PER_KILOMETER;
+    }
+
+
+    /**
+     * Returns the histogram of the numbers of features of the routes.
+     *
+     * @return an array h, as short as possible, such that h[k] is the number
+     * of routes of this.routes that have k geographic features.
+     */
+    public long[] getFeatureHistogram() {
+        int size = featureCounts.length;
+        while (size > 0 && featureCounts[size - 1] == 0) {
+            size--;
+        }
+        return Arrays.copyOf(featureCounts, size);
+    }
+
+
+    /**
+     * Returns the total length of a street in the routes.
+     *
+     * @requires name != null
+     * @return the sum of the lengths of the geographic features named name
+     * of this.routes, in kilometers.
+     */
+    public double getStreetLength(String name) {
+        int id = NameDictionary.lookup(name);
+        return id >= 0 && id < streetLengths.length ? streetLengths[id] : 0;
+    }
+
+
+    /**
+     * Returns the number of times a street appears in the routes.
+     *
+     * @requires name != null
+     * @return the number of geographic features named name of this.routes.
+     */
+    public long getStreetFeatureCount(String name) {
+        int id = NameDictionary.lookup(name);
+        return id >= 0 && id < streetFeatures.length ? streetFeatures[id] : 0;
+    }
+
+
+    /**
+     * Returns the total length of every street in the routes.
+     *
+     * @return a new map from each name of a geographic feature of
+     * this.routes to getStreetLength(name), longest first.
+     */
+    public Map<String, Double> getStreetLengths() {
+        Integer[] ids = IntStream.range(0, streetFeatures.length).filter(id -> streetFeatures[id] > 0)
+                .boxed().toArray(Integer[]::new);
+        Arrays.sort(ids, (a, b) -> Double.compare(streetLengths[b], streetLengths[a]));
+        Map<String, Double> totals = new LinkedHashMap<>();
+        for (int id : ids) {
+            totals.put(NameDictionary.nameOf(id), streetLengths[id]);
+        }
+        return totals;
+    }
+
+
+    /**
+     * Returns a string representation of this RouteAnalytics.
+     *
+     * @return a string representation of this RouteAnalytics.
+     **/
+    public String toString() {
+        return "RouteAnalytics{routes=" + routeCount + ", length=" + getTotalLength() + "}";
+    }
+}
@@ -0,0 +1,198 @@
+package homework1;
+
+import java.util.*;
+import java.util.stream.Collectors;
+
+public class RouteAnalyticsTest {
+
+	private static final double tolerance = 0.0001;
+
+	private RoadGraph mGraph;
+	private List<Route> mRoutes;
+
+
+	public RouteAnalyticsTest() {
+		RoadNetworkGenerator generator = new RoadNetworkGenerator(48);
+		GeoSegment[] network = generator.organic(40, 40, 1000);
+		mGraph = new RoadGraph(network);
+		SegmentIndex index = new SegmentIndex(network);
+		mRoutes = new ArrayList<>();
+		Random random = new Random(48);
+		while (mRoutes.size() < 5000)
+			mRoutes.add(generator.randomRoute(index, 1 + random.nextInt(40)));
+	}
+
+
+	boolean same(double x, double y) {
+		return ((y >= x-tolerance) && (y <= x+tolerance));
+	}
+
+
+	public void show(String str) {
+		System.out.println();
+		System.out.println("***** " + str + " *****");
+	}
+
+
+	public void show(String str, boolean ok) {
+		if (ok)
+			System.out.print("v ");
+		else
+			System.out.print("x ");
+		System.out.println(str);
+	}
+
+
+	// Whether a agrees with the figures of routes, counted by plain loops.
+	boolean agree(RouteAnalytics a, List<Route> routes) {
+		double total = 0;
+		Map<String, Double> streets = new HashMap<>();
+		Map<String, Long> features = new HashMap<>();
+		long[] histogram = new long[64];
+		for (Route r : routes) {
+			total += r.getLength();
+			int count = 0;
+			for (Iterator<GeoFeature> it = r.getGeoFeatures(); it.hasNext(); ) {
+				GeoFeature f = it.next();
+				streets.merge(f.getName(), f.getLength(), Double::sum);
+				features.merge(f.getName(), 1L, Long::sum);
+				count++;
+			}
+			histogram[count]++;
+		}
+		boolean ok = a.getRouteCount() == routes.size() && same(a.getTotalLength(), total)
+			&& same(a.getMeanWalkingMinutes(), total / routes.size() * WalkingRouteFormatter.MINUTES_PER_KILOMETER);
+		long[] h = a.getFeatureHistogram();
+		ok &= Arrays.equals(h, Arrays.copyOf(histogram, h.length)) && Arrays.stream(h).sum() == routes.size();
+		ok &= a.getStreetLengths().keySet().equals(streets.keySet());
+		for (String name : streets.keySet())
+			ok &= same(a.getStreetLength(name), streets.get(name)) && a.getStreetFeatureCount(name) == features.get(name);
+		return ok;
+	}
+
+
+	public void test() {
+		show("QuantileSketch");
+		QuantileSketch sketch = new QuantileSketch(0.01);
+		Random random = new Random(48);
+		double[] values = new double[100000];
+		for (int i = 0; i < values.length; i++) {
+			values[i] = Math.exp(random.nextGaussian() * 2);
+			sketch.add(values[i]);
+		}
+		sketch.add(0);
+		double[] sorted = Arrays.copyOf(values, values.length + 1);
+		Arrays.sort(sorted);
+		boolean accurate = true;
+		for (double q : new double[] {0, 0.01, 0.1, 0.25, 0.5, 0.75, 0.9, 0.99, 0.999, 1}) {
+			double exact = sorted[(int) (q * (sorted.length - 1))];
+			accurate &= Math.abs(sketch.quantile(q) - exact) <= 0.01 * exact + 1e-12;
+		}
+		show("Quantiles are within the relative accuracy", accurate);
+		show("Count, min and max are exact", sketch.getCount() == sorted.length
+			&& sketch.getMin() == 0 && sketch.getMax() == sorted[sorted.length - 1]);
+		QuantileSketch left = new QuantileSketch(0.01);
+		QuantileSketch right = new QuantileSketch(0.01);
+		for (int i = 0; i < values.length; i++)
+			(i % 3 == 0 ? left : right).add(values[i]);
+		right.add(0);
+		left.merge(right);
+		boolean merged = left.getCount() == sketch.getCount();
+		for (double q = 0; q <= 1; q += 0.05)
+			merged &= left.quantile(q) == sketch.quantile(q);
+		show("Merged sketches estimate like one sketch", merged);
+		show("Empty sketch has no quantiles", Double.isNaN(new QuantileSketch(0.05).quantile(0.5)));
+		try {
+			sketch.add(-1);
+			show("Negative value is rejected", false);
+		} catch (IllegalArgumentException e) {
+			show("Negative value is rejected", true);
+		}
+		try {
+			sketch.merge(new QuantileSketch(0.02));
+			show("Sketches of different accuracy are not merged", false);
+		} catch (IllegalArgumentException e) {
+			show("Sketches of different accuracy are not merged", true);
+		}
+
+		show("RouteAnalytics");
+		RouteAnalytics sequential = new RouteAnalytics();
+		for (Route r : mRoutes)
+			sequential.add(r);
+		show("Analytics agree with plain loops", agree(sequential, mRoutes));
+		RouteAnalytics parallel = mRoutes.parallelStream().collect(RouteAnalytics.collector());
+		show("Parallel collection agrees with plain loops", agree(parallel, mRoutes));
+		double[] lengths = mRoutes.stream().mapToDouble(Route::getLength).sorted().toArray();
+		double median = lengths[(lengths.length - 1) / 2];
+		show("Median length is within the accuracy",
+			Math.abs(parallel.getLength(0.5) - median) <= RouteAnalytics.DEFAULT_ACCURACY * median);
+		show("Walking minutes follow lengths", same(parallel.getWalkingMinutes(0.9),
+			parallel.getLength(0.9) * WalkingRouteFormatter.MINUTES_PER_KILOMETER));
+		Map<String, Double> streets = parallel.getStreetLengths();
+		List<Double> totals = new ArrayList<>(streets.values());
+		boolean longestFirst = true;
+		for (int k = 0; k + 1 < totals.size(); k++)
+			longestFirst &= totals.get(k) >= totals.get(k + 1);
+		show("Streets are longest first", longestFirst);
+		int known = NameDictionary.size();
+		show("Unknown street has no length", parallel.getStreetLength("No Such Street") == 0
+			&& parallel.getStreetFeatureCount("No Such Street") == 0 && NameDictionary.size() == known);
+
+		show("RouteArchive");
+		RouteArchive archive = RouteArchive.of(mGraph, mRoutes.parallelStream());
+		boolean kept = archive.size() == mRoutes.size();
+		for (int i = 0; i < archive.size() && kept; i++)
+			kept = archive.get(i).equals(mRoutes.get(i));
+		show("Archive keeps the routes in order", kept);
+		show("Archive streams the routes in order", archive.stream().collect(Collectors.toList()).equals(mRoutes));
+		show("Parallel stream of the archive sees every route",
+			archive.stream().parallel().mapToDouble(Route::getLength).count() == mRoutes.size());
+		Spliterator<Route> whole = archive.stream().spliterator();
+		Spliterator<Route> half = whole.trySplit();
+		show("Archive splits in halves", half != null
+			&& Math.abs(half.estimateSize() - whole.estimateSize()) <= 1);
+		show("Archive analytics agree with plain loops", agree(RouteAnalytics.of(archive), mRoutes));
+		show("Archive stream analytics agree with plain loops",
+			agree(archive.stream().parallel().collect(RouteAnalytics.collector()), mRoutes));
+		try {
+			GeoSegment outside = new GeoSegment("Nowhere", new GeoPoint(0, 0), new GeoPoint(1000, 1000));
+			RouteArchive.of(mGraph, List.of(new Route(outside)).stream());
+			show("Route outside the network is rejected", false);
+		} catch (IllegalArgumentException e) {
+			show("Route outside the network is rejected", true);
+		}
+
+		show("throughput");
+		List<Route> many = new ArrayList<>();
+		for (int c = 0; c < 5; c++)
+			many.addAll(mRoutes);
+		RouteArchive big = RouteArchive.of(mGraph, many.parallelStream());
+		long begin = System.nanoTime();
+		double total = 0;
+		Map<String, Double> byName = new HashMap<>();
+		for (Route r : many) {
+			for (Iterator<GeoFeature> it = r.getGeoFeatures(); it.hasNext(); ) {
+				GeoFeature f = it.next();
+				total += f.getLength();
+				byName.merge(f.getName(), f.getLength(), Double::sum);
+			}
+		}
+		double loops = (System.nanoTime() - begin) / 1e9;
+		begin = System.nanoTime();
+		RouteAnalytics collected = many.parallelStream().collect(RouteAnalytics.collector());
+		double streamed = (System.nanoTime() - begin) / 1e9;
+		begin = System.nanoTime();
+		RouteAnalytics packed = RouteAnalytics.of(big);
+		double archived = (System.nanoTime() - begin) / 1e9;
+		System.out.printf("  %d routes: %.3f s plain loops, %.3f s parallel collector, %.3f s from the archive%n",
+			many.size(), loops, streamed, archived);
+		show("Every way gives the same total", Math.abs(collected.getTotalLength() - total) < 1e-6 * total
+			&& Math.abs(packed.getTotalLength() - total) < 1e-6 * total);
+	}
+
+
+	public static void main(String[] args) {
+		RouteAnalyticsTest analyticsTest = new RouteAnalyticsTest();
+		analyticsTest.test();
+	}
+}
@@ -0,0 +1,259 @@
+package homework1;
+
+import java.util.*;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * A RouteArchive is a packed, read-only sequence of Routes along a road
+ * network, e.g. a day of served routes kept for reporting. RouteArchives
+ * are immutable and can be read by many threads at once.
+ * <p>
+ * Each route is stored as the ids of the edges of a RoadGraph that it
+ * follows, all in one int array, so that an archive takes four bytes per
+ * segment rather than a Route object, its lists and its features per route.
+ * Routes are rebuilt on demand by get() and stream(); aggregators such as
+ * RouteAnalytics can instead read the edges directly, without building
+ * Routes at all. The stream of an archive splits evenly into halves, so
+ * parallel streams over it keep every core busy.
+ * <p>
+ * An archive holds at most Integer.MAX_VALUE - 8 segments in all; larger
+ * collections should be kept in several archives, whose results can be
+ * merged.
+ * <p>
+ * <b>The following fields are used in the specification:</b>
+ * <pre>
+ *   graph : RoadGraph      // the network the routes follow
+ *   routes : sequence      // of Routes along graph
+ * </pre>
+ **/
+public final class RouteArchive {
+    private final RoadGraph graph;
+    private final int[] edges;      // the edges of all routes, route after route
+    private final int[] offsets;    // route i is edges[offsets[i] .. offsets[i + 1])
+
+    // Abs. Function:
+    //   graph = this.graph
+    //   routes[i] = graph.toRoute(edges[offsets[i] .. offsets[i + 1]))
+    //   for 0 <= i < offsets.length - 1
+
+    // Rep. Invariant:
+    //   offsets.length >= 1 && offsets[0] == 0 &&
+    //   offsets[offsets.length - 1] == edges.length
+    //   offsets[i] < offsets[i + 1] for every i
+    //   every edges[j] is an edge of graph, and for every route, each of its
+    //   edges but the first starts where the one before it ends
+
+    private void checkRep() {
+        assert offsets.length >= 1 && offsets[0] == 0 : "Offsets must start at 0";
+        assert offsets[offsets.length - 1] == edges.length : "Offsets must end at the edge count";
+        for (int i = 0; i + 1 < offsets.length; i++) {
+            assert offsets[i] < offsets[i + 1] : "Routes must not be empty";
+        }
+    }
+
+    // Takes ownership of the given arrays.
+    private RouteArchive(RoadGraph graph, int[] edges, int[] offsets) {
+        this.graph = graph;
+        this.edges = edges;
+        this.offsets = offsets;
+        checkRep();
+    }
+
+    /**
+     * Packs a stream of routes into an archive. A parallel stream is packed
+     * in parallel.
+     *
+     * @requires graph != null && routes != null && routes contains no null
+     * elements
+     * @return an archive r such that r.graph = graph and r.routes are the
+     * routes of the stream, in encounter order.
+     * @throws IllegalArgumentException if some segment of some route is not
+     * in graph, or if the routes have too many segments for one archive.
+     */
+    public static RouteArchive of(RoadGraph graph, Stream<Route> routes) {
+        Packer packer = routes.collect(() -> new Packer(graph), Packer::add, Packer::append);
+        return new RouteArchive(graph, Arrays.copyOf(packer.edges, packer.edgeCount),
+                Arrays.copyOf(packer.offsets, packer.routeCount + 1));
+    }
+
+
+    /**
+     * Returns the network of this archive.
+     *
+     * @return this.graph
+     */
+    public RoadGraph getGraph() {
+        return graph;
+    }
+
+
+    /**
+     * Returns the number of routes.
+     *
+     * @return the length of this.routes.
+     */
+    public int size() {
+        return offsets.length - 1;
+    }
+
+
+    /**
+     * Returns the number of segments of a route.
+     *
+     * @requires 0 <= i < size()
+     * @return the number of segments of routes[i].
+     */
+    public int edgeCount(int i) {
+        return offsets[i + 1] - offsets[i];
+    }
+
+
+    /**
+     * Returns an edge of a route.
+     *
+     * @requires 0 <= i < size() && 0 <= k < edgeCount(i)
+     * @return the id in graph of the edge of the k'th segment of routes[i].
+     */
+    public int edge(int i, int k) {
+        return edges[offsets[i] + k];
+    }
+
+
+    /**
+     * Returns a route.
+     *
+     * @requires 0 <= i < size()
+     * @return routes[i]
+     */
+    public Route get(int i) {
+        return graph.toRoute(Arrays.copyOfRange(edges, offsets[i], offsets[i + 1]));
+    }
+
+
+    /**
+     * Returns a sequential stream of the routes.
+     *
+     * @return a stream of this.routes, in order; parallel() splits it
+     * evenly.
+     */
+    public Stream<Route> stream() {
+        return StreamSupport.stream(new RouteSpliterator(0, size()), false);
+    }
+
+
+    /**
+     * Returns a string representation of this RouteArchive.
+     *
+     * @return a string representation of this RouteArchive.
+     **/
+    public String toString() {
+        return "RouteArchive{routes=" + size() + ", segments=" + edges.length + "}";
+    }
+
+
+    /**
+     * Splits the routes of a range of indices in halves, and builds each
+     * route only when it is consumed.
+     */
+    private final class RouteSpliterator implements Spliterator<Route> {
+        private int next;
+        private final int end;
+
+        RouteSpliterator(int next, int end) {
+            this.next = next;
+            this.end = end;
+        }
+
+        public boolean tryAdvance(Consumer<? super Route> action) {
+            if (next >= end) {
+                return false;
+            }
+            action.accept(get(next++));
+            return true;
+        }
+
+        public void forEachRemaining(Consumer<? super Route> action) {
+            while (next < end) {
+                action.accept(get(next++));
+            }
+        }
+
+        public Spliterator<Route> trySplit() {
+            int middle = (next + end) >>> 1;
+            if (middle <= next) {
+                return null;
+            }
+            RouteSpliterator prefix = new RouteSpliterator(next, middle);
+            next = middle;
+            return prefix;
+        }
+
+        public long estimateSize() {
+            return end - next;
+        }
+
+        public int characteristics() {
+            return ORDERED | SIZED | SUBSIZED | IMMUTABLE | NONNULL;
+        }
+    }
+
+
+    /**
+     * A growable packing of routes, for collecting a stream.
+     */
+    private static final class Packer {
+        private static final int MAX_SIZE = Integer.MAX_VALUE - 8;
+
+        final RoadGraph graph;
+        int[] edges = new int[64];
+        int[] offsets = new int[16];
+        int edgeCount;
+        int routeCount;
+
+        Packer(RoadGraph graph) {
+            this.graph = graph;
+        }
+
+        void add(Route route) {
+            for (Iterator<GeoSegment> it = route.getGeoSegments(); it.hasNext(); ) {
+                GeoSegment gs = it.next();
+                int e = graph.edgeOf(gs);
+                if (e < 0) {
+                    throw new IllegalArgumentException("Segment " + gs + " is not in the network.");
+                }
+                ensureEdges(edgeCount + 1);
+                edges[edgeCount++] = e;
+            }
+            ensureRoutes(routeCount + 1);
+            offsets[++routeCount] = edgeCount;
+        }
+
+        void append(Packer other) {
+            ensureEdges((long) edgeCount + other.edgeCount);
+            ensureRoutes(routeCount + other.routeCount);
+            System.arraycopy(other.edges, 0, edges, edgeCount, other.edgeCount);
+            for (int i = 1; i <= other.routeCount; i++) {
+                offsets[routeCount + i] = edgeCount + other.offsets[i];
+            }
+            edgeCount += other.edgeCount;
+            routeCount += other.routeCount;
+        }
+
+        private void ensureEdges(long size) {
+            if (size > MAX_SIZE) {
+                throw new IllegalArgumentException("Too many segments for one archive.");
+            }
+            if (size > edges.length) {
+                edges = Arrays.copyOf(edges, (int) Math.min(MAX_SIZE, Math.max(size, 2L * edges.length)));
+            }
+        }
+
+        private void ensureRoutes(int size) {
+            if (size + 1 > offsets.length) {
+                offsets = Arrays.copyOf(offsets, (int) Math.min(MAX_SIZE, Math.max(size + 1, 2L * offsets.length)));
+            }
+        }
+    }
+}
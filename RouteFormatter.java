@@ -33,6 +33,26 @@ public abstract class RouteFormatter {
   	}
 
 
+  	/**
+     * Give directions for a sequence of maneuvers, e.g. ones computed
+     * earlier by ManeuverList.of or read by ManeuverCodec.
+     * @requires maneuvers != null
+     * @param maneuvers the maneuvers for which to print directions.
+     * @return A newline-terminated directions <tt>String</tt> with one line
+     *         per maneuver. For maneuvers = ManeuverList.of(route, heading),
+     *         this equals computeDirections(route, heading).
+     * @throws UnsupportedOperationException if this formatter does not
+     *         format lines from maneuvers, i.e. appendsLines() is false.
+     **/
+  	public String computeDirections(ManeuverList maneuvers) {
+		StringBuilder directions = new StringBuilder();
+		for (int i = 0; i < maneuvers.size(); i++) {
+			appendLine(directions, maneuvers.getTurn(i), maneuvers.getName(i), maneuvers.getLength(i));
+		}
+		return directions.toString();
+  	}
+
+
   	/**
      * Computes a single line of a multi-line directions String that
      * represents the instructions for traversing a single geographic
@@ -46,6 +66,38 @@ public abstract class RouteFormatter {
   	public abstract String computeLine(GeoFeature geoFeature, double origHeading);
 
 
+  	/**
+     * Tells whether this formatter can format a line from the turn, name
+     * and length of a feature alone, with appendLine.
+     * @return true iff this overrides appendLine; false by default.
+     */
+  	protected boolean appendsLines() {
+		return false;
+  	}
+
+
+  	/**
+     * Appends a single line of a multi-line directions String, for a
+     * feature whose turn, name and length are already known. This lets
+     * several formatters share one pass over a Route (see
+     * MultiRouteFormatter), and formats ManeuverLists. Formatters whose
+     * lines depend only on the turn, name and length of a feature override
+     * this and appendsLines.
+     * @requires out != null && turn != null && name != null
+     * @param out the directions to append the line to.
+     * @param turn the turn onto the feature.
+     * @param name the name of the feature.
+     * @param length the length of the feature, in kilometers.
+     * @modifies out
+     * @effects appends to out the newline-terminated line that computeLine
+     * returns for a feature with the given turn, name and length.
+     * @throws UnsupportedOperationException if appendsLines() is false.
+     */
+  	protected void appendLine(StringBuilder out, TurnType turn, String name, double length) {
+		throw new UnsupportedOperationException("Lines need the whole feature: use computeLine.");
+  	}
+
+
   	/**
      * Computes directions to turn based on the heading change.
      * @requires 0 <= oldHeading < 360 &&
@@ -66,16 +118,7 @@ public abstract class RouteFormatter {
      * and likewise for left turns.
      */
   	protected String getTurnString(double origHeading, double newHeading) {
-		double angle = (newHeading - origHeading + 360) % 360;
-
-		if (angle < 10 || angle > 350) return "Continue";
-		if (angle < 60) return "Turn slight right";
-		if (angle < 120) return "Turn right";
-		if (angle < 179) return "Turn sharp right";
-		if (angle <= 181) return "U-turn";
-		if (angle < 240) return "Turn sharp left";
-		if (angle < 300) return "Turn left";
-		return "Turn slight left";
+		return TurnType.classify(origHeading, newHeading).getText();
   	}
 
 }
@@ -3,29 +3,46 @@ package homework1;
 import javax.swing.*;
 import java.awt.*;
 import java.awt.event.*;
+import java.util.*;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
 
 /**
  * A JPanel GUI for representing a Route. This Route is shown as a list of
  * GeoSegments. In addition, walking directions and driving directions for
  * traversing this route are shown.
  * <p>
+ * The Route and its directions are computed by a background worker, so
+ * adding segments never blocks the event dispatch thread. Segments added
+ * while the worker is busy are coalesced into a single recomputation. All
+ * lists use fixed-height cells so that only their visible rows are
+ * rendered, which keeps long routes interactive.
+ * <p>
  * A figure showing this GUI can be found in homework assignment #1.
  */
 public class RouteFormatterGUI extends JPanel {
 
 	private static final long serialVersionUID = 1L;
 
-	private Route route = null;				// Route shown in this
+	private transient GeoPoint routeEnd = null;	// end of the segments added so far
 
 	private GeoSegmentsDialog dlgSegments;	// secondary window
 
 	// some of the controls contained in this
 	private JList<GeoSegment> lstSegments;
-	private JTextArea txtWalkingDirections;
-	private JTextArea txtDrivingDirections;
+	private JList<String> lstWalkingDirections;
+	private JList<String> lstDrivingDirections;
+
+	private final LinesModel<GeoSegment> segmentsModel = new LinesModel<>();
+	private final LinesModel<String> walkingModel = new LinesModel<>();
+	private final LinesModel<String> drivingModel = new LinesModel<>();
 
-	private final WalkingRouteFormatter walkingFormatter = new WalkingRouteFormatter();
-	private final DrivingRouteFormatter drivingFormatter = new DrivingRouteFormatter();
+	private transient DirectionsWorker worker = null;	// running computation, if any
+	private boolean stale = false;			// segments were added while worker ran
+
+	private final transient WalkingRouteFormatter walkingFormatter = new WalkingRouteFormatter();
+	private final transient DrivingRouteFormatter drivingFormatter = new DrivingRouteFormatter();
+	private final transient MultiRouteFormatter formatters = new MultiRouteFormatter(walkingFormatter, drivingFormatter);
 
 
 	/**
@@ -39,27 +56,26 @@ public class RouteFormatterGUI extends JPanel {
 		dlgSegments.pack();
 
 		// create components
-		lstSegments = new JList<>(new DefaultListModel<GeoSegment>());
+		lstSegments = new JList<>(segmentsModel);
 		lstSegments.setSelectionMode(ListSelectionModel.SINGLE_SELECTION);
+		lstSegments.setPrototypeCellValue(ExampleGeoSegments.segments[0]);
 		JScrollPane scrlSegments = new JScrollPane(lstSegments);
 		scrlSegments.setPreferredSize(new Dimension(450, 100));
 
 		JLabel lblSegments = new JLabel("Route's GeoSegments:");
 		lblSegments.setLabelFor(lstSegments);
 
-		txtWalkingDirections = new JTextArea();
-		txtWalkingDirections.setEditable(false);
-		JScrollPane scrlWalkingDirections = new JScrollPane(txtWalkingDirections);
+		lstWalkingDirections = createDirectionsList(walkingModel);
+		JScrollPane scrlWalkingDirections = new JScrollPane(lstWalkingDirections);
 		scrlWalkingDirections.setPreferredSize(new Dimension(400, 70));
 		JLabel lblWalkingDirections = new JLabel("Walking Directions:");
-		lblWalkingDirections.setLabelFor(txtWalkingDirections);
+		lblWalkingDirections.setLabelFor(lstWalkingDirections);
 
-		txtDrivingDirections = new JTextArea();
-		txtDrivingDirections.setEditable(false);
-		JScrollPane scrlDrivingDirections = new JScrollPane(txtDrivingDirections);
+		lstDrivingDirections = createDirectionsList(drivingModel);
+		JScrollPane scrlDrivingDirections = new JScrollPane(lstDrivingDirections);
 		scrlDrivingDirections.setPreferredSize(new Dimension(400, 70));
 		JLabel lblDrivingDirections = new JLabel("Driving Directions:");
-		lblDrivingDirections.setLabelFor(txtDrivingDirections);
+		lblDrivingDirections.setLabelFor(lstDrivingDirections);
 
 		JButton btnAddSegment = new JButton("Add GeoSegment");
 		btnAddSegment.addActionListener(new ActionListener() {
@@ -135,29 +151,163 @@ public class RouteFormatterGUI extends JPanel {
 	}
 
 
+	/**
+	 * Creates a read-only list for showing one line of directions per row.
+	 * The fixed cell size lets the list render only its visible rows.
+	 */
+	private static JList<String> createDirectionsList(LinesModel<String> model) {
+		JList<String> list = new JList<>(model);
+		list.setPrototypeCellValue(
+				"Turn slight right onto Trumpeldor Avenue and walk for 15 minutes.");
+		list.setFocusable(false);
+		return list;
+	}
+
+
 	/**
 	 * Add new segment to the Route shown by this.
 	 * @requires segments != null && segment.p1 == this.route.end
 	 * @effects Add new segment to the end of the route shown by this as
-	 * 			defined by Route.addSegment(). In addition, updates the
-	 * 			walking direction and the driving direction of the GUI
-	 * 			with the return value of
-	 * 			RouteFormatter.computeDirections(this.route,0)
+	 * 			defined by Route.addSegment(). In addition, schedules an
+	 * 			update of the walking direction and the driving direction of
+	 * 			the GUI with the return value of
+	 * 			RouteFormatter.computeDirections(this.route,0). The update
+	 * 			runs in the background and is shown when it completes.
+	 * @throws IllegalArgumentException if segment does not start at the end
+	 * 			of the segments added so far.
 	 */
 	public void addSegment(GeoSegment segment) {
-		DefaultListModel<GeoSegment> model =
-				(DefaultListModel<GeoSegment>)(this.lstSegments.getModel());
+		if (this.routeEnd != null && !segment.getP1().equals(this.routeEnd))
+			throw new IllegalArgumentException("Segment is not connected to route end.");
+
+		this.routeEnd = segment.getP2();
+		segmentsModel.add(segment);
+		scheduleUpdate();
+	}
+
+
+	/**
+	 * Returns the end of the route shown by this.
+	 * @return the end point of the last segment added to this, or null if
+	 * 			no segment was added yet.
+	 */
+	GeoPoint getRouteEnd() {
+		return this.routeEnd;
+	}
 
-		if (this.route == null) {
-			this.route = new Route(segment);
-		} else {
-			this.route = this.route.addSegment(segment);
+
+	/**
+	 * Starts recomputing the route and its directions, unless a computation
+	 * is already running, in which case another one is started when it ends.
+	 */
+	private void scheduleUpdate() {
+		if (worker != null) {
+			stale = true;
+			return;
 		}
+		worker = new DirectionsWorker(segmentsModel.snapshot());
+		worker.execute();
+	}
+
+
+	/**
+	 * The result of a background computation: the directions of a Route,
+	 * one line per geographic feature.
+	 */
+	private static final class Directions {
+		final List<String> walking;
+		final List<String> driving;
+
+		Directions(List<String> walking, List<String> driving) {
+			this.walking = walking;
+			this.driving = driving;
+		}
+	}
 
-		model.addElement(segment);
 
-		txtWalkingDirections.setText(walkingFormatter.computeDirections(this.route, 0));
-		txtDrivingDirections.setText(drivingFormatter.computeDirections(this.route, 0));
+	/**
+	 * Builds a Route from a snapshot of the added segments and formats its
+	 * walking and driving directions off the event dispatch thread.
+	 */
+	private final class DirectionsWorker extends SwingWorker<Directions, Void> {
+		private final List<GeoSegment> segments;
+
+		DirectionsWorker(List<GeoSegment> segments) {
+			this.segments = segments;
+		}
+
+		@Override
+		protected Directions doInBackground() {
+			Route r = Route.of(segments);
+			List<List<String>> lines = formatters.computeLines(r, 0);
+			return new Directions(lines.get(0), lines.get(1));
+		}
+
+		@Override
+		protected void done() {
+			worker = null;
+			try {
+				Directions directions = get();
+				walkingModel.setAll(directions.walking);
+				drivingModel.setAll(directions.driving);
+			} catch (InterruptedException | ExecutionException e) {
+				// keep the last directions computed, and tell the user why
+				// they are not up to date
+				Throwable cause = e.getCause() != null ? e.getCause() : e;
+				JOptionPane.showMessageDialog(
+						RouteFormatterGUI.this,
+						"Failed to compute directions: " + cause.getMessage(),
+						"Directions not updated",
+						JOptionPane.ERROR_MESSAGE
+				);
+			} finally {
+				if (stale) {
+					stale = false;
+					scheduleUpdate();
+				}
+			}
+		}
+	}
+
+
+	/**
+	 * A list model backed by an ArrayList, which fires a single event when
+	 * its whole contents are replaced.
+	 */
+	private static final class LinesModel<E> extends AbstractListModel<E> {
+		private static final long serialVersionUID = 1L;
+
+		private transient List<E> items = new ArrayList<>();
+
+		@Override
+		public int getSize() {
+			return items.size();
+		}
+
+		@Override
+		public E getElementAt(int index) {
+			return items.get(index);
+		}
+
+		void add(E item) {
+			items.add(item);
+			fireIntervalAdded(this, items.size() - 1, items.size() - 1);
+		}
+
+		void setAll(List<E> newItems) {
+			int oldSize = items.size();
+			items = newItems;
+			if (oldSize > newItems.size())
+				fireIntervalRemoved(this, newItems.size(), oldSize - 1);
+			if (newItems.size() > oldSize)
+				fireIntervalAdded(this, oldSize, newItems.size() - 1);
+			if (Math.min(oldSize, newItems.size()) > 0)
+				fireContentsChanged(this, 0, Math.min(oldSize, newItems.size()) - 1);
+		}
+
+		List<E> snapshot() {
+			return new ArrayList<>(items);
+		}
 	}
 
 
@@ -0,0 +1,317 @@
+package homework1;
+
+import java.util.*;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.stream.IntStream;
+
+/**
+ * A RouteSimilarity finds near-duplicate Routes, e.g. the same trip
+ * recorded twice with slightly different GPS fixes. RouteSimilarities are
+ * immutable and can be used by many threads at once.
+ * <p>
+ * Two routes are near duplicates if the discrete Fréchet distance between
+ * their vertices (the start of each route followed by the end of each of its
+ * segments) is at most a threshold, and their lengths differ by at most a
+ * tolerance. The discrete Fréchet distance is the shortest leash that lets a
+ * walker hop along the vertices of one route while a dog hops along the
+ * vertices of the other, neither going back. Distances are measured with the
+ * flat-surface, near the Technion approximation of GeoPoint.
+ * <p>
+ * Pairs are first compared on their endpoints, bounding boxes and lengths,
+ * which rejects most of them in constant time; the Fréchet distance is
+ * computed row by row and abandoned as soon as no cell of a row is within
+ * the threshold.
+ */
+public class RouteSimilarity {
+    private static final double KM_PER_MICRO_LATITUDE = GeoPoint.KM_PER_DEGREE_LATITUDE / 1_000_000.0;
+    private static final double KM_PER_MICRO_LONGITUDE = GeoPoint.KM_PER_DEGREE_LONGITUDE / 1_000_000.0;
+
+    private final double threshold;
+    private final double lengthTolerance;
+
+    // threshold as a margin of latitude and longitude, in millionths of degrees
+    private final long latitudeMargin;
+    private final long longitudeMargin;
+
+    // Abs. Function:
+    //   represents the relation "routes a and b are near duplicates", which
+    //   holds iff frechet(a, b) <= threshold &&
+    //   |a.length - b.length| <= lengthTolerance
+
+    // Rep. Invariant:
+    //   threshold >= 0 && lengthTolerance >= 0
+    //   latitudeMargin and longitudeMargin span at least threshold kilometers
+
+    private void checkRep() {
+        assert threshold >= 0 && lengthTolerance >= 0 : "Invalid similarity thresholds";
+        assert latitudeMargin >= 0 && longitudeMargin >= 0 : "Invalid margins";
+    }
+
+    /**
+     * Constructs a new RouteSimilarity that ignores the lengths of routes.
+     *
+     * @requires threshold >= 0
+     * @effects Constructs a RouteSimilarity under which routes are near
+     * duplicates iff their Fréchet distance is at most threshold kilometers.
+     */
+    public RouteSimilarity(double threshold) {
+        this(threshold, Double.POSITIVE_INFINITY);
+    }
+
+    /**
+     * Constructs a new RouteSimilarity.
+     *
+     * @requires threshold >= 0 && lengthTolerance >= 0
+     * @effects Constructs a RouteSimilarity under which routes are near
+     * duplicates iff their Fréchet distance is at most threshold kilometers
+     * and their lengths differ by at most lengthTolerance kilometers.
+     */
+    public RouteSimilarity(double threshold, double lengthTolerance) {
+        this.threshold = threshold;
+        this.lengthTolerance = lengthTolerance;
+        this.latitudeMargin = (long) Math.ceil(Math.min(threshold / KM_PER_MICRO_LATITUDE, 1e12));
+        this.longitudeMargin = (long) Math.ceil(Math.min(threshold / KM_PER_MICRO_LONGITUDE, 1e12));
+        checkRep();
+    }
+
+
+    /**
+     * Computes the discrete Fréchet distance between two routes.
+     *
+     * @requires a != null && b != null
+     * @return the discrete Fréchet distance between the vertices of a and
+     * the vertices of b, in kilometers.
+     */
+    public static double frechet(Route a, Route b) {
+        return Math.sqrt(frechet2(new Shape(a), new Shape(b), Double.POSITIVE_INFINITY));
+    }
+
+
+    /**
+     * Computes the discrete Fréchet distance between two routes, if it is
+     * within the threshold of this.
+     *
+     * @requires a != null && b != null
+     * @return frechet(a, b) if it is at most this.threshold, and
+     * Double.POSITIVE_INFINITY otherwise.
+     */
+    public double distance(Route a, Route b) {
+        checkRep();
+        Shape sa = new Shape(a);
+        Shape sb = new Shape(b);
+        if (!mayMatch(sa, sb, threshold)) {
+            return Double.POSITIVE_INFINITY;
+        }
+        return Math.sqrt(frechet2(sa, sb, threshold * threshold));
+    }
+
+
+    /**
+     * Tells whether two routes are near duplicates.
+     *
+     * @requires a != null && b != null
+     * @return true iff frechet(a, b) <= this.threshold &&
+     * |a.length - b.length| <= this.lengthTolerance
+     */
+    public boolean similar(Route a, Route b) {
+        checkRep();
+        return similar(new Shape(a), new Shape(b));
+    }
+
+
+    /**
+     * Groups routes into clusters of near duplicates, in parallel. Two
+     * routes are in the same cluster iff they are linked by a chain of
+     * routes, each a near duplicate of the next.
+     *
+     * @requires routes != null && routes contains no null elements
+     * @return an array c such that, for all i, c[i] is the least index j for
+     * which routes[j] is in the cluster of routes[i].
+     */
+    public int[] cluster(List<Route> routes) {
+        checkRep();
+        int n = routes.size();
+        Shape[] shapes = new Shape[n];
+        IntStream.range(0, n).parallel().forEach(i -> shapes[i] = new Shape(routes.get(i)));
+
+        // sweep over the routes in order of start latitude: routes whose
+        // starts are more than threshold apart cannot be near duplicates
+        Integer[] boxed = new Integer[n];
+        for (int i = 0; i < n; i++) {
+            boxed[i] = i;
+        }
+        Arrays.sort(boxed, Comparator.comparingDouble(i -> shapes[i].y[0]));
+        int[] order = new int[n];
+        for (int i = 0; i < n; i++) {
+            order[i] = boxed[i];
+        }
+
+        AtomicIntegerArray parent = new AtomicIntegerArray(n);
+        for (int i = 0; i < n; i++) {
+            parent.set(i, i);
+        }
+        IntStream.range(0, n).parallel().forEach(p -> {
+            int i = order[p];
+            double limit = shapes[i].y[0] + threshold;
+            for (int q = p + 1; q < n && shapes[order[q]].y[0] <= limit; q++) {
+                int j = order[q];
+                if (find(parent, i) != find(parent, j) && similar(shapes[i], shapes[j])) {
+                    union(parent, i, j);
+                }
+            }
+        });
+
+        int[] clusters = new int[n];
+        for (int i = 0; i < n; i++) {
+            clusters[i] = find(parent, i);
+        }
+        return clusters;
+    }
+
+
+    /**
+     * Removes near duplicates from a list of routes.
+     *
+     * @requires routes != null && routes contains no null elements
+     * @return the routes routes[i] such that cluster(routes)[i] == i, in
+     * their order in routes; that is, the first route of each cluster.
+     */
+    public List<Route> deduplicate(List<Route> routes) {
+        int[] clusters = cluster(routes);
+        List<Route> result = new ArrayList<>();
+        for (int i = 0; i < clusters.length; i++) {
+            if (clusters[i] == i) {
+                result.add(routes.get(i));
+            }
+        }
+        return result;
+    }
+
+
+    private boolean similar(Shape a, Shape b) {
+        return mayMatch(a, b, threshold) && frechet2(a, b, threshold * threshold) <= threshold * threshold;
+    }
+
+    // Cheap necessary conditions: the walker and the dog start together and
+    // end together, and every vertex of one route is within threshold of
+    // some vertex of the other, so each bounding box lies in the other one
+    // grown by threshold.
+    private boolean mayMatch(Shape a, Shape b, double threshold) {
+        if (Math.abs(a.length - b.length) > lengthTolerance) {
+            return false;
+        }
+        double t2 = threshold * threshold;
+        if (distance2(a, 0, b, 0) > t2 || distance2(a, a.x.length - 1, b, b.x.length - 1) > t2) {
+            return false;
+        }
+        return grownContains(b.box, a.box) && grownContains(a.box, b.box);
+    }
+
+    private boolean grownContains(GeoBox outer, GeoBox inner) {
+        return inner.getMinLatitude() >= outer.getMinLatitude() - latitudeMargin
+                && inner.getMaxLatitude() <= outer.getMaxLatitude() + latitudeMargin
+                && inner.getMinLongitude() >= outer.getMinLongitude() - longitudeMargin
+                && inner.getMaxLongitude() <= outer.getMaxLongitude() + longitudeMargin;
+    }
+
+    // The squared discrete Fréchet distance between a and b, computed one
+    // row (vertex of a) at a time. Every cell is at least the least cell of
+    // the previous row, so once a whole row exceeds bound2 the result does
+    // too and the computation is abandoned.
+    private static double frechet2(Shape a, Shape b, double bound2) {
+        int n = a.x.length;
+        int m = b.x.length;
+        double[] prev = new double[m];
+        double[] cur = new double[m];
+        for (int i = 0; i < n; i++) {
+            double rowMin = Double.POSITIVE_INFINITY;
+            for (int j = 0; j < m; j++) {
+                double d = distance2(a, i, b, j);
+                double reach;
+                if (i == 0) {
+                    reach = j == 0 ? d : cur[j - 1];
+                } else if (j == 0) {
+                    reach = prev[0];
+                } else {
+                    reach = Math.min(prev[j], Math.min(prev[j - 1], cur[j - 1]));
+                }
+                cur[j] = Math.max(d, reach);
+                rowMin = Math.min(rowMin, cur[j]);
+            }
+            if (rowMin > bound2) {
+                return Double.POSITIVE_INFINITY;
+            }
+            double[] t = prev;
+            prev = cur;
+            cur = t;
+        }
+        return prev[m - 1];
+    }
+
+    private static double distance2(Shape a, int i, Shape b, int j) {
+        double dx = a.x[i] - b.x[j];
+        double dy = a.y[i] - b.y[j];
+        return dx * dx + dy * dy;
+    }
+
+    // Finds the root of x, halving its path on the way.
+    private static int find(AtomicIntegerArray parent, int x) {
+        while (true) {
+            int p = parent.get(x);
+            if (p == x) {
+                return x;
+            }
+            int gp = parent.get(p);
+            if (p != gp) {
+                parent.compareAndSet(x, p, gp);
+            }
+            x = gp;
+        }
+    }
+
+    // Merges the sets of a and b; the root of a set is always its least
+    // element, so the result does not depend on the order of the merges.
+    private static void union(AtomicIntegerArray parent, int a, int b) {
+        while (true) {
+            a = find(parent, a);
+            b = find(parent, b);
+            if (a == b) {
+                return;
+            }
+            if (a < b) {
+                int t = a;
+                a = b;
+                b = t;
+            }
+            if (parent.compareAndSet(a, a, b)) {
+                return;
+            }
+        }
+    }
+
+    /**
+     * The vertices of a route in kilometers, with its bounding box and length.
+     */
+    private static final class Shape {
+        final double[] x;
+        final double[] y;
+        final GeoBox box;
+        final double length;
+
+        Shape(Route route) {
+            List<GeoPoint> points = new ArrayList<>();
+            points.add(route.getStart());
+            for (Iterator<GeoSegment> it = route.getGeoSegments(); it.hasNext(); ) {
+                points.add(it.next().getP2());
+            }
+            x = new double[points.size()];
+            y = new double[points.size()];
+            for (int i = 0; i < x.length; i++) {
+                x[i] = Projection.DEFAULT.x(points.get(i).getLongitude());
+                y[i] = Projection.DEFAULT.y(points.get(i).getLatitude());
+            }
+            box = route.getBoundingBox();
+            length = route.getLength();
+        }
+    }
+}
@@ -0,0 +1,169 @@
+package homework1;
+
+import java.util.*;
+
+public class RouteSimilarityTest {
+
+	private static final double tolerance = 0.0001;
+
+	private GeoSegment[] trip;		// Hankin -> Trumpeldor -> Hagalil -> Hanita
+	private Route mRoute;
+
+
+	public RouteSimilarityTest() {
+		GeoSegment[] s = ExampleGeoSegments.segments;
+		trip = new GeoSegment[] { s[0], s[1], s[2], s[3], s[4], s[5] };
+		mRoute = Route.of(trip);
+	}
+
+
+	boolean same(double x, double y) {
+		return ((y >= x-tolerance) && (y <= x+tolerance));
+	}
+
+
+	public void show(String str) {
+		System.out.println();
+		System.out.println("***** " + str + " *****");
+	}
+
+
+	public void show(String str, boolean ok) {
+		if (ok)
+			System.out.print("v ");
+		else
+			System.out.print("x ");
+		System.out.println(str);
+	}
+
+
+	// A copy of route whose vertices are moved by up to noise millionths of
+	// degrees.
+	static Route jitter(Route route, int noise, Random random) {
+		List<GeoPoint> points = new ArrayList<>();
+		points.add(route.getStart());
+		for (Iterator<GeoSegment> it = route.getGeoSegments(); it.hasNext(); ) {
+			points.add(it.next().getP2());
+		}
+		List<GeoSegment> segments = new ArrayList<>();
+		GeoPoint prev = null;
+		for (GeoPoint p : points) {
+			GeoPoint q = new GeoPoint(p.getLatitude() + random.nextInt(2 * noise + 1) - noise,
+				p.getLongitude() + random.nextInt(2 * noise + 1) - noise);
+			if (prev != null)
+				segments.add(new GeoSegment("Trace", prev, q));
+			prev = q;
+		}
+		return Route.of(segments);
+	}
+
+
+	// The textbook recursive definition of the discrete Fréchet distance.
+	static double naiveFrechet(Route a, Route b) {
+		List<GeoPoint> p = vertices(a);
+		List<GeoPoint> q = vertices(b);
+		double[][] memo = new double[p.size()][q.size()];
+		for (double[] row : memo)
+			Arrays.fill(row, -1);
+		return naiveFrechet(p, q, p.size() - 1, q.size() - 1, memo);
+	}
+
+
+	private static double naiveFrechet(List<GeoPoint> p, List<GeoPoint> q, int i, int j, double[][] memo) {
+		if (memo[i][j] >= 0)
+			return memo[i][j];
+		double d = p.get(i).distanceTo(q.get(j));
+		double r;
+		if (i == 0 && j == 0)
+			r = d;
+		else if (i == 0)
+			r = Math.max(d, naiveFrechet(p, q, 0, j - 1, memo));
+		else if (j == 0)
+			r = Math.max(d, naiveFrechet(p, q, i - 1, 0, memo));
+		else
+			r = Math.max(d, Math.min(naiveFrechet(p, q, i - 1, j, memo),
+				Math.min(naiveFrechet(p, q, i - 1, j - 1, memo), naiveFrechet(p, q, i, j - 1, memo))));
+		return memo[i][j] = r;
+	}
+
+
+	private static List<GeoPoint> vertices(Route route) {
+		List<GeoPoint> points = new ArrayList<>();
+		points.add(route.getStart());
+		for (Iterator<GeoSegment> it = route.getGeoSegments(); it.hasNext(); )
+			points.add(it.next().getP2());
+		return points;
+	}
+
+
+	public void test() {
+		show("frechet()");
+		show("Route has distance 0 from itself", RouteSimilarity.frechet(mRoute, mRoute) == 0);
+		Random random = new Random(1);
+		boolean matches = true;
+		for (int k = 0; k < 50; k++) {
+			Route a = jitter(mRoute, 500, random);
+			Route b = jitter(mRoute, 500, random);
+			matches &= same(RouteSimilarity.frechet(a, b), naiveFrechet(a, b));
+		}
+		show("Distance matches the recursive definition", matches);
+		Route back = mRoute.reversed();
+		show("Distance is symmetric",
+			same(RouteSimilarity.frechet(mRoute, back), RouteSimilarity.frechet(back, mRoute)));
+		show("Reversed route is far away",
+			RouteSimilarity.frechet(mRoute, back) >= mRoute.getStart().distanceTo(mRoute.getEnd()));
+
+		show("similar() & distance()");
+		RouteSimilarity similarity = new RouteSimilarity(0.05);
+		Route copy = jitter(mRoute, 50, new Random(2));
+		show("Jittered copy is similar", similarity.similar(mRoute, copy));
+		show("Distance of jittered copy is within the threshold", similarity.distance(mRoute, copy) <= 0.05);
+		show("Reversed route is not similar", !similarity.similar(mRoute, back));
+		show("Distance of reversed route is infinite",
+			similarity.distance(mRoute, back) == Double.POSITIVE_INFINITY);
+		Route prefix = Route.of(Arrays.copyOf(trip, 5));
+		show("Prefix is not similar", !similarity.similar(mRoute, prefix));
+		Route detour = mRoute.addSegment(ExampleGeoSegments.segments[5].reverse())
+			.addSegment(ExampleGeoSegments.segments[5]);
+		show("Route with a detour is not similar", !similarity.similar(mRoute, detour));
+		show("Length tolerance rejects longer copies",
+			!new RouteSimilarity(0.05, 0.0).similar(mRoute, jitter(mRoute, 100, new Random(3))));
+
+		show("cluster() & deduplicate()");
+		Route[] bases = { mRoute, back, prefix,
+			Route.of(new GeoSegment[] { ExampleGeoSegments.segments[8], ExampleGeoSegments.segments[9] }) };
+		List<Route> routes = new ArrayList<>();
+		List<Integer> kinds = new ArrayList<>();
+		random = new Random(4);
+		for (int k = 0; k < 200; k++) {
+			int kind = random.nextInt(bases.length);
+			routes.add(jitter(bases[kind], 50, random));
+			kinds.add(kind);
+		}
+		int[] clusters = similarity.cluster(routes);
+		boolean byKind = true;
+		for (int i = 0; i < routes.size(); i++)
+			byKind &= kinds.indexOf(kinds.get(i)) == clusters[i];
+		show("Copies of the same route are clustered together", byKind);
+		show("Deduplication keeps the first copy of each route",
+			similarity.deduplicate(routes).size() == bases.length
+			&& similarity.deduplicate(routes).get(0) == routes.get(0));
+		show("Clustering is deterministic", Arrays.equals(clusters, similarity.cluster(routes)));
+
+		show("throughput");
+		random = new Random(5);
+		routes.clear();
+		for (int k = 0; k < 20000; k++)
+			routes.add(jitter(bases[random.nextInt(bases.length)], 50, random));
+		long begin = System.nanoTime();
+		int kept = similarity.deduplicate(routes).size();
+		double seconds = (System.nanoTime() - begin) / 1e9;
+		System.out.printf("  %d routes deduplicated to %d in %.3f s%n", routes.size(), kept, seconds);
+	}
+
+
+	public static void main(String[] args) {
+		RouteSimilarityTest similarityTest = new RouteSimilarityTest();
+		similarityTest.test();
+	}
+}
@@ -0,0 +1,185 @@
+package homework1;
+
+import java.util.*;
+
+public class RouteTest {
+
+	private static final double tolerance = 0.0001;
+
+	private GeoSegment[] trip;		// Hankin -> Trumpeldor -> Hagalil -> Hanita
+	private Route mRoute;
+
+
+	public RouteTest() {
+		GeoSegment[] s = ExampleGeoSegments.segments;
+		trip = new GeoSegment[] { s[0], s[1], s[2], s[3], s[4], s[5] };
+		mRoute = new Route(trip[0]);
+		for (int i = 1; i < trip.length; i++)
+			mRoute = mRoute.addSegment(trip[i]);
+	}
+
+
+	boolean same(double x, double y) {
+		return ((y >= x-tolerance) && (y <= x+tolerance));
+	}
+
+
+	public void show(String str) {
+		System.out.println();
+		System.out.println("***** " + str + " *****");
+	}
+
+
+	public void show(String str, boolean ok) {
+		if (ok)
+			System.out.print("v ");
+		else
+			System.out.print("x ");
+		System.out.println(str);
+	}
+
+
+	static <T> List<T> toList(Iterator<T> it) {
+		List<T> list = new ArrayList<>();
+		while (it.hasNext())
+			list.add(it.next());
+		return list;
+	}
+
+
+	public void test() {
+		show("reversed()");
+		Route back = new Route(trip[trip.length - 1].reverse());
+		for (int i = trip.length - 2; i >= 0; i--)
+			back = back.addSegment(trip[i].reverse());
+		Route rev = mRoute.reversed();
+		show("Reversed route equals route built from reversed segments",
+			rev.equals(back) && back.equals(rev));
+		show("Reversed route has the same hash code",
+			rev.hashCode() == back.hashCode());
+		show("Reversed route starts at the end", rev.getStart().equals(mRoute.getEnd()));
+		show("Reversed route ends at the start", rev.getEnd().equals(mRoute.getStart()));
+		show("Reversed route has the same length", same(rev.getLength(), mRoute.getLength()));
+		show("Start heading is flipped",
+			same(rev.getStartHeading(), (mRoute.getEndHeading() + 180) % 360));
+		show("Segments are reversed",
+			toList(rev.getGeoSegments()).equals(toList(back.getGeoSegments())));
+		List<GeoFeature> features = toList(rev.getGeoFeatures());
+		show("Features are grouped by name",
+			features.size() == 4 && features.get(0).getName().equals("Hanita")
+			&& features.get(3).getName().equals("Hankin Road"));
+		show("Twice reversed route is the original", rev.reversed() == mRoute);
+		show("Segments can be added to a reversed route",
+			rev.addSegment(new GeoSegment("Hankin Road", trip[0].getP1(),
+				ExampleGeoSegments.points[11])).getLength() > rev.getLength());
+
+		GeoFeature hagalil = toList(mRoute.getGeoFeatures()).get(2);
+		GeoFeature revHagalil = hagalil.reversed();
+		show("Reversed feature equals reversed feature of reversed route",
+			revHagalil.equals(features.get(1)));
+		show("Reversed feature keeps the name", revHagalil.getName().equals("Hagalil"));
+		show("Reversed feature has the same length", same(revHagalil.getLength(), hagalil.getLength()));
+		show("Twice reversed feature is the original", revHagalil.reversed() == hagalil);
+
+		show("of()");
+		Route bulk = Route.of(Arrays.asList(trip));
+		show("Bulk route equals incrementally built route", bulk.equals(mRoute));
+		show("Bulk route from array equals incrementally built route",
+			Route.of(trip).equals(mRoute));
+		show("Bulk route has the same length", same(bulk.getLength(), mRoute.getLength()));
+		show("Bulk route has the same features",
+			toList(bulk.getGeoFeatures()).equals(toList(mRoute.getGeoFeatures())));
+		boolean thrown = false;
+		try {
+			Route.of(new GeoSegment[] { trip[0], trip[2] });
+		} catch (IllegalArgumentException e) {
+			thrown = true;
+		}
+		show("Disconnected segments are rejected", thrown);
+		thrown = false;
+		try {
+			Route.of(new ArrayList<GeoSegment>());
+		} catch (IllegalArgumentException e) {
+			thrown = true;
+		}
+		show("Empty segment list is rejected", thrown);
+
+		int n = 70000, run = 1000;
+		GeoSegment[] longTrip = new GeoSegment[n];
+		GeoPoint p = new GeoPoint(32000000, 35000000);
+		for (int i = 0; i < n; i++) {
+			GeoPoint q = new GeoPoint(32000000 + (i + 1) * 10, 35000000 + ((i + 1) % 2) * 10);
+			longTrip[i] = new GeoSegment("Street " + (i / run), p, q);
+			p = q;
+		}
+		Route large = Route.of(longTrip);
+		List<GeoFeature> largeFeatures = toList(large.getGeoFeatures());
+		boolean grouped = largeFeatures.size() == n / run;
+		for (int i = 0; grouped && i < largeFeatures.size(); i++) {
+			GeoFeature f = largeFeatures.get(i);
+			grouped = f.getName().equals("Street " + i)
+				&& f.getStart().equals(longTrip[i * run].getP1())
+				&& toList(f.getGeoSegments()).size() == run;
+		}
+		show("Large route is grouped across parallel chunks", grouped);
+		double sum = 0;
+		for (GeoSegment gs : longTrip)
+			sum += gs.getLength();
+		show("Large route has the right length", same(large.getLength(), sum));
+		longTrip[n / 2] = longTrip[n / 2].reverse();
+		thrown = false;
+		try {
+			Route.of(longTrip);
+		} catch (IllegalArgumentException e) {
+			thrown = true;
+		}
+		show("Large disconnected route is rejected", thrown);
+
+		show("getBoundingBox() & clip()");
+		GeoBox box = mRoute.getBoundingBox();
+		boolean covers = true;
+		for (GeoSegment gs : trip)
+			covers &= box.contains(gs.getP1()) && box.contains(gs.getP2());
+		show("Bounding box contains every point", covers);
+		show("Bounding box is tight", box.getMaxLatitude() == ExampleGeoSegments.points[5].getLatitude()
+				&& box.getMaxLongitude() == ExampleGeoSegments.points[3].getLongitude());
+		show("Bulk route has the same bounding box", Route.of(trip).getBoundingBox().equals(box));
+		show("Reversed route has the same bounding box", mRoute.reversed().getBoundingBox().equals(box));
+		show("Route is within its bounding box", mRoute.within(box));
+		show("Route passes through its bounding box", mRoute.intersects(box));
+
+		GeoBox south = new GeoBox(32780000, 35000000, 32786000, 35030000);
+		show("Route is not within a part of its box", !mRoute.within(south));
+		show("Route passes through a part of its box", mRoute.intersects(south));
+		List<Route> pieces = mRoute.clip(south);
+		show("Route leaving a region is clipped to one piece", pieces.size() == 1);
+		Route piece = pieces.get(0);
+		show("Piece starts at the route start", piece.getStart().equals(mRoute.getStart()));
+		show("Piece ends on the border", piece.getEnd().getLatitude() == 32786000);
+		show("Piece is shorter than the route", piece.getLength() < mRoute.getLength());
+		show("Piece is within the region", piece.within(south));
+
+		GeoBox east = new GeoBox(32700000, 35016000, 32900000, 35100000);
+		pieces = mRoute.clip(east);
+		show("Route entering a region twice is clipped to two pieces", pieces.size() == 2);
+		show("Pieces start and end on the border",
+				pieces.get(0).getStart().getLongitude() == 35016000
+				&& pieces.get(0).getEnd().getLongitude() == 35016000
+				&& pieces.get(1).getStart().getLongitude() == 35016000
+				&& pieces.get(1).getEnd().equals(mRoute.getEnd()));
+
+		GeoBox away = new GeoBox(32700000, 35100000, 32710000, 35110000);
+		show("Route does not pass through a distant region", !mRoute.intersects(away));
+		show("Clipping to a distant region is empty", mRoute.clip(away).isEmpty());
+		show("Clipping to the bounding box keeps the route", mRoute.clip(box).equals(List.of(mRoute)));
+
+		GeoBox gap = new GeoBox(32784000, 35013000, 32784100, 35013100);
+		show("Route whose box covers a region may miss it", box.contains(gap) && !mRoute.intersects(gap));
+	}
+
+
+	public static void main(String[] args) {
+		RouteTest routeTest = new RouteTest();
+		routeTest.test();
+	}
+}
@@ -0,0 +1,302 @@
+package homework1;
+
+import java.util.*;
+import java.util.function.IntConsumer;
+import java.util.function.LongConsumer;
+
+/**
+ * A SegmentGrid is an immutable spatial index over GeoSegments. The plane
+ * of (latitude, longitude) pairs in millionths of degrees is divided into
+ * square cells, and each segment is registered in every cell that its
+ * bounding box overlaps. Segments near a point are then found by visiting
+ * only the cells around the point.
+ * <p>
+ * Only non-empty cells are stored, so the memory used by a grid is linear
+ * in the number of segments regardless of how spread out they are.
+ */
+final class SegmentGrid {
+    private final GeoSegment[] segments;
+    private final int cellSize;
+    private final long[] keys;          // open-addressed table of non-empty cells
+    private final int[][] cells;        // segments of the cell keys[slot]
+    private final int mask;
+    private final int minRow, maxRow, minCol, maxCol;
+
+    // Abs. Function:
+    //   cells[slot(key(r, c))] holds the indices of the segments of this.segments
+    //   whose bounding boxes overlap the cell of latitudes
+    //   [r * cellSize, (r + 1) * cellSize) and longitudes
+    //   [c * cellSize, (c + 1) * cellSize)
+
+    // Rep. Invariant:
+    //   cellSize > 0
+    //   every segment index appears in the cells its bounding box overlaps
+    //   keys.length is a power of two larger than the number of non-empty cells
+    //   [minRow, maxRow] x [minCol, maxCol] covers all non-empty cells
+
+    /**
+     * Constructs a new SegmentGrid.
+     *
+     * @requires segments != null && segments contains no null elements
+     * && cellSize > 0
+     * @effects Constructs a grid with square cells of cellSize millionths of
+     * a degree over segments. The array is not copied and must not be
+     * modified afterwards.
+     */
+    SegmentGrid(GeoSegment[] segments, int cellSize) {
+        this.segments = segments;
+        this.cellSize = cellSize;
+
+        // first pass counts the segments of each cell, in a table large
+        // enough for every (segment, cell) pair; second pass fills them
+        long[] pairs = new long[1];
+        for (GeoSegment gs : segments) {
+            forEachCell(gs, key -> pairs[0]++);
+        }
+        int capacity = Integer.highestOneBit((int) Math.max(1, Math.min(1 << 28, pairs[0])) * 2) * 2;
+        this.keys = new long[capacity];
+        this.cells = new int[capacity][];
+        this.mask = capacity - 1;
+        int[] sizes = new int[capacity];
+        for (GeoSegment gs : segments) {
+            forEachCell(gs, key -> {
+                int slot = probe(key, sizes);
+                keys[slot] = key;
+                sizes[slot]++;
+            });
+        }
+        int[] bounds = { Integer.MAX_VALUE, Integer.MIN_VALUE, Integer.MAX_VALUE, Integer.MIN_VALUE };
+        for (int slot = 0; slot < capacity; slot++) {
+            if (sizes[slot] == 0) {
+                continue;
+            }
+            cells[slot] = new int[sizes[slot]];
+            sizes[slot] = 0;
+            int row = (int) (keys[slot] >> 32);
+            int col = (int) keys[slot];
+            bounds[0] = Math.min(bounds[0], row);
+            bounds[1] = Math.max(bounds[1], row);
+            bounds[2] = Math.min(bounds[2], col);
+            bounds[3] = Math.max(bounds[3], col);
+        }
+        this.minRow = bounds[0];
+        this.maxRow = bounds[1];
+        this.minCol = bounds[2];
+        this.maxCol = bounds[3];
+        for (int i = 0; i < segments.length; i++) {
+            int index = i;
+            forEachCell(segments[i], key -> {
+                int slot = probe(key, sizes);
+                cells[slot][sizes[slot]++] = index;
+            });
+        }
+    }
+
+    // Returns the slot of the cell with the given key while the table is
+    // being built, or the empty slot where it belongs; a slot is in use iff
+    // its cell is allocated or has a positive size.
+    private int probe(long key, int[] sizes) {
+        int slot = slot(key);
+        while ((cells[slot] != null || sizes[slot] > 0) && keys[slot] != key) {
+            slot = (slot + 1) & mask;
+        }
+        return slot;
+    }
+
+    /**
+     * Chooses a cell size for a grid over segments: about as large as an
+     * average segment, so that a cell holds a few segments.
+     *
+     * @requires segments != null && segments contains no null elements
+     * @return a positive cell size, in millionths of degrees.
+     */
+    static int cellSizeFor(GeoSegment[] segments) {
+        if (segments.length == 0) {
+            return 1;
+        }
+        long sum = 0;
+        for (GeoSegment gs : segments) {
+            sum += Math.max(Math.abs(gs.getP2().getLatitude() - gs.getP1().getLatitude()),
+                    Math.abs(gs.getP2().getLongitude() - gs.getP1().getLongitude()));
+        }
+        return (int) Math.max(1, Math.min(Integer.MAX_VALUE / 4, sum / segments.length));
+    }
+
+    private int slot(long key) {
+        long h = key * 0x9E3779B97F4A7C15L;
+        return (int) (h >>> 32) & mask;
+    }
+
+    // Returns the segments of the cell with the given key, or null if it is empty.
+    private int[] find(long key) {
+        int slot = slot(key);
+        while (cells[slot] != null) {
+            if (keys[slot] == key) {
+                return cells[slot];
+            }
+            slot = (slot + 1) & mask;
+        }
+        return null;
+    }
+
+    private void forEachCell(GeoSegment gs, LongConsumer action) {
+        int r0 = cellOf(Math.min(gs.getP1().getLatitude(), gs.getP2().getLatitude()));
+        int r1 = cellOf(Math.max(gs.getP1().getLatitude(), gs.getP2().getLatitude()));
+        int c0 = cellOf(Math.min(gs.getP1().getLongitude(), gs.getP2().getLongitude()));
+        int c1 = cellOf(Math.max(gs.getP1().getLongitude(), gs.getP2().getLongitude()));
+        for (int r = r0; r <= r1; r++) {
+            for (int c = c0; c <= c1; c++) {
+                action.accept(key(r, c));
+            }
+        }
+    }
+
+    /**
+     * Returns the row or column of the cells containing a coordinate.
+     *
+     * @return the index of the row (for a latitude) or column (for a
+     * longitude) of cells containing coordinate.
+     */
+    int cellOf(int coordinate) {
+        return Math.floorDiv(coordinate, cellSize);
+    }
+
+    private static long key(int row, int col) {
+        return ((long) row << 32) | (col & 0xffffffffL);
+    }
+
+    /**
+     * Returns the segments of this grid.
+     *
+     * @return the array of segments this grid was built over.
+     */
+    GeoSegment[] segments() {
+        return segments;
+    }
+
+    /**
+     * Returns the cell size of this grid.
+     *
+     * @return the side of a cell, in millionths of degrees.
+     */
+    int cellSize() {
+        return cellSize;
+    }
+
+    /**
+     * Visits the segments whose bounding boxes may overlap a box. Each such
+     * segment is visited exactly once; a few segments outside the box may be
+     * visited as well.
+     *
+     * @requires minLat <= maxLat && minLon <= maxLon
+     * @effects calls action with the index of every segment whose bounding
+     * box overlaps the cells covering [minLat, maxLat] x [minLon, maxLon].
+     */
+    void forEachInBox(int minLat, int minLon, int maxLat, int maxLon, IntConsumer action) {
+        int r0 = cellOf(minLat);
+        int r1 = cellOf(maxLat);
+        int c0 = cellOf(minLon);
+        int c1 = cellOf(maxLon);
+        for (int r = r0; r <= r1; r++) {
+            for (int c = c0; c <= c1; c++) {
+                int[] cell = find(key(r, c));
+                if (cell == null) {
+                    continue;
+                }
+                for (int i : cell) {
+                    // report a segment only in the first cell it shares with the box
+                    GeoSegment gs = segments[i];
+                    int sr = Math.max(r0, cellOf(Math.min(gs.getP1().getLatitude(), gs.getP2().getLatitude())));
+                    int sc = Math.max(c0, cellOf(Math.min(gs.getP1().getLongitude(), gs.getP2().getLongitude())));
+                    if (sr == r && sc == c) {
+                        action.accept(i);
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Visits the segments that may lie within a distance of a point.
+     *
+     * @requires radiusKm >= 0
+     * @effects calls action, exactly once, with the index of every segment
+     * whose distance from (latitude, longitude) is at most radiusKm, and
+     * possibly with some farther segments.
+     */
+    void forEachNear(int latitude, int longitude, double radiusKm, IntConsumer action) {
+        int dLat = SegmentProjection.microLatitude(radiusKm);
+        int dLon = SegmentProjection.microLongitude(radiusKm);
+        forEachInBox(latitude - dLat, longitude - dLon, latitude + dLat, longitude + dLon, action);
+    }
+
+    /**
+     * Visits the segments registered in a cell. A segment that overlaps
+     * several cells is visited once for each of them.
+     *
+     * @effects calls action with the index of every segment whose bounding
+     * box overlaps the cell in the given row and column.
+     */
+    void forEachInCell(int row, int col, IntConsumer action) {
+        int[] cell = find(key(row, col));
+        if (cell != null) {
+            for (int i : cell) {
+                action.accept(i);
+            }
+        }
+    }
+
+    /**
+     * Returns the segments registered in a cell, for callers that scan cells
+     * in tight loops.
+     *
+     * @return the indices of the segments whose bounding boxes overlap the
+     * cell in the given row and column, or null if there are none. The
+     * returned array must not be modified.
+     */
+    int[] cell(int row, int col) {
+        return find(key(row, col));
+    }
+
+    /**
+     * Tells whether a ring of cells lies entirely outside the data.
+     *
+     * @return true iff no non-empty cell lies at Chebyshev distance r or more
+     * from the cell (row, col).
+     */
+    boolean beyondData(int row, int col, int r) {
+        return row - r < minRow && row + r > maxRow && col - r < minCol && col + r > maxCol;
+    }
+
+    /**
+     * Finds the first ring of cells that can hold data.
+     *
+     * @requires this has at least one segment
+     * @return the Chebyshev distance from the cell (row, col) to the nearest
+     * cell of [minRow, maxRow] x [minCol, maxCol], the box of the non-empty
+     * cells: 0 if (row, col) is inside it.
+     */
+    int firstRing(int row, int col) {
+        return Math.max(Math.max(minRow - row, row - maxRow), Math.max(Math.max(minCol - col, col - maxCol), 0));
+    }
+
+    /**
+     * Clamps a row to the rows that may hold data.
+     *
+     * @requires this has at least one segment
+     * @return row moved into [minRow, maxRow].
+     */
+    int clampRow(int row) {
+        return Math.max(minRow, Math.min(maxRow, row));
+    }
+
+    /**
+     * Clamps a column to the columns that may hold data.
+     *
+     * @requires this has at least one segment
+     * @return col moved into [minCol, maxCol].
+     */
+    int clampCol(int col) {
+        return Math.max(minCol, Math.min(maxCol, col));
+    }
+}
@@ -0,0 +1,269 @@
+package homework1;
+
+import java.util.*;
+
+/**
+ * A SegmentIndex is an immutable index over a catalog of GeoSegments that
+ * supports fast lookups by name and by start point.
+ * <p>
+ * Names are indexed case-insensitively in a sorted array, so that all names
+ * starting with a prefix are found by binary search. Queries of at least
+ * three characters also fall back to a trigram index, which finds names
+ * containing the query anywhere; shorter ones, typically the first
+ * keystrokes of a name, only match prefixes, so that they never scan the
+ * names. In addition, the segments are sorted by
+ * their p1 endpoints, so that the segments that start at a given GeoPoint
+ * (e.g. those that can extend a Route) are found by binary search as well.
+ * <p>
+ * Building an index over n segments takes O(n log n) time; the lookups do
+ * not depend on the size of the catalog but on the number of results.
+ */
+public class SegmentIndex {
+    private final GeoSegment[] segments;
+
+    // name index: distinct names in key order, each with its segments
+    private final String[] keys;            // lower-cased names, sorted
+    private final int[] groupStart;         // segments of keys[g] are
+    private final int[] groupSegments;      //   groupSegments[groupStart[g] .. groupStart[g+1])
+    private final Map<Long, int[]> trigrams;    // trigram -> sorted groups containing it
+
+    // adjacency index: segment indices sorted by (p1.latitude, p1.longitude)
+    private final int[] byStart;
+
+    // Abs. Function:
+    //   represents the catalog this.segments, where
+    //   keys[g] is the lower-cased name shared by the segments
+    //   segments[groupSegments[i]] for groupStart[g] <= i < groupStart[g+1]
+
+    // Rep. Invariant:
+    //   keys is sorted and has no duplicates
+    //   groupStart.length == keys.length + 1 && groupStart is non-decreasing
+    //   byStart is a permutation of [0, segments.length) ordered by p1
+
+    private void checkRep() {
+        assert keys.length + 1 == groupStart.length : "Group table size mismatch";
+        assert groupSegments.length == segments.length : "Every segment must belong to a group";
+        assert byStart.length == segments.length : "Every segment must be in the adjacency index";
+    }
+
+    /**
+     * Constructs a new SegmentIndex.
+     *
+     * @requires segments != null && segments contains no null elements
+     * @effects Constructs an index over a copy of segments.
+     **/
+    public SegmentIndex(GeoSegment[] segments) {
+        this.segments = segments.clone();
+        int n = this.segments.length;
+
+        // group segments by lower-cased name
+        Map<String, List<Integer>> groups = new HashMap<>();
+        Map<Integer, String> keyOfNameId = new HashMap<>();
+        for (int i = 0; i < n; i++) {
+            int nameId = this.segments[i].getNameId();
+            String key = keyOfNameId.computeIfAbsent(nameId,
+                    id -> NameDictionary.nameOf(id).toLowerCase(Locale.ROOT));
+            groups.computeIfAbsent(key, k -> new ArrayList<>()).add(i);
+        }
+        this.keys = groups.keySet().toArray(new String[0]);
+        Arrays.sort(this.keys);
+        this.groupStart = new int[keys.length + 1];
+        this.groupSegments = new int[n];
+        int next = 0;
+        for (int g = 0; g < keys.length; g++) {
+            groupStart[g] = next;
+            for (int i : groups.get(keys[g])) {
+                groupSegments[next++] = i;
+            }
+        }
+        groupStart[keys.length] = next;
+
+        // trigram postings over distinct names
+        Map<Long, List<Integer>> postings = new HashMap<>();
+        for (int g = 0; g < keys.length; g++) {
+            Set<Long> seen = new HashSet<>();
+            for (int i = 0; i + 3 <= keys[g].length(); i++) {
+                long t = trigram(keys[g], i);
+                if (seen.add(t)) {
+                    postings.computeIfAbsent(t, k -> new ArrayList<>()).add(g);
+                }
+            }
+        }
+        this.trigrams = new HashMap<>();
+        for (Map.Entry<Long, List<Integer>> e : postings.entrySet()) {
+            trigrams.put(e.getKey(), e.getValue().stream().mapToInt(Integer::intValue).toArray());
+        }
+
+        // adjacency: sort segment indices by start point
+        // (the sort is stable, so segments sharing a start point keep their order)
+        Integer[] order = new Integer[n];
+        for (int i = 0; i < n; i++) {
+            order[i] = i;
+        }
+        Arrays.sort(order, (a, b) -> comparePoints(this.segments[a].getP1(), this.segments[b].getP1()));
+        this.byStart = new int[n];
+        for (int i = 0; i < n; i++) {
+            byStart[i] = order[i];
+        }
+        checkRep();
+    }
+
+    private static long trigram(String s, int i) {
+        return ((long) s.charAt(i) << 32) | ((long) s.charAt(i + 1) << 16) | s.charAt(i + 2);
+    }
+
+    private static int comparePoints(GeoPoint a, GeoPoint b) {
+        int c = Integer.compare(a.getLatitude(), b.getLatitude());
+        return c != 0 ? c : Integer.compare(a.getLongitude(), b.getLongitude());
+    }
+
+
+    /**
+     * Returns the number of segments in the catalog.
+     *
+     * @return the number of segments in the catalog.
+     */
+    public int size() {
+        checkRep();
+        return segments.length;
+    }
+
+
+    /**
+     * Returns the catalog of this index.
+     *
+     * @return an unmodifiable list of the indexed segments, in the order in
+     * which they were given to the constructor.
+     */
+    public List<GeoSegment> getSegments() {
+        checkRep();
+        return Collections.unmodifiableList(Arrays.asList(segments));
+    }
+
+
+    /**
+     * Finds segments by name. Segments whose name starts with query are
+     * returned first, followed, if query has at least three characters, by
+     * segments whose name contains query elsewhere. Matching is
+     * case-insensitive.
+     *
+     * @requires query != null && limit >= 0
+     * @return at most limit segments whose names start with query, or
+     * contain it if it has at least three characters, those whose names
+     * start with query first, grouped by name in alphabetical order.
+     */
+    public List<GeoSegment> search(String query, int limit) {
+        checkRep();
+        String q = query.toLowerCase(Locale.ROOT);
+        List<GeoSegment> result = new ArrayList<>();
+        for (int g = lowerBound(q); g < keys.length && keys[g].startsWith(q) && result.size() < limit; g++) {
+            addGroup(g, result, limit);
+        }
+        if (result.size() < limit && q.length() >= 3) {
+            for (int g : containing(q)) {
+                if (result.size() >= limit) {
+                    break;
+                }
+                if (!keys[g].startsWith(q)) {
+                    addGroup(g, result, limit);
+                }
+            }
+        }
+        return result;
+    }
+
+    private void addGroup(int g, List<GeoSegment> result, int limit) {
+        for (int i = groupStart[g]; i < groupStart[g + 1] && result.size() < limit; i++) {
+            result.add(segments[groupSegments[i]]);
+        }
+    }
+
+    // Returns the sorted groups whose keys contain q, of at least three
+    // characters.
+    private int[] containing(String q) {
+        // every match contains all trigrams of q, so it is enough to verify
+        // the names in the shortest posting list
+        int[] candidates = null;
+        for (int i = 0; i + 3 <= q.length(); i++) {
+            int[] posting = trigrams.get(trigram(q, i));
+            if (posting == null) {
+                return new int[0];
+            }
+            if (candidates == null || posting.length < candidates.length) {
+                candidates = posting;
+            }
+        }
+        return Arrays.stream(candidates).filter(g -> keys[g].contains(q)).toArray();
+    }
+
+    // Returns the index of the first key that is >= q.
+    private int lowerBound(String q) {
+        int lo = 0;
+        int hi = keys.length;
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            if (keys[mid].compareTo(q) < 0) {
+                lo = mid + 1;
+            } else {
+                hi = mid;
+            }
+        }
+        return lo;
+    }
+
+
+    /**
+     * Completes a name prefix as far as it is unambiguous.
+     *
+     * @requires prefix != null
+     * @return the longest common prefix of all the names in the catalog that
+     * start with prefix (ignoring case), written in the case of the first
+     * such name; or prefix itself if no name starts with it.
+     */
+    public String complete(String prefix) {
+        checkRep();
+        String q = prefix.toLowerCase(Locale.ROOT);
+        int first = lowerBound(q);
+        if (first == keys.length || !keys[first].startsWith(q)) {
+            return prefix;
+        }
+        // keys are sorted, so the common prefix of the first and last
+        // matching keys is common to all the keys in between
+        int last = lowerBound(q + Character.MAX_VALUE) - 1;
+        String a = keys[first];
+        String b = keys[last];
+        int n = 0;
+        while (n < a.length() && n < b.length() && a.charAt(n) == b.charAt(n)) {
+            n++;
+        }
+        String name = segments[groupSegments[groupStart[first]]].getName();
+        return name.length() == a.length() ? name.substring(0, n) : a.substring(0, n);
+    }
+
+
+    /**
+     * Returns the segments that start at a point.
+     *
+     * @requires p != null
+     * @return all segments s in the catalog such that s.p1 = p, in the order
+     * in which they were given to the constructor.
+     */
+    public List<GeoSegment> startingAt(GeoPoint p) {
+        checkRep();
+        int lo = 0;
+        int hi = byStart.length;
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            if (comparePoints(segments[byStart[mid]].getP1(), p) < 0) {
+                lo = mid + 1;
+            } else {
+                hi = mid;
+            }
+        }
+        List<GeoSegment> result = new ArrayList<>();
+        for (int i = lo; i < byStart.length && segments[byStart[i]].getP1().equals(p); i++) {
+            result.add(segments[byStart[i]]);
+        }
+        return result;
+    }
+}
@@ -0,0 +1,76 @@
+package homework1;
+
+import java.util.*;
+
+public class SegmentIndexTest {
+
+	private SegmentIndex mIndex;
+
+
+	public SegmentIndexTest() {
+		mIndex = new SegmentIndex(ExampleGeoSegments.segments);
+	}
+
+
+	public void show(String str) {
+		System.out.println();
+		System.out.println("***** " + str + " *****");
+	}
+
+
+	public void show(String str, boolean ok) {
+		if (ok)
+			System.out.print("v ");
+		else
+			System.out.print("x ");
+		System.out.println(str);
+	}
+
+
+	static Set<String> names(List<GeoSegment> segments) {
+		Set<String> names = new LinkedHashSet<>();
+		for (GeoSegment gs : segments)
+			names.add(gs.getName());
+		return names;
+	}
+
+
+	public void test() {
+		show("search()");
+		List<GeoSegment> hankin = mIndex.search("hank", 100);
+		show("Prefix search finds all segments of the street",
+			hankin.size() == 4 && names(hankin).equals(Set.of("Hankin Road")));
+		show("Search is case-insensitive",
+			mIndex.search("HANKIN", 100).equals(hankin));
+		List<GeoSegment> road = mIndex.search("road", 100);
+		show("Substring search finds names containing the query",
+			names(road).equals(Set.of("Hankin Road", "Ruppin Road", "Simha Golan Road")));
+		show("Prefix matches come first",
+			names(mIndex.search("ha", 100)).iterator().next().startsWith("Ha"));
+		show("Short queries match prefixes only", !names(mIndex.search("ag", 100)).contains("Hagalil"));
+		show("Search respects the limit", mIndex.search("", 3).size() == 3);
+		show("Unknown names are not found", mIndex.search("Herzl", 100).isEmpty());
+
+		show("complete()");
+		show("Unique prefix is completed", mIndex.complete("trum").equals("Trumpeldor Avenue"));
+		show("Ambiguous prefix is completed to the common part", mIndex.complete("Ha").equals("Ha"));
+		show("Common part of several names", mIndex.complete("han").equals("Han"));
+		show("Unknown prefix is unchanged", mIndex.complete("xyz").equals("xyz"));
+
+		show("startingAt()");
+		GeoPoint[] p = ExampleGeoSegments.points;
+		List<GeoSegment> fromHanita = mIndex.startingAt(p[6]);
+		show("Finds all segments starting at a point",
+			fromHanita.equals(List.of(ExampleGeoSegments.segments[6], ExampleGeoSegments.segments[7])));
+		show("Finds segments at a crossing",
+			mIndex.startingAt(p[11]).size() == 2);
+		show("Points with no outgoing segments have none",
+			mIndex.startingAt(new GeoPoint(32000000, 35000000)).isEmpty());
+	}
+
+
+	public static void main(String[] args) {
+		SegmentIndexTest indexTest = new SegmentIndexTest();
+		indexTest.test();
+	}
+}
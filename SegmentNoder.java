@@ -0,0 +1,163 @@
+package homework1;
+
+import java.util.*;
+import java.util.stream.IntStream;
+
+/**
+ * SegmentNoder turns raw polylines into a connected road network. In
+ * imported data, roads that cross do not share a GeoPoint, so no Route can
+ * turn from one onto the other; noding splits every segment at each point
+ * where another segment crosses or touches it, so that crossing roads meet
+ * at a common point.
+ * <p>
+ * Candidate pairs are found with a SegmentGrid, whose cells are about as
+ * large as an average segment, so each segment is only tested against the
+ * few segments near it: noding takes expected time linear in the number of
+ * segments and crossings for road data, whose segments are short and
+ * evenly spread. Whether two segments meet is decided exactly, with long
+ * arithmetic on the coordinates. A crossing point in general has no exact
+ * integer coordinates, so it is rounded to the nearest millionth of a
+ * degree; it is computed from the geometry of the two segments alone, in a
+ * canonical order, so that both of them, and any other copy of either (such
+ * as the reverse of a two-way road), are split at the same point.
+ */
+public final class SegmentNoder {
+
+    private SegmentNoder() {
+    }
+
+    /**
+     * Nodes a collection of segments, in parallel.
+     *
+     * @requires segments != null && segments contains no null elements
+     * @return the segments of segments, in order, each replaced by the
+     * pieces, in order from its p1 to its p2 and with its name, into which
+     * it is split by the points at which it crosses another segment (rounded
+     * to the nearest millionth of a degree), and by the endpoints of other
+     * segments that lie inside it. Pieces are never of zero length.
+     */
+    public static GeoSegment[] node(GeoSegment[] segments) {
+        GeoSegment[] copy = segments.clone();
+        SegmentGrid grid = new SegmentGrid(copy, SegmentGrid.cellSizeFor(copy));
+        return IntStream.range(0, copy.length).parallel()
+                .mapToObj(i -> split(grid, i))
+                .flatMap(Arrays::stream)
+                .toArray(GeoSegment[]::new);
+    }
+
+    // The pieces of the i'th segment of grid.
+    private static GeoSegment[] split(SegmentGrid grid, int i) {
+        GeoSegment[] segments = grid.segments();
+        GeoSegment a = segments[i];
+        GeoPoint p1 = a.getP1();
+        GeoPoint p2 = a.getP2();
+        List<GeoPoint> cuts = new ArrayList<>();
+        grid.forEachInBox(Math.min(p1.getLatitude(), p2.getLatitude()),
+                Math.min(p1.getLongitude(), p2.getLongitude()),
+                Math.max(p1.getLatitude(), p2.getLatitude()),
+                Math.max(p1.getLongitude(), p2.getLongitude()), j -> {
+                    if (j != i) {
+                        addCuts(a, segments[j], cuts);
+                    }
+                });
+        if (cuts.isEmpty()) {
+            return new GeoSegment[] {a};
+        }
+        // order the cuts along the segment, dropping repeats
+        long dLat = (long) p2.getLatitude() - p1.getLatitude();
+        long dLon = (long) p2.getLongitude() - p1.getLongitude();
+        cuts.sort(Comparator.comparingLong((GeoPoint p) ->
+                ((long) p.getLatitude() - p1.getLatitude()) * dLat
+                        + ((long) p.getLongitude() - p1.getLongitude()) * dLon)
+                .thenComparingInt(GeoPoint::getLatitude).thenComparingInt(GeoPoint::getLongitude));
+        List<GeoSegment> pieces = new ArrayList<>();
+        GeoPoint from = p1;
+        for (GeoPoint cut : cuts) {
+            if (!cut.equals(from)) {
+                pieces.add(new GeoSegment(a.getNameId(), from, cut));
+                from = cut;
+            }
+        }
+        pieces.add(new GeoSegment(a.getNameId(), from, p2));
+        return pieces.toArray(new GeoSegment[0]);
+    }
+
+    // Adds to cuts the points inside a at which b crosses or touches it.
+    private static void addCuts(GeoSegment a, GeoSegment b, List<GeoPoint> cuts) {
+        GeoPoint p1 = a.getP1();
+        GeoPoint p2 = a.getP2();
+        GeoPoint q1 = b.getP1();
+        GeoPoint q2 = b.getP2();
+        int d1 = orientation(q1, q2, p1);
+        int d2 = orientation(q1, q2, p2);
+        int d3 = orientation(p1, p2, q1);
+        int d4 = orientation(p1, p2, q2);
+        if (d1 * d2 < 0 && d3 * d4 < 0) {
+            addInside(a, crossing(a, b), cuts);
+            return;
+        }
+        // an endpoint of b on a, including where the two overlap
+        if (d3 == 0 && within(p1, p2, q1)) {
+            addInside(a, q1, cuts);
+        }
+        if (d4 == 0 && within(p1, p2, q2)) {
+            addInside(a, q2, cuts);
+        }
+    }
+
+    private static void addInside(GeoSegment a, GeoPoint p, List<GeoPoint> cuts) {
+        if (!p.equals(a.getP1()) && !p.equals(a.getP2())) {
+            cuts.add(p);
+        }
+    }
+
+    // The sign of the cross product of b - a and c - a: positive iff c is to
+    // the left of the line from a to b, taking latitude as y.
+    private static int orientation(GeoPoint a, GeoPoint b, GeoPoint c) {
+        return Long.signum(((long) b.getLongitude() - a.getLongitude()) * ((long) c.getLatitude() - a.getLatitude())
+                - ((long) b.getLatitude() - a.getLatitude()) * ((long) c.getLongitude() - a.getLongitude()));
+    }
+
+    // Whether p, which is on the line through a and b, is between them.
+    private static boolean within(GeoPoint a, GeoPoint b, GeoPoint p) {
+        return Math.min(a.getLatitude(), b.getLatitude()) <= p.getLatitude()
+                && p.getLatitude() <= Math.max(a.getLatitude(), b.getLatitude())
+                && Math.min(a.getLongitude(), b.getLongitude()) <= p.getLongitude()
+                && p.getLongitude() <= Math.max(a.getLongitude(), b.getLongitude());
+    }
+
+    // The point at which two properly crossing segments cross, rounded. The
+    // result depends only on the two sets of endpoints, not on the direction
+    // or order of the segments.
+    private static GeoPoint crossing(GeoSegment a, GeoSegment b) {
+        GeoPoint[] s = ordered(a.getP1(), a.getP2());
+        GeoPoint[] t = ordered(b.getP1(), b.getP2());
+        if (compare(s[0], t[0]) > 0 || (compare(s[0], t[0]) == 0 && compare(s[1], t[1]) > 0)) {
+            GeoPoint[] swap = s;
+            s = t;
+            t = swap;
+        }
+        long sLat = (long) s[1].getLatitude() - s[0].getLatitude();
+        long sLon = (long) s[1].getLongitude() - s[0].getLongitude();
+        long tLat = (long) t[1].getLatitude() - t[0].getLatitude();
+        long tLon = (long) t[1].getLongitude() - t[0].getLongitude();
+        long qLat = (long) t[0].getLatitude() - s[0].getLatitude();
+        long qLon = (long) t[0].getLongitude() - s[0].getLongitude();
+        // s[0] + f * (s[1] - s[0]) is on t for f = numerator / denominator;
+        // both are exact, and only the final position is rounded
+        long numerator = qLon * tLat - qLat * tLon;
+        long denominator = sLon * tLat - sLat * tLon;
+        double f = (double) numerator / denominator;
+        return new GeoPoint((int) Math.round(s[0].getLatitude() + f * sLat),
+                (int) Math.round(s[0].getLongitude() + f * sLon));
+    }
+
+    private static GeoPoint[] ordered(GeoPoint p, GeoPoint q) {
+        return compare(p, q) <= 0 ? new GeoPoint[] {p, q} : new GeoPoint[] {q, p};
+    }
+
+    private static int compare(GeoPoint p, GeoPoint q) {
+        return p.getLatitude() != q.getLatitude() ? Integer.compare(p.getLatitude(), q.getLatitude())
+                : Integer.compare(p.getLongitude(), q.getLongitude());
+    }
+}
@@ -0,0 +1,166 @@
+package homework1;
+
+import java.util.*;
+
+public class SegmentNoderTest {
+
+	public void show(String str) {
+		System.out.println();
+		System.out.println("***** " + str + " *****");
+	}
+
+
+	public void show(String str, boolean ok) {
+		if (ok)
+			System.out.print("v ");
+		else
+			System.out.print("x ");
+		System.out.println(str);
+	}
+
+
+	// The pieces of the noded segments, grouped by name.
+	static Map<String, List<GeoSegment>> byName(GeoSegment[] noded) {
+		Map<String, List<GeoSegment>> pieces = new HashMap<>();
+		for (GeoSegment gs : noded)
+			pieces.computeIfAbsent(gs.getName(), n -> new ArrayList<>()).add(gs);
+		return pieces;
+	}
+
+
+	// Whether pieces run in order from the start to the end of gs, without
+	// zero-length pieces.
+	static boolean chain(GeoSegment gs, List<GeoSegment> pieces) {
+		boolean ok = pieces.getFirst().getP1().equals(gs.getP1()) && pieces.getLast().getP2().equals(gs.getP2());
+		for (int k = 0; k < pieces.size(); k++) {
+			ok &= !pieces.get(k).getP1().equals(pieces.get(k).getP2());
+			if (k > 0)
+				ok &= pieces.get(k - 1).getP2().equals(pieces.get(k).getP1());
+		}
+		return ok;
+	}
+
+
+	static Set<GeoPoint> points(List<GeoSegment> pieces) {
+		Set<GeoPoint> points = new HashSet<>();
+		for (GeoSegment gs : pieces) {
+			points.add(gs.getP1());
+			points.add(gs.getP2());
+		}
+		return points;
+	}
+
+
+	// Whether a and b cross at a point inside both, by exact arithmetic.
+	static boolean cross(GeoSegment a, GeoSegment b) {
+		return side(b, a.getP1()) * side(b, a.getP2()) < 0 && side(a, b.getP1()) * side(a, b.getP2()) < 0;
+	}
+
+
+	static int side(GeoSegment s, GeoPoint p) {
+		return Long.signum(((long) s.getP2().getLongitude() - s.getP1().getLongitude()) * ((long) p.getLatitude() - s.getP1().getLatitude())
+			- ((long) s.getP2().getLatitude() - s.getP1().getLatitude()) * ((long) p.getLongitude() - s.getP1().getLongitude()));
+	}
+
+
+	public void test() {
+		show("Lattice");
+		List<GeoSegment> raw = new ArrayList<>();
+		for (int k = 0; k < 10; k++) {
+			GeoSegment across = new GeoSegment("Row " + k, new GeoPoint(32000000 + k * 1000, 35000000 - 500),
+				new GeoPoint(32000000 + k * 1000, 35000000 + 9500));
+			GeoSegment up = new GeoSegment("Column " + k, new GeoPoint(32000000 - 500, 35000000 + k * 1000),
+				new GeoPoint(32000000 + 9500, 35000000 + k * 1000));
+			raw.addAll(List.of(across, across.reverse(), up, up.reverse()));
+		}
+		GeoSegment[] lattice = raw.toArray(new GeoSegment[0]);
+		GeoSegment[] noded = SegmentNoder.node(lattice);
+		Map<String, List<GeoSegment>> pieces = byName(noded);
+		show("Every road is split at every crossing", noded.length == lattice.length * 11
+			&& pieces.get("Row 3").size() == 22 && pieces.get("Column 7").size() == 22);
+		boolean chains = true;
+		for (GeoSegment gs : lattice) {
+			List<GeoSegment> own = new ArrayList<>();
+			for (GeoSegment piece : pieces.get(gs.getName()))
+				if (piece.getHeading() == gs.getHeading())
+					own.add(piece);
+			chains &= chain(gs, own);
+		}
+		show("Pieces run from start to end in order", chains);
+		GeoPoint corner = lattice[0].getP1();
+		GeoPoint opposite = lattice[lattice.length - 2].getP2();
+		show("Raw roads do not connect", new AlternativeRoutes(lattice).shortest(corner, opposite) == null);
+		Route across = new AlternativeRoutes(noded).shortest(corner, opposite);
+		show("Noded roads connect", across != null && across.getStart().equals(corner) && across.getEnd().equals(opposite));
+		show("Noding a noded network changes nothing", Arrays.equals(SegmentNoder.node(noded), noded));
+
+		show("Crossings and touches");
+		GeoSegment a = new GeoSegment("A", new GeoPoint(0, 0), new GeoPoint(1000, 3000));
+		GeoSegment b = new GeoSegment("B", new GeoPoint(0, 2000), new GeoPoint(1001, 0));
+		Map<String, List<GeoSegment>> oblique = byName(SegmentNoder.node(new GeoSegment[] {a, b, b.reverse()}));
+		GeoPoint x = oblique.get("A").get(0).getP2();
+		show("Oblique roads are split at a common point", oblique.get("A").size() == 2
+			&& points(oblique.get("B")).contains(x) && oblique.get("B").size() == 4);
+		show("Crossing is rounded to the nearest point",
+			Math.abs(x.getLatitude() - 400) <= 1 && Math.abs(x.getLongitude() - 1200) <= 1);
+		GeoSegment bar = new GeoSegment("Bar", new GeoPoint(0, 0), new GeoPoint(0, 1000));
+		GeoSegment stem = new GeoSegment("Stem", new GeoPoint(0, 400), new GeoPoint(500, 400));
+		Map<String, List<GeoSegment>> tee = byName(SegmentNoder.node(new GeoSegment[] {bar, stem}));
+		show("Road ending on another splits it", tee.get("Bar").size() == 2
+			&& tee.get("Bar").get(0).getP2().equals(stem.getP1()) && tee.get("Stem").size() == 1);
+		GeoSegment first = new GeoSegment("First", new GeoPoint(0, 0), new GeoPoint(0, 1000));
+		GeoSegment second = new GeoSegment("Second", new GeoPoint(0, 500), new GeoPoint(0, 1500));
+		Map<String, List<GeoSegment>> overlap = byName(SegmentNoder.node(new GeoSegment[] {first, second}));
+		show("Overlapping roads split at each other's ends",
+			overlap.get("First").size() == 2 && overlap.get("First").get(0).getP2().equals(second.getP1())
+			&& overlap.get("Second").size() == 2 && overlap.get("Second").get(0).getP2().equals(first.getP2()));
+		show("Roads meeting at ends are kept", SegmentNoder.node(new GeoSegment[] {first, first.reverse()}).length == 2);
+		show("Nothing to node", SegmentNoder.node(new GeoSegment[0]).length == 0);
+
+		show("Random roads");
+		Random random = new Random(49);
+		GeoSegment[] random1 = new GeoSegment[1500];
+		for (int i = 0; i < random1.length; i++) {
+			GeoPoint p = new GeoPoint(32000000 + random.nextInt(100000), 35000000 + random.nextInt(100000));
+			random1[i] = new GeoSegment("R" + i, p, new GeoPoint(p.getLatitude() + random.nextInt(10001) - 5000,
+				p.getLongitude() + random.nextInt(10001) - 5000));
+		}
+		Map<String, List<GeoSegment>> split = byName(SegmentNoder.node(random1));
+		boolean allChains = true;
+		for (GeoSegment gs : random1)
+			allChains &= chain(gs, split.get(gs.getName()));
+		show("Pieces run from start to end in order", allChains);
+		boolean shared = true;
+		int crossings = 0;
+		for (int i = 0; i < random1.length; i++) {
+			for (int j = i + 1; j < random1.length; j++) {
+				if (cross(random1[i], random1[j])) {
+					crossings++;
+					Set<GeoPoint> common = points(split.get(random1[i].getName()));
+					common.retainAll(points(split.get(random1[j].getName())));
+					shared &= !common.isEmpty();
+				}
+			}
+		}
+		System.out.printf("  %d crossings found by brute force%n", crossings);
+		show("Every crossing becomes a shared point", crossings > 0 && shared);
+
+		show("throughput");
+		GeoSegment[] many = new GeoSegment[500000];
+		for (int i = 0; i < many.length; i++) {
+			GeoPoint p = new GeoPoint(32000000 + random.nextInt(1000000), 35000000 + random.nextInt(1000000));
+			many[i] = new GeoSegment("M", p, new GeoPoint(p.getLatitude() + random.nextInt(2001) - 1000,
+				p.getLongitude() + random.nextInt(2001) - 1000));
+		}
+		long begin = System.nanoTime();
+		GeoSegment[] result = SegmentNoder.node(many);
+		double seconds = (System.nanoTime() - begin) / 1e9;
+		System.out.printf("  %d segments noded into %d in %.3f s%n", many.length, result.length, seconds);
+	}
+
+
+	public static void main(String[] args) {
+		SegmentNoderTest noderTest = new SegmentNoderTest();
+		noderTest.test();
+	}
+}
@@ -0,0 +1,88 @@
+package homework1;
+
+/**
+ * Planar point-to-segment computations, using the same flat-surface, near
+ * the Technion approximation as GeoPoint.distanceTo.
+ * <p>
+ * A point is projected onto a GeoSegment by finding the fraction t, with
+ * 0 <= t <= 1, of the way from p1 to p2 at which the segment is closest to
+ * the point.
+ */
+final class SegmentProjection {
+
+    private static final double KM_PER_MICRO_LATITUDE = GeoPoint.KM_PER_DEGREE_LATITUDE / 1_000_000.0;
+    private static final double KM_PER_MICRO_LONGITUDE = GeoPoint.KM_PER_DEGREE_LONGITUDE / 1_000_000.0;
+
+    private SegmentProjection() {
+    }
+
+    /**
+     * Projects a point onto a segment.
+     *
+     * @requires gs != null
+     * @return the fraction t in [0, 1] such that the point at fraction t of
+     * the way from gs.p1 to gs.p2 is the point of gs closest to
+     * (latitude, longitude). Returns 0 if gs has zero length.
+     */
+    static double fraction(int latitude, int longitude, GeoSegment gs) {
+        GeoPoint a = gs.getP1();
+        GeoPoint b = gs.getP2();
+        double sx = (b.getLongitude() - a.getLongitude()) * KM_PER_MICRO_LONGITUDE;
+        double sy = (b.getLatitude() - a.getLatitude()) * KM_PER_MICRO_LATITUDE;
+        double px = (longitude - a.getLongitude()) * KM_PER_MICRO_LONGITUDE;
+        double py = (latitude - a.getLatitude()) * KM_PER_MICRO_LATITUDE;
+        double len2 = sx * sx + sy * sy;
+        if (len2 == 0) {
+            return 0;
+        }
+        double t = (px * sx + py * sy) / len2;
+        return t < 0 ? 0 : (t > 1 ? 1 : t);
+    }
+
+    /**
+     * Computes the distance from a point to a point on a segment.
+     *
+     * @requires gs != null && 0 <= t <= 1
+     * @return the distance, in kilometers, from (latitude, longitude) to the
+     * point at fraction t of the way from gs.p1 to gs.p2.
+     */
+    static double distance(int latitude, int longitude, GeoSegment gs, double t) {
+        GeoPoint a = gs.getP1();
+        GeoPoint b = gs.getP2();
+        double dx = (longitude - a.getLongitude() - t * (b.getLongitude() - a.getLongitude())) * KM_PER_MICRO_LONGITUDE;
+        double dy = (latitude - a.getLatitude() - t * (b.getLatitude() - a.getLatitude())) * KM_PER_MICRO_LATITUDE;
+        return Math.sqrt(dx * dx + dy * dy);
+    }
+
+    /**
+     * Computes the distance from a point to a segment.
+     *
+     * @requires p != null && gs != null
+     * @return the distance, in kilometers, from p to the closest point of gs.
+     */
+    static double distance(GeoPoint p, GeoSegment gs) {
+        int lat = p.getLatitude();
+        int lon = p.getLongitude();
+        return distance(lat, lon, gs, fraction(lat, lon, gs));
+    }
+
+    /**
+     * Converts a distance along the latitude axis to millionths of degrees.
+     *
+     * @return the number of millionths of a degree of latitude, rounded up,
+     * that span km kilometers.
+     */
+    static int microLatitude(double km) {
+        return (int) Math.ceil(km / KM_PER_MICRO_LATITUDE);
+    }
+
+    /**
+     * Converts a distance along the longitude axis to millionths of degrees.
+     *
+     * @return the number of millionths of a degree of longitude, rounded up,
+     * that span km kilometers.
+     */
+    static int microLongitude(double km) {
+        return (int) Math.ceil(km / KM_PER_MICRO_LONGITUDE);
+    }
+}
@@ -0,0 +1,230 @@
+package homework1;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.text.DecimalFormatSymbols;
+import java.util.*;
+
+/**
+ * A TemplateRouteFormatter creates directions from a message template, so
+ * that directions can be given in several languages.
+ * <p>
+ * A template is a line of text with slots in braces: <tt>{turn}</tt> for
+ * the turn onto a feature, <tt>{name}</tt> for its name,
+ * <tt>{distance}</tt> for its length in kilometers to tenth-of-a-kilometer
+ * precision, and <tt>{minutes}</tt> for the time it takes to walk along it
+ * to the nearest minute. For example, the English driving template is
+ * <p>
+ * <tt>{turn} onto {name} and go {distance} kilometers.\n</tt>
+ * <p>
+ * The template is parsed once, when the formatter is constructed, into
+ * literal chunks and typed slots; computing a line only appends those to a
+ * StringBuilder. The built-in formatters write decimal fractions with the
+ * decimal separator of their locale, as given by DecimalFormatSymbols; the
+ * English formatters produce exactly the same directions as
+ * DrivingRouteFormatter and WalkingRouteFormatter in a locale with the
+ * same decimal separator.
+ */
+public class TemplateRouteFormatter extends RouteFormatter {
+
+    /**
+     * The kinds of values that can fill a slot of a template.
+     */
+    private enum Slot { TURN, NAME, DISTANCE, MINUTES }
+
+    // driving template, walking template and the texts of the TurnTypes in
+    // their declaration order, per language
+    private static final Map<String, String[]> MESSAGES = Map.of(
+            "en", new String[] {
+                    "{turn} onto {name} and go {distance} kilometers.\n",
+                    "{turn} onto {name} and walk for {minutes} minutes.\n",
+                    "Continue", "Turn slight right", "Turn right", "Turn sharp right",
+                    "U-turn", "Turn sharp left", "Turn left", "Turn slight left" },
+            "fr", new String[] {
+                    "{turn} sur {name} et continuez sur {distance} kilomètres.\n",
+                    "{turn} sur {name} et marchez pendant {minutes} minutes.\n",
+                    "Continuez", "Tournez légèrement à droite", "Tournez à droite", "Tournez fortement à droite",
+                    "Faites demi-tour", "Tournez fortement à gauche", "Tournez à gauche", "Tournez légèrement à gauche" },
+            "de", new String[] {
+                    "{turn} auf {name} und {distance} Kilometer fahren.\n",
+                    "{turn} auf {name} und {minutes} Minuten gehen.\n",
+                    "Weiter geradeaus", "Leicht rechts abbiegen", "Rechts abbiegen", "Scharf rechts abbiegen",
+                    "Wenden", "Scharf links abbiegen", "Links abbiegen", "Leicht links abbiegen" });
+
+    private final String[] literals;
+    private final Slot[] slots;
+    private final String[] turnTexts;
+    private final char decimalSeparator;
+
+    // Abs. Function:
+    //   represents the template literals[0] + {slots[0]} + literals[1] + ...
+    //   + {slots[n-1]} + literals[n], where n = slots.length, in which the
+    //   turn t is written turnTexts[t.ordinal()] and decimal fractions are
+    //   written with decimalSeparator
+
+    // Rep. Invariant:
+    //   literals.length == slots.length + 1
+    //   turnTexts.length == TurnType.values().length
+    //   no element of literals, slots or turnTexts is null
+
+    private void checkRep() {
+        assert literals.length == slots.length + 1 : "Literals and slots do not alternate";
+        assert turnTexts.length == TurnType.values().length : "Missing turn texts";
+    }
+
+    /**
+     * Constructs a new TemplateRouteFormatter.
+     *
+     * @requires template != null && turnTexts != null
+     * @effects Constructs a formatter whose lines are template with its slots
+     * filled, turns written as given by turnTexts, and decimal fractions
+     * written with decimalSeparator.
+     * @throws IllegalArgumentException if template has an unknown slot or an
+     * unmatched brace, or if turnTexts has no text for some TurnType.
+     */
+    public TemplateRouteFormatter(String template, Map<TurnType, String> turnTexts, char decimalSeparator) {
+        List<String> literals = new ArrayList<>();
+        List<Slot> slots = new ArrayList<>();
+        int from = 0;
+        for (int open = template.indexOf('{'); open >= 0; open = template.indexOf('{', from)) {
+            int close = template.indexOf('}', open);
+            if (close < 0) {
+                throw new IllegalArgumentException("Unmatched '{' at " + open + " in template.");
+            }
+            literals.add(literal(template, from, open));
+            slots.add(slot(template.substring(open + 1, close)));
+            from = close + 1;
+        }
+        literals.add(literal(template, from, template.length()));
+        this.literals = literals.toArray(new String[0]);
+        this.slots = slots.toArray(new Slot[0]);
+        this.turnTexts = new String[TurnType.values().length];
+        for (TurnType turn : TurnType.values()) {
+            String text = turnTexts.get(turn);
+            if (text == null) {
+                throw new IllegalArgumentException("No text for the turn " + turn + ".");
+            }
+            this.turnTexts[turn.ordinal()] = text;
+        }
+        this.decimalSeparator = decimalSeparator;
+        checkRep();
+    }
+
+    private static String literal(String template, int from, int to) {
+        String literal = template.substring(from, to);
+        int close = literal.indexOf('}');
+        if (close >= 0) {
+            throw new IllegalArgumentException("Unmatched '}' at " + (from + close) + " in template.");
+        }
+        return literal;
+    }
+
+    private static Slot slot(String name) {
+        switch (name) {
+            case "turn": return Slot.TURN;
+            case "name": return Slot.NAME;
+            case "distance": return Slot.DISTANCE;
+            case "minutes": return Slot.MINUTES;
+            default: throw new IllegalArgumentException("Unknown slot {" + name + "} in template.");
+        }
+    }
+
+    /**
+     * Creates a formatter of directions for drivers.
+     *
+     * @requires locale != null
+     * @return a formatter whose lines tell the turn onto each feature and
+     * its length in kilometers, in the language of locale and with its
+     * decimal separator.
+     * @throws IllegalArgumentException if the language of locale is not
+     * supported.
+     */
+    public static TemplateRouteFormatter driving(Locale locale) {
+        return create(locale, 0);
+    }
+
+    /**
+     * Creates a formatter of directions for pedestrians.
+     *
+     * @requires locale != null
+     * @return a formatter whose lines tell the turn onto each feature and
+     * the minutes it takes to walk along it, in the language of locale.
+     * @throws IllegalArgumentException if the language of locale is not
+     * supported.
+     */
+    public static TemplateRouteFormatter walking(Locale locale) {
+        return create(locale, 1);
+    }
+
+    /**
+     * Returns the languages that have built-in templates.
+     *
+     * @return the ISO 639 codes of the languages supported by driving and
+     * walking.
+     */
+    public static Set<String> supportedLanguages() {
+        return MESSAGES.keySet();
+    }
+
+    private static TemplateRouteFormatter create(Locale locale, int template) {
+        String[] messages = MESSAGES.get(locale.getLanguage());
+        if (messages == null) {
+            throw new IllegalArgumentException("Unsupported language: " + locale.getLanguage());
+        }
+        Map<TurnType, String> turnTexts = new EnumMap<>(TurnType.class);
+        for (TurnType turn : TurnType.values()) {
+            turnTexts.put(turn, messages[2 + turn.ordinal()]);
+        }
+        return new TemplateRouteFormatter(messages[template], turnTexts,
+                DecimalFormatSymbols.getInstance(locale).getDecimalSeparator());
+    }
+
+
+    /**
+     * Computes a single line of a multi-line directions String that
+     * represents the instructions for traversing a single geographic
+     * feature.
+     *
+     * @requires geoFeature != null && 0 <= origHeading < 360
+     * @return the template of this with its slots filled for turning onto
+     * geoFeature from origHeading and following it to its end.
+     **/
+    @Override
+    public String computeLine(GeoFeature geoFeature, double origHeading) {
+        StringBuilder line = new StringBuilder();
+        appendLine(line, TurnType.classify(origHeading, geoFeature.getStartHeading()),
+                geoFeature.getName(), geoFeature.getLength());
+        return line.toString();
+    }
+
+
+    @Override
+    protected boolean appendsLines() {
+        return true;
+    }
+
+    @Override
+    protected void appendLine(StringBuilder out, TurnType turn, String name, double length) {
+        for (int i = 0; i < slots.length; i++) {
+            out.append(literals[i]);
+            switch (slots[i]) {
+                case TURN -> out.append(turnTexts[turn.ordinal()]);
+                case NAME -> out.append(name);
+                case DISTANCE -> appendTenths(out, length);
+                case MINUTES -> out.append(Math.round(length * WalkingRouteFormatter.MINUTES_PER_KILOMETER));
+            }
+        }
+        out.append(literals[slots.length]);
+    }
+
+    // Appends length with one decimal, rounded half-even on its exact binary
+    // value, as DecimalFormat("0.0") does. Only lengths close to a tie need
+    // the exact value.
+    private void appendTenths(StringBuilder out, double length) {
+        double scaled = length * 10;
+        long tenths = Math.abs(scaled - Math.floor(scaled) - 0.5) > 1e-6
+                ? Math.round(scaled)
+                : new BigDecimal(length).setScale(1, RoundingMode.HALF_EVEN).unscaledValue().longValue();
+        out.append(tenths / 10).append(decimalSeparator).append(tenths % 10);
+    }
+}
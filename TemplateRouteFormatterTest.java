@@ -0,0 +1,164 @@
+package homework1;
+
+import java.util.*;
+
+public class TemplateRouteFormatterTest {
+
+	private Route mRoute;
+
+
+	public TemplateRouteFormatterTest() {
+		GeoSegment[] s = ExampleGeoSegments.segments;
+		mRoute = Route.of(new GeoSegment[] { s[0], s[1], s[2], s[3], s[4], s[5], s[6] });
+	}
+
+
+	public void show(String str) {
+		System.out.println();
+		System.out.println("***** " + str + " *****");
+	}
+
+
+	public void show(String str, boolean ok) {
+		if (ok)
+			System.out.print("v ");
+		else
+			System.out.print("x ");
+		System.out.println(str);
+	}
+
+
+	// A random walk over the example segments and their reverses.
+	static Route randomRoute(Random random, int length) {
+		GeoSegment[] s = ExampleGeoSegments.segments;
+		List<GeoSegment> network = new ArrayList<>();
+		for (GeoSegment gs : s) {
+			network.add(gs);
+			network.add(gs.reverse());
+		}
+		GeoSegment current = network.get(random.nextInt(network.size()));
+		Route route = new Route(current);
+		for (int i = 1; i < length; i++) {
+			List<GeoSegment> next = new ArrayList<>();
+			for (GeoSegment gs : network)
+				if (gs.getP1().equals(current.getP2()))
+					next.add(gs);
+			current = next.get(random.nextInt(next.size()));
+			route = route.addSegment(current);
+		}
+		return route;
+	}
+
+
+	public void test() {
+		show("TurnType");
+		RouteFormatter driving = new DrivingRouteFormatter();
+		boolean classified = true;
+		for (int from = 0; from < 360; from += 7)
+			for (double to = 0; to < 360; to += 0.25)
+				classified &= TurnType.classify(from, to).getText().equals(driving.getTurnString(from, to));
+		show("Turn types agree with getTurnString", classified);
+		show("Boundaries are kept", TurnType.classify(0, 10) == TurnType.SLIGHT_RIGHT
+			&& TurnType.classify(0, 350) == TurnType.SLIGHT_LEFT
+			&& TurnType.classify(0, 181) == TurnType.U_TURN
+			&& TurnType.classify(0, 181.5) == TurnType.SHARP_LEFT);
+
+		show("English");
+		TemplateRouteFormatter templateDriving = TemplateRouteFormatter.driving(Locale.ENGLISH);
+		TemplateRouteFormatter templateWalking = TemplateRouteFormatter.walking(Locale.US);
+		RouteFormatter walking = new WalkingRouteFormatter();
+		show("Driving directions are identical",
+			templateDriving.computeDirections(mRoute, 0).equals(driving.computeDirections(mRoute, 0)));
+		show("Walking directions are identical",
+			templateWalking.computeDirections(mRoute, 90).equals(walking.computeDirections(mRoute, 90)));
+		Random random = new Random(1);
+		boolean identical = true;
+		for (int k = 0; k < 300; k++) {
+			Route route = randomRoute(random, 1 + random.nextInt(20));
+			double heading = random.nextInt(360);
+			identical &= templateDriving.computeDirections(route, heading).equals(driving.computeDirections(route, heading))
+				&& templateWalking.computeDirections(route, heading).equals(walking.computeDirections(route, heading));
+		}
+		show("Directions of random routes are identical", identical);
+		GeoFeature tie = new GeoFeature(new GeoSegment("Tie", new GeoPoint(32780000, 35000000),
+			new GeoPoint(32780000, 35000000 + 1601)));
+		show("Lengths close to a tie are rounded the same way",
+			templateDriving.computeLine(tie, 0).equals(driving.computeLine(tie, 0)));
+
+		show("Other languages");
+		String french = TemplateRouteFormatter.driving(Locale.FRENCH).computeDirections(mRoute, 0);
+		show("French directions", french.startsWith(
+			"Tournez légèrement à droite sur Hankin Road et continuez sur 0,1 kilomètres.\n"));
+		String german = TemplateRouteFormatter.walking(Locale.GERMAN).computeDirections(mRoute, 0);
+		show("German directions", german.startsWith(
+			"Leicht rechts abbiegen auf Hankin Road und 2 Minuten gehen.\n"));
+		show("Every language has a line per feature",
+			french.split("\n").length == driving.computeDirections(mRoute, 0).split("\n").length);
+		boolean thrown = false;
+		try {
+			TemplateRouteFormatter.driving(Locale.JAPANESE);
+		} catch (IllegalArgumentException e) {
+			thrown = true;
+		}
+		show("Unsupported languages are rejected", thrown);
+
+		show("Custom templates");
+		Map<TurnType, String> arrows = new EnumMap<>(TurnType.class);
+		for (TurnType turn : TurnType.values())
+			arrows.put(turn, turn.name());
+		TemplateRouteFormatter custom = new TemplateRouteFormatter("{name}: {turn}, {distance} km / {minutes}'\n", arrows, '.');
+		show("Slots can be reordered and repeated",
+			custom.computeDirections(mRoute, 0).startsWith("Hankin Road: SLIGHT_RIGHT, 0.1 km / 2'\n"));
+		thrown = false;
+		try {
+			new TemplateRouteFormatter("{turn} onto {street}\n", arrows, '.');
+		} catch (IllegalArgumentException e) {
+			thrown = true;
+		}
+		show("Unknown slots are rejected", thrown);
+		thrown = false;
+		try {
+			new TemplateRouteFormatter("{turn onto {name}\n", arrows, '.');
+		} catch (IllegalArgumentException e) {
+			thrown = true;
+		}
+		show("Unmatched braces are rejected", thrown);
+		thrown = false;
+		try {
+			Map<TurnType, String> partial = new EnumMap<>(arrows);
+			partial.remove(TurnType.U_TURN);
+			new TemplateRouteFormatter("{turn} onto {name}\n", partial, '.');
+		} catch (IllegalArgumentException e) {
+			thrown = true;
+		}
+		show("Missing turn texts are rejected", thrown);
+		show("Decimal separator follows the locale",
+			TemplateRouteFormatter.driving(Locale.UK).computeDirections(mRoute, 0).contains(" 0.1 kilometers")
+			&& TemplateRouteFormatter.driving(Locale.CANADA_FRENCH).computeDirections(mRoute, 0).contains(" 0,1 kilom")
+			&& TemplateRouteFormatter.driving(Locale.forLanguageTag("de-CH")).computeDirections(mRoute, 0).contains(" 0.1 Kilometer"));
+
+		show("throughput");
+		List<Route> routes = new ArrayList<>();
+		for (int k = 0; k < 2000; k++)
+			routes.add(randomRoute(random, 30));
+		long begin = System.nanoTime();
+		long chars = 0;
+		for (int pass = 0; pass < 10; pass++)
+			for (Route route : routes)
+				chars += driving.computeDirections(route, 0).length();
+		double before = (System.nanoTime() - begin) / 1e9;
+		begin = System.nanoTime();
+		for (int pass = 0; pass < 10; pass++)
+			for (Route route : routes)
+				chars -= templateDriving.computeDirections(route, 0).length();
+		double after = (System.nanoTime() - begin) / 1e9;
+		System.out.printf("  %d routes: %.3f s with DrivingRouteFormatter, %.3f s with templates (%d)%n",
+			10 * routes.size(), before, after, chars);
+	}
+
+
+	public static void main(String[] args) {
+		TemplateRouteFormatterTest formatterTest = new TemplateRouteFormatterTest();
+		formatterTest.test();
+	}
+}
@@ -0,0 +1,256 @@
+package homework1;
+
+import java.util.*;
+import java.util.stream.IntStream;
+
+/**
+ * A TurnCostRouter finds routes that are short and easy to drive: each turn
+ * between consecutive segments costs a penalty that depends on its
+ * TurnType, the same classification RouteFormatter uses for directions, so
+ * that e.g. U-turns and sharp lefts are taken only when they save a lot of
+ * driving. TurnCostRouters are immutable and can be used by many threads at
+ * once.
+ * <p>
+ * Penalties are given in kilometers: a route is preferred to another one
+ * that is a kilometer shorter iff its turns cost more than a kilometer less.
+ * The cost of a route is its length plus the penalties of the turns between
+ * its consecutive segments.
+ * <p>
+ * Turn costs depend on the segment a driver arrives on, so the search runs
+ * over segments rather than points (an edge-based graph): its states are the
+ * edges of a RoadGraph, and the transitions out of an edge are the edges
+ * leaving the node at which it ends. The TurnType of every transition is
+ * classified once, when the router is built, and stored as a byte, so a
+ * query only adds a length and a looked-up penalty per transition.
+ */
+public class TurnCostRouter {
+    private static final TurnType[] TURNS = TurnType.values();
+
+    private final RoadGraph graph;
+    private final double[] penalties;   // penalties[t] is the penalty of TURNS[t]
+    private final int[] turnStart;      // the turns out of edge e start at turnStart[e]
+    private final byte[] turns;         // the ordinal of the turn from edge e onto the
+                                        //   k'th edge of its target is turns[turnStart[e] + k]
+    private final ThreadLocal<EdgeSearch> searches;
+
+    // Abs. Function:
+    //   represents the network of the segments of graph, in which the turn
+    //   from a segment onto the next costs penalties[t] for its TurnType t
+
+    // Rep. Invariant:
+    //   penalties.length == TURNS.length && every penalties[t] >= 0
+    //   turnStart.length == graph.edgeCount() + 1 &&
+    //   turnStart[e + 1] - turnStart[e] is the number of edges leaving
+    //   graph.target(e) && turns.length == turnStart[graph.edgeCount()]
+
+    private void checkRep() {
+        assert penalties.length == TURNS.length : "Every turn must have a penalty";
+        for (double penalty : penalties) {
+            assert penalty >= 0 : "Negative penalty";
+        }
+        assert turnStart.length == graph.edgeCount() + 1 : "Turn table size mismatch";
+        assert turns.length == turnStart[graph.edgeCount()] : "Every transition must have a turn";
+    }
+
+    /**
+     * Returns the default penalties: nothing for going straight on, a little
+     * for slight turns, more for turns across traffic (to the left) than for
+     * turns to the right, and half a kilometer for a U-turn.
+     *
+     * @return a new modifiable map from every TurnType to its default
+     * penalty, in kilometers.
+     */
+    public static Map<TurnType, Double> defaultPenalties() {
+        Map<TurnType, Double> penalties = new EnumMap<>(TurnType.class);
+        penalties.put(TurnType.CONTINUE, 0.0);
+        penalties.put(TurnType.SLIGHT_RIGHT, 0.005);
+        penalties.put(TurnType.SLIGHT_LEFT, 0.005);
+        penalties.put(TurnType.RIGHT, 0.02);
+        penalties.put(TurnType.LEFT, 0.04);
+        penalties.put(TurnType.SHARP_RIGHT, 0.08);
+        penalties.put(TurnType.SHARP_LEFT, 0.15);
+        penalties.put(TurnType.U_TURN, 0.5);
+        return penalties;
+    }
+
+    /**
+     * Constructs a new TurnCostRouter with the default penalties.
+     *
+     * @requires network != null && network contains no null elements
+     * @effects Constructs a TurnCostRouter over network with the penalties
+     * of defaultPenalties().
+     */
+    public TurnCostRouter(GeoSegment[] network) {
+        this(network, defaultPenalties());
+    }
+
+    /**
+     * Constructs a new TurnCostRouter.
+     *
+     * @requires network != null && network contains no null elements &&
+     * penalties != null
+     * @effects Constructs a TurnCostRouter over network, in which a turn of
+     * TurnType t costs penalties.get(t) kilometers, or nothing if penalties
+     * has no entry for t.
+     * @throws IllegalArgumentException if some penalty is negative or not a
+     * number.
+     */
+    public TurnCostRouter(GeoSegment[] network, Map<TurnType, Double> penalties) {
+        this.penalties = new double[TURNS.length];
+        for (Map.Entry<TurnType, Double> e : penalties.entrySet()) {
+            double penalty = e.getValue();
+            if (!(penalty >= 0)) {
+                throw new IllegalArgumentException("Penalty of " + e.getKey() + " must not be negative.");
+            }
+            this.penalties[e.getKey().ordinal()] = penalty;
+        }
+        this.graph = new RoadGraph(network);
+
+        int m = graph.edgeCount();
+        turnStart = new int[m + 1];
+        for (int e = 0; e < m; e++) {
+            int v = graph.target(e);
+            turnStart[e + 1] = turnStart[e] + graph.firstEdge(v + 1) - graph.firstEdge(v);
+        }
+        turns = new byte[turnStart[m]];
+        IntStream.range(0, m).parallel().forEach(e -> {
+            double heading = graph.heading(e);
+            int v = graph.target(e);
+            for (int f = graph.firstEdge(v), k = turnStart[e]; f < graph.firstEdge(v + 1); f++, k++) {
+                turns[k] = (byte) TurnType.classify(heading, graph.heading(f)).ordinal();
+            }
+        });
+        this.searches = ThreadLocal.withInitial(() -> new EdgeSearch(m));
+        checkRep();
+    }
+
+
+    /**
+     * Returns the penalty of a turn.
+     *
+     * @requires turn != null
+     * @return the penalty of turn, in kilometers.
+     */
+    public double getPenalty(TurnType turn) {
+        return penalties[turn.ordinal()];
+    }
+
+
+    /**
+     * Computes the cost of a route.
+     *
+     * @requires route != null
+     * @return the length of route plus the penalty of the turn from each of
+     * its segments onto the next, in kilometers.
+     */
+    public double cost(Route route) {
+        double cost = 0;
+        GeoSegment previous = null;
+        for (Iterator<GeoSegment> it = route.getGeoSegments(); it.hasNext(); ) {
+            GeoSegment gs = it.next();
+            cost += gs.getLength();
+            if (previous != null) {
+                cost += penalties[TurnType.classify(previous.getHeading(), gs.getHeading()).ordinal()];
+            }
+            previous = gs;
+        }
+        return cost;
+    }
+
+
+    /**
+     * Finds the cheapest route between two points.
+     *
+     * @requires from != null && to != null
+     * @return a Route r from from to to along the network such that
+     * cost(r) is minimal, or null if there is none, e.g. if from = to. The
+     * route may pass through a point more than once, e.g. to go around a
+     * block rather than make a U-turn.
+     */
+    public Route route(GeoPoint from, GeoPoint to) {
+        checkRep();
+        int source = graph.nodeOf(from);
+        int target = graph.nodeOf(to);
+        if (source < 0 || target < 0 || source == target) {
+            return null;
+        }
+        int[] edges = searches.get().path(graph, turnStart, turns, penalties, source, target);
+        return edges == null ? null : graph.toRoute(edges);
+    }
+
+
+    /**
+     * Dijkstra's algorithm over the edges of a graph, with one reusable set
+     * of arrays; an entry is valid for the current search only if reached
+     * has its stamp. The search is static, and given the router's tables on
+     * each call, so that the copy a thread keeps does not hold on to the
+     * router, which would keep it and its ThreadLocal key alive forever.
+     */
+    private static final class EdgeSearch {
+        private final double[] costs;       // the cost of the cheapest route ending with each edge
+        private final int[] previous;       // the edge before each edge on that route, or -1
+        private final int[] reached;
+        private final PrimitiveHeap heap = new PrimitiveHeap();
+        private int stamp;
+
+        EdgeSearch(int edges) {
+            costs = new double[edges];
+            previous = new int[edges];
+            reached = new int[edges];
+        }
+
+        // The edges of the cheapest route from source to target in graph,
+        // with the turn table and penalties of a router, or null if there is
+        // none.
+        int[] path(RoadGraph graph, int[] turnStart, byte[] turns, double[] penalties, int source, int target) {
+            if (stamp == Integer.MAX_VALUE) {
+                Arrays.fill(reached, 0);
+                stamp = 0;
+            }
+            stamp++;
+            heap.clear();
+            for (int f = graph.firstEdge(source); f < graph.firstEdge(source + 1); f++) {
+                relax(f, graph.length(f), -1);
+            }
+            while (!heap.isEmpty()) {
+                double c = heap.peekKey();
+                int e = heap.pop();
+                if (c > costs[e]) {
+                    continue;       // stale pair
+                }
+                int v = graph.target(e);
+                if (v == target) {
+                    return edges(e);
+                }
+                int first = graph.firstEdge(v);
+                int base = turnStart[e] - first;
+                for (int f = first; f < graph.firstEdge(v + 1); f++) {
+                    relax(f, c + graph.length(f) + penalties[turns[base + f]], e);
+                }
+            }
+            return null;
+        }
+
+        private void relax(int f, double cost, int from) {
+            if (reached[f] != stamp || cost < costs[f]) {
+                reached[f] = stamp;
+                costs[f] = cost;
+                previous[f] = from;
+                heap.push(f, cost);
+            }
+        }
+
+        // The edges of the route that ends with last, in order.
+        private int[] edges(int last) {
+            int count = 0;
+            for (int e = last; e >= 0; e = previous[e]) {
+                count++;
+            }
+            int[] edges = new int[count];
+            for (int e = last; e >= 0; e = previous[e]) {
+                edges[--count] = e;
+            }
+            return edges;
+        }
+    }
+}
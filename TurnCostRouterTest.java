@@ -0,0 +1,150 @@
+package homework1;
+
+import java.util.*;
+
+public class TurnCostRouterTest {
+
+	private static final double tolerance = 0.0001;
+
+	private GeoSegment[] mNetwork;
+
+
+	public TurnCostRouterTest() {
+		mNetwork = new RoadNetworkGenerator(41).organic(40, 40, 1000);
+	}
+
+
+	boolean same(double x, double y) {
+		return ((y >= x-tolerance) && (y <= x+tolerance));
+	}
+
+
+	public void show(String str) {
+		System.out.println();
+		System.out.println("***** " + str + " *****");
+	}
+
+
+	public void show(String str, boolean ok) {
+		if (ok)
+			System.out.print("v ");
+		else
+			System.out.print("x ");
+		System.out.println(str);
+	}
+
+
+	// The number of turns of the given types between consecutive segments.
+	static int count(Route route, TurnType... types) {
+		int count = 0;
+		GeoSegment previous = null;
+		for (Iterator<GeoSegment> it = route.getGeoSegments(); it.hasNext(); ) {
+			GeoSegment gs = it.next();
+			if (previous != null && Arrays.asList(types).contains(TurnType.classify(previous.getHeading(), gs.getHeading())))
+				count++;
+			previous = gs;
+		}
+		return count;
+	}
+
+
+	public void test() {
+		show("route()");
+		TurnCostRouter router = new TurnCostRouter(mNetwork);
+		AlternativeRoutes shortest = new AlternativeRoutes(mNetwork);
+		Random random = new Random(42);
+		boolean joins = true;
+		boolean cheaper = true;
+		boolean fewer = true;
+		int uTurns = 0;
+		int baselineUTurns = 0;
+		for (int q = 0; q < 100; q++) {
+			GeoPoint from = mNetwork[random.nextInt(mNetwork.length)].getP1();
+			GeoPoint to = mNetwork[random.nextInt(mNetwork.length)].getP1();
+			Route r = router.route(from, to);
+			Route s = shortest.shortest(from, to);
+			if (r == null || s == null) {
+				joins &= r == s;
+				continue;
+			}
+			joins &= r.getStart().equals(from) && r.getEnd().equals(to);
+			cheaper &= router.cost(r) <= router.cost(s) + tolerance;
+			fewer &= r.getLength() >= s.getLength() - tolerance;
+			uTurns += count(r, TurnType.U_TURN);
+			baselineUTurns += count(s, TurnType.U_TURN);
+		}
+		show("Routes join the points", joins);
+		show("Routes cost no more than the shortest routes", cheaper);
+		show("Routes are no shorter than the shortest routes", fewer);
+		show("Routes make no more U-turns than the shortest routes", uTurns <= baselineUTurns);
+		GeoPoint a = mNetwork[0].getP1();
+		show("No route from a point to itself", router.route(a, a) == null);
+		show("No route from outside the network", router.route(new GeoPoint(0, 0), a) == null);
+
+		show("cost()");
+		Route r = router.route(mNetwork[0].getP1(), mNetwork[mNetwork.length - 1].getP2());
+		double penalties = 0;
+		GeoSegment previous = null;
+		for (GeoSegment gs : RouteTest.toList(r.getGeoSegments())) {
+			if (previous != null)
+				penalties += router.getPenalty(TurnType.classify(previous.getHeading(), gs.getHeading()));
+			previous = gs;
+		}
+		show("Cost is length plus penalties", same(router.cost(r), r.getLength() + penalties));
+
+		show("Optimality");
+		GeoSegment[] small = new RoadNetworkGenerator(43).grid(4, 4, 1000);
+		TurnCostRouter smallRouter = new TurnCostRouter(small);
+		GeoPoint p = small[0].getP1();
+		GeoPoint q = small[small.length - 1].getP1();
+		double best = Double.POSITIVE_INFINITY;
+		for (Route candidate : new AlternativeRoutes(small).shortestPaths(p, q, 100000))
+			best = Math.min(best, smallRouter.cost(candidate));
+		show("Route costs no more than any loopless route", smallRouter.cost(smallRouter.route(p, q)) <= best + tolerance);
+
+		show("Configurable penalties");
+		Map<TurnType, Double> free = new EnumMap<>(TurnType.class);
+		TurnCostRouter distance = new TurnCostRouter(mNetwork, free);
+		GeoPoint from = mNetwork[17].getP1();
+		GeoPoint to = mNetwork[mNetwork.length - 17].getP2();
+		show("Without penalties routes are shortest",
+			same(distance.route(from, to).getLength(), shortest.shortest(from, to).getLength()));
+		Map<TurnType, Double> noLefts = TurnCostRouter.defaultPenalties();
+		noLefts.put(TurnType.LEFT, 10.0);
+		noLefts.put(TurnType.SHARP_LEFT, 10.0);
+		noLefts.put(TurnType.U_TURN, 10.0);
+		Route rights = new TurnCostRouter(mNetwork, noLefts).route(from, to);
+		show("Costly lefts are avoided", count(rights, TurnType.LEFT, TurnType.SHARP_LEFT, TurnType.U_TURN) == 0
+			&& count(distance.route(from, to), TurnType.LEFT, TurnType.SHARP_LEFT) > 0);
+		show("Penalties are kept", new TurnCostRouter(mNetwork, noLefts).getPenalty(TurnType.SHARP_LEFT) == 10
+			&& distance.getPenalty(TurnType.U_TURN) == 0);
+		try {
+			noLefts.put(TurnType.RIGHT, -1.0);
+			new TurnCostRouter(mNetwork, noLefts);
+			show("Negative penalty is rejected", false);
+		} catch (IllegalArgumentException e) {
+			show("Negative penalty is rejected", true);
+		}
+
+		show("throughput");
+		List<GeoPoint> points = new ArrayList<>();
+		for (int k = 0; k < 1000; k++)
+			points.add(mNetwork[random.nextInt(mNetwork.length)].getP1());
+		long begin = System.nanoTime();
+		for (int k = 0; k + 1 < points.size(); k += 2)
+			shortest.shortest(points.get(k), points.get(k + 1));
+		double nodeBased = (System.nanoTime() - begin) / 1e9;
+		begin = System.nanoTime();
+		for (int k = 0; k + 1 < points.size(); k += 2)
+			router.route(points.get(k), points.get(k + 1));
+		double edgeBased = (System.nanoTime() - begin) / 1e9;
+		System.out.printf("  %d queries: %.3f s node-based, %.3f s with turn costs (%.1fx)%n",
+			points.size() / 2, nodeBased, edgeBased, edgeBased / nodeBased);
+	}
+
+
+	public static void main(String[] args) {
+		TurnCostRouterTest routerTest = new TurnCostRouterTest();
+		routerTest.test();
+	}
+}
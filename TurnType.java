@@ -0,0 +1,87 @@
+package homework1;
+
+/**
+ * A TurnType is the kind of turn made when going from one heading to
+ * another, as described by RouteFormatter.getTurnString.
+ * <p>
+ * Let the angle from the original heading to the new heading, clockwise, be
+ * a. The turn is classified as:
+ * <pre>
+ * CONTINUE             if a < 10 or a > 350
+ * SLIGHT_RIGHT         if 10 <= a < 60
+ * RIGHT                if 60 <= a < 120
+ * SHARP_RIGHT          if 120 <= a < 179
+ * U_TURN               if 179 <= a <= 181
+ * SHARP_LEFT           if 181 < a < 240
+ * LEFT                 if 240 <= a < 300
+ * SLIGHT_LEFT          if 300 <= a <= 350
+ * </pre>
+ */
+public enum TurnType {
+    CONTINUE("Continue"),
+    SLIGHT_RIGHT("Turn slight right"),
+    RIGHT("Turn right"),
+    SHARP_RIGHT("Turn sharp right"),
+    U_TURN("U-turn"),
+    SHARP_LEFT("Turn sharp left"),
+    LEFT("Turn left"),
+    SLIGHT_LEFT("Turn slight left");
+
+    private static final TurnType[] VALUES = values();
+
+    // BY_DEGREE[d] is the TurnType of every angle in [d, d + 1), or null for
+    // the two degrees (181 and 350) that contain a boundary
+    private static final TurnType[] BY_DEGREE = new TurnType[360];
+
+    static {
+        for (int d = 0; d < 360; d++) {
+            TurnType low = classifyAngle(d);
+            BY_DEGREE[d] = low == classifyAngle(Math.nextDown(d + 1.0)) ? low : null;
+        }
+    }
+
+    private final String text;
+
+    TurnType(String text) {
+        this.text = text;
+    }
+
+    /**
+     * Returns the English directions for this turn.
+     *
+     * @return the English directions for this turn, as returned by
+     * RouteFormatter.getTurnString.
+     */
+    public String getText() {
+        return text;
+    }
+
+    /**
+     * Classifies the turn between two headings. All but two whole degrees of
+     * the angle between the headings are classified by a table lookup.
+     *
+     * @requires 0 <= origHeading < 360 && 0 <= newHeading < 360
+     * @return the TurnType of going from origHeading to newHeading.
+     */
+    public static TurnType classify(double origHeading, double newHeading) {
+        double angle = (newHeading - origHeading + 360) % 360;
+        TurnType turn = BY_DEGREE[(int) angle];
+        return turn != null ? turn : classifyAngle(angle);
+    }
+
+    // The TurnType whose ordinal is ordinal, without copying values().
+    static TurnType ofOrdinal(int ordinal) {
+        return VALUES[ordinal];
+    }
+
+    private static TurnType classifyAngle(double angle) {
+        if (angle < 10 || angle > 350) return CONTINUE;
+        if (angle < 60) return SLIGHT_RIGHT;
+        if (angle < 120) return RIGHT;
+        if (angle < 179) return SHARP_RIGHT;
+        if (angle <= 181) return U_TURN;
+        if (angle < 240) return SHARP_LEFT;
+        if (angle < 300) return LEFT;
+        return SLIGHT_LEFT;
+    }
+}
@@ -0,0 +1,435 @@
+package homework1;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.IntStream;
+
+/**
+ * A UsageHeatmap counts how often each segment of a road network, and each
+ * street name, appears in the Routes being served, e.g. to show operators
+ * which streets are busy right now. Many threads can record routes into a
+ * UsageHeatmap at once, and read its counts while they do.
+ * <p>
+ * Counts are kept per time bucket, e.g. per minute, for a fixed number of
+ * recent buckets, so that queries can roll them up over any window of the
+ * most recent buckets: the last minute, the last hour, and so on. A
+ * segment counts once per appearance in a route; a name counts once per
+ * GeoFeature with that name. Segments and names that are not in the
+ * network are not counted.
+ * <p>
+ * Each bucket holds a table of primitive counters indexed by segment, and
+ * one indexed by name. A thread adds to a counter with a single
+ * compare-and-set, and only if that fails, because another thread is
+ * adding to the same counter, is the counter marked hot and moved to a
+ * LongAdder of its own, which spreads its updates over cells like any
+ * LongAdder. Busy counters thus never make threads spin on one cache line,
+ * while a bucket takes one table plus a LongAdder per contended counter,
+ * however large the network. Buckets are replaced, not cleared, when the
+ * clock moves past them, so recording never waits for a lock.
+ */
+public class UsageHeatmap {
+    private final RoadGraph graph;
+    private final int[] nameIndex;      // nameIndex[id] is the local index of name id, or -1
+    private final int[] names;          // names[n] is the name id of local index n
+    private final long bucketMillis;
+    private final Clock clock;
+    private final AtomicReferenceArray<Bucket> ring;
+
+    // Abs. Function:
+    //   represents, for each of the last ring.length() time buckets of
+    //   bucketMillis milliseconds on clock, the number of routes recorded in
+    //   it and the number of times each segment of graph (counted by edge),
+    //   and each name of its segments (counted by local index), appeared in
+    //   them; a bucket is in the slot of ring at its number modulo
+    //   ring.length()
+
+    // Rep. Invariant:
+    //   bucketMillis > 0 && ring.length() >= 1
+    //   nameIndex[names[n]] == n for every local index n
+    //   every bucket in ring has tables of graph.edgeCount() segment
+    //   counters and names.length name counters
+
+    private void checkRep() {
+        assert bucketMillis > 0 && ring.length() >= 1 : "Invalid buckets";
+        for (int n = 0; n < names.length; n++) {
+            assert nameIndex[names[n]] == n : "Name index mismatch";
+        }
+        for (int i = 0; i < ring.length(); i++) {
+            Bucket bucket = ring.get(i);
+            assert bucket == null || bucket.segments.size() == graph.edgeCount()
+                    && bucket.names.size() == names.length : "Bucket size mismatch";
+        }
+    }
+
+    /**
+     * Constructs a new UsageHeatmap on the system clock.
+     *
+     * @requires graph != null && bucket is positive && buckets >= 1
+     * @effects Constructs an empty UsageHeatmap over the segments of graph,
+     * which keeps counts per bucket of time for the last buckets buckets.
+     */
+    public UsageHeatmap(RoadGraph graph, Duration bucket, int buckets) {
+        this(graph, bucket, buckets, Clock.systemUTC());
+    }
+
+    /**
+     * Constructs a new UsageHeatmap.
+     *
+     * @requires graph != null && bucket is at least a millisecond &&
+     * buckets >= 1 && clock != null
+     * @effects Constructs an empty UsageHeatmap over the segments of graph,
+     * which keeps counts per bucket of time on clock for the last buckets
+     * buckets.
+     */
+    public UsageHeatmap(RoadGraph graph, Duration bucket, int buckets, Clock clock) {
+        this.graph = graph;
+        this.bucketMillis = bucket.toMillis();
+        this.clock = clock;
+        this.ring = new AtomicReferenceArray<>(buckets);
+        int maxId = -1;
+        for (int e = 0; e < graph.edgeCount(); e++) {
+            maxId = Math.max(maxId, graph.nameId(e));
+        }
+        this.nameIndex = new int[maxId + 1];
+        Arrays.fill(nameIndex, -1);
+        int count = 0;
+        for (int e = 0; e < graph.edgeCount(); e++) {
+            if (nameIndex[graph.nameId(e)] < 0) {
+                nameIndex[graph.nameId(e)] = count++;
+            }
+        }
+        this.names = new int[count];
+        for (int id = 0; id <= maxId; id++) {
+            if (nameIndex[id] >= 0) {
+                names[nameIndex[id]] = id;
+            }
+        }
+        checkRep();
+    }
+
+
+    /**
+     * Records that a route is being served.
+     *
+     * @requires route != null
+     * @modifies this
+     * @effects adds one to the route count of the current bucket, and one
+     * to its count of each segment of route and of the name of each feature
+     * of route, for those that are in the network.
+     */
+    public void record(Route route) {
+        checkRep();
+        Bucket bucket = current();
+        bucket.routes.increment();
+        int node = -1;
+        GeoPoint at = null;
+        for (Iterator<GeoSegment> it = route.getGeoSegments(); it.hasNext(); ) {
+            GeoSegment gs = it.next();
+            // consecutive segments share points, so each segment costs one
+            // node lookup rather than two
+            int v = gs.getP1().equals(at) ? node : graph.nodeOf(gs.getP1());
+            at = gs.getP2();
+            node = graph.nodeOf(at);
+            if (v < 0 || node < 0) {
+                continue;
+            }
+            for (int e = graph.firstEdge(v); e < graph.firstEdge(v + 1); e++) {
+                if (graph.target(e) == node && graph.nameId(e) == gs.getNameId()) {
+                    bucket.segments.add(e);
+                    break;
+                }
+            }
+        }
+        for (Iterator<GeoFeature> it = route.getGeoFeatures(); it.hasNext(); ) {
+            int id = it.next().getNameId();
+            if (id < nameIndex.length && nameIndex[id] >= 0) {
+                bucket.names.add(nameIndex[id]);
+            }
+        }
+        checkRep();
+    }
+
+    // The bucket of the current time, replacing the one in its slot if that
+    // is older.
+    private Bucket current() {
+        long number = Math.floorDiv(clock.millis(), bucketMillis);
+        int slot = (int) Math.floorMod(number, (long) ring.length());
+        while (true) {
+            Bucket bucket = ring.get(slot);
+            if (bucket != null && bucket.number >= number) {
+                return bucket;      // a bucket newer than number means the clock went back
+            }
+            Bucket fresh = new Bucket(number, graph.edgeCount(), names.length);
+            if (ring.compareAndSet(slot, bucket, fresh)) {
+                return fresh;
+            }
+        }
+    }
+
+
+    /**
+     * Returns the number of buckets kept.
+     *
+     * @return the number of buckets over which counts are kept.
+     */
+    public int getBuckets() {
+        return ring.length();
+    }
+
+
+    /**
+     * Counts the routes recorded in a window.
+     *
+     * @requires 1 <= buckets <= getBuckets()
+     * @return the number of routes recorded in the current bucket and the
+     * buckets - 1 buckets before it.
+     */
+    public long routeCount(int buckets) {
+        checkRep();
+        long sum = 0;
+        for (Bucket bucket : window(buckets)) {
+            sum += bucket.routes.sum();
+        }
+        checkRep();
+        return sum;
+    }
+
+
+    /**
+     * Counts the appearances of every segment in a window.
+     *
+     * @requires 1 <= buckets <= getBuckets()
+     * @return an array c such that c[i] is the number of appearances of the
+     * i'th segment of the catalog of the graph in the routes recorded in the
+     * current bucket and the buckets - 1 buckets before it.
+     */
+    public long[] segmentCounts(int buckets) {
+        checkRep();
+        long[] sum = sum(window(buckets), graph.edgeCount(), true);
+        long[] counts = new long[sum.length];
+        for (int e = 0; e < sum.length; e++) {
+            counts[graph.indexOf(e)] = sum[e];
+        }
+        checkRep();
+        return counts;
+    }
+
+
+    /**
+     * Counts the appearances of a segment in a window.
+     *
+     * @requires gs != null && 1 <= buckets <= getBuckets()
+     * @return the number of appearances of gs in the routes recorded in the
+     * current bucket and the buckets - 1 buckets before it; 0 if gs is not
+     * in the network.
+     */
+    public long segmentCount(GeoSegment gs, int buckets) {
+        checkRep();
+        int e = graph.edgeOf(gs);
+        long sum = 0;
+        if (e >= 0) {
+            for (Bucket bucket : window(buckets)) {
+                sum += bucket.segments.get(e);
+            }
+        }
+        checkRep();
+        return sum;
+    }
+
+
+    /**
+     * Counts the appearances of a name in a window.
+     *
+     * @requires name != null && 1 <= buckets <= getBuckets()
+     * @return the number of features named name in the routes recorded in
+     * the current bucket and the buckets - 1 buckets before it.
+     */
+    public long nameCount(String name, int buckets) {
+        checkRep();
+        int id = NameDictionary.lookup(name);
+        long sum = 0;
+        if (id >= 0 && id < nameIndex.length && nameIndex[id] >= 0) {
+            for (Bucket bucket : window(buckets)) {
+                sum += bucket.names.get(nameIndex[id]);
+            }
+        }
+        checkRep();
+        return sum;
+    }
+
+
+    /**
+     * Finds the busiest segments in a window.
+     *
+     * @requires k >= 0 && 1 <= buckets <= getBuckets()
+     * @return the min(k, m) segments of the network with the most
+     * appearances in the current bucket and the buckets - 1 buckets before
+     * it, with their counts, busiest first, where m is the number of
+     * segments that appeared at all; segments with equal counts are in an
+     * unspecified but fixed order.
+     */
+    public List<Map.Entry<GeoSegment, Long>> topSegments(int k, int buckets) {
+        checkRep();
+        long[] counts = sum(window(buckets), graph.edgeCount(), true);
+        List<Map.Entry<GeoSegment, Long>> top = new ArrayList<>();
+        for (int e : top(counts, k)) {
+            top.add(Map.entry(graph.segmentOf(e), counts[e]));
+        }
+        checkRep();
+        return top;
+    }
+
+
+    /**
+     * Finds the busiest street names in a window.
+     *
+     * @requires k >= 0 && 1 <= buckets <= getBuckets()
+     * @return the min(k, m) names of the network with the most features in
+     * the routes recorded in the current bucket and the buckets - 1 buckets
+     * before it, with their counts, busiest first, where m is the number of
+     * names that appeared at all; names with equal counts are in an
+     * unspecified but fixed order.
+     */
+    public List<Map.Entry<String, Long>> topNames(int k, int buckets) {
+        checkRep();
+        long[] counts = sum(window(buckets), names.length, false);
+        List<Map.Entry<String, Long>> top = new ArrayList<>();
+        for (int n : top(counts, k)) {
+            top.add(Map.entry(NameDictionary.nameOf(names[n]), counts[n]));
+        }
+        checkRep();
+        return top;
+    }
+
+    // The buckets of the window of the given size that hold counts.
+    private List<Bucket> window(int buckets) {
+        long number = Math.floorDiv(clock.millis(), bucketMillis);
+        List<Bucket> window = new ArrayList<>(buckets);
+        for (int i = 0; i < ring.length(); i++) {
+            Bucket bucket = ring.get(i);
+            if (bucket != null && bucket.number <= number && bucket.number > number - buckets) {
+                window.add(bucket);
+            }
+        }
+        return window;
+    }
+
+    // The sums of the segment or name counters of the given buckets.
+    private static long[] sum(List<Bucket> buckets, int size, boolean segments) {
+        long[] sum = new long[size];
+        for (Bucket bucket : buckets) {
+            (segments ? bucket.segments : bucket.names).addTo(sum);
+        }
+        return sum;
+    }
+
+    // The indices of the k largest positive counts, largest first, ties in
+    // index order. Ranges of counts are scanned in parallel, each keeping its
+    // own k best in a heap, and the results are merged.
+    private static int[] top(long[] counts, int k) {
+        Comparator<Integer> worseFirst = (a, b) -> counts[a] != counts[b]
+                ? Long.compare(counts[a], counts[b]) : Integer.compare(b, a);
+        int chunk = Math.max(1 << 14, counts.length / (4 * Runtime.getRuntime().availableProcessors()) + 1);
+        int chunks = (counts.length + chunk - 1) / chunk;
+        PriorityQueue<Integer> merged = IntStream.range(0, chunks).parallel()
+                .mapToObj(c -> {
+                    PriorityQueue<Integer> best = new PriorityQueue<>(worseFirst);
+                    for (int i = c * chunk; i < Math.min(counts.length, (c + 1) * chunk); i++) {
+                        if (counts[i] > 0 && k > 0) {
+                            if (best.size() < k) {
+                                best.add(i);
+                            } else if (worseFirst.compare(i, best.peek()) > 0) {
+                                best.poll();
+                                best.add(i);
+                            }
+                        }
+                    }
+                    return best;
+                })
+                .reduce(new PriorityQueue<>(worseFirst), (a, b) -> {
+                    PriorityQueue<Integer> both = new PriorityQueue<>(worseFirst);
+                    both.addAll(a);
+                    both.addAll(b);
+                    while (both.size() > k) {
+                        both.poll();
+                    }
+                    return both;
+                });
+        int[] top = new int[merged.size()];
+        for (int i = top.length - 1; i >= 0; i--) {
+            top[i] = merged.poll();
+        }
+        return top;
+    }
+
+    /**
+     * The counts of one bucket of time.
+     */
+    private static final class Bucket {
+        final long number;
+        final LongAdder routes = new LongAdder();
+        final HotCounters segments;
+        final HotCounters names;
+
+        Bucket(long number, int segments, int names) {
+            this.number = number;
+            this.segments = new HotCounters(segments);
+            this.names = new HotCounters(names);
+        }
+    }
+
+
+    /**
+     * A table of counters, each of which moves to a LongAdder of its own
+     * when two threads first add to it at once. A hot counter keeps the
+     * count it had when it moved in its slot of base, with the HOT bit set,
+     * and that slot is only read from then on.
+     */
+    private static final class HotCounters {
+        private static final long HOT = Long.MIN_VALUE;
+
+        private final AtomicLongArray base;
+        private final ConcurrentHashMap<Integer, LongAdder> hot = new ConcurrentHashMap<>();
+
+        HotCounters(int size) {
+            base = new AtomicLongArray(size);
+        }
+
+        int size() {
+            return base.length();
+        }
+
+        void add(int i) {
+            long value = base.get(i);
+            if (value >= 0 && base.compareAndSet(i, value, value + 1)) {
+                return;
+            }
+            // contended, or hot already: mark it hot for good
+            while (value >= 0 && !base.compareAndSet(i, value, value | HOT)) {
+                value = base.get(i);
+            }
+            hot.computeIfAbsent(i, k -> new LongAdder()).increment();
+        }
+
+        long get(int i) {
+            long value = base.get(i);
+            if (value >= 0) {
+                return value;
+            }
+            LongAdder adder = hot.get(i);
+            return (value & ~HOT) + (adder == null ? 0 : adder.sum());
+        }
+
+        void addTo(long[] sum) {
+            for (int i = 0; i < sum.length; i++) {
+                sum[i] += base.get(i) & ~HOT;
+            }
+            hot.forEach((i, adder) -> sum[i] += adder.sum());
+        }
+    }
+}
@@ -0,0 +1,193 @@
+package homework1;
+
+import java.time.*;
+import java.util.*;
+import java.util.stream.IntStream;
+
+public class UsageHeatmapTest {
+
+	private GeoSegment[] mNetwork;
+	private RoadGraph mGraph;
+	private List<Route> mRoutes;
+
+
+	/**
+	 * A clock that only moves when told to.
+	 */
+	static class ManualClock extends Clock {
+		private volatile long millis;
+
+		public void advance(Duration d) {
+			millis += d.toMillis();
+		}
+
+		public long millis() {
+			return millis;
+		}
+
+		public Instant instant() {
+			return Instant.ofEpochMilli(millis);
+		}
+
+		public ZoneId getZone() {
+			return ZoneOffset.UTC;
+		}
+
+		public Clock withZone(ZoneId zone) {
+			return this;
+		}
+	}
+
+
+	public UsageHeatmapTest() {
+		mNetwork = new RoadNetworkGenerator(47).organic(40, 40, 1000);
+		mGraph = new RoadGraph(mNetwork);
+		mRoutes = new ArrayList<>();
+		Random random = new Random(47);
+		while (mRoutes.size() < 2000) {
+			Route r = walk(random, 1 + random.nextInt(30));
+			if (r != null)
+				mRoutes.add(r);
+		}
+	}
+
+
+	// A random walk along the graph of at most the given number of edges, or
+	// null if it could not take a step.
+	private Route walk(Random random, int steps) {
+		int v = random.nextInt(mGraph.nodeCount());
+		int[] edges = new int[steps];
+		int count = 0;
+		while (count < steps && mGraph.firstEdge(v + 1) > mGraph.firstEdge(v)) {
+			int e = mGraph.firstEdge(v) + random.nextInt(mGraph.firstEdge(v + 1) - mGraph.firstEdge(v));
+			edges[count++] = e;
+			v = mGraph.target(e);
+		}
+		return count == 0 ? null : mGraph.toRoute(Arrays.copyOf(edges, count));
+	}
+
+
+	public void show(String str) {
+		System.out.println();
+		System.out.println("***** " + str + " *****");
+	}
+
+
+	public void show(String str, boolean ok) {
+		if (ok)
+			System.out.print("v ");
+		else
+			System.out.print("x ");
+		System.out.println(str);
+	}
+
+
+	// The counts of every segment and name in the given routes, by brute force.
+	static void count(List<Route> routes, Map<GeoSegment, Long> segments, Map<String, Long> names) {
+		for (Route r : routes) {
+			for (GeoSegment gs : RouteTest.toList(r.getGeoSegments()))
+				segments.merge(gs, 1L, Long::sum);
+			for (Iterator<GeoFeature> it = r.getGeoFeatures(); it.hasNext(); )
+				names.merge(it.next().getName(), 1L, Long::sum);
+		}
+	}
+
+
+	public void test() {
+		show("record()");
+		ManualClock clock = new ManualClock();
+		UsageHeatmap heatmap = new UsageHeatmap(mGraph, Duration.ofMinutes(1), 60, clock);
+		IntStream.range(0, 8).parallel().forEach(t -> {
+			for (Route r : mRoutes)
+				heatmap.record(r);
+		});
+		Map<GeoSegment, Long> segments = new HashMap<>();
+		Map<String, Long> names = new HashMap<>();
+		count(mRoutes, segments, names);
+		show("Every route is counted", heatmap.routeCount(1) == 8L * mRoutes.size());
+		long[] counts = heatmap.segmentCounts(1);
+		boolean exact = true;
+		for (int i = 0; i < mNetwork.length; i++)
+			exact &= counts[i] == 8 * segments.getOrDefault(mNetwork[i], 0L);
+		show("Segment counts are exact under concurrent recording", exact);
+		boolean byName = true;
+		for (Map.Entry<String, Long> e : names.entrySet())
+			byName &= heatmap.nameCount(e.getKey(), 1) == 8 * e.getValue();
+		show("Name counts are exact under concurrent recording", byName);
+		show("Segment count agrees with the table",
+			heatmap.segmentCount(mNetwork[5], 1) == counts[5]);
+		GeoSegment outside = new GeoSegment("Nowhere", new GeoPoint(0, 0), new GeoPoint(1000, 1000));
+		heatmap.record(new Route(outside));
+		show("Segments outside the network are not counted",
+			heatmap.segmentCount(outside, 1) == 0 && heatmap.nameCount("Nowhere", 1) == 0);
+		int known = NameDictionary.size();
+		show("Unknown names are not counted nor kept",
+			heatmap.nameCount("Never Mapped Street", 1) == 0 && NameDictionary.size() == known
+			&& NameDictionary.lookup("Never Mapped Street") == -1);
+
+		show("topSegments() and topNames()");
+		List<Map.Entry<GeoSegment, Long>> top = heatmap.topSegments(10, 1);
+		List<Long> expected = new ArrayList<>(segments.values());
+		expected.sort(Comparator.reverseOrder());
+		boolean ordered = top.size() == 10;
+		for (int k = 0; k < top.size(); k++)
+			ordered &= top.get(k).getValue() == 8 * expected.get(k)
+				&& top.get(k).getValue() == 8 * segments.get(top.get(k).getKey());
+		show("Top segments are the busiest, busiest first", ordered);
+		List<Map.Entry<String, Long>> topNames = heatmap.topNames(3, 1);
+		List<Long> expectedNames = new ArrayList<>(names.values());
+		expectedNames.sort(Comparator.reverseOrder());
+		boolean namesOrdered = topNames.size() == 3;
+		for (int k = 0; k < topNames.size(); k++)
+			namesOrdered &= topNames.get(k).getValue() == 8 * expectedNames.get(k);
+		show("Top names are the busiest, busiest first", namesOrdered);
+		show("Top-K of everything is every counted segment",
+			heatmap.topSegments(Integer.MAX_VALUE, 1).size() == segments.size());
+		show("Top-0 is empty", heatmap.topSegments(0, 1).isEmpty());
+
+		show("Windows");
+		ManualClock windowClock = new ManualClock();
+		UsageHeatmap windowed = new UsageHeatmap(mGraph, Duration.ofMinutes(1), 5, windowClock);
+		Route r = mRoutes.get(0);
+		GeoSegment first = RouteTest.toList(r.getGeoSegments()).get(0);
+		long once = RouteTest.toList(r.getGeoSegments()).stream().filter(first::equals).count();
+		for (int minute = 0; minute < 8; minute++) {
+			for (int k = 0; k <= minute; k++)
+				windowed.record(r);
+			windowClock.advance(Duration.ofMinutes(1));
+		}
+		// minutes 0..7 recorded 1..8 routes; now is minute 8, which is empty
+		show("Current bucket starts empty", windowed.routeCount(1) == 0);
+		show("Window of two buckets", windowed.routeCount(2) == 8);
+		show("Window of all buckets", windowed.routeCount(5) == 8 + 7 + 6 + 5);
+		show("Segments roll up over the window", windowed.segmentCount(first, 3) == once * (8 + 7));
+		windowClock.advance(Duration.ofMinutes(10));
+		show("Old buckets expire", windowed.routeCount(5) == 0 && windowed.topSegments(5, 5).isEmpty());
+
+		show("throughput");
+		int copies = 50;
+		UsageHeatmap single = new UsageHeatmap(mGraph, Duration.ofMinutes(1), 60);
+		long begin = System.nanoTime();
+		for (int c = 0; c < copies; c++)
+			for (Route route : mRoutes)
+				single.record(route);
+		double one = (System.nanoTime() - begin) / 1e9;
+		UsageHeatmap shared = new UsageHeatmap(mGraph, Duration.ofMinutes(1), 60);
+		begin = System.nanoTime();
+		IntStream.range(0, copies).parallel().forEach(c -> {
+			for (Route route : mRoutes)
+				shared.record(route);
+		});
+		double many = (System.nanoTime() - begin) / 1e9;
+		int total = copies * mRoutes.size();
+		System.out.printf("  %d routes: %.0f/min on one thread, %.0f/min on %d threads%n",
+			total, total / one * 60, total / many * 60, Runtime.getRuntime().availableProcessors());
+		show("Nothing is lost on many threads", shared.routeCount(2) == total);
+	}
+
+
+	public static void main(String[] args) {
+		UsageHeatmapTest heatmapTest = new UsageHeatmapTest();
+		heatmapTest.test();
+	}
+}
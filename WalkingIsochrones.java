@@ -0,0 +1,218 @@
+package homework1;
+
+import java.util.*;
+
+/**
+ * WalkingIsochrones finds everything that can be walked to within a time
+ * budget, e.g. "within 10 minutes' walk", from one or more origins on a road
+ * network. WalkingIsochrones are immutable and can be used by many threads
+ * at once.
+ * <p>
+ * Pedestrians walk at WalkingRouteFormatter.MINUTES_PER_KILOMETER and may
+ * walk along any segment in either direction. The budget is turned into a
+ * distance, and a Dijkstra search from all the origins at once, which stops
+ * at that distance, finds the walking distance to every point of the network
+ * within it. A segment between points at distances d1 and d2 is then
+ * reachable as a whole iff d1 + d2 + length <= 2 * budget, that is, iff the
+ * walks into it from its two ends meet; otherwise the reach from each end
+ * that is within the budget stops at a cut point inside the segment.
+ * The hull is the convex hull of the reachable points of the network and
+ * the cut points.
+ * <p>
+ * Searches run over a RoadGraph of the network, following its edges
+ * forwards and, through its reverse adjacency, backwards; each thread keeps
+ * its own GraphSearch, so batches of origins run in parallel without
+ * allocating search arrays per origin.
+ */
+public class WalkingIsochrones {
+    private final RoadGraph graph;
+    private final double[] lengths;
+    private final ThreadLocal<GraphSearch> searches;
+
+    // Abs. Function:
+    //   represents the walking network of the segments of graph, each of
+    //   which can be walked both ways
+
+    // Rep. Invariant:
+    //   graph != null && lengths[e] = graph.length(e) for every edge e
+
+    private void checkRep() {
+        assert lengths.length == graph.edgeCount() : "Every edge must have a length";
+    }
+
+    /**
+     * Constructs a new WalkingIsochrones.
+     *
+     * @requires network != null && network contains no null elements
+     * @effects Constructs a WalkingIsochrones over a copy of network.
+     */
+    public WalkingIsochrones(GeoSegment[] network) {
+        this.graph = new RoadGraph(network);
+        this.lengths = new double[graph.edgeCount()];
+        for (int e = 0; e < lengths.length; e++) {
+            lengths[e] = graph.length(e);
+        }
+        this.searches = ThreadLocal.withInitial(() -> new GraphSearch(graph));
+        checkRep();
+    }
+
+
+    /**
+     * Finds the part of the network that can be walked to from an origin.
+     *
+     * @requires origin != null && minutes >= 0
+     * @return the Isochrone of the points of the network that can be walked
+     * to from origin within minutes.
+     * @throws IllegalArgumentException if origin is not an endpoint of a
+     * segment of the network.
+     */
+    public Isochrone reachable(GeoPoint origin, double minutes) {
+        return reachable(List.of(origin), minutes);
+    }
+
+
+    /**
+     * Finds the part of the network that can be walked to from any of
+     * several origins, e.g. from any entrance of a station.
+     *
+     * @requires origins != null && origins contains no null elements &&
+     * minutes >= 0
+     * @return the Isochrone of the points of the network that can be walked
+     * to from some origin within minutes; an empty Isochrone if origins is
+     * empty.
+     * @throws IllegalArgumentException if some origin is not an endpoint of
+     * a segment of the network.
+     */
+    public Isochrone reachable(Collection<GeoPoint> origins, double minutes) {
+        checkRep();
+        int[] sources = new int[origins.size()];
+        int k = 0;
+        for (GeoPoint origin : origins) {
+            sources[k] = graph.nodeOf(origin);
+            if (sources[k] < 0) {
+                throw new IllegalArgumentException("Origin " + origin + " is not a point of the network.");
+            }
+            k++;
+        }
+        double budget = minutes / WalkingRouteFormatter.MINUTES_PER_KILOMETER;
+        GraphSearch search = searches.get();
+        int count = search.within(lengths, sources, budget, true);
+
+        int[] full = new int[16];
+        int fullCount = 0;
+        int[] partial = new int[16];
+        int partialCount = 0;
+        Set<GeoPoint> cutPoints = new LinkedHashSet<>();
+        List<GeoPoint> points = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            int v = search.settledNode(i);
+            double d = search.distance(v);
+            points.add(graph.pointOf(v));
+            // the segments at v, walked away from v: the edges leaving v
+            // forwards and the edges entering v backwards
+            int out = graph.firstEdge(v + 1) - graph.firstEdge(v);
+            int in = graph.firstInEdge(v + 1) - graph.firstInEdge(v);
+            for (int j = 0; j < out + in; j++) {
+                boolean forwards = j < out;
+                int e = forwards ? graph.firstEdge(v) + j : graph.inEdge(graph.firstInEdge(v) + j - out);
+                int w = forwards ? graph.target(e) : graph.source(e);
+                double length = lengths[e];
+                if (d + search.distance(w) + length <= 2 * budget) {
+                    if (fullCount == full.length) {
+                        full = Arrays.copyOf(full, 2 * fullCount);
+                    }
+                    full[fullCount++] = graph.indexOf(e);
+                } else if (d < budget) {
+                    if (partialCount == partial.length) {
+                        partial = Arrays.copyOf(partial, 2 * partialCount);
+                    }
+                    partial[partialCount++] = graph.indexOf(e);
+                    double t = (budget - d) / length;
+                    cutPoints.add(pointAt(graph.segmentOf(e), forwards ? t : 1 - t));
+                }
+            }
+        }
+        int[] segments = distinct(full, fullCount);
+        int[] partialSegments = Arrays.stream(distinct(partial, partialCount))
+                .filter(s -> Arrays.binarySearch(segments, s) < 0)
+                .toArray();
+        points.addAll(cutPoints);
+        return new Isochrone(minutes, segments, partialSegments, new ArrayList<>(cutPoints), hull(points));
+    }
+
+
+    /**
+     * Finds the part of the network that can be walked to from each of
+     * several origins, e.g. from every stop of a bus line. The origins are
+     * processed in parallel.
+     *
+     * @requires origins != null && origins contains no null elements &&
+     * minutes >= 0
+     * @return a list l such that l.get(i) equals
+     * reachable(origins.get(i), minutes) for every i.
+     * @throws IllegalArgumentException if some origin is not an endpoint of
+     * a segment of the network.
+     */
+    public List<Isochrone> reachableFromEach(List<GeoPoint> origins, double minutes) {
+        return origins.parallelStream()
+                .map(origin -> reachable(origin, minutes))
+                .toList();
+    }
+
+    // The distinct elements of a[0 .. count), in increasing order.
+    private static int[] distinct(int[] a, int count) {
+        Arrays.sort(a, 0, count);
+        int n = 0;
+        for (int i = 0; i < count; i++) {
+            if (n == 0 || a[i] != a[n - 1]) {
+                a[n++] = a[i];
+            }
+        }
+        return Arrays.copyOf(a, n);
+    }
+
+    private static GeoPoint pointAt(GeoSegment gs, double t) {
+        GeoPoint a = gs.getP1();
+        GeoPoint b = gs.getP2();
+        return new GeoPoint(
+                (int) Math.round(a.getLatitude() + t * (b.getLatitude() - a.getLatitude())),
+                (int) Math.round(a.getLongitude() + t * (b.getLongitude() - a.getLongitude())));
+    }
+
+    // The convex hull of points, counter-clockwise from the westernmost
+    // (then southernmost) point, by Andrew's monotone chain with exact
+    // long cross products, taking longitude as x and latitude as y.
+    private static List<GeoPoint> hull(List<GeoPoint> points) {
+        GeoPoint[] sorted = points.stream()
+                .distinct()
+                .sorted(Comparator.comparingInt(GeoPoint::getLongitude).thenComparingInt(GeoPoint::getLatitude))
+                .toArray(GeoPoint[]::new);
+        if (sorted.length < 3) {
+            return new ArrayList<>(Arrays.asList(sorted));
+        }
+        GeoPoint[] chain = new GeoPoint[2 * sorted.length];
+        int k = 0;
+        for (GeoPoint p : sorted) {                         // lower chain
+            while (k >= 2 && cross(chain[k - 2], chain[k - 1], p) <= 0) {
+                k--;
+            }
+            chain[k++] = p;
+        }
+        for (int i = sorted.length - 2, lower = k + 1; i >= 0; i--) {     // upper chain
+            while (k >= lower && cross(chain[k - 2], chain[k - 1], sorted[i]) <= 0) {
+                k--;
+            }
+            chain[k++] = sorted[i];
+        }
+        // the last point is the first one again
+        return new ArrayList<>(Arrays.asList(chain).subList(0, Math.max(k - 1, 2)));
+    }
+
+    private static long cross(GeoPoint o, GeoPoint a, GeoPoint b) {
+        long ax = a.getLongitude() - (long) o.getLongitude();
+        long ay = a.getLatitude() - (long) o.getLatitude();
+        long bx = b.getLongitude() - (long) o.getLongitude();
+        long by = b.getLatitude() - (long) o.getLatitude();
+        return ax * by - ay * bx;
+    }
+}
@@ -0,0 +1,172 @@
+package homework1;
+
+import java.util.*;
+
+public class WalkingIsochronesTest {
+
+	private static final double tolerance = 0.0001;
+
+	private GeoSegment[] mNetwork;
+	private WalkingIsochrones mIsochrones;
+
+
+	public WalkingIsochronesTest() {
+		mNetwork = new RoadNetworkGenerator(31).organic(40, 40, 1000);
+		mIsochrones = new WalkingIsochrones(mNetwork);
+	}
+
+
+	public void show(String str) {
+		System.out.println();
+		System.out.println("***** " + str + " *****");
+	}
+
+
+	public void show(String str, boolean ok) {
+		if (ok)
+			System.out.print("v ");
+		else
+			System.out.print("x ");
+		System.out.println(str);
+	}
+
+
+	// The walking distances from the origins to every point of the network,
+	// by a plain Dijkstra over a SegmentIndex of the segments and their
+	// reverses.
+	static Map<GeoPoint, Double> walkingDistances(GeoSegment[] network, Collection<GeoPoint> origins) {
+		List<GeoSegment> twoWay = new ArrayList<>(Arrays.asList(network));
+		for (GeoSegment gs : network)
+			twoWay.add(gs.reverse());
+		SegmentIndex index = new SegmentIndex(twoWay.toArray(new GeoSegment[0]));
+		Map<GeoPoint, Double> distances = new HashMap<>();
+		PriorityQueue<Map.Entry<GeoPoint, Double>> queue = new PriorityQueue<>(Map.Entry.comparingByValue());
+		for (GeoPoint origin : origins) {
+			distances.put(origin, 0.0);
+			queue.add(Map.entry(origin, 0.0));
+		}
+		while (!queue.isEmpty()) {
+			Map.Entry<GeoPoint, Double> head = queue.poll();
+			if (head.getValue() > distances.get(head.getKey()))
+				continue;
+			for (GeoSegment gs : index.startingAt(head.getKey())) {
+				double d = head.getValue() + gs.getLength();
+				Double old = distances.get(gs.getP2());
+				if (old == null || d < old) {
+					distances.put(gs.getP2(), d);
+					queue.add(Map.entry(gs.getP2(), d));
+				}
+			}
+		}
+		return distances;
+	}
+
+
+	// Tells whether p is inside or on the counter-clockwise polygon hull.
+	static boolean inside(List<GeoPoint> hull, GeoPoint p) {
+		for (int i = 0; i < hull.size(); i++) {
+			GeoPoint a = hull.get(i);
+			GeoPoint b = hull.get((i + 1) % hull.size());
+			long cross = (b.getLongitude() - (long) a.getLongitude()) * (p.getLatitude() - (long) a.getLatitude())
+				- (b.getLatitude() - (long) a.getLatitude()) * (p.getLongitude() - (long) a.getLongitude());
+			if (cross < 0)
+				return false;
+		}
+		return true;
+	}
+
+
+	public void test() {
+		show("reachable()");
+		GeoPoint origin = mNetwork[mNetwork.length / 2].getP1();
+		double minutes = 10;
+		double budget = minutes / WalkingRouteFormatter.MINUTES_PER_KILOMETER;
+		Isochrone isochrone = mIsochrones.reachable(origin, minutes);
+		Map<GeoPoint, Double> distances = walkingDistances(mNetwork, List.of(origin));
+		boolean full = true;
+		boolean partial = true;
+		int expectedCount = 0;
+		for (int i = 0; i < mNetwork.length; i++) {
+			Double d1 = distances.get(mNetwork[i].getP1());
+			Double d2 = distances.get(mNetwork[i].getP2());
+			boolean whole = d1 != null && d2 != null && d1 + d2 + mNetwork[i].getLength() <= 2 * budget + 1e-9;
+			boolean some = d1 != null && d2 != null && Math.min(d1, d2) < budget;
+			if (whole)
+				expectedCount++;
+			full &= isochrone.reaches(i) == whole || Math.abs(d1 + d2 + mNetwork[i].getLength() - 2 * budget) < 1e-9;
+			partial &= Arrays.binarySearch(isochrone.getPartialSegments(), i) >= 0 == (some && !whole);
+		}
+		show("Reachable segments are those walked to within the budget",
+			full && Math.abs(isochrone.getSegments().length - expectedCount) <= 1);
+		show("Partly reachable segments are those walked into", partial);
+		show("Some segments are reachable", isochrone.getSegments().length > 10);
+		boolean cuts = !isochrone.getCutPoints().isEmpty();
+		for (GeoPoint cut : isochrone.getCutPoints())
+			cuts &= origin.distanceTo(cut) <= budget + tolerance;
+		show("Cut points are within the budget as the crow flies", cuts);
+		boolean hull = isochrone.getHull().size() >= 3;
+		for (int i : isochrone.getSegments())
+			hull &= inside(isochrone.getHull(), mNetwork[i].getP1()) && inside(isochrone.getHull(), mNetwork[i].getP2());
+		for (GeoPoint cut : isochrone.getCutPoints())
+			hull &= inside(isochrone.getHull(), cut);
+		show("Hull holds the reachable segments and cut points", hull);
+		show("Hull corners are reachable points", isochrone.getHull().stream().allMatch(p ->
+			isochrone.getCutPoints().contains(p) || distances.getOrDefault(p, Double.POSITIVE_INFINITY) <= budget));
+
+		show("Budgets");
+		Isochrone nothing = mIsochrones.reachable(origin, 0);
+		show("Nothing is reachable without time", nothing.getSegments().length == 0
+			&& nothing.getPartialSegments().length == 0 && nothing.getHull().equals(List.of(origin)));
+		Isochrone more = mIsochrones.reachable(origin, 2 * minutes);
+		boolean grows = true;
+		for (int i : isochrone.getSegments())
+			grows &= more.reaches(i);
+		show("More time reaches more", grows && more.getSegments().length > isochrone.getSegments().length);
+
+		show("Several origins");
+		GeoPoint other = mNetwork[mNetwork.length / 3].getP1();
+		Isochrone both = mIsochrones.reachable(List.of(origin, other), minutes);
+		Isochrone fromOther = mIsochrones.reachable(other, minutes);
+		boolean union = true;
+		for (int i : isochrone.getSegments())
+			union &= both.reaches(i);
+		for (int i : fromOther.getSegments())
+			union &= both.reaches(i);
+		show("Several origins reach what each does", union);
+		show("No origins reach nothing", mIsochrones.reachable(List.of(), minutes).getSegments().length == 0);
+		try {
+			mIsochrones.reachable(new GeoPoint(0, 0), minutes);
+			show("Origin outside the network is rejected", false);
+		} catch (IllegalArgumentException e) {
+			show("Origin outside the network is rejected", true);
+		}
+
+		show("reachableFromEach()");
+		List<GeoPoint> origins = new ArrayList<>();
+		Random random = new Random(32);
+		for (int k = 0; k < 2000; k++)
+			origins.add(mNetwork[random.nextInt(mNetwork.length)].getP1());
+		List<Isochrone> each = mIsochrones.reachableFromEach(origins, minutes);
+		boolean same = each.size() == origins.size();
+		for (int k = 0; k < 20; k++)
+			same &= Arrays.equals(each.get(k).getSegments(), mIsochrones.reachable(origins.get(k), minutes).getSegments());
+		show("Batch gives the isochrone of each origin", same);
+
+		show("throughput");
+		long begin = System.nanoTime();
+		for (GeoPoint o : origins)
+			mIsochrones.reachable(o, minutes);
+		double sequential = (System.nanoTime() - begin) / 1e9;
+		begin = System.nanoTime();
+		mIsochrones.reachableFromEach(origins, minutes);
+		double parallel = (System.nanoTime() - begin) / 1e9;
+		System.out.printf("  %d isochrones: %.3f s one by one, %.3f s in parallel%n",
+			origins.size(), sequential, parallel);
+	}
+
+
+	public static void main(String[] args) {
+		WalkingIsochronesTest isochronesTest = new WalkingIsochronesTest();
+		isochronesTest.test();
+	}
+}
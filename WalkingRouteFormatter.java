@@ -26,6 +26,11 @@ import java.text.DecimalFormat;
  **/
 public class WalkingRouteFormatter extends RouteFormatter {
 
+    /**
+     * The assumed walking speed, in minutes per kilometer.
+     */
+    public static final int MINUTES_PER_KILOMETER = 20;
+
     /**
      * Computes a single line of a multi-line directions String that
      * represents the instructions for walking along a single geographic
@@ -53,9 +58,21 @@ public class WalkingRouteFormatter extends RouteFormatter {
      * @requires 0 <= origHeading < 360
      **/
     public String computeLine(GeoFeature geoFeature, double origHeading) {
-        String turn = getTurnString(origHeading, geoFeature.getStartHeading());
-        String name = geoFeature.getName();
-        long minutes = Math.round(geoFeature.getLength() * 20); // 20 min/km
-        return String.format("%s onto %s and walk for %d minutes.\n", turn, name, minutes);
+        StringBuilder line = new StringBuilder();
+        appendLine(line, TurnType.classify(origHeading, geoFeature.getStartHeading()),
+                geoFeature.getName(), geoFeature.getLength());
+        return line.toString();
+    }
+
+    @Override
+    protected boolean appendsLines() {
+        return true;
+    }
+
+    @Override
+    protected void appendLine(StringBuilder out, TurnType turn, String name, double length) {
+        long minutes = Math.round(length * MINUTES_PER_KILOMETER);
+        out.append(turn.getText()).append(" onto ").append(name)
+                .append(" and walk for ").append(minutes).append(" minutes.\n");
     }
 }